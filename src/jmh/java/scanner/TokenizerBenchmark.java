@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.*;
+import java.nio.charset.*;
+import java.util.concurrent.*;
+
+/**
+ * Compares the [DfaLexer] with the hand-written operator trie and keyword hash on the same input. Run with
+ * {@code mvn -P jmh package && java -jar target/benchmarks.jar TokenizerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenizerBenchmark {
+	private static final String TEMPLATE = """
+			// Declarations, control flow and every operator class, so that each kind of token is exercised.
+			struct Point%1$d {
+				x: int;
+				y: float;
+			}
+
+			fun distance%1$d(a: Point%1$d, b: Point%1$d): float {
+				var dx = a.x - b.x;
+				var dy = a.y - b.y;
+				return (dx ** 2 + dy ** 2) / 2.5e0;
+			}
+
+			fun classify%1$d(value: int): int {
+				if (value <= 0x10 && value >= -%1$d || value != 42) {
+					value <<= 2;
+					value >>= 1;
+				} else {
+					value = value << 3 | value >> 1 & ~value ^ 7 %% 5;
+				}
+				for (var i: int = 0; i < 25; i++) {
+					value += i > 3 ? i : -i;
+				}
+				print("value " + value + '\\n');
+				return value;
+			}
+			""";
+
+	@Param({"dfa", "handWritten"})
+	public String lexer;
+
+	@Param({"string", "utf8"})
+	public String encoding;
+
+	@Param({"2000"})
+	public int copies;
+
+	private CharSequence input;
+	private boolean useDfa;
+
+	@Setup
+	public void setUp() {
+		StringBuilder text = new StringBuilder(copies * TEMPLATE.length());
+		for (int i = 0; i < copies; i++) {
+			text.append(TEMPLATE.formatted(i));
+		}
+		String source = text.toString();
+		input = encoding.equals("utf8") ? new Utf8Source(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)))
+										: source;
+		useDfa = lexer.equals("dfa");
+	}
+
+	@Benchmark
+	public TokenBuffer scan() {
+		return Tokenizer.scan(input, useDfa);
+	}
+}
@@ -0,0 +1,599 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package visitor;
+
+import AST.*;
+import AST.Declarations.*;
+import AST.Expressions.*;
+import AST.Flat.*;
+import AST.Statements.*;
+import org.openjdk.jmh.annotations.*;
+import parser.*;
+import scanner.*;
+import utils.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Compares ways of dispatching on the class of a node by counting the nodes of a large program with each: an
+ * [IntVisitor], a [Visitor] whose boxed results are unboxed at every level, a pattern-matching {@code switch}, and a
+ * walk over the [FlatAST] of the same program that switches on the [Kind]. Run with
+ * {@code mvn -P jmh package && java -jar target/benchmarks.jar DispatchBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+	private static final String TEMPLATE = """
+			struct Point%1$d {
+				var x: int;
+				var y: float;
+			}
+
+			fun distance%1$d(a: Point%1$d, b: Point%1$d): float {
+				var dx = a.x - b.x;
+				var dy = a.y - b.y;
+				return (dx ** 2 + dy ** 2) / 2.5;
+			}
+
+			fun classify%1$d(value: int): int {
+				if (value <= 16 && value >= -%1$d || value != 42) {
+					value <<= 2;
+				} else {
+					value = value << 3 | value >> 1 & ~value ^ 7 %% 5;
+				}
+				for (var i: int = 0; i < 25; i++) {
+					value += i > 3 ? i : -i;
+				}
+				while (value > 100) {
+					value = value / 2;
+				}
+				switch (value) {
+					case 1: { return distance%1$d(value, value * 2); }
+					case 2: { print("two " + 'c'); }
+				}
+				return value;
+			}
+			""";
+
+	@Param({"2000"})
+	public int copies;
+
+	private List<Declaration> program;
+	private FlatAST flat;
+
+	@Setup
+	public void setUp() {
+		StringBuilder text = new StringBuilder(copies * TEMPLATE.length());
+		for (int i = 0; i < copies; i++) {
+			text.append(TEMPLATE.formatted(i));
+		}
+		TokenBuffer tokens = Tokenizer.scan(text);
+		ParsingContext context = new ParsingContext(tokens);
+		program = DeclarationParser.parseProgram(context);
+		if (!context.diagnostics().isEmpty()) {
+			throw new IllegalStateException("The benchmark program has syntax errors: " + context.diagnostics());
+		}
+		flat = FlatAST.from(program, tokens.names());
+	}
+
+	@Benchmark
+	public int intVisitor() {
+		NodeCounter counter = new NodeCounter();
+		int count = 0;
+		for (Declaration declaration : program) {
+			count += declaration.accept(counter);
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int boxingVisitor() {
+		BoxingNodeCounter counter = new BoxingNodeCounter();
+		int count = 0;
+		for (Declaration declaration : program) {
+			count += declaration.accept(counter);
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int patternSwitch() {
+		int count = 0;
+		for (Declaration declaration : program) {
+			count += count(declaration);
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int flatKindSwitch() {
+		int[] count = new int[1];
+		flat.walk((tree, node) -> {
+			switch (tree.kind(node)) {
+				case PROGRAM, NONE, NAME, PARAMETER, CASE, ENUM_MEMBER, INITIALIZERS -> {
+				}
+				default -> count[0]++;
+			}
+			return true;
+		});
+		return count[0];
+	}
+
+	private static int count(ASTRoot node) {
+		return switch (node) {
+			case null -> 0;
+			case BinaryOp op -> 1 + count(op.left) + count(op.right);
+			case UnaryOp op -> 1 + count(op.inner);
+			case VariableAccess ignored -> 1;
+			case IntegerNode ignored -> 1;
+			case Call call -> 1 + count(call.params);
+			case ListAccess access -> 1 + count(access.index);
+			case ScopeOf scope -> 1 + count(scope.perform);
+			case Modify modify -> 1 + count(modify.ident) + count(modify.modifyBy);
+			case Ternary ternary -> 1 + count(ternary.condition) + count(ternary.consequent) + count(ternary.alternate);
+			case Floating ignored -> 1;
+			case Bool ignored -> 1;
+			case StringLit ignored -> 1;
+			case CharNode ignored -> 1;
+			case Lambda lambda -> 1 + count(lambda.block);
+			case ErrorNode ignored -> 1;
+			case Block block -> 1 + count(block.statements);
+			case Assignment assignment -> 1 + count(assignment.ident) + count(assignment.expr);
+			case If conditional ->
+					1 + count(conditional.conditional) + count(conditional.consequent) + count(conditional.alternate);
+			case Return ret -> 1 + count(ret.expr);
+			case While loop -> 1 + count(loop.conditional) + count(loop.body);
+			case For loop ->
+					1 + count(loop.initializer) + count(loop.conditional) + count(loop.iteration) + count(loop.body);
+			case ForEach loop -> 1 + count(loop.body);
+			case DoWhile loop -> 1 + count(loop.conditional) + count(loop.body);
+			case Switch switch_ -> 1 + count(switch_.switchon) + countCases(switch_.cases);
+			case Continue ignored -> 1;
+			case Break ignored -> 1;
+			case Label ignored -> 1;
+			case Goto ignored -> 1;
+			case Try try_ -> 1 + count(try_.block) + count(try_.catch_);
+			case Throw throw_ -> 1 + count(throw_.params);
+			case SimpleVarDeclaration var -> 1 + count(var.definition);
+			case FunctionDeclaration function -> 1 + count(function.body);
+			case ArrayDeclaration array -> 1 + count(array.definition);
+			case ClassDeclaration class_ -> 1 + count(class_.members);
+			case StructDeclaration struct -> 1 + count(struct.members);
+			case EnumDeclaration ignored -> 1;
+			default -> throw new IllegalArgumentException("Cannot count " + node.nodeToString() + ".");
+		};
+	}
+
+	private static int count(List<? extends ASTRoot> nodes) {
+		int count = 0;
+		if (nodes != null) {
+			for (ASTRoot node : nodes) {
+				count += count(node);
+			}
+		}
+		return count;
+	}
+
+	private static int countCases(List<Entry<Expression, Statement>> cases) {
+		int count = 0;
+		for (Entry<Expression, Statement> entry : cases) {
+			count += count(entry.key()) + count(entry.value());
+		}
+		return count;
+	}
+
+	/**
+	 * Counts the nodes of a subtree without boxing.
+	 */
+	private static final class NodeCounter implements IntVisitor {
+		private int count(ASTRoot node) {
+			return node != null ? node.accept(this) : 0;
+		}
+
+		private int count(List<? extends ASTRoot> nodes) {
+			int count = 0;
+			if (nodes != null) {
+				for (ASTRoot node : nodes) {
+					count += node.accept(this);
+				}
+			}
+			return count;
+		}
+
+		@Override
+		public int visit(Lambda node) {
+			return 1 + count(node.block);
+		}
+
+		@Override
+		public int visit(BinaryOp node) {
+			return 1 + count(node.left) + count(node.right);
+		}
+
+		@Override
+		public int visit(UnaryOp node) {
+			return 1 + count(node.inner);
+		}
+
+		@Override
+		public int visit(Ternary node) {
+			return 1 + count(node.condition) + count(node.consequent) + count(node.alternate);
+		}
+
+		@Override
+		public int visit(ListAccess node) {
+			return 1 + count(node.index);
+		}
+
+		@Override
+		public int visit(VariableAccess node) {
+			return 1;
+		}
+
+		@Override
+		public int visit(Modify node) {
+			return 1 + count(node.ident) + count(node.modifyBy);
+		}
+
+		@Override
+		public int visit(ScopeOf node) {
+			return 1 + count(node.perform);
+		}
+
+		@Override
+		public int visit(Call node) {
+			return 1 + count(node.params);
+		}
+
+		@Override
+		public int visit(IntegerNode node) {
+			return 1;
+		}
+
+		@Override
+		public int visit(Floating node) {
+			return 1;
+		}
+
+		@Override
+		public int visit(Bool node) {
+			return 1;
+		}
+
+		@Override
+		public int visit(StringLit node) {
+			return 1;
+		}
+
+		@Override
+		public int visit(CharNode node) {
+			return 1;
+		}
+
+		@Override
+		public int visit(ErrorNode node) {
+			return 1;
+		}
+
+		@Override
+		public int visit(If node) {
+			return 1 + count(node.conditional) + count(node.consequent) + count(node.alternate);
+		}
+
+		@Override
+		public int visit(For node) {
+			return 1 + count(node.initializer) + count(node.conditional) + count(node.iteration) + count(node.body);
+		}
+
+		@Override
+		public int visit(ForEach node) {
+			return 1 + count(node.body);
+		}
+
+		@Override
+		public int visit(While node) {
+			return 1 + count(node.conditional) + count(node.body);
+		}
+
+		@Override
+		public int visit(DoWhile node) {
+			return 1 + count(node.conditional) + count(node.body);
+		}
+
+		@Override
+		public int visit(Continue node) {
+			return 1;
+		}
+
+		@Override
+		public int visit(Break node) {
+			return 1;
+		}
+
+		@Override
+		public int visit(Label node) {
+			return 1;
+		}
+
+		@Override
+		public int visit(Switch node) {
+			int count = 1 + count(node.switchon);
+			for (Entry<Expression, Statement> entry : node.cases) {
+				count += count(entry.key()) + count(entry.value());
+			}
+			return count;
+		}
+
+		@Override
+		public int visit(Assignment node) {
+			return 1 + count(node.ident) + count(node.expr);
+		}
+
+		@Override
+		public int visit(Return node) {
+			return 1 + count(node.expr);
+		}
+
+		@Override
+		public int visit(Goto node) {
+			return 1;
+		}
+
+		@Override
+		public int visit(Try node) {
+			return 1 + count(node.block) + count(node.catch_);
+		}
+
+		@Override
+		public int visit(Throw node) {
+			return 1 + count(node.params);
+		}
+
+		@Override
+		public int visit(Block node) {
+			return 1 + count(node.statements);
+		}
+
+		@Override
+		public int visit(SimpleVarDeclaration node) {
+			return 1 + count(node.definition);
+		}
+
+		@Override
+		public int visit(ArrayDeclaration node) {
+			return 1 + count(node.definition);
+		}
+
+		@Override
+		public int visit(EnumDeclaration node) {
+			return 1;
+		}
+
+		@Override
+		public int visit(ClassDeclaration node) {
+			return 1 + count(node.members);
+		}
+
+		@Override
+		public int visit(StructDeclaration node) {
+			return 1 + count(node.members);
+		}
+
+		@Override
+		public int visit(FunctionDeclaration node) {
+			return 1 + count(node.body);
+		}
+	}
+
+	/**
+	 * Counts the nodes of a subtree the way a visitor that returns objects must, boxing each count.
+	 */
+	private static final class BoxingNodeCounter implements Visitor<Integer> {
+		private int count(ASTRoot node) {
+			return node != null ? node.accept(this) : 0;
+		}
+
+		private int count(List<? extends ASTRoot> nodes) {
+			int count = 0;
+			if (nodes != null) {
+				for (ASTRoot node : nodes) {
+					count += node.accept(this);
+				}
+			}
+			return count;
+		}
+
+		@Override
+		public Integer visit(Lambda node) {
+			return 1 + count(node.block);
+		}
+
+		@Override
+		public Integer visit(BinaryOp node) {
+			return 1 + count(node.left) + count(node.right);
+		}
+
+		@Override
+		public Integer visit(UnaryOp node) {
+			return 1 + count(node.inner);
+		}
+
+		@Override
+		public Integer visit(Ternary node) {
+			return 1 + count(node.condition) + count(node.consequent) + count(node.alternate);
+		}
+
+		@Override
+		public Integer visit(ListAccess node) {
+			return 1 + count(node.index);
+		}
+
+		@Override
+		public Integer visit(VariableAccess node) {
+			return 1;
+		}
+
+		@Override
+		public Integer visit(Modify node) {
+			return 1 + count(node.ident) + count(node.modifyBy);
+		}
+
+		@Override
+		public Integer visit(ScopeOf node) {
+			return 1 + count(node.perform);
+		}
+
+		@Override
+		public Integer visit(Call node) {
+			return 1 + count(node.params);
+		}
+
+		@Override
+		public Integer visit(IntegerNode node) {
+			return 1;
+		}
+
+		@Override
+		public Integer visit(Floating node) {
+			return 1;
+		}
+
+		@Override
+		public Integer visit(Bool node) {
+			return 1;
+		}
+
+		@Override
+		public Integer visit(StringLit node) {
+			return 1;
+		}
+
+		@Override
+		public Integer visit(CharNode node) {
+			return 1;
+		}
+
+		@Override
+		public Integer visit(ErrorNode node) {
+			return 1;
+		}
+
+		@Override
+		public Integer visit(If node) {
+			return 1 + count(node.conditional) + count(node.consequent) + count(node.alternate);
+		}
+
+		@Override
+		public Integer visit(For node) {
+			return 1 + count(node.initializer) + count(node.conditional) + count(node.iteration) + count(node.body);
+		}
+
+		@Override
+		public Integer visit(ForEach node) {
+			return 1 + count(node.body);
+		}
+
+		@Override
+		public Integer visit(While node) {
+			return 1 + count(node.conditional) + count(node.body);
+		}
+
+		@Override
+		public Integer visit(DoWhile node) {
+			return 1 + count(node.conditional) + count(node.body);
+		}
+
+		@Override
+		public Integer visit(Continue node) {
+			return 1;
+		}
+
+		@Override
+		public Integer visit(Break node) {
+			return 1;
+		}
+
+		@Override
+		public Integer visit(Label node) {
+			return 1;
+		}
+
+		@Override
+		public Integer visit(Switch node) {
+			int count = 1 + count(node.switchon);
+			for (Entry<Expression, Statement> entry : node.cases) {
+				count += count(entry.key()) + count(entry.value());
+			}
+			return count;
+		}
+
+		@Override
+		public Integer visit(Assignment node) {
+			return 1 + count(node.ident) + count(node.expr);
+		}
+
+		@Override
+		public Integer visit(Return node) {
+			return 1 + count(node.expr);
+		}
+
+		@Override
+		public Integer visit(Goto node) {
+			return 1;
+		}
+
+		@Override
+		public Integer visit(Try node) {
+			return 1 + count(node.block) + count(node.catch_);
+		}
+
+		@Override
+		public Integer visit(Throw node) {
+			return 1 + count(node.params);
+		}
+
+		@Override
+		public Integer visit(Block node) {
+			return 1 + count(node.statements);
+		}
+
+		@Override
+		public Integer visit(SimpleVarDeclaration node) {
+			return 1 + count(node.definition);
+		}
+
+		@Override
+		public Integer visit(ArrayDeclaration node) {
+			return 1 + count(node.definition);
+		}
+
+		@Override
+		public Integer visit(EnumDeclaration node) {
+			return 1;
+		}
+
+		@Override
+		public Integer visit(ClassDeclaration node) {
+			return 1 + count(node.members);
+		}
+
+		@Override
+		public Integer visit(StructDeclaration node) {
+			return 1 + count(node.members);
+		}
+
+		@Override
+		public Integer visit(FunctionDeclaration node) {
+			return 1 + count(node.body);
+		}
+	}
+}
@@ -9,9 +9,18 @@ package AST;
 import TypeAndSymbolAnnotator.*;
 import visitor.*;
 
-public abstract class ASTRoot implements Visitable {
-	private final int line;
-	private final int character;
+/**
+ * The base of every node. Each class of node is final, and [Visitor] and [IntVisitor] have a method for each, so a
+ * pass written as a visitor is checked to handle every node. [Declaration] is the only subclass, and is non-sealed:
+ * outside a named module a sealed class can only permit classes in its own package, and the nodes are in the packages
+ * below this one.
+ */
+public abstract sealed class ASTRoot implements Visitable permits Declaration {
+	private int line;
+	private int character;
+	private int firstToken = -1;
+	private int tokenEnd = -1;
+	private int id = -1;
 	private Type associatedType;
 
 	private boolean isTyped;
@@ -34,6 +43,20 @@ public abstract class ASTRoot implements Visitable {
 
 	public abstract String nodeToString();
 
+	/**
+	 * The node's index among the nodes of its tree, or -1 if it has none. The parser numbers a program's nodes densely
+	 * from 0 with [NodeIds#assign(java.util.List)], so that passes can keep what they find about nodes in side tables
+	 * such as [NodeMap] rather than in the nodes. A tree read lazily from a binary file has unique ids with gaps, as
+	 * [NodeIds] describes.
+	 */
+	public int getId() {
+		return id;
+	}
+
+	public void setId(int id) {
+		this.id = id;
+	}
+
 	public int getLine() {
 		return line;
 	}
@@ -42,7 +65,53 @@ public abstract class ASTRoot implements Visitable {
 		return character;
 	}
 
-	public record TypedVar(String name, String type) {
+	/**
+	 * The index of the node's first token in the token buffer it was parsed from, or -1 if the parser did not
+	 * record its extent. Extents are recorded for declarations, statements and blocks.
+	 */
+	public int getFirstToken() {
+		return firstToken;
+	}
+
+	/**
+	 * The index just past the node's last token, or -1 if the parser did not record its extent.
+	 */
+	public int getTokenEnd() {
+		return tokenEnd;
+	}
+
+	public void setTokenRange(int firstToken, int tokenEnd) {
+		this.firstToken = firstToken;
+		this.tokenEnd = tokenEnd;
+	}
+
+	/**
+	 * Moves a node that an incremental reparse keeps from the previous tree to where its source now is.
+	 *
+	 * @param tokenShift The number of tokens inserted before the node, less the number removed.
+	 */
+	public void relocate(int line, int character, int tokenShift) {
+		this.line = line;
+		this.character = character;
+		if (firstToken >= 0) {
+			firstToken += tokenShift;
+			tokenEnd += tokenShift;
+		}
+	}
+
+	/**
+	 * A name and its type. The ids are their entries in the [scanner.NameTable] the source was lexed with, or -1 where
+	 * there is none, such as for an inferred type.
+	 */
+	public record TypedVar(String name, String type, int nameId, int typeId) {
+		public TypedVar(String name, String type) {
+			this(name, type, -1, -1);
+		}
+
+		@Override
+		public String toString() {
+			return "TypedVar[name=" + name + ", type=" + type + "]";
+		}
 	}
 }
 
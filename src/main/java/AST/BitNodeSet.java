@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package AST;
+
+import java.util.*;
+
+/**
+ * A set of the nodes of a numbered tree, one bit per node id, for passes that only mark nodes, such as finding the
+ * pure expressions or the live statements. A set is not safe to change from several threads at once.
+ */
+public final class BitNodeSet {
+	private long[] words;
+	private int size;
+
+	public BitNodeSet() {
+		this(64);
+	}
+
+	/**
+	 * @param capacity The number of nodes in the tree, as [NodeIds#assign(List)] returns it. The set grows past it if
+	 *                 it must.
+	 */
+	public BitNodeSet(int capacity) {
+		words = new long[Math.max((capacity + 63) >>> 6, 1)];
+	}
+
+	public boolean contains(ASTRoot node) {
+		int id = NodeIds.of(node);
+		int word = id >>> 6;
+		return word < words.length && (words[word] & 1L << id) != 0;
+	}
+
+	/**
+	 * @return Whether the node was not already in the set.
+	 */
+	public boolean add(ASTRoot node) {
+		int id = NodeIds.of(node);
+		int word = id >>> 6;
+		if (word >= words.length) {
+			words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+		}
+		long before = words[word];
+		words[word] = before | 1L << id;
+		if (words[word] == before) {
+			return false;
+		}
+		size++;
+		return true;
+	}
+
+	/**
+	 * @return Whether the node was in the set.
+	 */
+	public boolean remove(ASTRoot node) {
+		int id = NodeIds.of(node);
+		int word = id >>> 6;
+		if (word >= words.length || (words[word] & 1L << id) == 0) {
+			return false;
+		}
+		words[word] &= ~(1L << id);
+		size--;
+		return true;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		Arrays.fill(words, 0);
+		size = 0;
+	}
+}
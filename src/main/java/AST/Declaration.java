@@ -6,7 +6,7 @@
 
 package AST;
 
-public abstract class Declaration extends ASTRoot {
+public abstract non-sealed class Declaration extends ASTRoot {
 	protected Declaration(int line, int character) {
 		super(line, character);
 	}
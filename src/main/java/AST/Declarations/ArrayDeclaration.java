@@ -18,15 +18,20 @@ public final class ArrayDeclaration extends Declaration {
 	public final long size;
 	public final List<Expression> definition;
 
-	public ArrayDeclaration(TypedVar typedvar, long size, List<Expression> definition, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public ArrayDeclaration(TypedVar typedvar, long size, List<Expression> definition, long position) {
+		super(Position.line(position), Position.column(position));
 		typedVar = typedvar;
 		this.size = size;
 		this.definition = definition;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
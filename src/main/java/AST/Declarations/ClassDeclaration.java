@@ -15,21 +15,37 @@ import java.util.stream.*;
 
 public final class ClassDeclaration extends Declaration {
 	public final String name;
+	/**
+	 * The id of [#name] in the [scanner.NameTable] the source was lexed with, or -1.
+	 */
+	public final int nameId;
 	public final List<Declaration> members;
 	public final List<String> inheritsFrom;
+	/**
+	 * The ids of [#inheritsFrom] in the [scanner.NameTable] the source was lexed with, in the same order, or -1 for
+	 * each where there is none.
+	 */
+	public final int[] inheritsFromIds;
 
 	public ClassDeclaration(
-			String name, List<Declaration> members,
-			List<String> inheritsFrom, Entry<Integer, Integer> loc
+			String name, int nameId, List<Declaration> members,
+			List<String> inheritsFrom, int[] inheritsFromIds, long position
 	) {
-		super(loc.key(), loc.value());
+		super(Position.line(position), Position.column(position));
 		this.name = name;
+		this.nameId = nameId;
 		this.members = members;
 		this.inheritsFrom = inheritsFrom;
+		this.inheritsFromIds = inheritsFromIds;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
@@ -16,16 +16,26 @@ import java.util.stream.*;
 
 public final class EnumDeclaration extends Declaration {
 	public final String name;
+	/**
+	 * The id of [#name] in the [scanner.NameTable] the source was lexed with, or -1.
+	 */
+	public final int nameId;
 	public final List<EnumMember> members;
 
-	public EnumDeclaration(String name, List<EnumMember> members, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public EnumDeclaration(String name, int nameId, List<EnumMember> members, long position) {
+		super(Position.line(position), Position.column(position));
 		this.name = name;
+		this.nameId = nameId;
 		this.members = members;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
@@ -46,7 +56,10 @@ public final class EnumDeclaration extends Declaration {
 		return "EnumDeclaration{name=" + name + ", members=" + enumMembers + "}@(" + getLine() + ", " + getCharacter() + ")";
 	}
 
-	public record EnumMember(String name, long id) {
+	/**
+	 * A member and its value. The name id is its entry in the [scanner.NameTable] the source was lexed with, or -1.
+	 */
+	public record EnumMember(String name, long id, int nameId) {
 		@Override
 		public String toString() {
 			return "{" + name + ", " + id + "}";
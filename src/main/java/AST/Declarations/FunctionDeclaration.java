@@ -15,21 +15,37 @@ import java.util.stream.*;
 
 public final class FunctionDeclaration extends Declaration {
 	public final String name;
+	/**
+	 * The id of [#name] in the [scanner.NameTable] the source was lexed with, or -1.
+	 */
+	public final int nameId;
 	public final List<TypedVar> parameters;
 	public final String returnType;
+	/**
+	 * The id of [#returnType] in the [scanner.NameTable] the source was lexed with, or -1, such as for an assumed
+	 * void.
+	 */
+	public final int returnTypeId;
 	public final Statement body;
 
-	public FunctionDeclaration(String name, List<TypedVar> parameters, String returnType, Statement body, Entry<Integer,
-																													   Integer> loc) {
-		super(loc.key(), loc.value());
+	public FunctionDeclaration(String name, int nameId, List<TypedVar> parameters, String returnType, int returnTypeId,
+							   Statement body, long position) {
+		super(Position.line(position), Position.column(position));
 		this.name = name;
+		this.nameId = nameId;
 		this.parameters = parameters;
 		this.returnType = returnType;
+		this.returnTypeId = returnTypeId;
 		this.body = body;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
@@ -14,14 +14,19 @@ public final class SimpleVarDeclaration extends Declaration {
 	public final TypedVar typedVar;
 	public final Expression definition;
 
-	public SimpleVarDeclaration(TypedVar variable, Expression definition, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public SimpleVarDeclaration(TypedVar variable, Expression definition, long position) {
+		super(Position.line(position), Position.column(position));
 		typedVar = variable;
 		this.definition = definition;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
@@ -15,16 +15,26 @@ import java.util.stream.*;
 
 public final class StructDeclaration extends Declaration {
 	public final String name;
+	/**
+	 * The id of [#name] in the [scanner.NameTable] the source was lexed with, or -1.
+	 */
+	public final int nameId;
 	public final List<Declaration> members;
 
-	public StructDeclaration(String name, List<Declaration> members, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public StructDeclaration(String name, int nameId, List<Declaration> members, long position) {
+		super(Position.line(position), Position.column(position));
 		this.name = name;
+		this.nameId = nameId;
 		this.members = members;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
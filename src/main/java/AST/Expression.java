@@ -12,14 +12,6 @@ public abstract class Expression extends Statement {
 	}
 
 	public abstract String nodeToString();
-
-	public void assertIsConditional(String type)
-	{
-		throw new RuntimeException("ERROR: Bad conditional. " + toString()
-								   + " is not a binary conditional in " + type + " statement on line " +
-								   getLine()
-								   + ", character" + getCharacter() + " .");
-	}
 }
 
 
@@ -16,15 +16,20 @@ public final class BinaryOp extends Op {
 	public final BinaryOps op;
 	public final Expression right;
 
-	public BinaryOp(Expression left, BinaryOps op, Expression right, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public BinaryOp(Expression left, BinaryOps op, Expression right, long position) {
+		super(Position.line(position), Position.column(position));
 		this.left = left;
 		this.op = op;
 		this.right = right;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
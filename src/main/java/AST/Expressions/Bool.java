@@ -13,13 +13,18 @@ import visitor.*;
 public final class Bool extends Expression {
 	public final boolean value;
 
-	public Bool(boolean bool, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public Bool(boolean bool, long position) {
+		super(Position.line(position), Position.column(position));
 		this.value = bool;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
@@ -33,10 +38,4 @@ public final class Bool extends Expression {
 		return "BoolNode{" + (value ? "true" : "false") +
 			   "}@(" + getLine() + ", " + getCharacter() + ")";
 	}
-
-	@Override
-	public void assertIsConditional(String type) {
-		System.out.println("WARNING: Conditional on line " + getLine() + " in statement " + type + " always evaluates to "
-						   + (value ? "true" : "false"));
-	}
 }
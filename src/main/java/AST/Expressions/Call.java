@@ -15,16 +15,26 @@ import java.util.stream.*;
 
 public final class Call extends Expression {
 	public final String func;
+	/**
+	 * The id of [#func] in the [scanner.NameTable] the source was lexed with, or -1.
+	 */
+	public final int nameId;
 	public final List<Expression> params;
 
-	public Call(String func, List<Expression> params, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public Call(String func, int nameId, List<Expression> params, long position) {
+		super(Position.line(position), Position.column(position));
 		this.func = func;
+		this.nameId = nameId;
 		this.params = params;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
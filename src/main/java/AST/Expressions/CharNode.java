@@ -13,13 +13,18 @@ import visitor.*;
 public final class CharNode extends Expression {
 	public final char value;
 
-	public CharNode(char chr, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public CharNode(char chr, long position) {
+		super(Position.line(position), Position.column(position));
 		this.value = chr;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package AST.Expressions;
+
+import AST.*;
+import utils.*;
+import visitor.*;
+
+/**
+ * Stands in for a declaration, statement or expression the parser could not make sense of. The error itself is
+ * kept in the parse's diagnostics, at the same position; this node only marks where the skipped source was.
+ */
+public final class ErrorNode extends Expression {
+	public ErrorNode(long position) {
+		super(Position.line(position), Position.column(position));
+	}
+
+	@Override
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public String nodeToString() {
+		return "ErrorNode";
+	}
+
+	@Override
+	public String toString() {
+		return "ErrorNode{}@(" + getLine() + ", " + getCharacter() + ")";
+	}
+}
@@ -13,13 +13,18 @@ import visitor.*;
 public final class Floating extends Expression {
 	public final double value;
 
-	public Floating(double num, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public Floating(double num, long position) {
+		super(Position.line(position), Position.column(position));
 		this.value = num;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
@@ -18,15 +18,20 @@ public final class Lambda extends Expression {
 	public final Statement block;
 	public final String returnType;
 
-	public Lambda(List<TypedVar> params, Statement block, String returnType, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public Lambda(List<TypedVar> params, Statement block, String returnType, long position) {
+		super(Position.line(position), Position.column(position));
 		this.params = params;
 		this.block = block;
 		this.returnType = returnType;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
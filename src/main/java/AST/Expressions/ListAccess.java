@@ -12,16 +12,26 @@ import visitor.*;
 
 public final class ListAccess extends Expression {
 	public final String ident;
+	/**
+	 * The id of [#ident] in the [scanner.NameTable] the source was lexed with, or -1.
+	 */
+	public final int nameId;
 	public final Expression index;
 
-	public ListAccess(String ident, Expression index, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public ListAccess(String ident, int nameId, Expression index, long position) {
+		super(Position.line(position), Position.column(position));
 		this.ident = ident;
+		this.nameId = nameId;
 		this.index = index;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
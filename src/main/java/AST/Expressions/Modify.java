@@ -15,15 +15,20 @@ public final class Modify extends Expression {
 	public final boolean returnPrevious;
 	public final Expression modifyBy;
 
-	public Modify(Expression ident, boolean returnPrevious, Expression modifyBy, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public Modify(Expression ident, boolean returnPrevious, Expression modifyBy, long position) {
+		super(Position.line(position), Position.column(position));
 		this.ident = ident;
 		this.returnPrevious = returnPrevious;
 		this.modifyBy = modifyBy;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
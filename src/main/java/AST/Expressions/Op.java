@@ -9,20 +9,18 @@ package AST.Expressions;
 import AST.*;
 import AST.Expressions.OpEnums.*;
 
-public abstract class Op extends Expression {
+public abstract sealed class Op extends Expression permits BinaryOp, UnaryOp {
 	protected Op(int line, int character) {
 		super(line, character);
 	}
 
 	public abstract Object getOp();
 
-	@Override
-	public void assertIsConditional(String type) {
-		if (!isaBooleanExpr(getOp())) {
-			throw new RuntimeException("ERROR: Bad conditional. " + getOp().toString() + " is not a boolean in "
-									   + type + " statement on line " + getLine() + ", character" +
-									   getCharacter() + " .");
-		}
+	/**
+	 * Whether the operation gives a boolean, as a conditional must.
+	 */
+	public boolean isBoolean() {
+		return isaBooleanExpr(getOp());
 	}
 
 	/**
@@ -12,16 +12,26 @@ import visitor.*;
 
 public final class ScopeOf extends Expression {
 	public final String inScope;
+	/**
+	 * The id of [#inScope] in the [scanner.NameTable] the source was lexed with, or -1.
+	 */
+	public final int nameId;
 	public final Expression perform;
 
-	public ScopeOf(String inScope, Expression perform, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public ScopeOf(String inScope, int nameId, Expression perform, long position) {
+		super(Position.line(position), Position.column(position));
 		this.inScope = inScope;
+		this.nameId = nameId;
 		this.perform = perform;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
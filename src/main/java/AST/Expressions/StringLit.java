@@ -13,13 +13,18 @@ import visitor.*;
 public final class StringLit extends Expression {
 	public final String value;
 
-	public StringLit(String str, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public StringLit(String str, long position) {
+		super(Position.line(position), Position.column(position));
 		this.value = str;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
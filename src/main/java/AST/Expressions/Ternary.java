@@ -15,15 +15,20 @@ public final class Ternary extends Expression {
 	public final Expression consequent;
 	public final Expression alternate;
 
-	public Ternary(Expression condition, Expression consequent, Expression alternate, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public Ternary(Expression condition, Expression consequent, Expression alternate, long position) {
+		super(Position.line(position), Position.column(position));
 		this.condition = condition;
 		this.consequent = consequent;
 		this.alternate = alternate;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
@@ -15,14 +15,19 @@ public final class UnaryOp extends Op {
 	public final UnaryOps op;
 	public final Expression inner;
 
-	public UnaryOp(UnaryOps op, Expression inner, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public UnaryOp(UnaryOps op, Expression inner, long position) {
+		super(Position.line(position), Position.column(position));
 		this.op = op;
 		this.inner = inner;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
@@ -14,14 +14,24 @@ import visitor.*;
 
 public final class VariableAccess extends Expression {
 	public final String ident;
+	/**
+	 * The id of [#ident] in the [scanner.NameTable] the source was lexed with, or -1.
+	 */
+	public final int nameId;
 
-	public VariableAccess(String ident, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public VariableAccess(String ident, int nameId, long position) {
+		super(Position.line(position), Position.column(position));
 		this.ident = ident;
+		this.nameId = nameId;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
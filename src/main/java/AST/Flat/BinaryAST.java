@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package AST.Flat;
+
+import AST.*;
+import scanner.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Reads and writes a program as a binary file, so that a library can be shipped parsed and loaded without tokenizing
+ * and parsing it again. The file holds the columns of the program's [FlatAST], big-endian:
+ * <pre>
+ * header     int magic, int version, then the count of nodes, strings and constants and the offsets of the four
+ *            tables below, each an int
+ * nodes      per node: byte kind, int payload, int end
+ * positions  per node: long position
+ * constants  per constant: long
+ * strings    int offset of each string's UTF-8 bytes from the end of the offsets, and of the end of the last one,
+ *            then the bytes
+ * </pre>
+ * Nodes are in pre-order, and a node's end is the index just past its subtree, so its first child is the node after
+ * it and each next sibling is at the end of the child before. A payload is what the [Kind] says it is; a name is an
+ * index in the string table. Kinds are stored by ordinal, so a change to [Kind] needs a new [#VERSION].
+ * <p>
+ * [#read(Path)] maps the file and decodes top-level declarations only as far as their signatures: the body of a
+ * function and the members of a class are decoded the first time the list of them is used. A tool that only needs
+ * the names and signatures of a library never decodes the rest. The nodes of such a tree are numbered by their
+ * indices in the file, so their ids are unique and below the file's node count but not dense; [#readFully(ByteBuffer)]
+ * numbers its tree densely.
+ */
+public final class BinaryAST {
+	public static final int MAGIC = 0x43464C41;
+	/**
+	 * The version of the format this class writes, and the only one it reads.
+	 */
+	public static final int VERSION = 1;
+
+	static final int HEADER_SIZE = 36;
+	static final int NODE_SIZE = 9;
+
+	private BinaryAST() {
+	}
+
+	/**
+	 * Writes a tree to a file, replacing it if it exists.
+	 */
+	public static void write(FlatAST tree, Path path) throws IOException {
+		try (OutputStream out = Files.newOutputStream(path)) {
+			write(tree, out);
+		}
+	}
+
+	/**
+	 * Writes a tree to a stream and flushes it, leaving it open.
+	 */
+	public static void write(FlatAST tree, OutputStream out) throws IOException {
+		int size = tree.size();
+		int[] ends = ends(tree);
+		NameTable names = tree.names();
+		byte[][] strings = new byte[names.size()][];
+		int stringBytes = 0;
+		for (int i = 0; i < strings.length; i++) {
+			strings[i] = names.name(i).getBytes(StandardCharsets.UTF_8);
+			stringBytes += strings[i].length;
+		}
+		int constantCount = tree.constantCount();
+		int nodes = HEADER_SIZE;
+		int positions = nodes + size * NODE_SIZE;
+		int constants = positions + size * Long.BYTES;
+		int stringTable = constants + constantCount * Long.BYTES;
+		if ((long) stringTable + (strings.length + 1L) * Integer.BYTES + stringBytes > Integer.MAX_VALUE) {
+			throw new IOException("The tree is too large to write as one file.");
+		}
+
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(size);
+		data.writeInt(strings.length);
+		data.writeInt(constantCount);
+		data.writeInt(nodes);
+		data.writeInt(positions);
+		data.writeInt(constants);
+		data.writeInt(stringTable);
+		for (int node = 0; node < size; node++) {
+			data.writeByte(tree.kind(node).ordinal());
+			data.writeInt(tree.payload(node));
+			data.writeInt(ends[node]);
+		}
+		for (int node = 0; node < size; node++) {
+			data.writeLong(tree.position(node));
+		}
+		for (int i = 0; i < constantCount; i++) {
+			data.writeLong(tree.constantAt(i));
+		}
+		int offset = 0;
+		for (byte[] string : strings) {
+			data.writeInt(offset);
+			offset += string.length;
+		}
+		data.writeInt(offset);
+		for (byte[] string : strings) {
+			data.write(string);
+		}
+		data.flush();
+	}
+
+	/**
+	 * The index just past the subtree of each node. Children come after their parent, so going backwards each child's
+	 * end is known before its parent needs it.
+	 */
+	private static int[] ends(FlatAST tree) {
+		int[] ends = new int[tree.size()];
+		for (int node = tree.size() - 1; node >= 0; node--) {
+			int end = node + 1;
+			for (int child = tree.firstChild(node); child != FlatAST.NO_NODE; child = tree.nextSibling(child)) {
+				end = ends[child];
+			}
+			ends[node] = end;
+		}
+		return ends;
+	}
+
+	/**
+	 * Maps a file and reads the program in it. The function bodies and class members are decoded from the mapping when
+	 * first used, so the file must not change while the program is in use.
+	 *
+	 * @return The top-level declarations.
+	 * @throws IOException If the file cannot be read, or is not a program in this version of the format.
+	 */
+	public static List<Declaration> read(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Reads a program from a buffer, from its position to its limit. The buffer's position, limit and order are not
+	 * used afterwards, but its contents are, as with [#read(Path)].
+	 *
+	 * @return The top-level declarations.
+	 * @throws IOException If the buffer does not hold a program in this version of the format.
+	 */
+	public static List<Declaration> read(ByteBuffer buffer) throws IOException {
+		return decoder(buffer, false).program();
+	}
+
+	/**
+	 * Reads a program from a buffer like [#read(ByteBuffer)], but decodes the function bodies and class members too
+	 * before returning. The buffer is not used afterwards, and a damaged one fails here rather than when a body is
+	 * first used. The tree is numbered densely with [NodeIds#assign(List)], as the parser numbers the trees it returns.
+	 *
+	 * @return The top-level declarations.
+	 * @throws IOException If the buffer does not hold a program in this version of the format.
+	 */
+	public static List<Declaration> readFully(ByteBuffer buffer) throws IOException {
+		List<Declaration> program = decoder(buffer, true).program();
+		NodeIds.assign(program);
+		return program;
+	}
+
+	private static BinaryDecoder decoder(ByteBuffer buffer, boolean eager) throws IOException {
+		ByteBuffer file = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+		if (file.remaining() < HEADER_SIZE || file.getInt(0) != MAGIC) {
+			throw new IOException("Not a binary AST.");
+		}
+		int version = file.getInt(4);
+		if (version != VERSION) {
+			throw new IOException("Binary AST version " + version + " is not supported; expected " + VERSION + ".");
+		}
+		return new BinaryDecoder(file, eager);
+	}
+}
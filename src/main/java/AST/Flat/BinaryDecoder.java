@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package AST.Flat;
+
+import AST.ASTRoot.*;
+import AST.*;
+import AST.Declarations.*;
+import AST.Declarations.EnumDeclaration.*;
+import AST.Expressions.*;
+import AST.Expressions.OpEnums.*;
+import AST.Statements.*;
+import utils.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.util.*;
+
+/**
+ * Builds object trees from the nodes of a [BinaryAST]. A subtree is decoded with explicit stacks, since trees can be
+ * too deep to recurse over: a node's children are decoded first and left on a stack of values, and then the node is
+ * built from them. Function bodies and class members are not decoded with their declaration but left to a
+ * [LazyDeclarations], which a decoder made to decode everything up front decodes before [#program()] returns.
+ * <p>
+ * Each node is given its index in the file as its id, which numbers the tree as [NodeIds] would apart from the gaps
+ * the structural nodes leave, and lets lazily decoded nodes be numbered when they are decoded. A tree decoded up
+ * front is renumbered without the gaps by [BinaryAST#readFully(ByteBuffer)].
+ * <p>
+ * The buffer is only read with absolute gets, so lazy lists in different threads can decode from it at once.
+ */
+final class BinaryDecoder {
+	private static final BinaryOps[] BINARY_OPS = BinaryOps.values();
+	private static final UnaryOps[] UNARY_OPS = UnaryOps.values();
+	/**
+	 * Marks a pushed node whose children are decoded, so that it is built when popped.
+	 */
+	private static final int BUILD = Integer.MIN_VALUE;
+
+	private final ByteBuffer file;
+	private final int nodeCount;
+	private final int stringCount;
+	private final int nodes;
+	private final int positions;
+	private final int constants;
+	private final int stringOffsets;
+	private final int stringBytes;
+	private final String[] strings;
+	/**
+	 * The lazy lists made but not yet decoded, or null if they are left to be decoded when used.
+	 */
+	private final List<LazyDeclarations> undecoded;
+
+	/**
+	 * @param eager Whether to decode function bodies and class members along with the rest.
+	 */
+	BinaryDecoder(ByteBuffer file, boolean eager) throws IOException {
+		this.file = file;
+		undecoded = eager ? new ArrayList<>() : null;
+		nodeCount = file.getInt(8);
+		stringCount = file.getInt(12);
+		int constantCount = file.getInt(16);
+		nodes = file.getInt(20);
+		positions = file.getInt(24);
+		constants = file.getInt(28);
+		stringOffsets = file.getInt(32);
+		stringBytes = stringOffsets + (stringCount + 1) * Integer.BYTES;
+		if (nodeCount < 1 || stringCount < 0 || constantCount < 0 || nodes < BinaryAST.HEADER_SIZE
+			|| positions != nodes + (long) nodeCount * BinaryAST.NODE_SIZE
+			|| constants != positions + (long) nodeCount * Long.BYTES
+			|| stringOffsets != constants + (long) constantCount * Long.BYTES
+			|| stringBytes < 0 || stringBytes > file.limit()
+			|| stringBytes + (long) file.getInt(stringBytes - Integer.BYTES) > file.limit()) {
+			throw new IOException("The binary AST is truncated or its header is corrupt.");
+		}
+		strings = new String[stringCount];
+	}
+
+	List<Declaration> program() {
+		List<Declaration> program = new ArrayList<>();
+		for (int child = 1; child < end(0); child = end(child)) {
+			program.add((Declaration) decode(child));
+		}
+		// Taken from the end, since decoding a list can add more to it; nested declarations are not recursed into.
+		while (undecoded != null && !undecoded.isEmpty()) {
+			undecoded.remove(undecoded.size() - 1).size();
+		}
+		return program;
+	}
+
+	private LazyDeclarations lazy(int parent, int first) {
+		LazyDeclarations declarations = new LazyDeclarations(this, parent, first);
+		if (undecoded != null) {
+			undecoded.add(declarations);
+		}
+		return declarations;
+	}
+
+	private Kind kind(int node) {
+		return Kind.of(file.get(nodes + node * BinaryAST.NODE_SIZE));
+	}
+
+	private int payload(int node) {
+		return file.getInt(nodes + node * BinaryAST.NODE_SIZE + 1);
+	}
+
+	int end(int node) {
+		return file.getInt(nodes + node * BinaryAST.NODE_SIZE + 5);
+	}
+
+	private long position(int node) {
+		return file.getLong(positions + node * Long.BYTES);
+	}
+
+	private long constant(int node) {
+		return file.getLong(constants + payload(node) * Long.BYTES);
+	}
+
+	/**
+	 * The string a node's payload refers to, decoded once.
+	 */
+	private String name(int node) {
+		int id = payload(node);
+		String name = strings[id];
+		if (name == null) {
+			int start = file.getInt(stringOffsets + id * Integer.BYTES);
+			int length = file.getInt(stringOffsets + (id + 1) * Integer.BYTES) - start;
+			byte[] bytes = new byte[length];
+			file.get(stringBytes + start, bytes);
+			name = new String(bytes, StandardCharsets.UTF_8);
+			strings[id] = name;
+		}
+		return name;
+	}
+
+	/**
+	 * Decodes the subtree of a node.
+	 *
+	 * @return The node, or for a structural node what [Flattener] made it from.
+	 */
+	Object decode(int root) {
+		int[] work = new int[64];
+		int workTop = 0;
+		Object[] values = new Object[64];
+		int valueTop = 0;
+		work[workTop++] = root;
+		while (workTop > 0) {
+			int node = work[--workTop];
+			Object value;
+			if (node < 0) {
+				node &= ~BUILD;
+				int base = work[--workTop];
+				value = build(node, values, base, valueTop - base);
+				Arrays.fill(values, base, valueTop, null);
+				valueTop = base;
+			} else if (end(node) == node + 1 || isShallow(kind(node))) {
+				value = build(node, values, valueTop, 0);
+			} else {
+				int count = 0;
+				for (int child = node + 1; child < end(node); child = end(child)) {
+					count++;
+				}
+				if (workTop + count + 2 > work.length) {
+					work = Arrays.copyOf(work, Math.max(work.length * 2, workTop + count + 2));
+				}
+				work[workTop++] = valueTop;
+				work[workTop++] = node | BUILD;
+				// Pushed last to first, so that the first child is decoded first and its value is lowest.
+				workTop += count;
+				int slot = workTop;
+				for (int child = node + 1; child < end(node); child = end(child)) {
+					work[--slot] = child;
+				}
+				continue;
+			}
+			if (value instanceof ASTRoot built) {
+				built.setId(node);
+			}
+			if (valueTop == values.length) {
+				values = Arrays.copyOf(values, valueTop * 2);
+			}
+			values[valueTop++] = value;
+		}
+		return values[0];
+	}
+
+	/**
+	 * Whether a node is built from the buffer without decoding its children first: declarations whose bodies are
+	 * left to be decoded lazily, and the structural nodes whose children are only names and constants.
+	 */
+	private static boolean isShallow(Kind kind) {
+		return kind == Kind.FUNCTION || kind == Kind.CLASS || kind == Kind.PARAMETER || kind == Kind.ENUM_MEMBER;
+	}
+
+	/**
+	 * Builds a node from the values of its children.
+	 *
+	 * @param values Holds the children's values from {@code base}, in order.
+	 */
+	private Object build(int node, Object[] values, int base, int count) {
+		long position = position(node);
+		switch (kind(node)) {
+			case NONE:
+				return null;
+			case NAME:
+				return name(node);
+			case PARAMETER:
+				return new TypedVar(name(node), name(node + 1));
+			case CASE:
+				return new Entry<>((Expression) values[base], (Statement) values[base + 1]);
+			case ENUM_MEMBER:
+				return new EnumMember(name(node), constant(node + 1), -1);
+			case INITIALIZERS:
+				return this.<Expression>list(values, base, count);
+			case LAMBDA:
+				return new Lambda(this.list(values, base, count - 1), (Statement) values[base + count - 1], name(node),
+								  position);
+			case BINARY_OP:
+				return new BinaryOp((Expression) values[base], BINARY_OPS[payload(node)], (Expression) values[base + 1],
+									position);
+			case UNARY_OP:
+				return new UnaryOp(UNARY_OPS[payload(node)], (Expression) values[base], position);
+			case TERNARY:
+				return new Ternary((Expression) values[base], (Expression) values[base + 1],
+								   (Expression) values[base + 2], position);
+			case LIST_ACCESS:
+				return new ListAccess(name(node), -1, (Expression) values[base], position);
+			case VARIABLE_ACCESS:
+				return new VariableAccess(name(node), -1, position);
+			case MODIFY:
+				return new Modify((Expression) values[base], payload(node) != 0, (Expression) values[base + 1],
+								  position);
+			case SCOPE_OF:
+				return new ScopeOf(name(node), -1, (Expression) values[base], position);
+			case CALL:
+				return new Call(name(node), -1, list(values, base, count), position);
+			case INTEGER:
+				return new IntegerNode(constant(node), position);
+			case FLOATING:
+				return new Floating(Double.longBitsToDouble(constant(node)), position);
+			case BOOL:
+				return new Bool(payload(node) != 0, position);
+			case STRING:
+				return new StringLit(name(node), position);
+			case CHAR:
+				return new CharNode((char) payload(node), position);
+			case ERROR:
+				return new ErrorNode(position);
+			case IF:
+				return new If((Expression) values[base], (Statement) values[base + 1], (Statement) values[base + 2],
+							  position);
+			case FOR:
+				return new For((Declaration) values[base], (Declaration) values[base + 1],
+							   (Declaration) values[base + 2], (Statement) values[base + 3], position);
+			case FOREACH:
+				return new ForEach(name(node), -1, (String) values[base], -1, (Statement) values[base + 1], position);
+			case WHILE:
+				return new While((Expression) values[base], (Statement) values[base + 1], position);
+			case DO_WHILE:
+				return new DoWhile((Expression) values[base], (Statement) values[base + 1], position);
+			case CONTINUE:
+				return new Continue(position);
+			case BREAK:
+				return new Break(position);
+			case LABEL:
+				return new Label(name(node), -1, position);
+			case SWITCH:
+				return new Switch((Expression) values[base], list(values, base + 1, count - 1), position);
+			case ASSIGNMENT:
+				return new Assignment((Expression) values[base], (Expression) values[base + 1], position);
+			case RETURN:
+				return new Return((Expression) values[base], position);
+			case GOTO:
+				return new Goto(name(node), -1, position);
+			case TRY:
+				return new Try((Statement) values[base], name(node), -1, (String) values[base + 1], -1,
+							   (Statement) values[base + 2], position);
+			case THROW:
+				return new Throw(name(node), -1, list(values, base, count), position);
+			case BLOCK:
+				return new Block(list(values, base, count), position);
+			case VAR:
+				return new SimpleVarDeclaration(new TypedVar(name(node), (String) values[base]),
+												(Expression) values[base + 1], position);
+			case ARRAY:
+				long size = ((IntegerNode) values[base + 1]).value;
+				return new ArrayDeclaration(new TypedVar(name(node), (String) values[base]), size,
+											initializers(values, base + 2), position);
+			case ENUM:
+				return new EnumDeclaration(name(node), -1, list(values, base, count), position);
+			case CLASS:
+				return buildClass(node, position);
+			case STRUCT:
+				return new StructDeclaration(name(node), -1, list(values, base, count), position);
+			case FUNCTION:
+				return buildFunction(node, position);
+			default:
+				throw new IllegalStateException("Cannot decode a node of kind " + kind(node) + ".");
+		}
+	}
+
+	private <T> List<T> list(Object[] values, int base, int count) {
+		List<T> list = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			@SuppressWarnings("unchecked")
+			T value = (T) values[base + i];
+			list.add(value);
+		}
+		return list;
+	}
+
+	/**
+	 * The array initializers in a slot, which are a list or absent.
+	 */
+	private List<Expression> initializers(Object[] values, int slot) {
+		@SuppressWarnings("unchecked")
+		List<Expression> initializers = (List<Expression>) values[slot];
+		return initializers;
+	}
+
+	private FunctionDeclaration buildFunction(int node, long position) {
+		String returnType = name(node + 1);
+		List<TypedVar> parameters = new ArrayList<>();
+		int child = end(node + 1);
+		while (end(child) != end(node)) {
+			parameters.add(new TypedVar(name(child), name(child + 1)));
+			child = end(child);
+		}
+		Statement body;
+		if (kind(child) == Kind.BLOCK) {
+			body = new Block(lazy(child, child + 1), position(child));
+			body.setId(child);
+		} else {
+			body = (Statement) decode(child);
+		}
+		return new FunctionDeclaration(name(node), -1, parameters, returnType, -1, body, position);
+	}
+
+	private ClassDeclaration buildClass(int node, long position) {
+		List<String> inheritsFrom = new ArrayList<>();
+		int child = node + 1;
+		while (child < end(node) && kind(child) == Kind.NAME) {
+			inheritsFrom.add(name(child));
+			child = end(child);
+		}
+		int[] inheritsFromIds = new int[inheritsFrom.size()];
+		Arrays.fill(inheritsFromIds, -1);
+		return new ClassDeclaration(name(node), -1, lazy(node, child), inheritsFrom,
+				inheritsFromIds, position);
+	}
+}
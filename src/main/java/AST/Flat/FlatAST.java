@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package AST.Flat;
+
+import AST.*;
+import scanner.*;
+import utils.*;
+
+import java.util.*;
+
+/**
+ * An AST stored in primitive arrays rather than as one object per node. A node is an int index into parallel
+ * columns: its [Kind], its first child and next sibling, one int of payload, and its [Position]. That is 21 bytes
+ * per node, where a node object and its share of the lists of children take 70 to 100. Names and strings are ids
+ * in a [NameTable], which a compilation shares with its tokenizer; integer and floating constants live in a column
+ * of their own.
+ * <p>
+ * Nodes are stored in pre-order, so a node's first child, if it has one, is the node right after it, and a pass that
+ * walks the tree reads the columns front to back. The root is node 0, a [Kind#PROGRAM] whose children are the
+ * top-level declarations. [Kind] documents the payload and children of every kind of node.
+ * <p>
+ * A tree is built once, by [#from(List, NameTable)], and not changed afterwards.
+ */
+public final class FlatAST {
+	/**
+	 * The index of a child or sibling that does not exist.
+	 */
+	public static final int NO_NODE = -1;
+
+	private final NameTable names;
+	private byte[] kinds;
+	private int[] firstChildren;
+	private int[] nextSiblings;
+	private int[] payloads;
+	private long[] positions;
+	private int size;
+	private long[] constants;
+	private int constantCount;
+
+	FlatAST(NameTable names, int capacity) {
+		this.names = names;
+		capacity = Math.max(capacity, 16);
+		kinds = new byte[capacity];
+		firstChildren = new int[capacity];
+		nextSiblings = new int[capacity];
+		payloads = new int[capacity];
+		positions = new long[capacity];
+		constants = new long[16];
+	}
+
+	/**
+	 * Flattens a program.
+	 *
+	 * @param program The top-level declarations.
+	 * @param names   The table to intern names and strings in, usually the one the program was tokenized with.
+	 */
+	public static FlatAST from(List<? extends Declaration> program, NameTable names) {
+		return new Flattener(names).flatten(program);
+	}
+
+	/**
+	 * Appends a node with no children.
+	 *
+	 * @return Its index.
+	 */
+	int add(Kind kind, int payload, long position) {
+		if (size == kinds.length) {
+			int capacity = size * 2;
+			kinds = Arrays.copyOf(kinds, capacity);
+			firstChildren = Arrays.copyOf(firstChildren, capacity);
+			nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+			payloads = Arrays.copyOf(payloads, capacity);
+			positions = Arrays.copyOf(positions, capacity);
+		}
+		int node = size++;
+		kinds[node] = (byte) kind.ordinal();
+		firstChildren[node] = NO_NODE;
+		nextSiblings[node] = NO_NODE;
+		payloads[node] = payload;
+		positions[node] = position;
+		return node;
+	}
+
+	void setFirstChild(int node, int child) {
+		firstChildren[node] = child;
+	}
+
+	void setNextSibling(int node, int sibling) {
+		nextSiblings[node] = sibling;
+	}
+
+	/**
+	 * Adds a constant.
+	 *
+	 * @return Its index, to use as a payload.
+	 */
+	int constant(long value) {
+		if (constantCount == constants.length) {
+			constants = Arrays.copyOf(constants, constantCount * 2);
+		}
+		constants[constantCount] = value;
+		return constantCount++;
+	}
+
+	int constantCount() {
+		return constantCount;
+	}
+
+	long constantAt(int index) {
+		return constants[index];
+	}
+
+	/**
+	 * Drops the unused capacity of the columns once the tree is complete.
+	 */
+	void trim() {
+		kinds = Arrays.copyOf(kinds, size);
+		firstChildren = Arrays.copyOf(firstChildren, size);
+		nextSiblings = Arrays.copyOf(nextSiblings, size);
+		payloads = Arrays.copyOf(payloads, size);
+		positions = Arrays.copyOf(positions, size);
+		constants = Arrays.copyOf(constants, constantCount);
+	}
+
+	public NameTable names() {
+		return names;
+	}
+
+	/**
+	 * The number of nodes.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * The [Kind#PROGRAM] node.
+	 */
+	public int root() {
+		return 0;
+	}
+
+	public Kind kind(int node) {
+		return Kind.of(kinds[node]);
+	}
+
+	/**
+	 * The node's first child, or [#NO_NODE].
+	 */
+	public int firstChild(int node) {
+		return firstChildren[node];
+	}
+
+	/**
+	 * The node's next sibling, or [#NO_NODE].
+	 */
+	public int nextSibling(int node) {
+		return nextSiblings[node];
+	}
+
+	/**
+	 * The node's raw payload, whose meaning depends on its [Kind].
+	 */
+	public int payload(int node) {
+		return payloads[node];
+	}
+
+	/**
+	 * The node's line and column, packed as a [Position].
+	 */
+	public long position(int node) {
+		return positions[node];
+	}
+
+	public int line(int node) {
+		return Position.line(positions[node]);
+	}
+
+	public int column(int node) {
+		return Position.column(positions[node]);
+	}
+
+	/**
+	 * The name or string a node's payload refers to.
+	 */
+	public String name(int node) {
+		return names.name(payloads[node]);
+	}
+
+	/**
+	 * The value of an [Kind#INTEGER] node.
+	 */
+	public long longValue(int node) {
+		return constants[payloads[node]];
+	}
+
+	/**
+	 * The value of a [Kind#FLOATING] node.
+	 */
+	public double doubleValue(int node) {
+		return Double.longBitsToDouble(constants[payloads[node]]);
+	}
+
+	/**
+	 * The payload of a [Kind#BOOL] or [Kind#MODIFY] node as a boolean.
+	 */
+	public boolean flag(int node) {
+		return payloads[node] != 0;
+	}
+
+	/**
+	 * The node's child at an index.
+	 *
+	 * @return The child, or [#NO_NODE] if the node has no more than {@code index} children.
+	 */
+	public int child(int node, int index) {
+		int child = firstChildren[node];
+		for (int i = 0; i < index && child != NO_NODE; i++) {
+			child = nextSiblings[child];
+		}
+		return child;
+	}
+
+	public int childCount(int node) {
+		int count = 0;
+		for (int child = firstChildren[node]; child != NO_NODE; child = nextSiblings[child]) {
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * A cursor at the root.
+	 */
+	public FlatCursor cursor() {
+		return new FlatCursor(this);
+	}
+
+	/**
+	 * Walks the whole tree in pre-order, calling the visitor on entering and leaving each node. The walk keeps its
+	 * place in an explicit stack, so the depth of the tree does not matter.
+	 */
+	public void walk(FlatVisitor visitor) {
+		int[] ancestors = new int[64];
+		int depth = 0;
+		int node = root();
+		while (true) {
+			int child = firstChildren[node];
+			if (visitor.enter(this, node) && child != NO_NODE) {
+				if (depth == ancestors.length) {
+					ancestors = Arrays.copyOf(ancestors, depth * 2);
+				}
+				ancestors[depth++] = node;
+				node = child;
+				continue;
+			}
+			visitor.exit(this, node);
+			while (nextSiblings[node] == NO_NODE) {
+				if (depth == 0) {
+					return;
+				}
+				node = ancestors[--depth];
+				visitor.exit(this, node);
+			}
+			node = nextSiblings[node];
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package AST.Flat;
+
+import java.util.*;
+
+/**
+ * A position in a [FlatAST] that moves between parents, children and siblings. It remembers the path from the root,
+ * so it can go back up without the tree storing parents. The move methods return false and leave the cursor where it
+ * is if there is no node to move to.
+ */
+public final class FlatCursor {
+	private final FlatAST tree;
+	private int[] ancestors = new int[32];
+	private int depth;
+	private int node;
+
+	FlatCursor(FlatAST tree) {
+		this.tree = tree;
+		node = tree.root();
+	}
+
+	public FlatAST tree() {
+		return tree;
+	}
+
+	public int node() {
+		return node;
+	}
+
+	public Kind kind() {
+		return tree.kind(node);
+	}
+
+	/**
+	 * The number of nodes above the current one.
+	 */
+	public int depth() {
+		return depth;
+	}
+
+	public boolean gotoFirstChild() {
+		int child = tree.firstChild(node);
+		if (child == FlatAST.NO_NODE) {
+			return false;
+		}
+		if (depth == ancestors.length) {
+			ancestors = Arrays.copyOf(ancestors, depth * 2);
+		}
+		ancestors[depth++] = node;
+		node = child;
+		return true;
+	}
+
+	public boolean gotoNextSibling() {
+		int sibling = tree.nextSibling(node);
+		if (sibling == FlatAST.NO_NODE || depth == 0) {
+			return false;
+		}
+		node = sibling;
+		return true;
+	}
+
+	public boolean gotoParent() {
+		if (depth == 0) {
+			return false;
+		}
+		node = ancestors[--depth];
+		return true;
+	}
+
+	/**
+	 * Moves back to the root.
+	 */
+	public void reset() {
+		depth = 0;
+		node = tree.root();
+	}
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package AST.Flat;
+
+/**
+ * Receives the nodes of a [FlatAST] from [FlatAST#walk(FlatVisitor)]. Nodes are ints, so a visitor dispatches on
+ * [FlatAST#kind(int)] rather than on a class.
+ */
+public interface FlatVisitor {
+	/**
+	 * Called before the node's children.
+	 *
+	 * @return False to skip the node's children. [#exit(FlatAST, int)] is called for the node either way.
+	 */
+	boolean enter(FlatAST tree, int node);
+
+	/**
+	 * Called after the node's children.
+	 */
+	default void exit(FlatAST tree, int node) {
+	}
+}
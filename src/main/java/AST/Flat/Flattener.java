@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package AST.Flat;
+
+import AST.ASTRoot.*;
+import AST.*;
+import AST.Declarations.*;
+import AST.Declarations.EnumDeclaration.*;
+import AST.Expressions.*;
+import AST.Statements.*;
+import scanner.*;
+import utils.*;
+
+import java.util.*;
+
+/**
+ * Converts an object tree into a [FlatAST]. The tree is walked with an explicit stack of the items still to emit,
+ * since the parser builds trees too deep to recurse over. An item is a node of the object tree or one of the parts
+ * of a node that become structural nodes: a [String] for a [Kind#NAME], a [TypedVar] for a [Kind#PARAMETER], an
+ * [Entry] for a [Kind#CASE], an [EnumMember], a [Long] for an [Kind#INTEGER] that is not an expression, a [List] of
+ * array initializers, or [#ABSENT] for a [Kind#NONE].
+ */
+final class Flattener {
+	private static final Object ABSENT = new Object();
+
+	private final NameTable names;
+	private FlatAST tree;
+	private Object[] items = new Object[64];
+	private int[] parents = new int[64];
+	private int top;
+	/**
+	 * The last child linked to each node so far.
+	 */
+	private int[] lastChildren = new int[64];
+	/**
+	 * The children of the node just emitted, in order, until they are pushed.
+	 */
+	private final List<Object> children = new ArrayList<>();
+
+	Flattener(NameTable names) {
+		this.names = names;
+	}
+
+	FlatAST flatten(List<? extends Declaration> program) {
+		tree = new FlatAST(names, program.size() * 32);
+		int root = tree.add(Kind.PROGRAM, 0, Position.NONE);
+		lastChildren[root] = FlatAST.NO_NODE;
+		children.addAll(program);
+		pushChildren(root);
+		while (top > 0) {
+			top--;
+			Object item = items[top];
+			int parent = parents[top];
+			items[top] = null;
+			int node = emit(item, tree.position(parent));
+			if (node == lastChildren.length) {
+				lastChildren = Arrays.copyOf(lastChildren, node * 2);
+			}
+			lastChildren[node] = FlatAST.NO_NODE;
+			int previous = lastChildren[parent];
+			if (previous == FlatAST.NO_NODE) {
+				tree.setFirstChild(parent, node);
+			} else {
+				tree.setNextSibling(previous, node);
+			}
+			lastChildren[parent] = node;
+			pushChildren(node);
+		}
+		tree.trim();
+		return tree;
+	}
+
+	/**
+	 * Pushes the collected children so that the first is emitted next.
+	 */
+	private void pushChildren(int parent) {
+		int count = children.size();
+		if (top + count > items.length) {
+			int capacity = Math.max(items.length * 2, top + count);
+			items = Arrays.copyOf(items, capacity);
+			parents = Arrays.copyOf(parents, capacity);
+		}
+		for (int i = count - 1; i >= 0; i--) {
+			items[top] = children.get(i);
+			parents[top] = parent;
+			top++;
+		}
+		children.clear();
+	}
+
+	private void child(Object item) {
+		children.add(item != null ? item : ABSENT);
+	}
+
+	private int name(String name) {
+		return names.intern(name);
+	}
+
+	/**
+	 * Adds the node for an item and collects its children.
+	 *
+	 * @param position The parent's position, for items that have none of their own.
+	 */
+	private int emit(Object item, long position) {
+		if (item instanceof ASTRoot node) {
+			return emitNode(node);
+		}
+		if (item instanceof String name) {
+			return tree.add(Kind.NAME, name(name), position);
+		}
+		if (item instanceof TypedVar parameter) {
+			child(parameter.type());
+			return tree.add(Kind.PARAMETER, name(parameter.name()), position);
+		}
+		if (item instanceof Entry<?, ?> entry) {
+			child(entry.key());
+			child(entry.value());
+			return tree.add(Kind.CASE, 0, position);
+		}
+		if (item instanceof EnumMember member) {
+			child(member.id());
+			return tree.add(Kind.ENUM_MEMBER, name(member.name()), position);
+		}
+		if (item instanceof Long value) {
+			return tree.add(Kind.INTEGER, tree.constant(value), position);
+		}
+		if (item instanceof List<?> initializers) {
+			children.addAll(initializers);
+			return tree.add(Kind.INITIALIZERS, 0, position);
+		}
+		return tree.add(Kind.NONE, 0, position);
+	}
+
+	private int emitNode(ASTRoot node) {
+		long position = Position.of(node.getLine(), node.getCharacter());
+		Kind kind;
+		int payload = 0;
+		if (node instanceof Expression) {
+			if (node instanceof BinaryOp op) {
+				kind = Kind.BINARY_OP;
+				payload = op.op.ordinal();
+				child(op.left);
+				child(op.right);
+			} else if (node instanceof UnaryOp op) {
+				kind = Kind.UNARY_OP;
+				payload = op.op.ordinal();
+				child(op.inner);
+			} else if (node instanceof VariableAccess access) {
+				kind = Kind.VARIABLE_ACCESS;
+				payload = name(access.ident);
+			} else if (node instanceof IntegerNode integer) {
+				kind = Kind.INTEGER;
+				payload = tree.constant(integer.value);
+			} else if (node instanceof Call call) {
+				kind = Kind.CALL;
+				payload = name(call.func);
+				children.addAll(call.params);
+			} else if (node instanceof ListAccess access) {
+				kind = Kind.LIST_ACCESS;
+				payload = name(access.ident);
+				child(access.index);
+			} else if (node instanceof ScopeOf scope) {
+				kind = Kind.SCOPE_OF;
+				payload = name(scope.inScope);
+				child(scope.perform);
+			} else if (node instanceof Modify modify) {
+				kind = Kind.MODIFY;
+				payload = modify.returnPrevious ? 1 : 0;
+				child(modify.ident);
+				child(modify.modifyBy);
+			} else if (node instanceof Ternary ternary) {
+				kind = Kind.TERNARY;
+				child(ternary.condition);
+				child(ternary.consequent);
+				child(ternary.alternate);
+			} else if (node instanceof Floating floating) {
+				kind = Kind.FLOATING;
+				payload = tree.constant(Double.doubleToRawLongBits(floating.value));
+			} else if (node instanceof Bool bool) {
+				kind = Kind.BOOL;
+				payload = bool.value ? 1 : 0;
+			} else if (node instanceof StringLit string) {
+				kind = Kind.STRING;
+				payload = name(string.value);
+			} else if (node instanceof CharNode character) {
+				kind = Kind.CHAR;
+				payload = character.value;
+			} else if (node instanceof Lambda lambda) {
+				kind = Kind.LAMBDA;
+				payload = name(lambda.returnType);
+				children.addAll(lambda.params);
+				child(lambda.block);
+			} else if (node instanceof ErrorNode) {
+				kind = Kind.ERROR;
+			} else {
+				throw new IllegalArgumentException("Cannot flatten " + node.nodeToString() + ".");
+			}
+		} else if (node instanceof Statement) {
+			if (node instanceof Block block) {
+				kind = Kind.BLOCK;
+				children.addAll(block.statements);
+			} else if (node instanceof Assignment assignment) {
+				kind = Kind.ASSIGNMENT;
+				child(assignment.ident);
+				child(assignment.expr);
+			} else if (node instanceof If conditional) {
+				kind = Kind.IF;
+				child(conditional.conditional);
+				child(conditional.consequent);
+				child(conditional.alternate);
+			} else if (node instanceof Return ret) {
+				kind = Kind.RETURN;
+				child(ret.expr);
+			} else if (node instanceof While loop) {
+				kind = Kind.WHILE;
+				child(loop.conditional);
+				child(loop.body);
+			} else if (node instanceof For loop) {
+				kind = Kind.FOR;
+				child(loop.initializer);
+				child(loop.conditional);
+				child(loop.iteration);
+				child(loop.body);
+			} else if (node instanceof ForEach loop) {
+				kind = Kind.FOREACH;
+				payload = name(loop.iterval);
+				child(loop.collectionvar);
+				child(loop.body);
+			} else if (node instanceof DoWhile loop) {
+				kind = Kind.DO_WHILE;
+				child(loop.conditional);
+				child(loop.body);
+			} else if (node instanceof Switch switch_) {
+				kind = Kind.SWITCH;
+				child(switch_.switchon);
+				children.addAll(switch_.cases);
+			} else if (node instanceof Continue) {
+				kind = Kind.CONTINUE;
+			} else if (node instanceof Break) {
+				kind = Kind.BREAK;
+			} else if (node instanceof Label label) {
+				kind = Kind.LABEL;
+				payload = name(label.ident);
+			} else if (node instanceof Goto goto_) {
+				kind = Kind.GOTO;
+				payload = name(goto_.gotoident);
+			} else if (node instanceof Try try_) {
+				kind = Kind.TRY;
+				payload = name(try_.catches);
+				child(try_.block);
+				child(try_.catchesAs);
+				child(try_.catch_);
+			} else if (node instanceof Throw throw_) {
+				kind = Kind.THROW;
+				payload = name(throw_.ident);
+				children.addAll(throw_.params);
+			} else {
+				throw new IllegalArgumentException("Cannot flatten " + node.nodeToString() + ".");
+			}
+		} else if (node instanceof SimpleVarDeclaration var) {
+			kind = Kind.VAR;
+			payload = name(var.typedVar.name());
+			child(var.typedVar.type());
+			child(var.definition);
+		} else if (node instanceof FunctionDeclaration function) {
+			kind = Kind.FUNCTION;
+			payload = name(function.name);
+			child(function.returnType);
+			children.addAll(function.parameters);
+			child(function.body);
+		} else if (node instanceof ArrayDeclaration array) {
+			kind = Kind.ARRAY;
+			payload = name(array.typedVar.name());
+			child(array.typedVar.type());
+			child(array.size);
+			child(array.definition);
+		} else if (node instanceof ClassDeclaration class_) {
+			kind = Kind.CLASS;
+			payload = name(class_.name);
+			children.addAll(class_.inheritsFrom);
+			children.addAll(class_.members);
+		} else if (node instanceof StructDeclaration struct) {
+			kind = Kind.STRUCT;
+			payload = name(struct.name);
+			children.addAll(struct.members);
+		} else if (node instanceof EnumDeclaration enum_) {
+			kind = Kind.ENUM;
+			payload = name(enum_.name);
+			children.addAll(enum_.members);
+		} else {
+			throw new IllegalArgumentException("Cannot flatten " + node.nodeToString() + ".");
+		}
+		return tree.add(kind, payload, position);
+	}
+}
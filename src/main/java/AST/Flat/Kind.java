@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package AST.Flat;
+
+/**
+ * The kinds of node in a [FlatAST]. Each node of the object tree becomes one node of the kind named after its class,
+ * and the parts of it that are not nodes become nodes of the structural kinds at the top. Each constant describes the
+ * node's payload and its children, in order. A name payload is an id in the tree's [scanner.NameTable]; a constant
+ * payload is an index into its constants, read with [FlatAST#longValue(int)] or [FlatAST#doubleValue(int)].
+ */
+public enum Kind {
+	/**
+	 * The root. Children: the top-level declarations.
+	 */
+	PROGRAM,
+	/**
+	 * Stands in for an optional child that is absent, so that the other children keep their places.
+	 */
+	NONE,
+	/**
+	 * Payload: a name, such as a type or an inherited class.
+	 */
+	NAME,
+	/**
+	 * A parameter of a function or lambda. Payload: its name. Children: a [#NAME] for its type.
+	 */
+	PARAMETER,
+	/**
+	 * A case of a switch. Children: the expression it matches, then its statement.
+	 */
+	CASE,
+	/**
+	 * Payload: the member's name. Children: an [#INTEGER] for its value.
+	 */
+	ENUM_MEMBER,
+	/**
+	 * The initializer list of an array. Children: the expressions.
+	 */
+	INITIALIZERS,
+
+	/**
+	 * Payload: the return type. Children: a [#PARAMETER] for each parameter, then the body.
+	 */
+	LAMBDA,
+	/**
+	 * Payload: the ordinal of the [AST.Expressions.OpEnums.BinaryOps]. Children: the left and right operands.
+	 */
+	BINARY_OP,
+	/**
+	 * Payload: the ordinal of the [AST.Expressions.OpEnums.UnaryOps]. Children: the operand.
+	 */
+	UNARY_OP,
+	/**
+	 * Children: the condition, the consequent and the alternate.
+	 */
+	TERNARY,
+	/**
+	 * Payload: the name of the list. Children: the index.
+	 */
+	LIST_ACCESS,
+	/**
+	 * Payload: the name of the variable.
+	 */
+	VARIABLE_ACCESS,
+	/**
+	 * Payload: 1 if the expression evaluates to the value before the change, otherwise 0. Children: the modified
+	 * expression and the amount.
+	 */
+	MODIFY,
+	/**
+	 * Payload: the name of the scope. Children: the expression evaluated in it.
+	 */
+	SCOPE_OF,
+	/**
+	 * Payload: the name of the function. Children: the arguments.
+	 */
+	CALL,
+	/**
+	 * Payload: a constant.
+	 */
+	INTEGER,
+	/**
+	 * Payload: a constant.
+	 */
+	FLOATING,
+	/**
+	 * Payload: 1 for true, 0 for false.
+	 */
+	BOOL,
+	/**
+	 * Payload: the string, interned like a name.
+	 */
+	STRING,
+	/**
+	 * Payload: the character.
+	 */
+	CHAR,
+	/**
+	 * A declaration that had a syntax error.
+	 */
+	ERROR,
+
+	/**
+	 * Children: the condition, the consequent, and the alternate or [#NONE].
+	 */
+	IF,
+	/**
+	 * Children: the initializer, the condition and the iteration, each of which may be [#NONE], then the body.
+	 */
+	FOR,
+	/**
+	 * Payload: the name of the iteration variable. Children: a [#NAME] for the collection, then the body.
+	 */
+	FOREACH,
+	/**
+	 * Children: the condition and the body.
+	 */
+	WHILE,
+	/**
+	 * Children: the condition and the body.
+	 */
+	DO_WHILE,
+	CONTINUE,
+	BREAK,
+	/**
+	 * Payload: the label.
+	 */
+	LABEL,
+	/**
+	 * Children: the expression switched on, then a [#CASE] for each case.
+	 */
+	SWITCH,
+	/**
+	 * Children: the assigned expression and the value. A compound assignment's value is the operation, whose left
+	 * operand is a copy of the assigned expression.
+	 */
+	ASSIGNMENT,
+	/**
+	 * Children: the returned expression or [#NONE].
+	 */
+	RETURN,
+	/**
+	 * Payload: the label.
+	 */
+	GOTO,
+	/**
+	 * Payload: the name of the caught exception. Children: the block, a [#NAME] for the exception's type, and the
+	 * catch block.
+	 */
+	TRY,
+	/**
+	 * Payload: the name of the exception. Children: its arguments.
+	 */
+	THROW,
+	/**
+	 * Children: the declarations.
+	 */
+	BLOCK,
+
+	/**
+	 * Payload: the name of the variable. Children: a [#NAME] for its type, then the definition or [#NONE].
+	 */
+	VAR,
+	/**
+	 * Payload: the name of the array. Children: a [#NAME] for its type, an [#INTEGER] for its size, then the
+	 * [#INITIALIZERS] or [#NONE].
+	 */
+	ARRAY,
+	/**
+	 * Payload: the name of the enum. Children: an [#ENUM_MEMBER] for each member.
+	 */
+	ENUM,
+	/**
+	 * Payload: the name of the class. Children: a [#NAME] for each class it inherits from, then its members.
+	 */
+	CLASS,
+	/**
+	 * Payload: the name of the struct. Children: its members.
+	 */
+	STRUCT,
+	/**
+	 * Payload: the name of the function. Children: a [#NAME] for the return type, a [#PARAMETER] for each
+	 * parameter, then the body.
+	 */
+	FUNCTION;
+
+	private static final Kind[] VALUES = values();
+
+	static Kind of(int ordinal) {
+		return VALUES[ordinal];
+	}
+}
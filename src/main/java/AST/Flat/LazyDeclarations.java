@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package AST.Flat;
+
+import AST.*;
+
+import java.util.*;
+
+/**
+ * The statements of a function body or the members of a class read from a [BinaryAST], decoded when the list is first
+ * used. After that it is an ordinary mutable list.
+ */
+final class LazyDeclarations extends AbstractList<Declaration> implements RandomAccess {
+	private BinaryDecoder decoder;
+	private final int parent;
+	private final int first;
+	private volatile List<Declaration> declarations;
+
+	/**
+	 * @param parent The node whose children are in the list.
+	 * @param first  The first of them in the list.
+	 */
+	LazyDeclarations(BinaryDecoder decoder, int parent, int first) {
+		this.decoder = decoder;
+		this.parent = parent;
+		this.first = first;
+	}
+
+	private List<Declaration> declarations() {
+		List<Declaration> declarations = this.declarations;
+		return declarations != null ? declarations : decode();
+	}
+
+	private synchronized List<Declaration> decode() {
+		if (declarations == null) {
+			List<Declaration> decoded = new ArrayList<>();
+			for (int child = first; child < decoder.end(parent); child = decoder.end(child)) {
+				decoded.add((Declaration) decoder.decode(child));
+			}
+			declarations = decoded;
+			// The buffer is no longer needed by this list.
+			decoder = null;
+		}
+		return declarations;
+	}
+
+	@Override
+	public Declaration get(int index) {
+		return declarations().get(index);
+	}
+
+	@Override
+	public int size() {
+		return declarations().size();
+	}
+
+	@Override
+	public Declaration set(int index, Declaration element) {
+		return declarations().set(index, element);
+	}
+
+	@Override
+	public void add(int index, Declaration element) {
+		declarations().add(index, element);
+		modCount++;
+	}
+
+	@Override
+	public Declaration remove(int index) {
+		modCount++;
+		return declarations().remove(index);
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package AST;
+
+import java.util.*;
+
+/**
+ * An int for some of the nodes of a numbered tree, kept unboxed in an array indexed by node id, as [NodeMap] keeps
+ * objects. A node without a value reads as the map's default. A map is not safe to change from several threads at
+ * once.
+ */
+public final class IntNodeMap {
+	private final int defaultValue;
+	private int[] values;
+	private final BitNodeSet present;
+
+	/**
+	 * @param capacity     The number of nodes in the tree, as [NodeIds#assign(List)] returns it. The map grows past it
+	 *                     if it must.
+	 * @param defaultValue What [#get(ASTRoot)] returns for a node without a value.
+	 */
+	public IntNodeMap(int capacity, int defaultValue) {
+		this.defaultValue = defaultValue;
+		values = new int[Math.max(capacity, 1)];
+		if (defaultValue != 0) {
+			Arrays.fill(values, defaultValue);
+		}
+		present = new BitNodeSet(capacity);
+	}
+
+	/**
+	 * The value for a node, or the default if there is none.
+	 */
+	public int get(ASTRoot node) {
+		int id = NodeIds.of(node);
+		return id < values.length ? values[id] : defaultValue;
+	}
+
+	public boolean containsKey(ASTRoot node) {
+		return present.contains(node);
+	}
+
+	public void put(ASTRoot node, int value) {
+		int id = NodeIds.of(node);
+		if (id >= values.length) {
+			int length = values.length;
+			values = Arrays.copyOf(values, Math.max(id + 1, length * 2));
+			if (defaultValue != 0) {
+				Arrays.fill(values, length, values.length, defaultValue);
+			}
+		}
+		values[id] = value;
+		present.add(node);
+	}
+
+	public void remove(ASTRoot node) {
+		if (present.remove(node)) {
+			values[node.getId()] = defaultValue;
+		}
+	}
+
+	/**
+	 * The number of nodes with a value.
+	 */
+	public int size() {
+		return present.size();
+	}
+
+	public boolean isEmpty() {
+		return present.isEmpty();
+	}
+
+	public void clear() {
+		Arrays.fill(values, defaultValue);
+		present.clear();
+	}
+}
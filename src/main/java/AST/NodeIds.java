@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package AST;
+
+import AST.Declarations.*;
+import AST.Expressions.*;
+import AST.Statements.*;
+import utils.*;
+import visitor.*;
+
+import java.util.*;
+
+/**
+ * Numbers the nodes of a program, so that [NodeMap], [IntNodeMap] and [BitNodeSet] can keep a value for each node in
+ * an array indexed by its [ASTRoot#getId()]. A program's nodes are numbered from 0 in pre-order, one number each, so
+ * the ids are dense and a node's subtree is numbered after it.
+ * <p>
+ * The parser numbers each program it returns, and so does [AST.Flat.BinaryAST#readFully(java.nio.ByteBuffer)]. A tree
+ * read lazily from a binary file is numbered by its node indices in the file instead, which are unique but leave
+ * gaps. A tree that is changed afterwards must be numbered again before it is used with side tables.
+ */
+public final class NodeIds {
+	private NodeIds() {
+	}
+
+	/**
+	 * Numbers the nodes of a program, replacing any ids they had. The tree is walked with an explicit stack, so its
+	 * depth does not matter.
+	 *
+	 * @return The number of nodes, which is one more than the largest id.
+	 */
+	public static int assign(List<? extends Declaration> program) {
+		Numberer numberer = new Numberer();
+		for (int i = program.size() - 1; i >= 0; i--) {
+			numberer.push(program.get(i));
+		}
+		return numberer.run();
+	}
+
+	/**
+	 * The id of a node, to index a side table with.
+	 *
+	 * @throws IllegalArgumentException If the node has not been numbered.
+	 */
+	static int of(ASTRoot node) {
+		int id = node.getId();
+		if (id < 0) {
+			throw new IllegalArgumentException("A " + node.getClass().getSimpleName() + " at line " + node.getLine()
+											   + " has no id. Its tree must be numbered with NodeIds.assign.");
+		}
+		return id;
+	}
+
+	/**
+	 * Visiting a node pushes its children last to first, so that they are numbered in order.
+	 */
+	private static final class Numberer implements Visitor<Void> {
+		private ASTRoot[] nodes = new ASTRoot[64];
+		/**
+		 * Whether a pushed node is numbered without its children, which are numbered elsewhere.
+		 */
+		private boolean[] shallow = new boolean[64];
+		private int top;
+		private int next;
+
+		int run() {
+			while (top > 0) {
+				top--;
+				ASTRoot node = nodes[top];
+				boolean withoutChildren = shallow[top];
+				nodes[top] = null;
+				node.setId(next++);
+				if (!withoutChildren) {
+					node.accept(this);
+				}
+			}
+			return next;
+		}
+
+		void push(ASTRoot node) {
+			push(node, false);
+		}
+
+		private void push(ASTRoot node, boolean withoutChildren) {
+			if (node == null) {
+				return;
+			}
+			if (top == nodes.length) {
+				nodes = Arrays.copyOf(nodes, top * 2);
+				shallow = Arrays.copyOf(shallow, top * 2);
+			}
+			nodes[top] = node;
+			shallow[top] = withoutChildren;
+			top++;
+		}
+
+		private void pushAll(List<? extends ASTRoot> children) {
+			if (children != null) {
+				for (int i = children.size() - 1; i >= 0; i--) {
+					push(children.get(i));
+				}
+			}
+		}
+
+		@Override
+		public Void visit(Lambda node) {
+			push(node.block);
+			return null;
+		}
+
+		@Override
+		public Void visit(BinaryOp node) {
+			push(node.right);
+			push(node.left);
+			return null;
+		}
+
+		@Override
+		public Void visit(UnaryOp node) {
+			push(node.inner);
+			return null;
+		}
+
+		@Override
+		public Void visit(Ternary node) {
+			push(node.alternate);
+			push(node.consequent);
+			push(node.condition);
+			return null;
+		}
+
+		@Override
+		public Void visit(ListAccess node) {
+			push(node.index);
+			return null;
+		}
+
+		@Override
+		public Void visit(VariableAccess node) {
+			return null;
+		}
+
+		@Override
+		public Void visit(Modify node) {
+			push(node.modifyBy);
+			push(node.ident);
+			return null;
+		}
+
+		@Override
+		public Void visit(ScopeOf node) {
+			push(node.perform);
+			return null;
+		}
+
+		@Override
+		public Void visit(Call node) {
+			pushAll(node.params);
+			return null;
+		}
+
+		@Override
+		public Void visit(IntegerNode node) {
+			return null;
+		}
+
+		@Override
+		public Void visit(Floating node) {
+			return null;
+		}
+
+		@Override
+		public Void visit(Bool node) {
+			return null;
+		}
+
+		@Override
+		public Void visit(StringLit node) {
+			return null;
+		}
+
+		@Override
+		public Void visit(CharNode node) {
+			return null;
+		}
+
+		@Override
+		public Void visit(ErrorNode node) {
+			return null;
+		}
+
+		@Override
+		public Void visit(If node) {
+			push(node.alternate);
+			push(node.consequent);
+			push(node.conditional);
+			return null;
+		}
+
+		@Override
+		public Void visit(For node) {
+			push(node.body);
+			push(node.iteration);
+			push(node.conditional);
+			push(node.initializer);
+			return null;
+		}
+
+		@Override
+		public Void visit(ForEach node) {
+			push(node.body);
+			return null;
+		}
+
+		@Override
+		public Void visit(While node) {
+			push(node.body);
+			push(node.conditional);
+			return null;
+		}
+
+		@Override
+		public Void visit(DoWhile node) {
+			push(node.body);
+			push(node.conditional);
+			return null;
+		}
+
+		@Override
+		public Void visit(Continue node) {
+			return null;
+		}
+
+		@Override
+		public Void visit(Break node) {
+			return null;
+		}
+
+		@Override
+		public Void visit(Label node) {
+			return null;
+		}
+
+		@Override
+		public Void visit(Switch node) {
+			for (int i = node.cases.size() - 1; i >= 0; i--) {
+				Entry<Expression, Statement> entry = node.cases.get(i);
+				push(entry.value());
+				push(entry.key());
+			}
+			push(node.switchon);
+			return null;
+		}
+
+		@Override
+		public Void visit(Assignment node) {
+			// A compound assignment shares its target with the left operand of its implied operation.
+			if (node.expr instanceof BinaryOp op && op.left == node.ident) {
+				push(op.right);
+				push(op, true);
+			} else {
+				push(node.expr);
+			}
+			push(node.ident);
+			return null;
+		}
+
+		@Override
+		public Void visit(Return node) {
+			push(node.expr);
+			return null;
+		}
+
+		@Override
+		public Void visit(Goto node) {
+			return null;
+		}
+
+		@Override
+		public Void visit(Try node) {
+			push(node.catch_);
+			push(node.block);
+			return null;
+		}
+
+		@Override
+		public Void visit(Throw node) {
+			pushAll(node.params);
+			return null;
+		}
+
+		@Override
+		public Void visit(Block node) {
+			pushAll(node.statements);
+			return null;
+		}
+
+		@Override
+		public Void visit(SimpleVarDeclaration node) {
+			push(node.definition);
+			return null;
+		}
+
+		@Override
+		public Void visit(ArrayDeclaration node) {
+			pushAll(node.definition);
+			return null;
+		}
+
+		@Override
+		public Void visit(EnumDeclaration node) {
+			return null;
+		}
+
+		@Override
+		public Void visit(ClassDeclaration node) {
+			pushAll(node.members);
+			return null;
+		}
+
+		@Override
+		public Void visit(StructDeclaration node) {
+			pushAll(node.members);
+			return null;
+		}
+
+		@Override
+		public Void visit(FunctionDeclaration node) {
+			push(node.body);
+			return null;
+		}
+	}
+}
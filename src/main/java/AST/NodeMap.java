@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package AST;
+
+import java.util.*;
+
+/**
+ * A value for some of the nodes of a numbered tree, kept in an array indexed by node id. A pass records what it finds
+ * in a map of its own rather than in the nodes, so passes over the same tree can run at the same time. A map is not
+ * safe to change from several threads at once.
+ * <p>
+ * Null is not a value: putting null removes the node.
+ *
+ * @param <T> The type of the values.
+ */
+public final class NodeMap<T> {
+	private Object[] values;
+	private int size;
+
+	public NodeMap() {
+		this(16);
+	}
+
+	/**
+	 * @param capacity The number of nodes in the tree, as [NodeIds#assign(List)] returns it. The map grows past it if
+	 *                 it must.
+	 */
+	public NodeMap(int capacity) {
+		values = new Object[Math.max(capacity, 1)];
+	}
+
+	/**
+	 * The value for a node, or null if there is none.
+	 */
+	public T get(ASTRoot node) {
+		int id = NodeIds.of(node);
+		@SuppressWarnings("unchecked")
+		T value = id < values.length ? (T) values[id] : null;
+		return value;
+	}
+
+	public boolean containsKey(ASTRoot node) {
+		return get(node) != null;
+	}
+
+	/**
+	 * Sets the value for a node.
+	 *
+	 * @param value The value, or null to remove the node.
+	 * @return The previous value, or null if there was none.
+	 */
+	public T put(ASTRoot node, T value) {
+		int id = NodeIds.of(node);
+		if (id >= values.length) {
+			if (value == null) {
+				return null;
+			}
+			values = Arrays.copyOf(values, Math.max(id + 1, values.length * 2));
+		}
+		@SuppressWarnings("unchecked")
+		T previous = (T) values[id];
+		values[id] = value;
+		size += (value != null ? 1 : 0) - (previous != null ? 1 : 0);
+		return previous;
+	}
+
+	/**
+	 * @return The value the node had, or null if there was none.
+	 */
+	public T remove(ASTRoot node) {
+		return put(node, null);
+	}
+
+	/**
+	 * The number of nodes with a value.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		Arrays.fill(values, null);
+		size = 0;
+	}
+}
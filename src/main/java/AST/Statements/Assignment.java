@@ -14,14 +14,19 @@ public final class Assignment extends Statement {
 	public final Expression ident;
 	public final Expression expr;
 
-	public Assignment(Expression ident, Expression expr, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public Assignment(Expression ident, Expression expr, long position) {
+		super(Position.line(position), Position.column(position));
 		this.ident = ident;
 		this.expr = expr;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
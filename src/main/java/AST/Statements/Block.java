@@ -16,13 +16,18 @@ import java.util.stream.*;
 public final class Block extends Statement {
 	public final List<Declaration> statements;
 
-	public Block(List<Declaration> statements, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public Block(List<Declaration> statements, long position) {
+		super(Position.line(position), Position.column(position));
 		this.statements = statements;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
@@ -11,12 +11,17 @@ import utils.*;
 import visitor.*;
 
 public final class Continue extends Statement {
-	public Continue(Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public Continue(long position) {
+		super(Position.line(position), Position.column(position));
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
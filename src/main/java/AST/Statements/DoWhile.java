@@ -14,14 +14,19 @@ public final class DoWhile extends Statement {
 	public final Expression conditional;
 	public final Statement body;
 
-	public DoWhile(Expression conditional, Statement body, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public DoWhile(Expression conditional, Statement body, long position) {
+		super(Position.line(position), Position.column(position));
 		this.conditional = conditional;
 		this.body = body;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
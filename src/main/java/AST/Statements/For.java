@@ -19,9 +19,9 @@ public final class For extends Statement {
 	public For(
 			Declaration initializer, Declaration conditional, Declaration iteration,
 			Statement body,
-			Entry<Integer, Integer> loc
+			long position
 	) {
-		super(loc.key(), loc.value());
+		super(Position.line(position), Position.column(position));
 		this.initializer = initializer;
 		this.conditional = conditional;
 		this.iteration = iteration;
@@ -29,7 +29,12 @@ public final class For extends Statement {
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
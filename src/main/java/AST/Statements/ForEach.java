@@ -12,18 +12,34 @@ import visitor.*;
 
 public final class ForEach extends Statement {
 	public final String iterval;
+	/**
+	 * The id of [#iterval] in the [scanner.NameTable] the source was lexed with, or -1.
+	 */
+	public final int itervalId;
 	public final String collectionvar;
+	/**
+	 * The id of [#collectionvar] in the [scanner.NameTable] the source was lexed with, or -1.
+	 */
+	public final int collectionvarId;
 	public final Statement body;
 
-	public ForEach(String iterval, String collectionvar, Statement body, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public ForEach(String iterval, int itervalId, String collectionvar, int collectionvarId, Statement body,
+				   long position) {
+		super(Position.line(position), Position.column(position));
 		this.iterval = iterval;
+		this.itervalId = itervalId;
 		this.collectionvar = collectionvar;
+		this.collectionvarId = collectionvarId;
 		this.body = body;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
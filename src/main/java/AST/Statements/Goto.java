@@ -12,14 +12,24 @@ import visitor.*;
 
 public final class Goto extends Statement {
 	public final String gotoident;
+	/**
+	 * The id of [#gotoident] in the [scanner.NameTable] the source was lexed with, or -1.
+	 */
+	public final int nameId;
 
-	public Goto(String gotoident, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public Goto(String gotoident, int nameId, long position) {
+		super(Position.line(position), Position.column(position));
 		this.gotoident = gotoident;
+		this.nameId = nameId;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
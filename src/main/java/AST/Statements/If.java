@@ -15,15 +15,20 @@ public final class If extends Statement {
 	public final Statement consequent;
 	public final Statement alternate;
 
-	public If(Expression conditional, Statement consequent, Statement alternate, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public If(Expression conditional, Statement consequent, Statement alternate, long position) {
+		super(Position.line(position), Position.column(position));
 		this.conditional = conditional;
 		this.consequent = consequent;
 		this.alternate = alternate;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
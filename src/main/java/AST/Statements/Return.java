@@ -15,14 +15,19 @@ public final class Return extends Statement {
 
 	public final boolean nullRet;
 
-	public Return(Expression expr, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public Return(Expression expr, long position) {
+		super(Position.line(position), Position.column(position));
 		this.expr = expr;
 		nullRet = this.expr == null;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
@@ -16,14 +16,19 @@ public final class Switch extends Statement {
 	public final Expression switchon;
 	public final List<Entry<Expression, Statement>> cases;
 
-	public Switch(Expression switchon, List<Entry<Expression, Statement>> cases, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public Switch(Expression switchon, List<Entry<Expression, Statement>> cases, long position) {
+		super(Position.line(position), Position.column(position));
 		this.switchon = switchon;
 		this.cases = cases;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
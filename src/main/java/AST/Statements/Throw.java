@@ -14,16 +14,26 @@ import java.util.*;
 
 public final class Throw extends Statement {
 	public final String ident;
+	/**
+	 * The id of [#ident] in the [scanner.NameTable] the source was lexed with, or -1.
+	 */
+	public final int nameId;
 	public final List<Expression> params;
 
-	public Throw(String ident, List<Expression> params, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public Throw(String ident, int nameId, List<Expression> params, long position) {
+		super(Position.line(position), Position.column(position));
 		this.ident = ident;
+		this.nameId = nameId;
 		this.params = params;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
@@ -13,19 +13,36 @@ import visitor.*;
 public final class Try extends Statement {
 	public final Statement block;
 	public final String catches;
+	/**
+	 * The id of [#catches] in the [scanner.NameTable] the source was lexed with, or -1.
+	 */
+	public final int catchesId;
 	public final String catchesAs;
+	/**
+	 * The id of [#catchesAs] in the [scanner.NameTable] the source was lexed with, or -1, such as for an inferred
+	 * type.
+	 */
+	public final int catchesAsId;
 	public final Statement catch_;
 
-	public Try(Statement block, String catches, String catchesAs, Statement catch_, Entry<Integer, Integer> loc) {
-		super(loc.key(), loc.value());
+	public Try(Statement block, String catches, int catchesId, String catchesAs, int catchesAsId, Statement catch_,
+			   long position) {
+		super(Position.line(position), Position.column(position));
 		this.block = block;
 		this.catches = catches;
+		this.catchesId = catchesId;
 		this.catchesAs = catchesAs;
+		this.catchesAsId = catchesAsId;
 		this.catch_ = catch_;
 	}
 
 	@Override
-	public Object accept(Visitor visitor) {
+	public <R> R accept(Visitor<R> visitor) {
+		return visitor.visit(this);
+	}
+
+	@Override
+	public int accept(IntVisitor visitor) {
 		return visitor.visit(this);
 	}
 
@@ -4,31 +4,111 @@ import scanner.*;
 import utils.*;
 
 import java.io.*;
+import java.nio.*;
 import java.nio.charset.*;
 import java.nio.file.*;
 import java.util.*;
 
 public class Main {
+	private static final boolean PARALLEL = Boolean.getBoolean(ParallelParser.PARALLEL_PROPERTY);
+	private static final ParseCache CACHE = ParseCache.fromProperties();
+	private static final String EMIT_OPTION = "--emit=";
+	/**
+	 * The format to export trees in instead of printing them, or null to print them.
+	 */
+	private static ASTExporter.Format emit;
+
 	public static void main(String[] args) {
-		if (args.length > 1) {
-			System.out.println("Usage: interpreter [script]");
-			System.exit(1);
-		} else if (args.length == 1) {
-			runFile(args[0]);
+		int first = 0;
+		if (args.length > 0 && args[0].startsWith(EMIT_OPTION)) {
+			emit = ASTExporter.Format.of(args[0].substring(EMIT_OPTION.length()));
+			if (emit == null) {
+				usage();
+			}
+			// Standard output is left to the export; warnings and errors go to standard error.
+			System.setOut(System.err);
+			first = 1;
+		}
+		if (args.length - first > 1) {
+			usage();
+		} else if (args.length - first == 1) {
+			runFile(args[first]);
 		} else {
 			runPrompt();
 		}
 	}
 
+	private static void usage() {
+		System.out.println("Usage: interpreter [--emit=ast-json|ast-sexpr] [script]");
+		System.exit(1);
+	}
+
 	private static void runFile(String path) {
-		String code = "";
+		if (CACHE != null) {
+			runCached(path);
+			return;
+		}
+		ParsingContext context;
 		try {
-			List<String> lines = Files.readAllLines(Path.of(path));
-			code = String.join("\n", lines);
-		} catch (IOException e) {
+			// Parallel parsing needs every token up front; otherwise tokens are lexed as the parser asks for them.
+			context = PARALLEL ? new ParsingContext(Tokenizer.scanFileParallel(Path.of(path)))
+							   : new ParsingContext(Tokenizer.streamFile(Path.of(path)));
+		} catch (IOException | InvalidPathException e) {
 			System.out.println("The file " + path + " is not valid or you do not have correct permissions.");
+			return;
 		}
-		runcode(code);
+		run(context);
+	}
+
+	/**
+	 * Runs a file, taking its tree from the parse cache if it has not changed since it was cached. The warnings printed
+	 * while parsing are cached with the tree and printed again on a hit.
+	 */
+	private static void runCached(String path) {
+		byte[] source;
+		try {
+			source = Files.readAllBytes(Path.of(path));
+		} catch (IOException | InvalidPathException e) {
+			System.out.println("The file " + path + " is not valid or you do not have correct permissions.");
+			return;
+		}
+		ParseCache.Entry entry = CACHE.get(source);
+		if (entry != null) {
+			System.out.write(entry.output(), 0, entry.output().length);
+		} else {
+			CharSequence text = new Utf8Source(ByteBuffer.wrap(source));
+			ParsingContext context = PARALLEL ? new ParsingContext(Tokenizer.scanParallel(text))
+											  : new ParsingContext(Tokenizer.stream(text));
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			PrintStream console = System.out;
+			System.setOut(new PrintStream(new OutputStream() {
+				@Override
+				public void write(int b) {
+					console.write(b);
+					output.write(b);
+				}
+
+				@Override
+				public void write(byte[] bytes, int offset, int length) {
+					console.write(bytes, offset, length);
+					output.write(bytes, offset, length);
+				}
+			}, false, console.charset()));
+			List<Declaration> declTree;
+			try {
+				declTree = parse(context);
+			} finally {
+				System.out.flush();
+				System.setOut(console);
+			}
+			entry = new ParseCache.Entry(declTree, context.diagnostics(), output.toByteArray());
+			try {
+				CACHE.put(source, entry);
+			} catch (IOException e) {
+				System.out.println("WARNING: The parse of " + path + " could not be cached (" + e + ").");
+			}
+		}
+		report(entry.program(), entry.diagnostics());
 	}
 
 	private static void runPrompt() {
@@ -44,21 +124,29 @@ public class Main {
 	}
 
 	private static void runcode(String line) {
-		List<Token> tokens = Tokenizer.tokenize(line);
-		List<Declaration> declTree = parseProgram(tokens);
-		for (Declaration decl : declTree) {
-			String formattedAST = ASTFormatter.formatAST(decl.toString());
-			System.out.println(formattedAST);
-		}
+		run(new ParsingContext(Tokenizer.stream(line)));
 	}
 
-	private static List<Declaration> parseProgram(List<Token> tokens) {
-		List<Declaration> decls = new ArrayList<>(128);
-		ParsingContext context = new ParsingContext(tokens);
-		do {
-			Declaration decl = DeclarationParser.parseDeclaration(context);
-			decls.add(decl);
-		} while (context.isEmpty());
-		return decls;
+	private static void run(ParsingContext context) {
+		report(parse(context), context.diagnostics());
+	}
+
+	private static List<Declaration> parse(ParsingContext context) {
+		return PARALLEL ? ParallelParser.parseProgram(context) : DeclarationParser.parseProgram(context);
+	}
+
+	private static void report(List<Declaration> declTree, Diagnostics diagnostics) {
+		if (!diagnostics.isEmpty()) {
+			for (Diagnostics.Diagnostic diagnostic : diagnostics) {
+				System.out.println(diagnostic);
+			}
+			System.out.println(diagnostics.size() + (diagnostics.size() == 1 ? " error." : " errors."));
+			return;
+		}
+		if (emit != null) {
+			new ASTExporter(new FileOutputStream(FileDescriptor.out).getChannel(), emit).export(declTree);
+			return;
+		}
+		new ASTPrinter(new OutputStreamWriter(System.out, System.out.charset())).print(declTree);
 	}
 }
\ No newline at end of file
@@ -22,7 +22,7 @@ public final class DeclarationParser extends Parser {
 		super(tokenStream);
 	}
 
-	private DeclarationParser(ParsingContext parser) {
+	DeclarationParser(ParsingContext parser) {
 		super(parser);
 	}
 
@@ -36,8 +36,39 @@ public final class DeclarationParser extends Parser {
 	 * ***Grammar:*** * Expression -> * * Lambda
 	 */
 	public static Declaration parseDeclaration(ParsingContext cont) {
-		DeclarationParser parser = new DeclarationParser(cont);
-		return parser.parseDeclaration();
+		return cont.declarations().parseDeclaration();
+	}
+
+	/**
+	 * Like [#parseDeclaration(ParsingContext)], but recovers from syntax errors: they are collected in the context's
+	 * [Diagnostics], and an [AST.Expressions.ErrorNode] stands in for the declaration that had them.
+	 */
+	public static Declaration parseDeclarationOrError(ParsingContext cont) {
+		return cont.declarations().parseDeclarationOrError();
+	}
+
+	/**
+	 * Parses declarations until the end of input, recovering from syntax errors, and numbers the nodes with
+	 * [NodeIds#assign(List)].
+	 *
+	 * @return The top-level declarations, in source order.
+	 */
+	public static List<Declaration> parseProgram(ParsingContext cont) {
+		List<Declaration> decls = parseDeclarations(cont);
+		NodeIds.assign(decls);
+		return decls;
+	}
+
+	/**
+	 * Parses declarations until the end of input, like [#parseProgram(ParsingContext)], but leaves the nodes for the
+	 * caller to number.
+	 */
+	static List<Declaration> parseDeclarations(ParsingContext cont) {
+		List<Declaration> decls = new ArrayList<>(128);
+		do {
+			decls.add(parseDeclarationOrError(cont));
+		} while (cont.isEmpty());
+		return decls;
 	}
 
 
@@ -54,37 +85,36 @@ public final class DeclarationParser extends Parser {
 	 * * | [Statement]
 	 */
 	Declaration parseDeclaration() {
+		int start = context.getPosition();
 		Declaration retNode;
-		switch (getCurrentToken().type) {
+		switch (context.getCurrentType()) {
 			case VAR -> {
-				consumeToken();
+				advance();
 				retNode = parseVarDeclaration();
 			}
 			case ARRAY -> {
-				consumeToken();
+				advance();
 				retNode = parseArrayDeclaration();
 			}
 			case ENUM -> {
-				consumeToken();
+				advance();
 				retNode = parseEnumDeclaration();
 			}
 			case CLASS -> {
-				consumeToken();
+				advance();
 				retNode = parseClassDeclaration();
 			}
 			case FUN -> {
-				consumeToken();
+				advance();
 				retNode = parseFunDeclaration();
 			}
 			case STRUCT -> {
-				consumeToken();
+				advance();
 				retNode = parseStructDeclaration();
 			}
-			default -> {
-				return StatementParser.parseStatement(context);
-			}
+			default -> retNode = StatementParser.parseStatement(context);
 		}
-		return retNode;
+		return withRange(retNode, start);
 	}
 
 	/**
@@ -100,33 +130,45 @@ public final class DeclarationParser extends Parser {
 	 * * * Type -> [Ident]ifier
 	 */
 	private Declaration parseVarDeclaration() {
-		Entry<Integer, Integer> loc = getCurrentLocation();
+		long loc = getCurrentLocation();
+		TypedVar typedVar = parseVarName(loc);
 
-		String ident = matchIdent("Expected a variable name after 'var'.");
-		String type;
-		if (!curTokenIsType(TokenType.COLON)) {
-			System.out.println("WARNING: Variable not typed at line " + loc.key() + ". Type will be "
-							   + "inferred based on the variable's use.");
-			type = "!!INFER!!";
-		} else {
-			consumeToken();
-			type = matchIdent("A colon must be followed by a type identifier.");
+		if (curTokenIsType(TokenType.EQUATE)) {
+			advance();
+			return finishVarDeclaration(typedVar, ExpressionParser.parseExpression(context), loc);
 		}
+		return finishVarDeclaration(typedVar, loc);
+	}
 
-		TypedVar typedVar = new TypedVar(ident, type);
+	/**
+	 * Parses the name and optional type of a var.
+	 *
+	 * @param loc The location of the declaration.
+	 */
+	TypedVar parseVarName(long loc) {
+		String name = context.getCurrentText();
+		int nameId = context.getCurrentNameId();
+		expect(TokenType.IDENTIFIER, "Expected a variable name after 'var'.");
+		return parseOptionalType(name, nameId, loc);
+	}
 
-		if (getCurrentToken().type == TokenType.EQUATE) {
-			consumeToken();
-			Expression expr = ExpressionParser.parseExpression(context);
-			match(TokenType.SEMICOLON, "Expected semicolon after definition.");
-			return new SimpleVarDeclaration(typedVar, expr, loc);
-		}
+	/**
+	 * Finishes a var whose initializer was parsed, after its name, by the caller.
+	 */
+	Declaration finishVarDeclaration(TypedVar typedVar, Expression expr, long loc) {
+		expect(TokenType.SEMICOLON, "Expected semicolon after definition.");
+		return new SimpleVarDeclaration(typedVar, expr, loc);
+	}
 
-		if (getCurrentToken().type == TokenType.SEMICOLON) {
-			consumeToken();
+	/**
+	 * Finishes a var that has no initializer after its name.
+	 */
+	Declaration finishVarDeclaration(TypedVar typedVar, long loc) {
+		if (curTokenIsType(TokenType.SEMICOLON)) {
+			advance();
 			return new SimpleVarDeclaration(typedVar, null, loc);
 		} else {
-			throw new RuntimeException("Unterminated declaration starting at line: " + loc.key());
+			throw context.error(loc, "Unterminated declaration.");
 		}
 	}
 
@@ -143,44 +185,37 @@ public final class DeclarationParser extends Parser {
 	 * * Type -> [Ident]ifier
 	 */
 	private Declaration parseArrayDeclaration() {
-		Entry<Integer, Integer> loc = getCurrentLocation();
+		long loc = getCurrentLocation();
 
-		String ident = matchIdent("Expected an array name.");
+		String name = context.getCurrentText();
+		int nameId = context.getCurrentNameId();
+		expect(TokenType.IDENTIFIER, "Expected an array name.");
 
 		long arraylen = -1;
 
-		if (getCurrentToken().type == TokenType.LBRACKET) {
-			consumeToken();
-			arraylen = Integer.parseInt(match(TokenType.INTCONST, "Array lengths must be whole integers.").text);
-			match(TokenType.RBRACKET, "Array lengths must end with right brackets.");
+		if (curTokenIsType(TokenType.LBRACKET)) {
+			advance();
+			arraylen = context.getCurrentValue();
+			expect(TokenType.INTCONST, "Array lengths must be whole integers.");
+			expect(TokenType.RBRACKET, "Array lengths must end with right brackets.");
 		}
 
-		String type;
-		if (!curTokenIsType(TokenType.COLON)) {
-			System.out.println("WARNING: Variable not typed at line " + loc.key() + ". Type will be "
-							   + "inferred based on the variable's use.");
-			type = "!!INFER!!";
-		} else {
-			consumeToken();
-			type = matchIdent("A colon must be followed by a type identifier.");
-		}
+		TypedVar typedVar = parseOptionalType(name, nameId, loc);
 
 		Declaration decl;
-		if (getCurrentToken().type == TokenType.EQUATE) {
-			consumeToken();
+		if (curTokenIsType(TokenType.EQUATE)) {
+			advance();
 			List<Expression> initalizers = parseArrayInitalizers();
-			TypedVar typedVar = new TypedVar(ident, type);
 			decl = new ArrayDeclaration(typedVar, arraylen, initalizers, loc);
 		} else {
-			TypedVar typedVar = new TypedVar(ident, type);
 			decl = new ArrayDeclaration(typedVar, arraylen, null, loc);
 		}
 
-		if (getCurrentToken().type == TokenType.SEMICOLON) {
-			consumeToken();
+		if (curTokenIsType(TokenType.SEMICOLON)) {
+			advance();
 			return decl;
 		} else {
-			throw new RuntimeException("Unterminated declaration starting at line: " + loc.key());
+			throw context.error(loc, "Unterminated declaration.");
 		}
 	}
 
@@ -195,18 +230,18 @@ public final class DeclarationParser extends Parser {
 	 */
 	private List<Expression> parseArrayInitalizers() {
 		ArrayList<Expression> initalizerList = new ArrayList<>();
-		match(TokenType.LBRACE, "Array initializers must start with braces.");
+		expect(TokenType.LBRACE, "Array initializers must start with braces.");
 		while (true) {
 			initalizerList.add(ExpressionParser.parseExpression(context));
-			if (getCurrentToken().type == TokenType.RBRACE) {
+			if (curTokenIsType(TokenType.RBRACE)) {
 				break;
-			} else if (getCurrentToken().type == TokenType.COMMA) {
-				consumeToken();
+			} else if (curTokenIsType(TokenType.COMMA)) {
+				advance();
 			} else {
-				throw new RuntimeException("Error: Unexpected token in array initializer list.");
+				throw context.error("Unexpected token in array initializer list.");
 			}
 		}
-		match(TokenType.RBRACE, "Array initializers must end with braces.");
+		expect(TokenType.RBRACE, "Array initializers must end with braces.");
 		return initalizerList;
 	}
 
@@ -222,46 +257,46 @@ public final class DeclarationParser extends Parser {
 	 * * EnumPairs ->  Name ":" Primary ","
 	 */
 	private Declaration parseEnumDeclaration() {
-		Entry<Integer, Integer> loc = getCurrentLocation();
+		long loc = getCurrentLocation();
+		int nameId = context.getCurrentNameId();
 		String name = matchIdent("Expected an enum name.");
 
-		match(TokenType.LBRACE, "Error: An enum declaration must contain an identifier followed by a series of " +
+		expect(TokenType.LBRACE, "Error: An enum declaration must contain an identifier followed by a series of " +
 								"mappings enclosed in left braces.");
 
 		ArrayList<EnumMember> members = new ArrayList<>();
 		long enumNumber = 0L;
 
 		while (true) {
-			if (getCurrentToken().type == TokenType.IDENTIFIER) {
+			if (curTokenIsType(TokenType.IDENTIFIER)) {
+				int paramNameId = context.getCurrentNameId();
 				String paramName = matchIdent("Expected an enum member.");
-				if (getCurrentToken().type == TokenType.COLON) {
-					long num = Integer.parseInt(match(TokenType.INTCONST, "Error: Must define an enum entry as " +
-																		  "a number.").text);
+				if (curTokenIsType(TokenType.COLON)) {
+					long num = context.getCurrentValue();
+					expect(TokenType.INTCONST, "Error: Must define an enum entry as a number.");
 
-					members.add(new EnumMember(paramName, num));
+					members.add(new EnumMember(paramName, num, paramNameId));
 					enumNumber = num;
-				} else if (getCurrentToken().type == TokenType.COMMA) {
-					consumeToken();
-					members.add(new EnumMember(paramName, enumNumber));
+				} else if (curTokenIsType(TokenType.COMMA)) {
+					advance();
+					members.add(new EnumMember(paramName, enumNumber, paramNameId));
 					enumNumber++;
 				} else {
-					throw new RuntimeException("Error on line " + loc.key() + ": Error in enum parsing. Expected " +
-											   "either an identifier or colon.");
+					throw context.error("Error in enum parsing. Expected either an identifier or colon.");
 				}
-			} else if (getCurrentToken().type == TokenType.RBRACE) {
-				consumeToken();
+			} else if (curTokenIsType(TokenType.RBRACE)) {
+				advance();
 				if (members.isEmpty()) {
-					System.out.println(
-							"WARNING: Empty enum definition at line " + getCurrentLocation().key() + ".");
+					context.warn(
+							"WARNING: Empty enum definition at line " + Position.line(getCurrentLocation()) + ".");
 				}
 				break;
 			} else {
-				throw new RuntimeException("Error on line " + loc.key() + ": Error in enum parsing. Expected " +
-										   "either a right brace or an identifier.");
+				throw context.error("Error in enum parsing. Expected either a right brace or an identifier.");
 			}
 		}
 
-		return new EnumDeclaration(name, members, loc);
+		return new EnumDeclaration(name, nameId, members, loc);
 	}
 
 	/**
@@ -275,10 +310,11 @@ public final class DeclarationParser extends Parser {
 	 * * Name -> [Ident]ifier
 	 */
 	private Declaration parseStructDeclaration() {
-		Entry<Integer, Integer> loc = getCurrentLocation();
+		long loc = getCurrentLocation();
+		int nameId = context.getCurrentNameId();
 		String name = matchIdent("Expected a struct name.");
-		List<Declaration> body = parseDeclarationBlock("structs");
-		return new StructDeclaration(name, body, loc);
+		List<Declaration> body = parseDeclarationBlock("The bodies of structs must be braced.");
+		return new StructDeclaration(name, nameId, body, loc);
 	}
 
 	/**
@@ -295,41 +331,52 @@ public final class DeclarationParser extends Parser {
 	 * * * "(" Name ("," Name)* ")"
 	 */
 	private Declaration parseClassDeclaration() {
-		Entry<Integer, Integer> loc = getCurrentLocation();
+		long loc = getCurrentLocation();
+		int nameId = context.getCurrentNameId();
 		String name = matchIdent("Expected a class name.");
 		List<String> inheritsFrom = new ArrayList<>();
+		int[] inheritsFromIds = new int[0];
 
-		if (getCurrentToken().type != TokenType.COLON) {
-			List<Declaration> body = parseDeclarationBlock("classes");
-			return new ClassDeclaration(name, body, inheritsFrom, loc);
+		if (!curTokenIsType(TokenType.COLON)) {
+			List<Declaration> body = parseDeclarationBlock("The bodies of classes must be braced.");
+			return new ClassDeclaration(name, nameId, body, inheritsFrom, inheritsFromIds, loc);
 		}
-		consumeToken();
+		advance();
 
-		if (getCurrentToken().type == TokenType.LPAREN) {
-			consumeToken();
+		if (curTokenIsType(TokenType.LPAREN)) {
+			advance();
 			while (true) {
-				if (getCurrentToken().type == TokenType.IDENTIFIER) {
-					inheritsFrom.add(matchIdent("Expected a class to inherit from."));
-				} else if (getCurrentToken().type == TokenType.RPAREN) {
-					consumeToken();
+				if (curTokenIsType(TokenType.IDENTIFIER)) {
+					inheritsFromIds = parseInheritedClass(inheritsFrom, inheritsFromIds);
+				} else if (curTokenIsType(TokenType.RPAREN)) {
+					advance();
 					break;
-				} else if (getCurrentToken().type == TokenType.COMMA) {
-					consumeToken();
+				} else if (curTokenIsType(TokenType.COMMA)) {
+					advance();
 					// Commas are allowed between inherited classes
 				} else {
-					throw new RuntimeException("Error on line " + loc.key() + ": Error in class parsing. Expected" +
-											   " " +
-											   "either a right parenthesis, a comma, or an identifier in " +
-											   "inheritance list. Got a " + getCurrentToken().type +
-											   ".");
+					throw context.error("Error in class parsing. Expected either a right parenthesis, a comma, or an " +
+										"identifier in inheritance list.");
 				}
 			}
 		} else {
-			inheritsFrom.add(matchIdent("Expected a class to inherit from."));
+			inheritsFromIds = parseInheritedClass(inheritsFrom, inheritsFromIds);
 		}
 
-		List<Declaration> body = parseDeclarationBlock("classes");
-		return new ClassDeclaration(name, body, inheritsFrom, loc);
+		List<Declaration> body = parseDeclarationBlock("The bodies of classes must be braced.");
+		return new ClassDeclaration(name, nameId, body, inheritsFrom, inheritsFromIds, loc);
+	}
+
+	/**
+	 * Parses the name of a class to inherit from, adding it to the names and its name id to the ids.
+	 *
+	 * @return The ids, grown by one.
+	 */
+	private int[] parseInheritedClass(List<String> names, int[] ids) {
+		int[] grown = Arrays.copyOf(ids, ids.length + 1);
+		grown[ids.length] = context.getCurrentNameId();
+		names.add(matchIdent("Expected a class to inherit from."));
+		return grown;
 	}
 
 	/**
@@ -340,13 +387,13 @@ public final class DeclarationParser extends Parser {
 	 * ***Grammar:***
 	 * * DeclarationList -> "{" (Declarations)* "}"
 	 */
-	private List<Declaration> parseDeclarationBlock(String blockType) {
+	private List<Declaration> parseDeclarationBlock(String error) {
 		ArrayList<Declaration> list = new ArrayList<>();
-		match(TokenType.LBRACE, "The bodies of " + blockType + " must be braced.");
-		while ((getCurrentToken().type != TokenType.RBRACE && getCurrentToken().type != TokenType.EOF)) {
-			list.add(parseDeclaration());
+		expect(TokenType.LBRACE, error);
+		while ((!curTokenIsType(TokenType.RBRACE) && !curTokenIsType(TokenType.EOF))) {
+			list.add(parseDeclarationOrError());
 		}
-		match(TokenType.RBRACE, "The bodies of " + blockType + " must be braced.");
+		expect(TokenType.RBRACE, error);
 		return list;
 	}
 
@@ -361,25 +408,27 @@ public final class DeclarationParser extends Parser {
 	 * * * returnType -> Identifier
 	 */
 	private Declaration parseFunDeclaration() {
-		Entry<Integer, Integer> loc = getCurrentLocation();
+		long loc = getCurrentLocation();
+		int nameId = context.getCurrentNameId();
 		String name = matchIdent("Expected a function name.");
 		// Hacky fix.
 		if ("fun".equals(name)) {
-			throw new RuntimeException("Error on line " + loc.key() + ". Either you are trying to define a function " +
-									   "named fun or the parser was unable to synchronize properly. " +
-									   "In either case stop it.");
+			throw context.error(loc, "Either you are trying to define a function named fun or the parser was unable " +
+									 "to synchronize properly. In either case stop it.");
 		}
 		List<TypedVar> params = parseParams(name);
 		String type;
+		int typeId = -1;
 		if (!curTokenIsType(TokenType.COLON)) {
-			System.out.println("WARNING: Function return not typed on line " + loc.key() + ". Void assumed.");
+			context.warn("WARNING: Function return not typed on line " + Position.line(loc) + ". Void assumed.");
 			type = "void";
 		} else {
-			consumeToken();
+			advance();
+			typeId = context.getCurrentNameId();
 			type = matchIdent("A colon must be followed by a type identifier.");
 		}
 		Statement body = parseBlock();
-		return new FunctionDeclaration(name, params, type, body, loc);
+		return new FunctionDeclaration(name, nameId, params, type, typeId, body, loc);
 	}
 
 	/**
@@ -396,40 +445,45 @@ public final class DeclarationParser extends Parser {
 	 * * * ParameterList "," TypedIdentifier
 	 */
 	private List<TypedVar> parseParams(String func) {
-		match(TokenType.LPAREN, "Error: In " + func + ". The parameter list must be enclosed in parentheses.");
+		expect(TokenType.LPAREN, "The parameter list must be enclosed in parentheses.");
 
 		List<TypedVar> params = new ArrayList<>(32);
 		boolean expectComma = false;
 		boolean allowEmpty = false;
-		Token curTok;
+		long curLoc;
 		while (true) {
 			if (curTokenIsType(TokenType.IDENTIFIER)) {
 				if (expectComma) {
-					curTok = getCurrentToken();
-					System.out.println("WARNING: Expected a comma at identifier in parameter definition for function " + func + " on line "
-									   + curTok.line + ", character " +
-									   curTok.charNum
-									   + ".");
+					curLoc = getCurrentLocation();
+					context.warn("WARNING: Expected a comma at identifier in parameter definition for function " + func + " on line "
+								 + Position.line(curLoc) + ", character " +
+								 Position.column(curLoc)
+								 + ".");
 				}
 				expectComma = true;
-				String name = matchIdent("Expected a parameter.");
-				match(TokenType.COLON, "A parameter definition must contain an identifier followed by a "
-									   + "colon and then a typename.");
-				String type = matchIdent("Expected a typename after colon in function params.");
-				params.add(new TypedVar(name, type));
+				String name = context.getCurrentText();
+				int nameId = context.getCurrentNameId();
+				expect(TokenType.IDENTIFIER, "Expected a parameter.");
+				expect(TokenType.COLON, "A parameter definition must contain an identifier followed by a "
+										+ "colon and then a typename.");
+				String type = context.getCurrentText();
+				int typeId = context.getCurrentNameId();
+				expect(TokenType.IDENTIFIER, "Expected a typename after colon in function params.");
+				params.add(new TypedVar(name, type, nameId, typeId));
 			} else if (curTokenIsType(TokenType.RPAREN)) {
-				curTok = consumeToken();
+				curLoc = getCurrentLocation();
+				advance();
 				break;
 			} else if (curTokenIsType(TokenType.COMMA)) {
 				if (!expectComma) {
-					curTok = getCurrentToken();
-					System.out.println("WARNING: Unexpected comma in parameter definition for function " + func + " on line "
-									   + curTok.line + ", character " + curTok.charNum + ".");
+					curLoc = getCurrentLocation();
+					context.warn("WARNING: Unexpected comma in parameter definition for function " + func + " on line "
+								 + Position.line(curLoc) + ", character " + Position.column(curLoc) + ".");
 				}
 				expectComma = false;
-				consumeToken();
+				advance();
 			} else if (curTokenIsType(TokenType.NOT)) {
-				consumeToken();
+				advance();
 				allowEmpty = true;
 			} else {
 				matchList(List.of(TokenType.IDENTIFIER, TokenType.RPAREN, TokenType.COMMA),
@@ -437,10 +491,34 @@ public final class DeclarationParser extends Parser {
 			}
 		}
 		if (params.isEmpty() && !allowEmpty) {
-			System.out.println("WARNING: Empty parameter list in parameter definition for function " + func + " on line "
-							   + curTok.line + ", character " + curTok.charNum + ". insert an exclamation mark to allow an empty parameter list." +
-							   "\n\t\"fun " + func + "()\" -> \"fun " + func + "(!)\"");
+			context.warn("WARNING: Empty parameter list in parameter definition for function " + func + " on line "
+						 + Position.line(curLoc) + ", character " + Position.column(curLoc) + ". insert an exclamation mark to allow an empty parameter list." +
+						 "\n\t\"fun " + func + "()\" -> \"fun " + func + "(!)\"");
 		}
 		return params;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Parses the optional type annotation of a variable or array, warning when it is missing.
+	 *
+	 * @param name   The already matched name.
+	 * @param nameId The name's id.
+	 * @param loc    The location of the declaration.
+	 * @return The name with its type, which is "!!INFER!!" if none was given.
+	 * <p>
+	 * ***Grammar:***
+	 * * [TypedVar] -> Name [":" Type]
+	 */
+	private TypedVar parseOptionalType(String name, int nameId, long loc) {
+		if (!curTokenIsType(TokenType.COLON)) {
+			context.warn("WARNING: Variable not typed at line " + Position.line(loc) + ". Type will be "
+						 + "inferred based on the variable's use.");
+			return new TypedVar(name, "!!INFER!!", nameId, -1);
+		}
+		advance();
+		String type = context.getCurrentText();
+		int typeId = context.getCurrentNameId();
+		expect(TokenType.IDENTIFIER, "A colon must be followed by a type identifier.");
+		return new TypedVar(name, type, nameId, typeId);
+	}
+}
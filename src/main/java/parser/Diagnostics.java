@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package parser;
+
+import scanner.Token.*;
+import utils.*;
+
+import java.util.*;
+
+/**
+ * The syntax errors found by one parse, in the order they were found. A diagnostic keeps the parts of its message
+ * rather than the text, so reporting an error costs a small record and its message is only built when it is shown.
+ */
+public final class Diagnostics implements Iterable<Diagnostics.Diagnostic> {
+	private final List<Diagnostic> errors = new ArrayList<>();
+
+	/**
+	 * One syntax error.
+	 *
+	 * @param position The [Position] of the offending token.
+	 * @param token    The index of the token the parser was at when it found the error. Errors are found in token
+	 *                 order, so these never decrease along the list.
+	 * @param message  What was being parsed, or what went wrong.
+	 * @param expected The token type that was required, or null if there was no single one.
+	 * @param found    The type of the offending token, or null if the error is not about one token.
+	 */
+	public record Diagnostic(long position, int token, String message, TokenType expected, TokenType found) {
+		public int line() {
+			return Position.line(position);
+		}
+
+		public int column() {
+			return Position.column(position);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder text = new StringBuilder("Syntax error at line ").append(line()).append(", char ")
+																		  .append(column()).append(": ").append(message);
+			if (expected != null) {
+				text.append(" Expected ").append(expected).append(" but found ").append(found).append('.');
+			} else if (found != null) {
+				text.append(" Found ").append(found).append('.');
+			}
+			return text.toString();
+		}
+	}
+
+	void report(Diagnostic diagnostic) {
+		errors.add(diagnostic);
+	}
+
+	public Diagnostic get(int index) {
+		return errors.get(index);
+	}
+
+	public int size() {
+		return errors.size();
+	}
+
+	public boolean isEmpty() {
+		return errors.isEmpty();
+	}
+
+	@Override
+	public Iterator<Diagnostic> iterator() {
+		return Collections.unmodifiableList(errors).iterator();
+	}
+}
@@ -17,6 +17,15 @@ import utils.*;
 import java.util.*;
 
 public final class ExpressionParser extends Parser {
+	/**
+	 * Setting this system property to true parses binary operators with [#parsePratt(int)] instead of one
+	 * recursive call per precedence level. Both build the same trees.
+	 */
+	public static final String PRATT_PROPERTY = "cflat.prattParser";
+
+	private static final boolean USE_PRATT = Boolean.getBoolean(PRATT_PROPERTY);
+
+	private boolean usePratt = USE_PRATT;
 
 	private ExpressionParser(List<Token> tokenStream) {
 		super(tokenStream);
@@ -39,13 +48,24 @@ public final class ExpressionParser extends Parser {
 	 * * * Lambda
 	 */
 	public static Expression parseExpression(ParsingContext context) {
-		ExpressionParser parser = new ExpressionParser(context);
-		return parser.parseExpression();
+		return context.expressions().parseExpression();
 	}
 
 
+	/**
+	 * Selects how this parser parses binary operators, in place of [#PRATT_PROPERTY].
+	 */
+	void setPratt(boolean usePratt) {
+		this.usePratt = usePratt;
+	}
+
 	public Expression parseExpression() {
-		return parseLambda();
+		if (!context.enter()) {
+			return parseOnExplicitStack(Goal.EXPRESSION);
+		}
+		Expression expression = parseLambda();
+		context.exit();
+		return expression;
 	}
 
 	/**
@@ -64,9 +84,9 @@ public final class ExpressionParser extends Parser {
 	 */
 	private Expression parseLambda() {
 		if (curTokenIsType(TokenType.LAMBDA)) {
-			consumeToken();
+			advance();
 			List<TypedVar> params = parseLambdaParams();
-			match(TokenType.COLON, "Lambdas require a colon and a return type.");
+			expect(TokenType.COLON, "Lambdas require a colon and a return type.");
 			String type = matchIdent("Expected an identifier for the lambda's return type.");
 			Statement stmt = StatementParser.parseStatement(context);
 			Lambda lambda = new Lambda(params, stmt, type, getCurrentLocation());
@@ -90,44 +110,49 @@ public final class ExpressionParser extends Parser {
 	 * * * ParameterList "," TypedIdentifier
 	 */
 	private List<TypedVar> parseLambdaParams() {
-		match(TokenType.LPAREN, "The parameters of a lambda expression must start with a left parenthesis.");
+		expect(TokenType.LPAREN, "The parameters of a lambda expression must start with a left parenthesis.");
 		List<TypedVar> params = new ArrayList<>(32);
 		boolean expectComma = false;
-		Token curTok;
+		long curLoc;
 		while (true) {
 			if (curTokenIsType(TokenType.IDENTIFIER)) {
 				if (expectComma) {
-					curTok = getCurrentToken();
-					System.out.println("WARNING: Expected a comma at identifier " + curTok.text
-									   + " in parameter definition on line " + curTok.line + ", character" +
-									   curTok.charNum
-									   + " .");
+					curLoc = getCurrentLocation();
+					context.warn("WARNING: Expected a comma at identifier " + context.getCurrentText()
+								 + " in parameter definition on line " + Position.line(curLoc) + ", character" +
+								 Position.column(curLoc)
+								 + " .");
 				}
 				expectComma = true;
-				String name = consumeToken().text;
-				match(TokenType.COLON, "A parameter definition must contain an identifier followed by a "
-									   + "colon and then a typename.");
-				String type = matchIdent("Expected a typename after lambda params.");
-				params.add(new TypedVar(name, type));
+				String name = context.getCurrentText();
+				int nameId = context.getCurrentNameId();
+				advance();
+				expect(TokenType.COLON, "A parameter definition must contain an identifier followed by a "
+										+ "colon and then a typename.");
+				String type = context.getCurrentText();
+				int typeId = context.getCurrentNameId();
+				expect(TokenType.IDENTIFIER, "Expected a typename after lambda params.");
+				params.add(new TypedVar(name, type, nameId, typeId));
 			} else if (curTokenIsType(TokenType.RPAREN)) {
-				curTok = consumeToken();
+				curLoc = getCurrentLocation();
+				advance();
 				break;
 			} else if (curTokenIsType(TokenType.COMMA)) {
 				if (!expectComma) {
-					curTok = getCurrentToken();
-					System.out.println("WARNING: Unexpected comma " + curTok.text + " in parameter definition on line "
-									   + curTok.line + ", character" + curTok.charNum + " .");
+					curLoc = getCurrentLocation();
+					context.warn("WARNING: Unexpected comma " + context.getCurrentText() + " in parameter definition on line "
+								 + Position.line(curLoc) + ", character" + Position.column(curLoc) + " .");
 				}
 				expectComma = false;
-				consumeToken();
+				advance();
 			} else {
 				matchList(List.of(TokenType.IDENTIFIER, TokenType.RPAREN, TokenType.COMMA),
 						"Invalid parameter list.");
 			}
 		}
 		if (params.isEmpty()) {
-			System.out.println("WARNING: Empty parameter list " + curTok.text + " in parameter definition on line "
-							   + curTok.line + ", character" + curTok.charNum + " .");
+			context.warn("WARNING: Empty parameter list ) in parameter definition on line "
+						 + Position.line(curLoc) + ", character" + Position.column(curLoc) + " .");
 		}
 		return params;
 	}
@@ -145,18 +170,46 @@ public final class ExpressionParser extends Parser {
 	 * * * Expression "?" Expression ":" Expression
 	 */
 	private Expression parseTernary() {
-		Entry<Integer, Integer> loc = getCurrentLocation();
-		Expression lhs = parseBinaryOpExpression(0);
+		long loc = getCurrentLocation();
+		Expression lhs = parseBinary();
 		if (!curTokenIsType(TokenType.QMARK)) {
 			return lhs;
 		}
-		consumeToken();
-		Expression consequent = parseBinaryOpExpression(0);
-		match(TokenType.COLON, "Ternaries require alternate expressions of the form pred ? cons : alt");
-		Expression alternate = parseBinaryOpExpression(0);
+		advance();
+		Expression consequent = parseBinary();
+		expect(TokenType.COLON, "Ternaries require alternate expressions of the form pred ? cons : alt");
+		Expression alternate = parseBinary();
 		return new Ternary(lhs, consequent, alternate, loc);
 	}
 
+	private Expression parseBinary() {
+		return usePratt ? parsePratt(0) : parseBinaryOpExpression(0);
+	}
+
+	/**
+	 * Parses a chain of binary operators by binding power. After each operand, the loop takes every operator that
+	 * binds tighter than {@code minPower} and parses its right operand with the operator's own power, so that only
+	 * tighter operators nest to the right and operators of equal power associate to the left. An operand costs one
+	 * call and one array lookup, however many precedence levels there are.
+	 *
+	 * @param minPower The binding power of the operator to the left, or 0 at the start of an expression.
+	 * @return An object of type Expression containing a binary expression.
+	 */
+	private Expression parsePratt(int minPower) {
+		Expression lhs = parseUnary();
+		while (true) {
+			TokenType type = context.getCurrentType();
+			int power = OpPrecTable.bindingPower(type);
+			if (power <= minPower) {
+				return lhs;
+			}
+			long loc = getCurrentLocation();
+			advance();
+			Expression rhs = parsePratt(power);
+			lhs = new BinaryOp(lhs, OpPrecTable.binaryOp(type), rhs, loc);
+		}
+	}
+
 	/**
 	 * Parses an expression of the form expr op expr. Takes a precedence parameter
 	 * to determine expression precedence.
@@ -169,10 +222,10 @@ public final class ExpressionParser extends Parser {
 			return parseUnary();
 		}
 		Expression lhs = parseBinaryOpExpression(precedence + 1);
-		while (OpPrecTable.inTableAt(precedence, getCurrentToken())) {
-			Entry<Integer, Integer> loc = getCurrentLocation();
-			BinaryOps op = OpPrecTable.mapSymbolToOp(precedence, consumeToken());
-			//System.out.println("Parsing: " + op + " at precedence: " + precedence);
+		while (OpPrecTable.inTableAt(precedence, context.getCurrentType())) {
+			long loc = getCurrentLocation();
+			BinaryOps op = OpPrecTable.mapSymbolToOp(precedence, context.getCurrentType());
+			advance();
 			Expression rhs = parseBinaryOpExpression(precedence + 1);
 			lhs = new BinaryOp(lhs, op, rhs, loc);
 		}
@@ -193,16 +246,16 @@ public final class ExpressionParser extends Parser {
 	 * * * LogicalNotExpression
 	 */
 	private Expression parseUnary() {
-		Entry<Integer, Integer> loc = getCurrentLocation();
-		TokenType tokenType = getCurrentToken().type;
+		long loc = getCurrentLocation();
+		TokenType tokenType = context.getCurrentType();
 		return switch (tokenType) {
 			case BITWISE_NOT -> {
-				consumeToken();
-				yield new UnaryOp(UnaryOps.BNot, parseUnary(), loc);
+				advance();
+				yield new UnaryOp(UnaryOps.BNot, parseNested(Goal.UNARY), loc);
 			}
 			case SUB -> {
-				consumeToken();
-				yield new UnaryOp(UnaryOps.Invert, parseUnary(), loc);
+				advance();
+				yield new UnaryOp(UnaryOps.Invert, parseNested(Goal.UNARY), loc);
 			}
 			default -> parseLogicalNotExpression();
 		};
@@ -220,10 +273,10 @@ public final class ExpressionParser extends Parser {
 	 * * * IncDec
 	 */
 	private Expression parseLogicalNotExpression() {
-		Entry<Integer, Integer> loc = getCurrentLocation();
+		long loc = getCurrentLocation();
 		if (curTokenIsType(TokenType.NOT)) {
-			consumeToken();
-			return new UnaryOp(UnaryOps.Not, parseLogicalNotExpression(), loc);
+			advance();
+			return new UnaryOp(UnaryOps.Not, parseNested(Goal.NOT), loc);
 		}
 		return parseIncDec();
 	}
@@ -247,20 +300,20 @@ public final class ExpressionParser extends Parser {
 		boolean returnPrevious = false;
 		Expression result;
 		if (curTokenIsType(TokenType.INC)) {
-			consumeToken();
+			advance();
 			result = parseCall();
 			modifyby = 1;
 		} else if (curTokenIsType(TokenType.DEC)) {
-			consumeToken();
+			advance();
 			result = parseCall();
 			modifyby = -1;
 		} else {
 			result = parseCall();
 			if (curTokenIsType(TokenType.INC)) {
-				consumeToken();
+				advance();
 				modifyby = 1;
 			} else if (curTokenIsType(TokenType.DEC)) {
-				consumeToken();
+				advance();
 				modifyby = -1;
 			} else {
 				return result;
@@ -287,24 +340,26 @@ public final class ExpressionParser extends Parser {
 	 */
 	private Expression parseCall() {
 		if (curTokenIsType(TokenType.IDENTIFIER)) {
-			String identifier = consumeToken().text;
-			Entry<Integer, Integer> loc = getCurrentLocation();
+			String identifier = context.getCurrentText();
+			int nameId = context.getCurrentNameId();
+			advance();
+			long loc = getCurrentLocation();
 			if (curTokenIsType(TokenType.LBRACKET)) {
-				consumeToken();
+				advance();
 				Expression idx = parseExpression();
-				match(TokenType.RBRACKET, "Lists require a closing brace.");
-				return new ListAccess(identifier, idx, getCurrentLocation());
+				expect(TokenType.RBRACKET, "Lists require a closing brace.");
+				return new ListAccess(identifier, nameId, idx, getCurrentLocation());
 			}
 			if (curTokenIsType(TokenType.DOT)) {
-				consumeToken();
+				advance();
 				Expression rhs = parseExpression();
-				return new ScopeOf(identifier, rhs, getCurrentLocation());
+				return new ScopeOf(identifier, nameId, rhs, getCurrentLocation());
 			} else if (curTokenIsType(TokenType.LPAREN)) {
-				consumeToken();
+				advance();
 				List<Expression> params = parseExprParams();
-				return new Call(identifier, params, loc);
+				return new Call(identifier, nameId, params, loc);
 			} else {
-				return new VariableAccess(identifier, loc);
+				return new VariableAccess(identifier, nameId, loc);
 			}
 		}
 		return parsePrimary();
@@ -324,20 +379,17 @@ public final class ExpressionParser extends Parser {
 
 		while (!curTokenIsType(TokenType.RPAREN)) {
 			if (curTokenIsType(TokenType.COMMA)) {
-				consumeToken();
+				advance();
 			} else {
 				if (curTokenIsType(TokenType.EOF) || curTokenIsType(TokenType.SEMICOLON)) {
-					Token currentToken = getCurrentToken();
-					throw new RuntimeException(
-							"Syntax error: Invalid function call. Parameter list is not terminated. Expected an identifier, comma, or closing parenthesis, but found "
-							+ currentToken.type + " at line " + currentToken.line + ", char "
-							+ currentToken.charNum);
+					throw context.error("Invalid function call. Parameter list is not terminated. Expected an " +
+										"identifier, comma, or closing parenthesis.");
 				}
 				params.add(parseExpression());
 			}
 		}
 		// Consume the RPAREN token
-		consumeToken();
+		advance();
 		return params;
 	}
 
@@ -358,33 +410,364 @@ public final class ExpressionParser extends Parser {
 	 */
 
 	private Expression parsePrimary() {
-		Entry<Integer, Integer> loc = getCurrentLocation();
+		long loc = getCurrentLocation();
 		Expression primitive;
-		switch (getCurrentToken().type) {
-			case INTCONST -> primitive = new IntegerNode(Integer.parseInt(consumeToken().text), loc);
-			case FLOATCONST -> primitive = new Floating(Double.parseDouble(consumeToken().text), loc);
-			case STRINGLIT -> primitive = new StringLit(consumeToken().text, loc);
-			case CHARLIT -> primitive = new CharNode(consumeToken().text.charAt(0), loc);
+		switch (context.getCurrentType()) {
+			case INTCONST -> {
+				primitive = new IntegerNode(context.getCurrentValue(), loc);
+				advance();
+			}
+			case FLOATCONST -> {
+				primitive = new Floating(Double.longBitsToDouble(context.getCurrentValue()), loc);
+				advance();
+			}
+			case STRINGLIT -> {
+				primitive = new StringLit(context.getCurrentText(), loc);
+				advance();
+			}
+			case CHARLIT -> {
+				primitive = new CharNode(context.getCurrentText().charAt(0), loc);
+				advance();
+			}
 			case TRUE -> {
-				consumeToken();
+				advance();
 				primitive = new Bool(true, loc);
 			}
 			case FALSE -> {
-				consumeToken();
+				advance();
 				primitive = new Bool(false, loc);
 			}
 			case LPAREN -> {
-				consumeToken();
+				advance();
 				primitive = parseExpression();
-				match(TokenType.RPAREN, "Error, unterminated parenthetical.");
-			}
-			default -> {
-				Token currentToken = getCurrentToken();
-				throw new RuntimeException(
-						"Syntax error: Unexpected Token. Expected one of integer, float, string literal, parenthetical expression, boolean, or ident but found "
-						+ currentToken.type + " at line " + currentToken.line + ", char " + currentToken.charNum);
+				expect(TokenType.RPAREN, "Error, unterminated parenthetical.");
 			}
+			default -> throw context.error("Unexpected Token. Expected one of integer, float, string literal, " +
+										   "parenthetical expression, boolean, or ident.");
 		}
 		return primitive;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Parses the operand of a prefix operator, which nests one level deeper.
+	 *
+	 * @param goal [Goal#UNARY] or [Goal#NOT], depending on which operators may follow.
+	 */
+	private Expression parseNested(Goal goal) {
+		if (!context.enter()) {
+			return parseOnExplicitStack(goal);
+		}
+		Expression operand = goal == Goal.UNARY ? parseUnary() : parseLogicalNotExpression();
+		context.exit();
+		return operand;
+	}
+
+	/**
+	 * The grammar rule [#parseOnExplicitStack(Goal)] is about to parse.
+	 */
+	private enum Goal {
+		EXPRESSION, BINARY, UNARY, NOT, INC_DEC, CALL, PRIMARY
+	}
+
+	/**
+	 * What an expression on the explicit stack waits for.
+	 */
+	private enum Pending {
+		/**
+		 * The condition of a possible ternary, then its consequent and its alternate.
+		 */
+		TERNARY, CONSEQUENT, ALTERNATE,
+		/**
+		 * The next operand of a chain of binary operators that bind tighter than [Frame#power].
+		 */
+		BINARY,
+		/**
+		 * The body of a lambda, which is a statement and so is parsed by [StatementParser].
+		 */
+		LAMBDA,
+		UNARY, PREFIX, POSTFIX, INDEX, SCOPE, ARGUMENT, PARENTHESES
+	}
+
+	/**
+	 * An expression whose operands are still being parsed, with the parts of it parsed so far.
+	 */
+	private static final class Frame {
+		Pending pending;
+		long loc;
+		int power;
+		Expression lhs;
+		Expression consequent;
+		TokenType operator;
+		UnaryOps unary;
+		int modifyBy;
+		String name;
+		int nameId;
+		List<Expression> arguments;
+		List<TypedVar> parameters;
+		String type;
+
+		Frame(Pending pending, long loc) {
+			this.pending = pending;
+			this.loc = loc;
+		}
+	}
+
+	/**
+	 * An expression being parsed on an explicit stack, with the expressions it is nested in.
+	 */
+	static final class OpenExpression {
+		private final Deque<Frame> stack = new ArrayDeque<>();
+		private final Goal goal;
+
+		private OpenExpression(Goal goal) {
+			this.goal = goal;
+		}
+	}
+
+	/**
+	 * Starts an expression for [#parseOnExplicitStack(OpenExpression, Statement)].
+	 */
+	OpenExpression openExpression() {
+		return new OpenExpression(Goal.EXPRESSION);
+	}
+
+	/**
+	 * Parses an expression on an explicit stack, handing the bodies of the lambdas in it to [StatementParser].
+	 *
+	 * @param goal The rule to start with: [Goal#EXPRESSION], [Goal#UNARY] or [Goal#NOT].
+	 */
+	private Expression parseOnExplicitStack(Goal goal) {
+		OpenExpression expression = new OpenExpression(goal);
+		Expression value = parseOnExplicitStack(expression, null);
+		return value != null ? value : context.statements().parseLambdaBodies(expression);
+	}
+
+	/**
+	 * Parses an expression like the recursive methods do, but keeps the expressions it is nested in on a stack on
+	 * the heap, so that the depth of nesting does not matter. Binary operators are parsed by binding power as in
+	 * [#parsePratt(int)], which builds the same trees as [#parseBinaryOpExpression(int)].
+	 * <p>
+	 * The body of a lambda is a statement, which [StatementParser] parses on its own explicit stack. So that lambdas
+	 * nested in lambdas do not recurse either, the parse stops at the body and returns null, and the caller parses the
+	 * body and passes it back to continue.
+	 *
+	 * @param expression The expression to go on with.
+	 * @param body       The body of the lambda the expression stopped at, or null to start.
+	 * @return The complete expression, or null if it stopped at the body of a lambda.
+	 */
+	Expression parseOnExplicitStack(OpenExpression expression, Statement body) {
+		Deque<Frame> stack = expression.stack;
+		Goal goal = expression.goal;
+		int power = 0;
+		Expression value = null;
+		if (body != null) {
+			Frame lambda = stack.pop();
+			value = new Lambda(lambda.parameters, body, lambda.type, getCurrentLocation());
+			context.setSemicolonExempt();
+		}
+		while (true) {
+			// Open expressions until an operand is complete.
+			while (value == null) {
+				switch (goal) {
+					case EXPRESSION -> {
+						if (curTokenIsType(TokenType.LAMBDA)) {
+							advance();
+							Frame lambda = new Frame(Pending.LAMBDA, 0);
+							lambda.parameters = parseLambdaParams();
+							expect(TokenType.COLON, "Lambdas require a colon and a return type.");
+							lambda.type = matchIdent("Expected an identifier for the lambda's return type.");
+							stack.push(lambda);
+							return null;
+						} else {
+							stack.push(new Frame(Pending.TERNARY, getCurrentLocation()));
+							power = 0;
+							goal = Goal.BINARY;
+						}
+					}
+					case BINARY -> {
+						Frame binary = new Frame(Pending.BINARY, 0);
+						binary.power = power;
+						stack.push(binary);
+						goal = Goal.UNARY;
+					}
+					case UNARY -> {
+						long loc = getCurrentLocation();
+						switch (context.getCurrentType()) {
+							case BITWISE_NOT -> stack.push(unary(UnaryOps.BNot, loc));
+							case SUB -> stack.push(unary(UnaryOps.Invert, loc));
+							default -> goal = Goal.NOT;
+						}
+					}
+					case NOT -> {
+						if (curTokenIsType(TokenType.NOT)) {
+							stack.push(unary(UnaryOps.Not, getCurrentLocation()));
+						} else {
+							goal = Goal.INC_DEC;
+						}
+					}
+					case INC_DEC -> {
+						Frame modify = new Frame(Pending.PREFIX, 0);
+						if (curTokenIsType(TokenType.INC)) {
+							advance();
+							modify.modifyBy = 1;
+						} else if (curTokenIsType(TokenType.DEC)) {
+							advance();
+							modify.modifyBy = -1;
+						} else {
+							modify.pending = Pending.POSTFIX;
+						}
+						stack.push(modify);
+						goal = Goal.CALL;
+					}
+					case CALL -> {
+						if (!curTokenIsType(TokenType.IDENTIFIER)) {
+							goal = Goal.PRIMARY;
+							continue;
+						}
+						String identifier = context.getCurrentText();
+						int nameId = context.getCurrentNameId();
+						advance();
+						long loc = getCurrentLocation();
+						Frame access;
+						if (curTokenIsType(TokenType.LBRACKET)) {
+							access = new Frame(Pending.INDEX, loc);
+						} else if (curTokenIsType(TokenType.DOT)) {
+							access = new Frame(Pending.SCOPE, loc);
+						} else if (curTokenIsType(TokenType.LPAREN)) {
+							access = new Frame(Pending.ARGUMENT, loc);
+							access.arguments = new ArrayList<>(32);
+						} else {
+							value = new VariableAccess(identifier, nameId, loc);
+							continue;
+						}
+						advance();
+						access.name = identifier;
+						access.nameId = nameId;
+						if (access.pending == Pending.ARGUMENT && !nextArgument()) {
+							value = new Call(identifier, nameId, access.arguments, loc);
+							continue;
+						}
+						stack.push(access);
+						goal = Goal.EXPRESSION;
+					}
+					case PRIMARY -> {
+						if (curTokenIsType(TokenType.LPAREN)) {
+							advance();
+							stack.push(new Frame(Pending.PARENTHESES, 0));
+							goal = Goal.EXPRESSION;
+						} else {
+							value = parsePrimary();
+						}
+					}
+				}
+			}
+			// Hand the operand to the expressions waiting for it until one needs another operand.
+			goal = null;
+			while (goal == null) {
+				Frame frame = stack.peek();
+				if (frame == null) {
+					return value;
+				}
+				switch (frame.pending) {
+					case TERNARY -> {
+						if (curTokenIsType(TokenType.QMARK)) {
+							advance();
+							frame.lhs = value;
+							frame.pending = Pending.CONSEQUENT;
+							power = 0;
+							goal = Goal.BINARY;
+						}
+					}
+					case CONSEQUENT -> {
+						frame.consequent = value;
+						expect(TokenType.COLON, "Ternaries require alternate expressions of the form pred ? cons : alt");
+						frame.pending = Pending.ALTERNATE;
+						power = 0;
+						goal = Goal.BINARY;
+					}
+					case ALTERNATE -> value = new Ternary(frame.lhs, frame.consequent, value, frame.loc);
+					case BINARY -> {
+						Expression lhs = frame.operator == null ? value
+								: new BinaryOp(frame.lhs, OpPrecTable.binaryOp(frame.operator), value, frame.loc);
+						TokenType type = context.getCurrentType();
+						int next = OpPrecTable.bindingPower(type);
+						if (next <= frame.power) {
+							value = lhs;
+						} else {
+							frame.lhs = lhs;
+							frame.loc = getCurrentLocation();
+							frame.operator = type;
+							advance();
+							power = next;
+							goal = Goal.BINARY;
+						}
+					}
+					case UNARY -> value = new UnaryOp(frame.unary, value, frame.loc);
+					case PREFIX -> value = modify(value, false, frame.modifyBy);
+					case POSTFIX -> {
+						if (curTokenIsType(TokenType.INC)) {
+							advance();
+							value = modify(value, true, 1);
+						} else if (curTokenIsType(TokenType.DEC)) {
+							advance();
+							value = modify(value, true, -1);
+						}
+					}
+					case INDEX -> {
+						expect(TokenType.RBRACKET, "Lists require a closing brace.");
+						value = new ListAccess(frame.name, frame.nameId, value, getCurrentLocation());
+					}
+					case SCOPE -> value = new ScopeOf(frame.name, frame.nameId, value, getCurrentLocation());
+					case ARGUMENT -> {
+						frame.arguments.add(value);
+						if (nextArgument()) {
+							goal = Goal.EXPRESSION;
+						} else {
+							value = new Call(frame.name, frame.nameId, frame.arguments, frame.loc);
+						}
+					}
+					case PARENTHESES -> expect(TokenType.RPAREN, "Error, unterminated parenthetical.");
+				}
+				if (goal == null) {
+					stack.pop();
+				}
+			}
+			value = null;
+		}
+	}
+
+	/**
+	 * Consumes a prefix operator and makes the frame that waits for its operand.
+	 */
+	private Frame unary(UnaryOps op, long loc) {
+		advance();
+		Frame frame = new Frame(Pending.UNARY, loc);
+		frame.unary = op;
+		return frame;
+	}
+
+	private Modify modify(Expression operand, boolean returnPrevious, int modifyBy) {
+		return new Modify(operand, returnPrevious, new IntegerNode(modifyBy, getCurrentLocation()),
+				getCurrentLocation());
+	}
+
+	/**
+	 * Skips commas in an argument list on the explicit stack, and consumes its closing parenthesis if it ends.
+	 *
+	 * @return True if another argument follows.
+	 */
+	private boolean nextArgument() {
+		while (curTokenIsType(TokenType.COMMA)) {
+			advance();
+		}
+		if (curTokenIsType(TokenType.RPAREN)) {
+			advance();
+			return false;
+		}
+		if (curTokenIsType(TokenType.EOF) || curTokenIsType(TokenType.SEMICOLON)) {
+			throw context.error("Invalid function call. Parameter list is not terminated. Expected an " +
+								"identifier, comma, or closing parenthesis.");
+		}
+		return true;
+	}
+}
@@ -0,0 +1,419 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package parser;
+
+import AST.*;
+import AST.Declarations.*;
+import AST.Expressions.*;
+import AST.Statements.*;
+import parser.Diagnostics.*;
+import scanner.*;
+import scanner.IncrementalLexer.*;
+import utils.*;
+
+import java.util.*;
+
+/**
+ * Parses a program again after a text edit, reusing the previous tree. The edit is re-lexed by [IncrementalLexer],
+ * which reports the range of tokens that changed. The parser then looks for the smallest [Block],
+ * [FunctionDeclaration] or [ClassDeclaration] whose token extent covers that range with its first and last tokens
+ * untouched, descending through top-level declarations, class members and block statements. Only that node is
+ * parsed again. If the new parse does not end where the old one did, the edit changed more than the node, such as
+ * by adding a brace, and the next enclosing candidate is tried; if none fits, the whole program is parsed.
+ * <p>
+ * Nodes on the path from the root to the reparsed one are rebuilt around it. Every other subtree is kept by
+ * reference. Those after the edit are moved to their new lines, columns and token indices in place, so the previous
+ * tree must not be used once it has been edited.
+ * <p>
+ * Diagnostics are spliced the same way, by the token at which each was found: those found up to the reparsed
+ * node's first token are kept, those found inside it are replaced by the new parse's, and those found after it are
+ * moved.
+ */
+public final class IncrementalParser {
+	private IncrementalParser() {
+	}
+
+	/**
+	 * A parsed program together with the tokens it was parsed from.
+	 */
+	public record Tree(TokenBuffer tokens, List<Declaration> declarations, Diagnostics diagnostics) {
+	}
+
+	public static Tree parse(TokenBuffer tokens) {
+		ParsingContext context = new ParsingContext(tokens);
+		return new Tree(tokens, DeclarationParser.parseProgram(context), context.diagnostics());
+	}
+
+	/**
+	 * Applies an edit to the source of a previously parsed tree and parses what it changed.
+	 *
+	 * @param previous The tree for the text before the edit. It is updated in place and must not be used afterwards.
+	 * @param edit     The edit, in the offsets of the previous tree's token buffer.
+	 * @return The tree for the edited text.
+	 */
+	public static Tree reparse(Tree previous, Edit edit) {
+		TokenBuffer oldTokens = previous.tokens();
+		IncrementalLexer.Result relexed = IncrementalLexer.relex(oldTokens, edit);
+		TokenBuffer tokens = relexed.tokens();
+		Delta delta = relexed.delta();
+		Shift shift = Shift.of(oldTokens, tokens, edit, delta);
+
+		if (delta.removedCount() == 0 && delta.insertedCount() == 0) {
+			// Only whitespace or comments changed, so the tree is the same and only positions move.
+			List<Declaration> declarations = new ArrayList<>(previous.declarations());
+			for (Declaration declaration : declarations) {
+				if (shift.leaves(declaration)) {
+					break;
+				}
+				if (shift.reaches(declaration)) {
+					relocate(declaration, shift);
+				}
+			}
+			return new Tree(tokens, declarations, spliceDiagnostics(previous.diagnostics(), null, -1, shift));
+		}
+
+		List<ASTRoot> path = coveringPath(previous.declarations(), delta);
+		for (int depth = path.size() - 1; depth >= 0; depth--) {
+			ASTRoot node = path.get(depth);
+			if (!mayReparse(node, oldTokens, previous.diagnostics())) {
+				continue;
+			}
+			Diagnostics diagnostics = new Diagnostics();
+			ASTRoot replacement = reparseNode(node, tokens, diagnostics, previous.diagnostics());
+			if (replacement == null || replacement.getTokenEnd() != node.getTokenEnd() + shift.tokens) {
+				continue;
+			}
+			List<Declaration> declarations = rebuild(previous.declarations(), path, depth, replacement, shift);
+			// The replacement is not numbered, and may have a different number of nodes than what it replaces.
+			NodeIds.assign(declarations);
+			return new Tree(tokens, declarations,
+					spliceDiagnostics(previous.diagnostics(), diagnostics, node.getTokenEnd(), shift));
+		}
+		return parse(tokens);
+	}
+
+	/**
+	 * Finds the nested blocks, functions and classes whose extents cover the changed tokens, outermost first.
+	 */
+	private static List<ASTRoot> coveringPath(List<Declaration> declarations, Delta delta) {
+		int from = delta.firstChanged();
+		int to = from + delta.removedCount();
+		List<ASTRoot> path = new ArrayList<>();
+		List<? extends Declaration> level = declarations;
+		while (level != null) {
+			Declaration node = find(level, from);
+			// The first and last tokens must survive the edit, so that the node still starts and ends the same way.
+			if (node == null || node.getFirstToken() >= from || node.getTokenEnd() <= to) {
+				break;
+			}
+			level = null;
+			if (node instanceof Block block) {
+				path.add(block);
+				level = block.statements;
+			} else if (node instanceof ClassDeclaration cls) {
+				path.add(cls);
+				level = cls.members;
+			} else if (node instanceof FunctionDeclaration function) {
+				path.add(function);
+				if (function.body instanceof Block body && body.getFirstToken() < from && body.getTokenEnd() > to) {
+					path.add(body);
+					level = body.statements;
+				}
+			}
+		}
+		return path;
+	}
+
+	/**
+	 * Finds the node in a list ordered by extent that holds the given token.
+	 */
+	private static Declaration find(List<? extends Declaration> nodes, int token) {
+		int low = 0;
+		int high = nodes.size() - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			Declaration node = nodes.get(mid);
+			if (node.getTokenEnd() <= token) {
+				low = mid + 1;
+			} else if (node.getFirstToken() > token) {
+				high = mid - 1;
+			} else {
+				return node;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * A node that ran into the end of input is not reparsed on its own when an error was reported there, since
+	 * that error cannot be told apart from one found after the node.
+	 */
+	private static boolean mayReparse(ASTRoot node, TokenBuffer tokens, Diagnostics diagnostics) {
+		int eof = tokens.size() - 1;
+		if (node.getTokenEnd() < eof) {
+			return true;
+		}
+		for (Diagnostic diagnostic : diagnostics) {
+			if (diagnostic.token() >= eof) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Parses a node again from its first token.
+	 *
+	 * @param diagnostics Receives the errors found before the node, followed by those found in it.
+	 * @return The new node, or null if it could not be parsed on its own.
+	 */
+	private static ASTRoot reparseNode(ASTRoot node, TokenBuffer tokens, Diagnostics diagnostics,
+									   Diagnostics previous) {
+		int start = node.getFirstToken();
+		for (Diagnostic diagnostic : previous) {
+			// The node's own parse never fails on its first token, which is a keyword or brace. An error found there
+			// is one that recovery from an earlier declaration stopped at.
+			if (diagnostic.token() <= start) {
+				diagnostics.report(diagnostic);
+			}
+		}
+		ParsingContext context = new ParsingContext(tokens.cursor(start, tokens.size()), tokens, diagnostics);
+		try {
+			return node instanceof Block ? context.declarations().parseBlock()
+										 : context.declarations().parseDeclarationOrError();
+		} catch (RuntimeException e) {
+			// Leave it to a wider parse whether the failure is real; this one may have run past the node's end.
+			return null;
+		}
+	}
+
+	/**
+	 * Rebuilds the nodes on the path above the replaced one, and moves the subtrees that follow the edit.
+	 *
+	 * @return The new top-level declarations.
+	 */
+	private static List<Declaration> rebuild(List<Declaration> declarations, List<ASTRoot> path, int depth,
+											 ASTRoot replacement, Shift shift) {
+		ASTRoot child = replacement;
+		for (int i = depth - 1; i >= 0; i--) {
+			ASTRoot parent = path.get(i);
+			ASTRoot old = path.get(i + 1);
+			long position = Position.of(parent.getLine(), parent.getCharacter());
+			ASTRoot rebuilt;
+			if (parent instanceof Block block) {
+				rebuilt = new Block(replaceIn(block.statements, old, (Declaration) child, shift), position);
+			} else if (parent instanceof ClassDeclaration cls) {
+				rebuilt = new ClassDeclaration(cls.name, cls.nameId,
+						replaceIn(cls.members, old, (Declaration) child, shift), cls.inheritsFrom, cls.inheritsFromIds,
+						position);
+			} else {
+				FunctionDeclaration function = (FunctionDeclaration) parent;
+				rebuilt = new FunctionDeclaration(function.name, function.nameId, function.parameters,
+						function.returnType, function.returnTypeId, (Statement) child, position);
+			}
+			rebuilt.setTokenRange(parent.getFirstToken(), parent.getTokenEnd() + shift.tokens);
+			child = rebuilt;
+		}
+		return replaceIn(declarations, path.get(0), (Declaration) child, shift);
+	}
+
+	/**
+	 * Copies a list with one node replaced, moving the nodes after it.
+	 */
+	private static List<Declaration> replaceIn(List<Declaration> nodes, ASTRoot old, Declaration replacement,
+											   Shift shift) {
+		List<Declaration> copy = new ArrayList<>(nodes);
+		int index = copy.indexOf(old);
+		copy.set(index, replacement);
+		for (int i = index + 1; i < copy.size() && !shift.leaves(copy.get(i)); i++) {
+			relocate(copy.get(i), shift);
+		}
+		return copy;
+	}
+
+	/**
+	 * Appends the previous errors found after a reparsed node, moved, to the errors found up to its end.
+	 *
+	 * @param reparsed The errors found up to the end of the reparsed node, or null if nothing was reparsed.
+	 * @param end      The index just past the reparsed node in the old buffer.
+	 */
+	private static Diagnostics spliceDiagnostics(Diagnostics previous, Diagnostics reparsed, int end, Shift shift) {
+		Diagnostics diagnostics = reparsed != null ? reparsed : new Diagnostics();
+		for (Diagnostic diagnostic : previous) {
+			if (reparsed == null || diagnostic.token() >= end) {
+				diagnostics.report(shift.apply(diagnostic));
+			}
+		}
+		return diagnostics;
+	}
+
+	/**
+	 * Moves a subtree that follows the edit, if any of it does.
+	 */
+	private static void relocate(ASTRoot node, Shift shift) {
+		if (node == null) {
+			return;
+		}
+		shift.apply(node);
+		if (node instanceof Block block) {
+			relocateAll(block.statements, shift);
+		} else if (node instanceof FunctionDeclaration function) {
+			relocate(function.body, shift);
+		} else if (node instanceof ClassDeclaration cls) {
+			relocateAll(cls.members, shift);
+		} else if (node instanceof StructDeclaration struct) {
+			relocateAll(struct.members, shift);
+		} else if (node instanceof SimpleVarDeclaration var) {
+			relocate(var.definition, shift);
+		} else if (node instanceof ArrayDeclaration array) {
+			relocateAll(array.definition, shift);
+		} else if (node instanceof Assignment assignment) {
+			relocate(assignment.ident, shift);
+			// A compound assignment shares its target with the left operand of its implied operation.
+			if (assignment.expr instanceof BinaryOp op && op.left == assignment.ident) {
+				shift.apply(op);
+				relocate(op.right, shift);
+			} else {
+				relocate(assignment.expr, shift);
+			}
+		} else if (node instanceof If branch) {
+			relocate(branch.conditional, shift);
+			relocate(branch.consequent, shift);
+			relocate(branch.alternate, shift);
+		} else if (node instanceof For loop) {
+			relocate(loop.initializer, shift);
+			relocate(loop.conditional, shift);
+			relocate(loop.iteration, shift);
+			relocate(loop.body, shift);
+		} else if (node instanceof ForEach loop) {
+			relocate(loop.body, shift);
+		} else if (node instanceof While loop) {
+			relocate(loop.conditional, shift);
+			relocate(loop.body, shift);
+		} else if (node instanceof DoWhile loop) {
+			relocate(loop.conditional, shift);
+			relocate(loop.body, shift);
+		} else if (node instanceof Switch switch_) {
+			relocate(switch_.switchon, shift);
+			for (Entry<Expression, Statement> entry : switch_.cases) {
+				relocate(entry.key(), shift);
+				relocate(entry.value(), shift);
+			}
+		} else if (node instanceof Try try_) {
+			relocate(try_.block, shift);
+			relocate(try_.catch_, shift);
+		} else if (node instanceof Throw throw_) {
+			relocateAll(throw_.params, shift);
+		} else if (node instanceof Return return_) {
+			relocate(return_.expr, shift);
+		} else if (node instanceof BinaryOp op) {
+			relocate(op.left, shift);
+			relocate(op.right, shift);
+		} else if (node instanceof UnaryOp op) {
+			relocate(op.inner, shift);
+		} else if (node instanceof Ternary ternary) {
+			relocate(ternary.condition, shift);
+			relocate(ternary.consequent, shift);
+			relocate(ternary.alternate, shift);
+		} else if (node instanceof Call call) {
+			relocateAll(call.params, shift);
+		} else if (node instanceof Lambda lambda) {
+			relocate(lambda.block, shift);
+		} else if (node instanceof ListAccess access) {
+			relocate(access.index, shift);
+		} else if (node instanceof Modify modify) {
+			relocate(modify.ident, shift);
+			relocate(modify.modifyBy, shift);
+		} else if (node instanceof ScopeOf scope) {
+			relocate(scope.perform, shift);
+		}
+	}
+
+	private static void relocateAll(List<? extends ASTRoot> nodes, Shift shift) {
+		if (nodes != null) {
+			for (ASTRoot node : nodes) {
+				relocate(node, shift);
+			}
+		}
+	}
+
+	/**
+	 * How an edit moves what follows it.
+	 *
+	 * @param before    The buffer before the edit.
+	 * @param editStart The offset at which the edit starts.
+	 * @param changeEnd The index just past the last changed token in the old buffer.
+	 * @param tokens    The number of tokens inserted, less the number removed.
+	 * @param oldLine   The line at which the edit ended before it was made.
+	 * @param oldColumn The column at which the edit ended before it was made.
+	 * @param newLine   The line at which the edit ends now.
+	 * @param newColumn The column at which the edit ends now.
+	 */
+	private record Shift(TokenBuffer before, int editStart, int changeEnd, int tokens, int oldLine, int oldColumn,
+						 int newLine, int newColumn) {
+		static Shift of(TokenBuffer oldTokens, TokenBuffer newTokens, Edit edit, Delta delta) {
+			int oldEnd = edit.offset() + edit.removedLength();
+			int newEnd = newTokens.source().length() - (oldTokens.source().length() - oldEnd);
+			SourceFile oldFile = oldTokens.file();
+			SourceFile newFile = newTokens.file();
+			return new Shift(oldTokens, edit.offset(), delta.firstChanged() + delta.removedCount(),
+					delta.insertedCount() - delta.removedCount(), oldFile.line(oldEnd), oldFile.column(oldEnd),
+					newFile.line(newEnd), newFile.column(newEnd));
+		}
+
+		/**
+		 * Whether a node may have positions after the start of the edit. A node sits at one of its tokens, or at the
+		 * token after it for an [ErrorNode] whose error stopped the declaration, so the token after its last one is
+		 * the furthest a position can be.
+		 */
+		boolean reaches(ASTRoot node) {
+			int after = node.getTokenEnd();
+			return after < 0 || after >= before.size() || before.start(after) >= editStart;
+		}
+
+		/**
+		 * Whether the edit leaves a node and everything after it where it was. That is so when the edit keeps the
+		 * number of lines and tokens, and the node starts on a later line than the edit ends on.
+		 */
+		boolean leaves(ASTRoot node) {
+			return tokens == 0 && newLine == oldLine && node.getFirstToken() >= 0 &&
+				   before.line(node.getFirstToken()) > oldLine;
+		}
+
+		private boolean follows(int line, int column) {
+			return line > oldLine || (line == oldLine && column >= oldColumn);
+		}
+
+		private int line(int line, int column) {
+			return line == oldLine ? newLine : line + newLine - oldLine;
+		}
+
+		private int column(int line, int column) {
+			return line == oldLine ? column + newColumn - oldColumn : column;
+		}
+
+		void apply(ASTRoot node) {
+			int line = node.getLine();
+			int column = node.getCharacter();
+			int tokenShift = node.getFirstToken() >= changeEnd ? tokens : 0;
+			if (follows(line, column)) {
+				node.relocate(line(line, column), column(line, column), tokenShift);
+			} else if (tokenShift != 0) {
+				node.relocate(line, column, tokenShift);
+			}
+		}
+
+		Diagnostic apply(Diagnostic diagnostic) {
+			int line = diagnostic.line();
+			int column = diagnostic.column();
+			long position = follows(line, column) ? Position.of(line(line, column), column(line, column))
+												  : diagnostic.position();
+			int token = diagnostic.token() >= changeEnd ? diagnostic.token() + tokens : diagnostic.token();
+			return new Diagnostic(position, token, diagnostic.message(), diagnostic.expected(), diagnostic.found());
+		}
+	}
+}
@@ -40,36 +40,43 @@ public final class OpPrecTable {
 			List.of(new Entry<>(TokenType.POW, BinaryOps.Pow))
 	);
 	private static final int tablesize = precedence.size();
+	private static final int[] bindingPowers = new int[TokenType.values().length];
+	private static final BinaryOps[] binaryOps = new BinaryOps[TokenType.values().length];
+
+	static {
+		for (int level = 0; level < tablesize; level++) {
+			for (Entry<TokenType, BinaryOps> entry : precedence.get(level)) {
+				bindingPowers[entry.key().ordinal()] = level + 1;
+				binaryOps[entry.key().ordinal()] = entry.value();
+			}
+		}
+	}
 
 	private OpPrecTable() {
 	}
 
 	public static boolean inTableAt(int prec, Token symb) {
-		if (prec >= tablesize) {
-			return false;
-		}
-		List<Entry<TokenType, BinaryOps>> table = precedence.get(prec);
-		for (Entry<TokenType, BinaryOps> entry : table) {
-			if (entry.key() == symb.type) {
-				return true;
-			}
-		}
-		return false;
+		return inTableAt(prec, symb.type);
+	}
+
+	public static boolean inTableAt(int prec, TokenType type) {
+		return prec < tablesize && bindingPowers[type.ordinal()] == prec + 1;
 	}
 
 	public static BinaryOps mapSymbolToOp(int precedence, Token token) {
-		List<Entry<TokenType, BinaryOps>> table = getTable(precedence);
-		if (table == null) {
+		return mapSymbolToOp(precedence, token.type);
+	}
+
+	public static BinaryOps mapSymbolToOp(int precedence, TokenType type) {
+		if (precedence >= tablesize) {
 			throw new IllegalArgumentException("Precedence table used without checking first if a valid precedence " +
 											   "number was provided. Precedence number is " + precedence + " which " +
 											   "is above the table size of " + tablesize);
 		}
-		for (Entry<TokenType, BinaryOps> entry : table) {
-			if (entry.key() == token.type) {
-				return entry.value();
-			}
+		if (bindingPowers[type.ordinal()] != precedence + 1) {
+			throw new IllegalArgumentException("Unknown token: " + type);
 		}
-		throw new IllegalArgumentException("Unknown token: " + token);
+		return binaryOps[type.ordinal()];
 	}
 
 	@Contract(pure = true)
@@ -83,4 +90,19 @@ public final class OpPrecTable {
 	public static boolean hasTable(int precedence) {
 		return precedence <= tablesize;
 	}
+
+	/**
+	 * The binding power of a binary operator: one more than its precedence level, so that operators that bind
+	 * tighter have higher powers and 0 means the token is not a binary operator.
+	 */
+	public static int bindingPower(TokenType type) {
+		return bindingPowers[type.ordinal()];
+	}
+
+	/**
+	 * The operator for a token whose [#bindingPower(TokenType)] is not 0.
+	 */
+	public static BinaryOps binaryOp(TokenType type) {
+		return binaryOps[type.ordinal()];
+	}
 }
\ No newline at end of file
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package parser;
+
+import AST.*;
+import scanner.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Parses the top-level declarations of one token buffer on several threads. A pre-scan over the token types finds
+ * the declaration keywords ({@code fun}, {@code class}, {@code struct}, {@code enum}, {@code var} and {@code array})
+ * that are not nested in braces, parentheses or brackets. Those are the only places a top-level declaration can
+ * start, so the buffer is cut at some of them into slices of roughly equal size.
+ * <p>
+ * Each slice is parsed by its own [ParsingContext], which reads EOF at the end of the slice, and the slices'
+ * declarations are joined in source order. The tree is the one a sequential parse builds.
+ * <p>
+ * Error recovery can skip across a cut, so a slice with syntax errors may not report what a sequential parse would.
+ * If any slice has errors, or if the brackets do not balance, the program is parsed again sequentially and the
+ * diagnostics are that parse's.
+ * <p>
+ * Each slice holds its warnings back, so that the slices' warnings do not interleave and are not printed twice
+ * when the program is parsed again. If the slices' declarations are used, their warnings are passed on to the
+ * given context in slice order, which is the order a sequential parse prints them in; otherwise they are dropped.
+ */
+public final class ParallelParser {
+	/**
+	 * Setting this system property to true makes the command line driver tokenize and parse files in parallel.
+	 */
+	public static final String PARALLEL_PROPERTY = "cflat.parallelParser";
+
+	/**
+	 * Slices shorter than this many tokens are not worth a task of their own.
+	 */
+	static final int MIN_SLICE = 4096;
+
+	private ParallelParser() {
+	}
+
+	/**
+	 * Parses a whole program on the common fork-join pool.
+	 *
+	 * @param context A context at the start of a [TokenBuffer]. Its [Diagnostics] receive the syntax errors.
+	 * @return The top-level declarations, in source order.
+	 */
+	public static List<Declaration> parseProgram(ParsingContext context) {
+		return parseProgram(context, ForkJoinPool.commonPool());
+	}
+
+	public static List<Declaration> parseProgram(ParsingContext context, ForkJoinPool pool) {
+		TokenBuffer tokens = context.buffer();
+		if (tokens == null || context.getPosition() != 0) {
+			return DeclarationParser.parseProgram(context);
+		}
+		// More slices than threads, so that a few large declarations do not leave the other threads idle.
+		int[] bounds = sliceBounds(tokens, pool.getParallelism() * 4);
+		int slices = bounds.length - 1;
+		if (slices == 1) {
+			return DeclarationParser.parseProgram(context);
+		}
+
+		List<Callable<Slice>> parsers = new ArrayList<>(slices);
+		for (int i = 0; i < slices; i++) {
+			int from = bounds[i];
+			int to = bounds[i + 1];
+			parsers.add(() -> {
+				ParsingContext slice = new ParsingContext(tokens.cursor(from, to));
+				slice.holdWarnings();
+				List<Declaration> decls = DeclarationParser.parseDeclarations(slice);
+				return slice.diagnostics().isEmpty() ? new Slice(decls, slice.heldWarnings()) : null;
+			});
+		}
+		List<Slice> parsed = new ArrayList<>(slices);
+		for (Future<Slice> slice : pool.invokeAll(parsers)) {
+			parsed.add(join(slice));
+		}
+		if (parsed.contains(null)) {
+			return DeclarationParser.parseProgram(context);
+		}
+		List<Declaration> program = new ArrayList<>(slices * 16);
+		for (Slice slice : parsed) {
+			slice.warnings().forEach(context::warn);
+			program.addAll(slice.declarations());
+		}
+		NodeIds.assign(program);
+		return program;
+	}
+
+	/**
+	 * Picks up to {@code target} slices of roughly equal size, each starting with a top-level declaration keyword.
+	 *
+	 * @return The slice boundaries as token indices, starting with 0 and ending with the buffer size. If the
+	 * brackets do not balance, the whole buffer is one slice.
+	 */
+	static int[] sliceBounds(TokenBuffer tokens, int target) {
+		int size = tokens.size();
+		int sliceSize = Math.max(MIN_SLICE, size / Math.max(1, target));
+		int[] bounds = new int[size / sliceSize + 2];
+		int count = 1;
+		int next = sliceSize;
+		int depth = 0;
+		for (int i = 0; i < size; i++) {
+			switch (tokens.type(i)) {
+				case LBRACE, LPAREN, LBRACKET -> depth++;
+				case RBRACE, RPAREN, RBRACKET -> {
+					if (--depth < 0) {
+						return new int[]{0, size};
+					}
+				}
+				case FUN, CLASS, STRUCT, ENUM, VAR, ARRAY -> {
+					if (depth == 0 && i >= next) {
+						bounds[count++] = i;
+						next = i + sliceSize;
+					}
+				}
+				default -> {
+				}
+			}
+		}
+		if (depth != 0) {
+			return new int[]{0, size};
+		}
+		bounds[count++] = size;
+		return Arrays.copyOf(bounds, count);
+	}
+
+	/**
+	 * The declarations of a slice that parsed without errors, and the warnings it held back.
+	 */
+	private record Slice(List<Declaration> declarations, List<String> warnings) {
+	}
+
+	private static <T> T join(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while parsing.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new RuntimeException("Parsing failed.", e.getCause());
+		}
+	}
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package parser;
+
+import AST.*;
+import AST.Flat.*;
+import parser.Diagnostics.*;
+import scanner.*;
+import scanner.Token.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.security.*;
+import java.util.*;
+
+/**
+ * A directory of parsed programs, so that a file that has not changed since it was last parsed is not parsed again.
+ * An entry is keyed by a hash of the source bytes, the compiler's version and the options that affect parsing, and
+ * holds the program as a [BinaryAST], the diagnostics, and the warnings printed while parsing it.
+ * <p>
+ * Several processes can share a directory. An entry is written to a temporary file and renamed into place, so a
+ * reader sees either the whole entry or none. Reading an entry marks it as used by updating its modification time,
+ * and when an entry is added the least recently used entries are deleted until the directory fits its size limit.
+ * An entry that cannot be read is treated as missing.
+ */
+public final class ParseCache {
+	/**
+	 * The cache directory the command line driver uses. Without it, files are always parsed.
+	 */
+	public static final String DIRECTORY_PROPERTY = "cflat.parseCache";
+	/**
+	 * The most bytes of entries the command line driver keeps, 256 MiB by default.
+	 */
+	public static final String MAX_SIZE_PROPERTY = "cflat.parseCacheSize";
+	public static final long DEFAULT_MAX_SIZE = 256L << 20;
+	/**
+	 * Part of every key, so that an entry from a compiler that parses differently is never used. Change it with any
+	 * change to the trees or diagnostics the parser produces.
+	 */
+	static final String COMPILER_VERSION = "1.0-SNAPSHOT";
+	/**
+	 * The system properties that change how a file is parsed, whose values are part of every key.
+	 */
+	private static final String[] OPTIONS = {ExpressionParser.PRATT_PROPERTY, ParsingContext.MAX_RECURSION_PROPERTY};
+
+	private static final int MAGIC = 0x43465043;
+	private static final String SUFFIX = ".ast";
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+	/**
+	 * How old a temporary file must be to be deleted as left behind by a process that died while writing it.
+	 */
+	private static final long ABANDONED_MILLIS = 60 * 60 * 1000;
+	private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+	private final Path directory;
+	private final long maxSize;
+
+	/**
+	 * A parsed program.
+	 *
+	 * @param output What the parser printed while parsing it.
+	 */
+	public record Entry(List<Declaration> program, Diagnostics diagnostics, byte[] output) {
+	}
+
+	/**
+	 * @param directory Created if it does not exist.
+	 * @param maxSize   The most bytes of entries to keep.
+	 */
+	public ParseCache(Path directory, long maxSize) throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * The cache the system properties configure, or null if there is none or its directory cannot be created.
+	 */
+	public static ParseCache fromProperties() {
+		String directory = System.getProperty(DIRECTORY_PROPERTY);
+		if (directory == null || directory.isEmpty()) {
+			return null;
+		}
+		try {
+			return new ParseCache(Path.of(directory), Long.getLong(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+		} catch (IOException | InvalidPathException e) {
+			System.out.println("WARNING: The parse cache " + directory + " cannot be used (" + e + ").");
+			return null;
+		}
+	}
+
+	/**
+	 * Looks up the program parsed from a source.
+	 *
+	 * @return The entry, or null if there is none.
+	 */
+	public Entry get(byte[] source) {
+		Path path = directory.resolve(key(source) + SUFFIX);
+		Entry entry;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			entry = read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), source.length);
+		} catch (IOException | RuntimeException e) {
+			// Missing, written by another version of the format, or damaged. Parsing again replaces it.
+			return null;
+		}
+		try {
+			Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException e) {
+			// Evicted meanwhile, or the directory is read-only. The entry is still good.
+		}
+		return entry;
+	}
+
+	/**
+	 * Stores the program parsed from a source, then evicts entries if the cache is over its size.
+	 *
+	 * @throws IOException If the entry cannot be written. The cache is left as it was.
+	 */
+	public void put(byte[] source, Entry entry) throws IOException {
+		String key = key(source);
+		Path temporary = Files.createTempFile(directory, key, TEMPORARY_SUFFIX);
+		try {
+			try (OutputStream out = Files.newOutputStream(temporary)) {
+				write(new DataOutputStream(new BufferedOutputStream(out)), source.length, entry);
+			}
+			Files.move(temporary, directory.resolve(key + SUFFIX), StandardCopyOption.ATOMIC_MOVE,
+					   StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+		evict();
+	}
+
+	/**
+	 * The hex of the first 128 bits of the SHA-256 of the compiler version, the options and the source.
+	 */
+	static String key(byte[] source) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Every Java platform supports SHA-256.", e);
+		}
+		StringBuilder header = new StringBuilder(COMPILER_VERSION).append('\0').append(BinaryAST.VERSION);
+		for (String option : OPTIONS) {
+			header.append('\0').append(option).append('=').append(System.getProperty(option));
+		}
+		digest.update(header.append('\0').toString().getBytes(StandardCharsets.UTF_8));
+		digest.update(source);
+		return HexFormat.of().formatHex(digest.digest(), 0, 16);
+	}
+
+	/**
+	 * Writes an entry: the magic number, the length of the source, the output, the diagnostics, then the program.
+	 */
+	private static void write(DataOutputStream data, int sourceLength, Entry entry) throws IOException {
+		data.writeInt(MAGIC);
+		data.writeInt(sourceLength);
+		data.writeInt(entry.output().length);
+		data.write(entry.output());
+		data.writeInt(entry.diagnostics().size());
+		for (Diagnostic diagnostic : entry.diagnostics()) {
+			byte[] message = diagnostic.message().getBytes(StandardCharsets.UTF_8);
+			data.writeLong(diagnostic.position());
+			data.writeInt(diagnostic.token());
+			data.writeShort(diagnostic.expected() != null ? diagnostic.expected().ordinal() : -1);
+			data.writeShort(diagnostic.found() != null ? diagnostic.found().ordinal() : -1);
+			data.writeInt(message.length);
+			data.write(message);
+		}
+		BinaryAST.write(FlatAST.from(entry.program(), new NameTable()), data);
+	}
+
+	private static Entry read(ByteBuffer buffer, int sourceLength) throws IOException {
+		if (buffer.getInt() != MAGIC || buffer.getInt() != sourceLength) {
+			throw new IOException("Not a parse cache entry for this source.");
+		}
+		byte[] output = new byte[buffer.getInt()];
+		buffer.get(output);
+		Diagnostics diagnostics = new Diagnostics();
+		for (int i = buffer.getInt(); i > 0; i--) {
+			long position = buffer.getLong();
+			int token = buffer.getInt();
+			short expected = buffer.getShort();
+			short found = buffer.getShort();
+			byte[] message = new byte[buffer.getInt()];
+			buffer.get(message);
+			diagnostics.report(new Diagnostic(position, token, new String(message, StandardCharsets.UTF_8),
+											  expected >= 0 ? TOKEN_TYPES[expected] : null,
+											  found >= 0 ? TOKEN_TYPES[found] : null));
+		}
+		// Decoded in full, so that a damaged entry is found here and treated as missing, and the mapping is let go.
+		return new Entry(BinaryAST.readFully(buffer), diagnostics, output);
+	}
+
+	/**
+	 * Deletes the least recently used entries until the rest fit in the size limit, along with any abandoned
+	 * temporary files. Files that another process deletes or replaces meanwhile are skipped.
+	 */
+	private void evict() throws IOException {
+		record Cached(Path path, long size, long used) {
+		}
+		List<Cached> entries = new ArrayList<>();
+		long total = 0;
+		long now = System.currentTimeMillis();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path path : files) {
+				String name = path.getFileName().toString();
+				try {
+					BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+					long used = attributes.lastModifiedTime().toMillis();
+					if (name.endsWith(SUFFIX)) {
+						entries.add(new Cached(path, attributes.size(), used));
+						total += attributes.size();
+					} else if (name.endsWith(TEMPORARY_SUFFIX) && now - used > ABANDONED_MILLIS) {
+						Files.deleteIfExists(path);
+					}
+				} catch (NoSuchFileException e) {
+					// Evicted or renamed by another process.
+				}
+			}
+		}
+		if (total <= maxSize) {
+			return;
+		}
+		entries.sort(Comparator.comparingLong(Cached::used));
+		for (Cached entry : entries) {
+			if (total <= maxSize) {
+				break;
+			}
+			try {
+				Files.deleteIfExists(entry.path());
+			} catch (IOException e) {
+				// In use where files in use cannot be deleted. It can go next time.
+				continue;
+			}
+			total -= entry.size();
+		}
+	}
+}
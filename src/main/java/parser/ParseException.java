@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package parser;
+
+import parser.Diagnostics.*;
+
+import java.io.*;
+
+/**
+ * Unwinds the parser from a syntax error to the nearest point that can recover from it. The error has already been
+ * recorded in the context's [Diagnostics] when this is thrown. Recovery is ordinary control flow, so the exception
+ * carries no stack trace and costs no more to throw than any other object.
+ */
+public final class ParseException extends RuntimeException {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private final transient Diagnostic diagnostic;
+
+	ParseException(Diagnostic diagnostic) {
+		super(null, null, false, false);
+		this.diagnostic = diagnostic;
+	}
+
+	public Diagnostic getDiagnostic() {
+		return diagnostic;
+	}
+
+	@Override
+	public String getMessage() {
+		return diagnostic.toString();
+	}
+}
@@ -7,6 +7,7 @@
 package parser;
 
 import AST.*;
+import AST.Expressions.*;
 import AST.Statements.*;
 import scanner.*;
 import scanner.Token.*;
@@ -35,28 +36,41 @@ public class Parser {
 	}
 
 	public boolean nextTokenIsType(TokenType tokType) {
-		Token tok = context.getNextToken();
-		return tok.type == tokType;
+		return context.getNextType() == tokType;
 	}
 
 	public String matchIdent(String error) {
-		Token idt = match(TokenType.IDENTIFIER, error);
-		return idt.text;
+		checkType(TokenType.IDENTIFIER, error);
+		String name = context.getCurrentText();
+		advance();
+		return name;
 	}
 
 	public Token match(TokenType expectedTokenType, String error) {
-		Token currentToken = getCurrentToken();
 		if (expectedTokenType == TokenType.SEMICOLON && context.semicolonExempt()) {
 			context.clearSemicolonExempt();
-			return new Token(TokenType.SEMICOLON, ";", getCurrentLocation().key(), getCurrentLocation().value());
+			long loc = getCurrentLocation();
+			return new Token(TokenType.SEMICOLON, ";", Position.line(loc), Position.column(loc));
 		}
-		if (currentToken.type == expectedTokenType) {
-			consumeToken();
-			return currentToken;
-		} else {
-			throw new RuntimeException("Syntax error: " + error + " Expected " + expectedTokenType +
-									   " but found " + currentToken.type + " at line " + currentToken.line +
-									   ", char " + currentToken.charNum);
+		checkType(expectedTokenType, error);
+		return consumeToken();
+	}
+
+	/**
+	 * Like [#match(TokenType, String)], for callers that do not need the token.
+	 */
+	public void expect(TokenType expectedTokenType, String error) {
+		if (expectedTokenType == TokenType.SEMICOLON && context.semicolonExempt()) {
+			context.clearSemicolonExempt();
+			return;
+		}
+		checkType(expectedTokenType, error);
+		advance();
+	}
+
+	private void checkType(TokenType expectedTokenType, String error) {
+		if (!curTokenIsType(expectedTokenType)) {
+			throw context.unexpected(expectedTokenType, error);
 		}
 	}
 
@@ -64,8 +78,11 @@ public class Parser {
 		return context.getCurrentToken();
 	}
 
-	Entry<Integer, Integer> getCurrentLocation() {
-		return new Entry<>(getCurrentToken().line, getCurrentToken().charNum);
+	/**
+	 * The position of the current token, packed as a [Position].
+	 */
+	long getCurrentLocation() {
+		return context.getCurrentPosition();
 	}
 
 	public Token consumeToken() {
@@ -74,35 +91,121 @@ public class Parser {
 		return tok;
 	}
 
+	/**
+	 * Moves past the current token without materializing it.
+	 */
+	void advance() {
+		context.advanceLocation(1);
+	}
+
 	public void matchList(List<TokenType> expectedTokenType, String error) {
-		Token currentToken = getCurrentToken();
-		if (expectedTokenType.contains(currentToken.type)) {
-			consumeToken();
+		if (expectedTokenType.contains(context.getCurrentType())) {
+			advance();
 		} else {
-			throw new RuntimeException("Syntax error: " + error + " Expected " + String.join(", or ",
-					expectedTokenType.stream().map(Enum::toString).toList()) +
-									   " but found " + currentToken.type + " at line " + currentToken.line +
-									   ", char " + currentToken.charNum);
+			throw context.error(error + " Expected " + String.join(", or ",
+					expectedTokenType.stream().map(Enum::toString).toList()) + ".");
 		}
 	}
 
 	public Statement parseBlock() {
-		Token tok = match(TokenType.LBRACE, "Blocks must start with braces.");
+		int start = context.getPosition();
+		long loc = getCurrentLocation();
+		expect(TokenType.LBRACE, "Blocks must start with braces.");
 
 		List<Declaration> block = new ArrayList<>(64);
-		while (getCurrentToken().type != TokenType.RBRACE) {
-			block.add(DeclarationParser.parseDeclaration(context));
+		while (!curTokenIsType(TokenType.RBRACE)) {
+			block.add(parseDeclarationOrError());
 			if (curTokenIsType(TokenType.EOF)) {
-				throw new RuntimeException("Unterminated block starting at line: " + tok.line);
+				// Report the missing brace, but keep what was parsed of the block.
+				context.error(loc, "Unterminated block.");
+				return withRange(new Block(block, loc), start);
 			}
 		}
-		match(TokenType.RBRACE, "Blocks must end with braces.");
+		expect(TokenType.RBRACE, "Blocks must end with braces.");
 
-		return new Block(block, new Entry<>(tok.line, tok.charNum));
+		return withRange(new Block(block, loc), start);
+	}
+
+	/**
+	 * Parses a declaration. If it has a syntax error, the error is left in the context's [Diagnostics], the rest of
+	 * the declaration is skipped and an [ErrorNode] takes its place.
+	 */
+	Declaration parseDeclarationOrError() {
+		int start = context.getPosition();
+		int depth = context.depth();
+		try {
+			return context.declarations().parseDeclaration();
+		} catch (ParseException e) {
+			return recover(e, start, depth);
+		}
+	}
+
+	/**
+	 * Recovers from a syntax error in a declaration: restores the nesting depth, skips the rest of the declaration and
+	 * builds the [ErrorNode] that takes its place.
+	 *
+	 * @param start The token index at which the failed declaration started.
+	 * @param depth The nesting depth at that token.
+	 */
+	ErrorNode recover(ParseException e, int start, int depth) {
+		context.restoreDepth(depth);
+		synchronize(start);
+		ErrorNode error = new ErrorNode(e.getDiagnostic().position());
+		error.setTokenRange(start, context.getPosition());
+		return error;
+	}
+
+	/**
+	 * Skips tokens after a syntax error until parsing can resume: past the next semicolon, or up to the next closing
+	 * brace or keyword that starts a declaration or statement. Braced blocks met on the way are skipped whole. At least one token is skipped if
+	 * the declaration that failed started at the current token, so that recovery always makes progress.
+	 *
+	 * @param start The token index at which the failed declaration started.
+	 */
+	void synchronize(int start) {
+		context.resetSemicolonExempt();
+		int depth = 0;
+		while (true) {
+			TokenType type = context.getCurrentType();
+			if (type == TokenType.EOF) {
+				return;
+			}
+			boolean moved = context.getPosition() != start;
+			if (depth == 0) {
+				if (type == TokenType.SEMICOLON) {
+					advance();
+					return;
+				}
+				if (moved && (type == TokenType.RBRACE || startsDeclaration(type))) {
+					return;
+				}
+			}
+			if (type == TokenType.LBRACE) {
+				depth++;
+			} else if (type == TokenType.RBRACE && depth > 0) {
+				depth--;
+			}
+			advance();
+		}
+	}
+
+	private static boolean startsDeclaration(TokenType type) {
+		return switch (type) {
+			case VAR, ARRAY, ENUM, CLASS, STRUCT, FUN, IF, FOR, FOREACH, WHILE, DO, SWITCH, TRY, CONTINUE, BREAK,
+				 RETURN, GOTO, THROW -> true;
+			default -> false;
+		};
+	}
+
+	/**
+	 * Records that the node spans the tokens from {@code start} up to the current one.
+	 */
+	<T extends ASTRoot> T withRange(T node, int start) {
+		node.setTokenRange(start, context.getPosition());
+		return node;
 	}
 
 	public boolean curTokenIsType(TokenType tokType) {
-		Token tok = getCurrentToken();
-		return tok.type == tokType;
+		return context.getCurrentType() == tokType;
 	}
 }
\ No newline at end of file
@@ -6,31 +6,255 @@
 
 package parser;
 
+import parser.Diagnostics.*;
 import scanner.*;
 import scanner.Token.*;
+import utils.*;
 
 import java.util.*;
 
-public class ParsingContext {
-	private final List<Token> tokenStream;
-	private int currentPosition;
+/**
+ * The state of one parse: the token source, the current token and the parsers working on it. Each context owns one
+ * parser of each kind, which the static entry points such as [ExpressionParser#parseExpression(ParsingContext)]
+ * reuse, so that parsing allocates nothing but the tree itself. The current token is only materialized as a [Token]
+ * when a caller asks for one; the parsers' hot paths read its type, text and position directly.
+ * <p>
+ * Syntax errors are collected in the context's [Diagnostics] rather than ending the parse. Warnings go through
+ * [#warn(String)], which prints them to standard output unless the context holds them back for its caller.
+ * <p>
+ * The parsers recurse once per level of nesting, which is fast but needs stack in proportion to the nesting depth.
+ * The context counts the levels, and past [#MAX_RECURSION] the parsers keep their pending constructs on explicit
+ * stacks on the heap instead, so that machine-generated input nested a hundred thousand levels deep parses on an
+ * ordinary thread stack.
+ */
+public final class ParsingContext {
+	/**
+	 * Setting this system property to a number sets how many levels of statements and expressions the parsers nest
+	 * on the thread stack before they continue on explicit stacks. 0 parses every statement and expression on
+	 * explicit stacks.
+	 */
+	public static final String MAX_RECURSION_PROPERTY = "cflat.maxParseRecursion";
+
+	static final int MAX_RECURSION = Integer.getInteger(MAX_RECURSION_PROPERTY, 128);
+
+	/**
+	 * Stands for every token past the end of input.
+	 */
+	private static final Token EOF_TOKEN = new Token(TokenType.EOF, "", -1, -1);
+
+	private final TokenSource tokenStream;
+	/**
+	 * The whole token stream, if it was given as a buffer rather than streamed.
+	 */
+	private final TokenBuffer buffer;
+	private final DeclarationParser declarations;
+	private final StatementParser statements;
+	private final ExpressionParser expressions;
+	private final Diagnostics diagnostics;
+	private Token currentToken;
 	private boolean semicolon = false;
+	private int depth;
+	private int maxRecursion = MAX_RECURSION;
+	/**
+	 * The warnings held back by [#holdWarnings()], or null if they are printed.
+	 */
+	private List<String> heldWarnings;
 
 	public ParsingContext(List<Token> tokenStream) {
-		currentPosition = 0;
+		this(TokenBuffer.copyOf(tokenStream));
+	}
+
+	public ParsingContext(TokenBuffer tokenStream) {
+		this(tokenStream.cursor(), tokenStream, new Diagnostics());
+	}
+
+	public ParsingContext(TokenSource tokenStream) {
+		this(tokenStream, null, new Diagnostics());
+	}
+
+	/**
+	 * A context that adds its errors to existing diagnostics, for parsing part of a buffer again.
+	 */
+	ParsingContext(TokenSource tokenStream, TokenBuffer buffer, Diagnostics diagnostics) {
 		this.tokenStream = tokenStream;
+		this.buffer = buffer;
+		this.diagnostics = diagnostics;
+		declarations = new DeclarationParser(this);
+		statements = new StatementParser(this);
+		expressions = new ExpressionParser(this);
+	}
+
+	DeclarationParser declarations() {
+		return declarations;
+	}
+
+	StatementParser statements() {
+		return statements;
+	}
+
+	ExpressionParser expressions() {
+		return expressions;
+	}
+
+	/**
+	 * The buffer the context reads from, or null if its tokens are streamed.
+	 */
+	TokenBuffer buffer() {
+		return buffer;
+	}
+
+	public Diagnostics diagnostics() {
+		return diagnostics;
+	}
+
+	/**
+	 * Records that the current token is not the one the grammar requires.
+	 *
+	 * @return The exception to throw to reach the nearest recovery point.
+	 */
+	ParseException unexpected(TokenType expected, String message) {
+		return report(new Diagnostic(getCurrentPosition(), getPosition(), message, expected, getCurrentType()));
+	}
+
+	/**
+	 * Records an error at the current token.
+	 *
+	 * @return The exception to throw to reach the nearest recovery point.
+	 */
+	ParseException error(String message) {
+		return report(new Diagnostic(getCurrentPosition(), getPosition(), message, null, getCurrentType()));
+	}
+
+	/**
+	 * Records an error about the construct starting at the given [Position].
+	 *
+	 * @return The exception to throw to reach the nearest recovery point.
+	 */
+	ParseException error(long position, String message) {
+		return report(new Diagnostic(position, getPosition(), message, null, null));
+	}
+
+	private ParseException report(Diagnostic diagnostic) {
+		diagnostics.report(diagnostic);
+		return new ParseException(diagnostic);
+	}
+
+	/**
+	 * Prints a warning about the source, or holds it back if [#holdWarnings()] was called.
+	 */
+	public void warn(String message) {
+		if (heldWarnings != null) {
+			heldWarnings.add(message);
+		} else {
+			System.out.println(message);
+		}
+	}
+
+	/**
+	 * Keeps the warnings from here on instead of printing them, for a parse whose result may be thrown away.
+	 */
+	void holdWarnings() {
+		if (heldWarnings == null) {
+			heldWarnings = new ArrayList<>();
+		}
+	}
+
+	/**
+	 * The warnings held back since [#holdWarnings()], in the order they were found.
+	 */
+	List<String> heldWarnings() {
+		return heldWarnings != null ? heldWarnings : List.of();
 	}
 
 	public void advanceLocation(int loc) {
-		currentPosition += loc;
+		tokenStream.advance(loc);
+		currentToken = null;
 	}
 
 	public Token getNextToken() {
-		if (currentPosition + 1 < tokenStream.size()) {
-			return tokenStream.get(currentPosition + 1);
+		Token next = tokenStream.peek(1);
+		return next != null ? next : EOF_TOKEN;
+	}
+
+	/**
+	 * The type of the current token, read from the source without materializing a [Token].
+	 */
+	public TokenType getCurrentType() {
+		return tokenStream.peekType(0);
+	}
+
+	public TokenType getNextType() {
+		return tokenStream.peekType(1);
+	}
+
+	/**
+	 * The text of the current token, read from the source without materializing a [Token].
+	 */
+	public String getCurrentText() {
+		return tokenStream.peekText(0);
+	}
+
+	public int getCurrentNameId() {
+		return tokenStream.peekNameId(0);
+	}
+
+	public long getCurrentValue() {
+		return tokenStream.peekValue(0);
+	}
+
+	/**
+	 * The line and column of the current token, packed as a [Position].
+	 */
+	public long getCurrentPosition() {
+		return Position.of(tokenStream.peekLine(0), tokenStream.peekColumn(0));
+	}
+
+	/**
+	 * The index of the current token in the token stream.
+	 */
+	public int getPosition() {
+		return tokenStream.position();
+	}
+
+	/**
+	 * Enters one level of nesting.
+	 *
+	 * @return False if the nesting is already [#MAX_RECURSION] levels deep, or as deep as [#setMaxRecursion(int)]
+	 * allows, in which case the level was not entered and the caller must parse on an explicit stack rather than
+	 * recurse.
+	 */
+	boolean enter() {
+		if (depth >= maxRecursion) {
+			return false;
 		}
-		// Return a special "end of input" token
-		return new Token(TokenType.EOF, "", -1, -1);
+		depth++;
+		return true;
+	}
+
+	/**
+	 * Sets how many levels this context nests on the thread stack, in place of [#MAX_RECURSION_PROPERTY].
+	 */
+	void setMaxRecursion(int maxRecursion) {
+		this.maxRecursion = maxRecursion;
+	}
+
+	/**
+	 * Leaves a level entered with [#enter()].
+	 */
+	void exit() {
+		depth--;
+	}
+
+	/**
+	 * The number of levels entered and not left. A syntax error leaves levels it unwinds, so recovery points save
+	 * the depth and [#restoreDepth(int)] it.
+	 */
+	int depth() {
+		return depth;
+	}
+
+	void restoreDepth(int depth) {
+		this.depth = depth;
 	}
 
 	public boolean semicolonExempt() {
@@ -39,27 +263,33 @@ public class ParsingContext {
 
 	public void setSemicolonExempt() {
 		if (semicolon) {
-			System.out.println("Suspicious use of semicolon exempt. Should not be set twice.");
+			warn("Suspicious use of semicolon exempt. Should not be set twice.");
 		}
 		semicolon = true;
 	}
 
 	public void clearSemicolonExempt() {
 		if (!semicolon) {
-			System.out.println("Suspicious use of semicolon exempt. Should not be cleared twice.");
+			warn("Suspicious use of semicolon exempt. Should not be cleared twice.");
 		}
 		semicolon = false;
 	}
 
+	/**
+	 * Drops a semicolon exemption left behind by a construct that was abandoned on a syntax error.
+	 */
+	void resetSemicolonExempt() {
+		semicolon = false;
+	}
+
 	public boolean isEmpty() {
-		return getCurrentToken().type != TokenType.EOF;
+		return getCurrentType() != TokenType.EOF;
 	}
 
 	public Token getCurrentToken() {
-		if (currentPosition < tokenStream.size()) {
-			return tokenStream.get(currentPosition);
+		if (currentToken == null) {
+			currentToken = tokenStream.peek(0);
 		}
-		// Return a special "end of input" token
-		return new Token(TokenType.EOF, "", -1, -1);
+		return currentToken != null ? currentToken : EOF_TOKEN;
 	}
 }
@@ -6,11 +6,11 @@
 
 package parser;
 
+import AST.ASTRoot.*;
 import AST.*;
 import AST.Expressions.*;
 import AST.Expressions.OpEnums.*;
 import AST.Statements.*;
-import scanner.*;
 import scanner.Token.*;
 import utils.*;
 
@@ -22,17 +22,16 @@ public final class StatementParser extends Parser {
 	}
 
 	public static Statement parseStatement(ParsingContext cont) {
-		StatementParser parser = new StatementParser(cont);
-		return parser.parseStatement();
+		return cont.statements().parseStatement();
 	}
 
-	private static boolean isAssignment(Token currentToken) {
-		return currentToken.type == TokenType.EQUATE || currentToken.type == TokenType.ADDASSIGN
-			   || currentToken.type == TokenType.SUBASSIGN || currentToken.type == TokenType.MULASSIGN
-			   || currentToken.type == TokenType.DIVASSIGN || currentToken.type == TokenType.MODASSIGN
-			   || currentToken.type == TokenType.POWASSIGN || currentToken.type == TokenType.ANDASSIGN
-			   || currentToken.type == TokenType.ORASSIGN || currentToken.type == TokenType.RSHIFTASSIGN
-			   || currentToken.type == TokenType.LSHIFTASSIGN || currentToken.type == TokenType.XORASSIGN;
+	private static boolean isAssignment(TokenType type) {
+		return type == TokenType.EQUATE || type == TokenType.ADDASSIGN
+			   || type == TokenType.SUBASSIGN || type == TokenType.MULASSIGN
+			   || type == TokenType.DIVASSIGN || type == TokenType.MODASSIGN
+			   || type == TokenType.POWASSIGN || type == TokenType.ANDASSIGN
+			   || type == TokenType.ORASSIGN || type == TokenType.RSHIFTASSIGN
+			   || type == TokenType.LSHIFTASSIGN || type == TokenType.XORASSIGN;
 	}
 	/**
 	 * Parses a statement.
@@ -59,77 +58,99 @@ public final class StatementParser extends Parser {
 	 * * * [Block]
 	 */
 	private Statement parseStatement() {
+		if (!context.enter()) {
+			return parseOnExplicitStack();
+		}
+		Statement statement = parseStatementRecursively();
+		context.exit();
+		return statement;
+	}
+
+	private Statement parseStatementRecursively() {
 		Statement retNode;
-		Entry<Integer, Integer> loc = getCurrentLocation();
-		switch (getCurrentToken().type) {
+		long loc = getCurrentLocation();
+		switch (context.getCurrentType()) {
 			case IF -> {
-				consumeToken();
+				advance();
 				retNode = parseIf();
 			}
 			case FOR -> {
-				consumeToken();
+				advance();
 				retNode = parseForLoop();
 			}
 			case FOREACH -> {
-				consumeToken();
+				advance();
 				retNode = parseForEachLoop();
 			}
 			case WHILE -> {
-				consumeToken();
+				advance();
 				retNode = parseWhile();
 			}
 			case DO -> {
-				consumeToken();
+				advance();
 				retNode = parseDoWhile();
 			}
 			case SWITCH -> {
-				consumeToken();
+				advance();
 				retNode = parseSwitch();
 			}
 			case TRY -> {
-				consumeToken();
+				advance();
 				retNode = parseTry();
 			}
+			case LBRACE -> retNode = parseBlock();
+			default -> retNode = parseSimpleStatement(loc);
+		}
+		return retNode;
+	}
+
+	/**
+	 * Parses a statement that has no statements nested in it.
+	 *
+	 * @param loc The position of the statement's first token.
+	 */
+	private Statement parseSimpleStatement(long loc) {
+		Statement retNode;
+		switch (context.getCurrentType()) {
 			case CONTINUE -> {
-				consumeToken();
+				advance();
 				retNode = new Continue(loc);
-				match(TokenType.SEMICOLON, "Statements must end with semicolons.");
+				expect(TokenType.SEMICOLON, "Statements must end with semicolons.");
 			}
 			case BREAK -> {
-				consumeToken();
+				advance();
 				retNode = new Break(loc);
-				match(TokenType.SEMICOLON, "Statements must end with semicolons.");
+				expect(TokenType.SEMICOLON, "Statements must end with semicolons.");
 			}
 			case RETURN -> {
-				consumeToken();
+				advance();
 				retNode = parseReturn();
-				match(TokenType.SEMICOLON, "Statements must end with semicolons.");
+				expect(TokenType.SEMICOLON, "Statements must end with semicolons.");
 			}
 			case GOTO -> {
-				consumeToken();
+				advance();
 				retNode = parseGoto();
-				match(TokenType.SEMICOLON, "Statements must end with semicolons.");
+				expect(TokenType.SEMICOLON, "Statements must end with semicolons.");
 			}
 			case THROW -> {
-				consumeToken();
+				advance();
 				retNode = parseThrow();
-				match(TokenType.SEMICOLON, "Statements must end with semicolons.");
+				expect(TokenType.SEMICOLON, "Statements must end with semicolons.");
 			}
 			case IDENTIFIER -> {
 				if (nextTokenIsType(TokenType.COLON)) {
 					retNode = parseLabel();
 				} else {
 					retNode = ExpressionParser.parseExpression(context);
-					if (isAssignment(getCurrentToken())) {
+					if (isAssignment(context.getCurrentType())) {
 						retNode = parseAssignment((Expression) retNode);
 					}
-					match(TokenType.SEMICOLON, "Statements must end with semicolons.");
+					expect(TokenType.SEMICOLON, "Statements must end with semicolons.");
 				}
 			}
-			case LBRACE -> retNode = parseBlock();
 			default -> {
 				retNode = ExpressionParser.parseExpression(context);
-				match(TokenType.SEMICOLON, "Statements must end with semicolons.");
+				expect(TokenType.SEMICOLON, "Statements must end with semicolons.");
 			}
 		}
 		return retNode;
@@ -146,38 +167,50 @@ public final class StatementParser extends Parser {
 	 * * * "if" "(" Expression ")" Statement "else" Statement
 	 */
 	private Statement parseIf() {
-		Token start = match(TokenType.LPAREN,
-				"Each if statement must contain a conditional enclosed in " + "parentheses.");
-		Expression conditional = getConditional("if");
-
-		match(TokenType.RPAREN, "Each if statement must contain a conditional enclosed in parentheses.");
+		long start = getCurrentLocation();
+		Expression conditional = parseIfCondition();
 
 		Statement consequent = parseStatement();
-
-		if (!(consequent instanceof Block)) {
-			System.out.println("WARNING: If statement consequent block on line " + getCurrentLocation().key()
-							   + " is not enclosed in braces.\n"
-							   + " Please be aware that the language grammar is left-associative and"
-							   + " will associate the nearest else with the nearest if. I.E  if (a) if (b) s; else s2; "
-							   + "to if (a)\n" + "{\n" + "  if (b)\n" + "    s;\n" + "  else\n" + "    s2;\n" + "}");
-		}
+		warnUnbracedBranch("consequent block", consequent);
 
 		Statement alternate = null;
 		if (curTokenIsType(TokenType.ELSE)) {
-			consumeToken();
+			advance();
 			alternate = parseStatement();
-			if (!(alternate instanceof Block)) {
-				System.out.println("WARNING: If statement alternate (else) block on line " + getCurrentLocation().key()
-								   + " is not enclosed in braces.\n"
-								   + " Please be aware that the language grammar is left-associative and"
-								   +
-								   " will associate the nearest else with the nearest if. I.E  if (a) if (b) s; else s2; "
-								   + "to if (a)\n" + "{\n" + "  if (b)\n" + "    s;\n" + "  else\n" + "    s2;\n" +
-								   "}");
-			}
+			warnUnbracedBranch("alternate (else) block", alternate);
+		}
+		return new If(conditional, consequent, alternate, start);
+	}
+
+	private Expression parseIfCondition() {
+		long loc = openIfCondition();
+		return closeIfCondition(ExpressionParser.parseExpression(context), loc);
+	}
+
+	/**
+	 * Consumes the parenthesis before the conditional of an if statement.
+	 *
+	 * @return The position of the conditional.
+	 */
+	private long openIfCondition() {
+		expect(TokenType.LPAREN, "Each if statement must contain a conditional enclosed in " + "parentheses.");
+		return getCurrentLocation();
+	}
+
+	private Expression closeIfCondition(Expression conditional, long loc) {
+		conditional = checkConditional(conditional, "if", loc);
+		expect(TokenType.RPAREN, "Each if statement must contain a conditional enclosed in parentheses.");
+		return conditional;
+	}
 
+	private void warnUnbracedBranch(String branch, Statement statement) {
+		if (!(statement instanceof Block)) {
+			context.warn("WARNING: If statement " + branch + " on line " + Position.line(getCurrentLocation())
+						 + " is not enclosed in braces.\n"
+						 + " Please be aware that the language grammar is left-associative and"
+						 + " will associate the nearest else with the nearest if. I.E  if (a) if (b) s; else s2; "
+						 + "to if (a)\n" + "{\n" + "  if (b)\n" + "    s;\n" + "  else\n" + "    s2;\n" + "}");
 		}
-		return new If(conditional, consequent, alternate, new Entry<>(start.line, start.charNum));
 	}
 
 	/**
@@ -196,41 +229,57 @@ public final class StatementParser extends Parser {
 	 * * * e | Declaration | ";"
 	 */
 	private Statement parseForLoop() {
-		Token start = match(TokenType.LPAREN, "Opening parenthesis expected after 'for'.");
-		Declaration initializer = null;
-		Expression conditional = null;
-		Declaration iteration = null;
+		long start = getCurrentLocation();
+		expect(TokenType.LPAREN, "Opening parenthesis expected after 'for'.");
+		Declaration initializer = parseForInitializer();
+		Expression conditional = parseForConditional();
+		Declaration iteration = parseForIteration();
 
+		expect(TokenType.RPAREN, "Error: Closing parenthesis expected after 'for'.");
+
+		Statement block = parseStatement();
+		warnUnbracedBody("For", block);
+		return new For(initializer, conditional, iteration, block, start);
+	}
+
+	private Declaration parseForInitializer() {
 		if (!curTokenIsType(TokenType.RPAREN)) {
 			if (curTokenIsType(TokenType.SEMICOLON)) {
-				consumeToken();
+				advance();
 			} else {
-				initializer = DeclarationParser.parseDeclaration(context);
+				return DeclarationParser.parseDeclaration(context);
 			}
 		}
+		return null;
+	}
+
+	private Expression parseForConditional() {
 		if (!curTokenIsType(TokenType.RPAREN)) {
 			if (curTokenIsType(TokenType.SEMICOLON)) {
-				consumeToken();
+				advance();
 			} else {
-				conditional = getConditional("for");
+				return getConditional("for");
 			}
 		}
+		return null;
+	}
+
+	private Declaration parseForIteration() {
 		if (!curTokenIsType(TokenType.RPAREN)) {
-			match(TokenType.SEMICOLON, "For loop conditionals must end with a semicolon.");
+			expect(TokenType.SEMICOLON, "For loop conditionals must end with a semicolon.");
 			context.setSemicolonExempt();
-			iteration = parseStatement();
+			return parseStatement();
 		}
+		return null;
+	}
 
-		match(TokenType.RPAREN, "Error: Closing parenthesis expected after 'for'.");
-
-		Statement block = parseStatement();
-		if (!(block instanceof Block)) {
-			System.out.println(
-					"WARNING: For loop body on line " + getCurrentLocation().key() + " is not enclosed in braces.\n"
+	private void warnUnbracedBody(String loop, Statement body) {
+		if (!(body instanceof Block)) {
+			context.warn(
+					"WARNING: " + loop + " loop body on line " + Position.line(getCurrentLocation()) + " is not enclosed in braces.\n"
 					+ " Please be aware that this language is not whitespace aware and statements following"
 					+ " the first will not be associated with the loop.");
 		}
-		return new For(initializer, conditional, iteration, block, new Entry<>(start.line, start.charNum));
 	}
 
 	/**
@@ -243,28 +292,34 @@ public final class StatementParser extends Parser {
 	 * * * "for" "(" Identifier ":" Identifier ")" Block
 	 */
 	private Statement parseForEachLoop() {
-		Token start = match(TokenType.LPAREN, "Opening parenthesis expected after 'foreach'.");
-		String itervar = match(TokenType.IDENTIFIER, """
+		long start = getCurrentLocation();
+		Name itervar = parseIterationVariable();
+		Name collectionvar = parseCollectionVariable();
+		Statement block = parseStatement();
+		warnUnbracedBody("Foreach", block);
+		return new ForEach(itervar.text(), itervar.id(), collectionvar.text(), collectionvar.id(), block, start);
+	}
+
+	private Name parseIterationVariable() {
+		expect(TokenType.LPAREN, "Opening parenthesis expected after 'foreach'.");
+		Name itervar = matchName("""
 				Iteration variable identifier expected after the opening \
 				parenthesis of a \
 				foreach \
-				expression.""").text;
-		match(TokenType.COLON,
+				expression.""");
+		expect(TokenType.COLON,
 				"Colon expected after the iteration variable identifier of a 'foreach' " + "expression.");
-		String collectionvar = match(TokenType.IDENTIFIER, """
+		return itervar;
+	}
+
+	private Name parseCollectionVariable() {
+		Name collectionvar = matchName("""
 				Collection variable identifier expected after the \
 				colon of a \
 				foreach \
-				expression.""").text;
-		match(TokenType.RPAREN, "Closing parenthesis expected after 'foreach' control structure.");
-		Statement block = parseStatement();
-		if (!(block instanceof Block)) {
-			System.out.println(
-					"WARNING: Foreach loop body on line " + getCurrentLocation().key() + " is not enclosed in braces.\n"
-					+ " Please be aware that this language is not whitespace aware and statements following"
-					+ " the first will not be associated with the loop.");
-		}
-		return new ForEach(itervar, collectionvar, block, new Entry<>(start.line, start.charNum));
+				expression.""");
+		expect(TokenType.RPAREN, "Closing parenthesis expected after 'foreach' control structure.");
+		return collectionvar;
 	}
 
 	/**
@@ -277,17 +332,32 @@ public final class StatementParser extends Parser {
 	 * * * "while" "(" Expression ")" Block
 	 */
 	private Statement parseWhile() {
-		Token start = match(TokenType.LPAREN, "Opening parenthesis expected after 'while'.");
-		Expression conditional = getConditional("while");
-		match(TokenType.RPAREN, "Closing parenthesis expected after 'while' control structure.");
+		long start = getCurrentLocation();
+		Expression conditional = parseWhileCondition();
 		Statement block = parseStatement();
-		if (!(block instanceof Block)) {
-			System.out.println(
-					"WARNING: While loop body on line " + getCurrentLocation().key() + " is not enclosed in braces.\n"
-					+ " Please be aware that this language is not whitespace aware and statements following"
-					+ " the first will not be associated with the loop.");
-		}
-		return new While(conditional, block, new Entry<>(start.line, start.charNum));
+		warnUnbracedBody("While", block);
+		return new While(conditional, block, start);
+	}
+
+	private Expression parseWhileCondition() {
+		long loc = openWhileCondition();
+		return closeWhileCondition(ExpressionParser.parseExpression(context), loc);
+	}
+
+	/**
+	 * Consumes the parenthesis before the conditional of a while loop.
+	 *
+	 * @return The position of the conditional.
+	 */
+	private long openWhileCondition() {
+		expect(TokenType.LPAREN, "Opening parenthesis expected after 'while'.");
+		return getCurrentLocation();
+	}
+
+	private Expression closeWhileCondition(Expression conditional, long loc) {
+		conditional = checkConditional(conditional, "while", loc);
+		expect(TokenType.RPAREN, "Closing parenthesis expected after 'while' control structure.");
+		return conditional;
 	}
 
 	/**
@@ -300,30 +370,69 @@ public final class StatementParser extends Parser {
 	 * * * "while" "(" Expression ")" Block
 	 */
 	private Statement parseDoWhile() {
-		Token start = getCurrentToken();
+		long start = getCurrentLocation();
 		Statement block = parseStatement();
-		match(TokenType.WHILE, "While expected after do block.");
-		match(TokenType.LPAREN, "Opening parenthesis expected after 'do' block.");
-		Expression conditional = getConditional("do-while");
-		match(TokenType.RPAREN, "Closing parenthesis expected after 'do' control structure.");
-		if (!(block instanceof Block)) {
-			System.out.println("WARNING: Do-While loop body on line " + getCurrentLocation().key()
-							   + " is not enclosed in braces.\n"
-							   + " Please be aware that this language is not whitespace aware and statements following"
-							   + " the first will not be associated with the loop.");
-		}
-		match(TokenType.SEMICOLON, "Semicolon expected after 'do-while' conditional.");
-		return new DoWhile(conditional, block, new Entry<>(start.line, start.charNum));
+		return parseDoWhileCondition(block, start);
+	}
+
+	/**
+	 * Parses the part of a do-while loop after its body.
+	 */
+	private Statement parseDoWhileCondition(Statement block, long start) {
+		long loc = openDoWhileCondition();
+		return closeDoWhileCondition(ExpressionParser.parseExpression(context), loc, block, start);
+	}
+
+	/**
+	 * Consumes the while and the parenthesis before the conditional of a do-while loop.
+	 *
+	 * @return The position of the conditional.
+	 */
+	private long openDoWhileCondition() {
+		expect(TokenType.WHILE, "While expected after do block.");
+		expect(TokenType.LPAREN, "Opening parenthesis expected after 'do' block.");
+		return getCurrentLocation();
+	}
+
+	private Statement closeDoWhileCondition(Expression conditional, long loc, Statement block, long start) {
+		conditional = checkConditional(conditional, "do-while", loc);
+		expect(TokenType.RPAREN, "Closing parenthesis expected after 'do' control structure.");
+		warnUnbracedBody("Do-While", block);
+		expect(TokenType.SEMICOLON, "Semicolon expected after 'do-while' conditional.");
+		return new DoWhile(conditional, block, start);
 	}
 
 	/*
 	 * Checks whether the given node is a valid conditional. Not a substitute for
-	 * typechecking but it's probably good to catch these things early.
+	 * typechecking but it's probably good to catch these things early. A bad one
+	 * is reported like a syntax error and replaced by an ErrorNode, but the rest
+	 * of the statement is well formed, so parsing goes on without skipping any of it.
 	 */
 	private Expression getConditional(String type) {
-		Expression conditional = ExpressionParser.parseExpression(context);
-		conditional.assertIsConditional(type);
-		return conditional;
+		long loc = getCurrentLocation();
+		return checkConditional(ExpressionParser.parseExpression(context), type, loc);
+	}
+
+	/**
+	 * Checks a conditional parsed at the given [Position] like [#getConditional(String)].
+	 */
+	private Expression checkConditional(Expression conditional, String type, long loc) {
+		String error = null;
+		if (conditional instanceof Bool bool) {
+			context.warn("WARNING: Conditional on line " + bool.getLine() + " in statement " + type
+						 + " always evaluates to " + (bool.value ? "true" : "false"));
+		} else if (conditional instanceof Op op) {
+			if (!op.isBoolean()) {
+				error = op.getOp() + " is not a boolean";
+			}
+		} else if (!(conditional instanceof ErrorNode)) {
+			error = conditional.nodeToString() + " is not a binary conditional";
+		}
+		if (error == null) {
+			return conditional;
+		}
+		context.error(loc, "Bad conditional. " + error + " in " + type + " statement.");
+		return new ErrorNode(loc);
 	}
 
 	/**
@@ -341,58 +450,76 @@ public final class StatementParser extends Parser {
 	 * * * "default" ":" Block
 	 */
 	private Statement parseSwitch() {
-		Token start = match(TokenType.LPAREN,
-				"Error: Switch statements must be followed by the expression to switch on.");
-
-		Expression conditional = ExpressionParser.parseExpression(context);
-
-		match(TokenType.RPAREN, "Error: Unclosed expression in switch block.");
-
-		match(TokenType.LBRACE, "Error: Switch statements must be followed by a switch block.");
+		long start = getCurrentLocation();
+		Expression conditional = parseSwitchHeader();
 
 		List<Entry<Expression, Statement>> cases = new ArrayList<>(32);
 		while (!curTokenIsType(TokenType.RBRACE)) {
-			Expression exp;
-			if (curTokenIsType(TokenType.DEFAULT)) {
-				consumeToken();
-				match(TokenType.COLON, "Error: Default expression must be followed by a colon.");
-				exp = new Bool(true, new Entry<>(start.line, start.charNum));
-			} else if (curTokenIsType(TokenType.CASE)) {
-				consumeToken();
-				Expression primary = ExpressionParser.parseExpression(context);
-				match(TokenType.COLON,
-						"Error on line " + start.line + ": Case expression must be followed by a" + " colon.");
-				// You might wonder why variable access is in here.
-				// During expression parsing, any identifiers that can't be read as a function
-				// call, scoped access,
-				// or array index are parsed as variables.
-				// During semantic analysis and symbol-table building, the compiler substitutes
-				// any variables
-				// matching enum members with their defined values.
-				// It just makes stuff easier.
-				if ((!(primary instanceof Bool) && !(primary instanceof IntegerNode) && !(primary instanceof StringLit)
-					 && !(primary instanceof CharNode) && !(primary instanceof VariableAccess))) {
-					throw new RuntimeException(
-							"Invalid pattern provided to switch case on line " + start.line + ". " + "Switch accepts "
-							+ "Booleans, " + "integers, strings, characters, and enum members only.");
-				}
-				exp = primary;
-			} else {
-				throw new RuntimeException("Invalid identifier provided to switch case on line " + start.line + ". "
-										   + "Switch accepts default:'s and case [primitive]:'s only.");
-			}
+			Expression exp = parseCaseLabel(start);
 			Statement block = parseStatement();
 
 			cases.add(new Entry<>(exp, block));
-			if (curTokenIsType(TokenType.SEMICOLON) || curTokenIsType(TokenType.EOF)) {
-				throw new RuntimeException("Error: Unterminated switch block on line " + start.line + ". Did you forget"
-										   + " a closing brace?");
-			}
+			checkCaseEnd(start);
 		}
 
-		match(TokenType.RBRACE, "Error on line " + start.line + ": Switch blocks end with right braces.");
+		expect(TokenType.RBRACE, "Switch blocks end with right braces.");
+
+		return new Switch(conditional, cases, start);
+	}
+
+	private Expression parseSwitchHeader() {
+		expect(TokenType.LPAREN, "Error: Switch statements must be followed by the expression to switch on.");
+
+		Expression conditional = ExpressionParser.parseExpression(context);
+
+		expect(TokenType.RPAREN, "Error: Unclosed expression in switch block.");
+
+		expect(TokenType.LBRACE, "Error: Switch statements must be followed by a switch block.");
+		return conditional;
+	}
+
+	/**
+	 * Parses the "case" or "default" and the colon that start a case.
+	 *
+	 * @param start The position of the switch statement.
+	 * @return The expression the case matches.
+	 */
+	private Expression parseCaseLabel(long start) {
+		Expression exp;
+		if (curTokenIsType(TokenType.DEFAULT)) {
+			advance();
+			expect(TokenType.COLON, "Error: Default expression must be followed by a colon.");
+			exp = new Bool(true, start);
+		} else if (curTokenIsType(TokenType.CASE)) {
+			advance();
+			long primaryLoc = getCurrentLocation();
+			Expression primary = ExpressionParser.parseExpression(context);
+			expect(TokenType.COLON, "Case expression must be followed by a colon.");
+			// You might wonder why variable access is in here.
+			// During expression parsing, any identifiers that can't be read as a function
+			// call, scoped access,
+			// or array index are parsed as variables.
+			// During semantic analysis and symbol-table building, the compiler substitutes
+			// any variables
+			// matching enum members with their defined values.
+			// It just makes stuff easier.
+			if ((!(primary instanceof Bool) && !(primary instanceof IntegerNode) && !(primary instanceof StringLit)
+				 && !(primary instanceof CharNode) && !(primary instanceof VariableAccess))) {
+				throw context.error(primaryLoc, "Invalid pattern provided to switch case. Switch accepts Booleans, " +
+												"integers, strings, characters, and enum members only.");
+			}
+			exp = primary;
+		} else {
+			throw context.error("Invalid identifier provided to switch case. Switch accepts default:'s and " +
+								"case [primitive]:'s only.");
+		}
+		return exp;
+	}
 
-		return new Switch(conditional, cases, new Entry<>(start.line, start.charNum));
+	private void checkCaseEnd(long start) {
+		if (curTokenIsType(TokenType.SEMICOLON) || curTokenIsType(TokenType.EOF)) {
+			throw context.error(start, "Unterminated switch block. Did you forget a closing brace?");
+		}
 	}
 
 	/**
@@ -405,13 +532,22 @@ public final class StatementParser extends Parser {
 	 * * * Expression ("=" | "+=" | "-=" | "*=" | "/=" | "%=" | "**=" | "&=" | "|=" | "^=" | "<<=" | ">>=") Expression ";"
 	 */
 	private Statement parseAssignment(Expression lhs) {
-		Token tok = getCurrentToken();
-		Entry<Integer, Integer> loc = new Entry<>(tok.line, tok.charNum);
-		TokenType type = tok.type;
+		long loc = getCurrentLocation();
+		BinaryOps binaryOp = parseAssignmentOp(loc);
+		return assignment(lhs, binaryOp, ExpressionParser.parseExpression(context), loc);
+	}
+
+	/**
+	 * Consumes the operator of an assignment.
+	 *
+	 * @param loc The position of the operator.
+	 * @return The operator an assignment like "+=" applies before it assigns, or null for "=".
+	 */
+	private BinaryOps parseAssignmentOp(long loc) {
+		TokenType type = context.getCurrentType();
 		BinaryOps binaryOp;
 		if (type == TokenType.EQUATE) {
-			consumeToken();
-			return new Assignment(lhs, ExpressionParser.parseExpression(context), loc);
+			binaryOp = null;
 		} else if (type == TokenType.ADDASSIGN) {
 			binaryOp = BinaryOps.Add;
 		} else if (type == TokenType.SUBASSIGN) {
@@ -435,10 +571,17 @@ public final class StatementParser extends Parser {
 		} else if (type == TokenType.RSHIFTASSIGN) {
 			binaryOp = BinaryOps.Bitwise_RS;
 		} else {
-			throw new RuntimeException("Error on line " + tok.line + ": Malformed assignment.");
+			throw context.error(loc, "Malformed assignment.");
 		}
-		consumeToken();
-		return new Assignment(lhs, new BinaryOp(lhs, binaryOp, ExpressionParser.parseExpression(context), loc), loc);
+		advance();
+		return binaryOp;
+	}
+
+	private static Statement assignment(Expression lhs, BinaryOps binaryOp, Expression rhs, long loc) {
+		if (binaryOp == null) {
+			return new Assignment(lhs, rhs, loc);
+		}
+		return new Assignment(lhs, new BinaryOp(lhs, binaryOp, rhs, loc), loc);
 	}
 
 	/**
@@ -451,9 +594,10 @@ public final class StatementParser extends Parser {
 	 * * * Identifier ":"
 	 */
 	private Statement parseLabel() {
-		String label = matchIdent("Expected a label.");
-		Token tok = consumeToken();
-		return new Label(label, new Entry<>(tok.line, tok.charNum));
+		Name label = matchName("Expected a label.");
+		long loc = getCurrentLocation();
+		advance();
+		return new Label(label.text(), label.id(), loc);
 	}
 
 	/**
@@ -466,11 +610,11 @@ public final class StatementParser extends Parser {
 	 * * * "return" [ ExpressionStatement ] ";"
 	 */
 	private Statement parseReturn() {
-		Token tok = getCurrentToken();
-		if (tok.type == TokenType.SEMICOLON) {
-			return new Return(null, new Entry<>(tok.line, tok.charNum));
+		long tok = getCurrentLocation();
+		if (curTokenIsType(TokenType.SEMICOLON)) {
+			return new Return(null, tok);
 		}
-		return new Return(ExpressionParser.parseExpression(context), new Entry<>(tok.line, tok.charNum));
+		return new Return(ExpressionParser.parseExpression(context), tok);
 	}
 
 	/**
@@ -483,9 +627,9 @@ public final class StatementParser extends Parser {
 	 * * * "goto" Identifier ";"
 	 */
 	private Statement parseGoto() {
-		Token tok = getCurrentToken();
-		String label = matchIdent("Goto statements must be followed by a label.");
-		return new Goto(label, new Entry<>(tok.line, tok.charNum));
+		long tok = getCurrentLocation();
+		Name label = matchName("Goto statements must be followed by a label.");
+		return new Goto(label.text(), label.id(), tok);
 	}
 
 	/**
@@ -504,30 +648,38 @@ public final class StatementParser extends Parser {
 	 * * * Identifier
 	 */
 	private Statement parseTry() {
-		Token start = getCurrentToken();
+		long start = getCurrentLocation();
 		Statement block = parseBlock();
+		Name catches = parseCatchName();
+		Name catchesAs = parseCatchType();
+		Statement catchBlock = parseBlock();
+
+		return new Try(block, catches.text(), catches.id(), catchesAs.text(), catchesAs.id(), catchBlock, start);
+	}
 
-		match(TokenType.CATCH, "Try block must be followed by catch statement and block.");
+	private Name parseCatchName() {
+		expect(TokenType.CATCH, "Try block must be followed by catch statement and block.");
 
-		match(TokenType.LPAREN, "'catch' must be followed by an exception to catch.");
+		expect(TokenType.LPAREN, "'catch' must be followed by an exception to catch.");
 
-		String catches = matchIdent("""
+		return matchName("""
 				The opening parenthesis of a catch block must be followed by an exception \
 				identifier.\
 				.""");
-		String catchesAs;
+	}
+
+	private Name parseCatchType() {
+		Name catchesAs;
 		if (!curTokenIsType(TokenType.COLON)) {
-			System.out.println("WARNING: Exception not typed at line " + getCurrentLocation().key() + "Type will be "
-							   + "inferred based on the first thrown exception in the try block.");
-			catchesAs = "!!INFER!!";
+			context.warn("WARNING: Exception not typed at line " + Position.line(getCurrentLocation()) + "Type will be "
+						 + "inferred based on the first thrown exception in the try block.");
+			catchesAs = new Name("!!INFER!!", -1);
 		} else {
-			consumeToken();
-			catchesAs = matchIdent("A colon must be followed by a type identifier.");
+			advance();
+			catchesAs = matchName("A colon must be followed by a type identifier.");
 		}
-		match(TokenType.RPAREN, "Exception catch statements must be followed with a right parenthesis.");
-		Statement catchBlock = parseBlock();
-
-		return new Try(block, catches, catchesAs, catchBlock, new Entry<>(start.line, start.charNum));
+		expect(TokenType.RPAREN, "Exception catch statements must be followed with a right parenthesis.");
+		return catchesAs;
 	}
 
 	/**
@@ -547,26 +699,461 @@ public final class StatementParser extends Parser {
 	 * * * ParameterList "," Identifier
 	 */
 	private Statement parseThrow() {
-		String throws_ = matchIdent("An exception to throw must come after a throw statement.");
+		Name throws_ = matchName("An exception to throw must come after a throw statement.");
 
-		Token tok = match(TokenType.LPAREN, "Exceptions must have parameter lists enclosed in parenthesis.");
+		long tok = getCurrentLocation();
+		expect(TokenType.LPAREN, "Exceptions must have parameter lists enclosed in parenthesis.");
 
 		List<Expression> params = new ArrayList<>(32);
 
 		while (true) {
 			if (curTokenIsType(TokenType.RPAREN)) {
-				consumeToken();
+				advance();
 				break;
 			}
 			if (curTokenIsType(TokenType.COMMA)) {
-				consumeToken();
+				advance();
 			} else if (curTokenIsType(TokenType.EOF) || curTokenIsType(TokenType.SEMICOLON)) {
-				throw new RuntimeException("Error on line " + tok.line + ": Invalid exception. Parameter list is not"
-										   + " " + "terminated.");
+				throw context.error(tok, "Invalid exception. Parameter list is not terminated.");
 			} else {
 				params.add(ExpressionParser.parseExpression(context));
 			}
 		}
-		return new Throw(throws_, params, new Entry<>(tok.line, tok.charNum));
+		return new Throw(throws_.text(), throws_.id(), params, tok);
+	}
+
+	/**
+	 * Matches an identifier like [#matchIdent(String)], along with its name id.
+	 */
+	private Name matchName(String error) {
+		int id = context.getCurrentNameId();
+		return new Name(matchIdent(error), id);
+	}
+
+	/**
+	 * An identifier and its id in the [scanner.NameTable] the source was lexed with, or -1 if it has none.
+	 */
+	private record Name(String text, int id) {
+	}
+
+	/**
+	 * What [#parseOnExplicitStack()] is about to parse.
+	 */
+	private enum Goal {
+		STATEMENT, BLOCK, DECLARATION, EXPRESSION
+	}
+
+	/**
+	 * What a construct on the explicit stack waits for. [#IF] and [#TRY] wait for their first nested statement and
+	 * become [#ELSE] and [#CATCH] to wait for the second. The constructs that wait for an expression first, such as
+	 * [#IF_CONDITION], become the ones that wait for their statements.
+	 */
+	private enum Pending {
+		/**
+		 * A declaration in a block, which becomes an [ErrorNode] if it has a syntax error.
+		 */
+		RECOVER,
+		/**
+		 * A statement parsed as a declaration, whose token range is recorded when it is complete.
+		 */
+		RANGE,
+		/**
+		 * An expression that stopped at the body of a lambda, which is the statement it waits for.
+		 */
+		EXPRESSION,
+		/**
+		 * An expression statement that starts with a name, and so may be the target of an assignment.
+		 */
+		ASSIGNABLE,
+		EXPRESSION_STATEMENT, ASSIGNMENT, RETURN, VAR,
+		IF_CONDITION, WHILE_CONDITION, DO_CONDITION,
+		BLOCK, IF, ELSE, FOR, FOREACH, WHILE, DO, SWITCH, TRY, CATCH
+	}
+
+	/**
+	 * A statement whose nested statements are still being parsed, with the parts of it parsed so far.
+	 */
+	private static final class Frame {
+		Pending pending;
+		final int start;
+		long loc;
+		int depth;
+		long conditionLoc;
+		Expression condition;
+		Expression target;
+		BinaryOps operator;
+		TypedVar variable;
+		ExpressionParser.OpenExpression expression;
+		Declaration initializer;
+		Declaration iteration;
+		Statement first;
+		Name name;
+		Name type;
+		List<Declaration> declarations;
+		List<Entry<Expression, Statement>> cases;
+		Expression label;
+		/**
+		 * The finished statement.
+		 */
+		Declaration node;
+
+		Frame(Pending pending, int start, long loc) {
+			this.pending = pending;
+			this.start = start;
+			this.loc = loc;
+		}
+	}
+
+	/**
+	 * Parses a statement like [#parseStatement()], but keeps the statements it is nested in on a stack on the heap
+	 * rather than recursing, so that the depth of nesting does not matter. The statements that nest — blocks, if,
+	 * the loops, switch and try — are parsed here. So are the expressions of conditionals, returns, expression
+	 * statements, assignments and initialized vars, by [ExpressionParser] on the same stack, which hands the bodies
+	 * of lambdas back here; so lambdas nested in those places do not recurse either.
+	 * <p>
+	 * The other declarations and statements are parsed by the recursive parsers, which come back to an explicit
+	 * stack if they nest too deeply themselves. They recurse once for each lambda, function or class nested in
+	 * another through them, such as a lambda in the header of a for loop, a switch case, the arguments of a throw
+	 * or an array initializer. Syntax errors are recovered from in the same places as in [#parseBlock()].
+	 */
+	private Statement parseOnExplicitStack() {
+		return (Statement) parseOnExplicitStack(new ArrayDeque<>(), Goal.STATEMENT);
+	}
+
+	/**
+	 * Finishes an expression that stopped at the body of a lambda in
+	 * [ExpressionParser#parseOnExplicitStack(ExpressionParser.OpenExpression, Statement)], parsing that body and
+	 * the lambdas nested in it on one explicit stack.
+	 */
+	Expression parseLambdaBodies(ExpressionParser.OpenExpression expression) {
+		Deque<Frame> stack = new ArrayDeque<>();
+		Frame frame = new Frame(Pending.EXPRESSION, -1, 0);
+		frame.expression = expression;
+		stack.push(frame);
+		return (Expression) parseOnExplicitStack(stack, Goal.STATEMENT);
+	}
+
+	/**
+	 * Parses on the explicit stack until it is empty.
+	 *
+	 * @param stack The constructs to finish.
+	 * @param goal  What to parse first for the construct on top of the stack.
+	 */
+	private Declaration parseOnExplicitStack(Deque<Frame> stack, Goal goal) {
+		Declaration value = null;
+		while (true) {
+			try {
+				if (goal != null) {
+					value = descend(goal, stack);
+				}
+				Frame frame = stack.peek();
+				if (frame == null) {
+					return value;
+				}
+				goal = resume(frame, value);
+				if (goal == null) {
+					stack.pop();
+					value = frame.node;
+				}
+			} catch (ParseException e) {
+				Frame frame = stack.peek();
+				while (frame != null && frame.pending != Pending.RECOVER) {
+					stack.pop();
+					frame = stack.peek();
+				}
+				if (frame == null) {
+					throw e;
+				}
+				stack.pop();
+				value = recover(e, frame.start, frame.depth);
+				goal = null;
+			}
+		}
+	}
+
+	/**
+	 * Opens statements until one is complete without waiting for a nested statement.
+	 *
+	 * @return The complete statement or declaration.
+	 */
+	private Declaration descend(Goal goal, Deque<Frame> stack) {
+		while (true) {
+			switch (goal) {
+				case DECLARATION -> {
+					int start = context.getPosition();
+					Frame recover = new Frame(Pending.RECOVER, start, 0);
+					recover.depth = context.depth();
+					stack.push(recover);
+					switch (context.getCurrentType()) {
+						// The declarations that are not statements nest no statements directly.
+						case ARRAY, ENUM, CLASS, FUN, STRUCT -> {
+							return DeclarationParser.parseDeclaration(context);
+						}
+						case VAR -> {
+							stack.push(new Frame(Pending.RANGE, start, 0));
+							advance();
+							Frame var = new Frame(Pending.VAR, -1, getCurrentLocation());
+							var.variable = context.declarations().parseVarName(var.loc);
+							if (!curTokenIsType(TokenType.EQUATE)) {
+								return context.declarations().finishVarDeclaration(var.variable, var.loc);
+							}
+							advance();
+							stack.push(var);
+							goal = Goal.EXPRESSION;
+						}
+						default -> {
+							stack.push(new Frame(Pending.RANGE, start, 0));
+							goal = Goal.STATEMENT;
+						}
+					}
+				}
+				case EXPRESSION -> {
+					Frame frame = new Frame(Pending.EXPRESSION, -1, 0);
+					frame.expression = context.expressions().openExpression();
+					Expression expression = context.expressions().parseOnExplicitStack(frame.expression, null);
+					if (expression != null) {
+						return expression;
+					}
+					stack.push(frame);
+					goal = Goal.STATEMENT;
+				}
+				case BLOCK -> {
+					Frame block = new Frame(Pending.BLOCK, context.getPosition(), getCurrentLocation());
+					expect(TokenType.LBRACE, "Blocks must start with braces.");
+					block.declarations = new ArrayList<>(64);
+					stack.push(block);
+					if (!nextDeclaration(block)) {
+						stack.pop();
+						return block.node;
+					}
+					goal = Goal.DECLARATION;
+				}
+				case STATEMENT -> {
+					TokenType type = context.getCurrentType();
+					if (type == TokenType.LBRACE) {
+						goal = Goal.BLOCK;
+						continue;
+					}
+					long loc = getCurrentLocation();
+					Frame frame;
+					switch (type) {
+						case IF -> {
+							advance();
+							frame = new Frame(Pending.IF_CONDITION, -1, getCurrentLocation());
+							frame.conditionLoc = openIfCondition();
+							goal = Goal.EXPRESSION;
+						}
+						case FOR -> {
+							advance();
+							frame = new Frame(Pending.FOR, -1, getCurrentLocation());
+							expect(TokenType.LPAREN, "Opening parenthesis expected after 'for'.");
+							frame.initializer = parseForInitializer();
+							frame.condition = parseForConditional();
+							frame.iteration = parseForIteration();
+							expect(TokenType.RPAREN, "Error: Closing parenthesis expected after 'for'.");
+						}
+						case FOREACH -> {
+							advance();
+							frame = new Frame(Pending.FOREACH, -1, getCurrentLocation());
+							frame.name = parseIterationVariable();
+							frame.type = parseCollectionVariable();
+						}
+						case WHILE -> {
+							advance();
+							frame = new Frame(Pending.WHILE_CONDITION, -1, getCurrentLocation());
+							frame.conditionLoc = openWhileCondition();
+							goal = Goal.EXPRESSION;
+						}
+						case DO -> {
+							advance();
+							frame = new Frame(Pending.DO, -1, getCurrentLocation());
+						}
+						case SWITCH -> {
+							advance();
+							frame = new Frame(Pending.SWITCH, -1, getCurrentLocation());
+							frame.condition = parseSwitchHeader();
+							frame.cases = new ArrayList<>(32);
+							if (!nextCase(frame)) {
+								return frame.node;
+							}
+						}
+						case TRY -> {
+							advance();
+							stack.push(new Frame(Pending.TRY, -1, getCurrentLocation()));
+							goal = Goal.BLOCK;
+							continue;
+						}
+						case RETURN -> {
+							if (nextTokenIsType(TokenType.SEMICOLON)) {
+								return parseSimpleStatement(loc);
+							}
+							advance();
+							frame = new Frame(Pending.RETURN, -1, getCurrentLocation());
+							goal = Goal.EXPRESSION;
+						}
+						case CONTINUE, BREAK, GOTO, THROW -> {
+							return parseSimpleStatement(loc);
+						}
+						case IDENTIFIER -> {
+							if (nextTokenIsType(TokenType.COLON)) {
+								return parseSimpleStatement(loc);
+							}
+							frame = new Frame(Pending.ASSIGNABLE, -1, loc);
+							goal = Goal.EXPRESSION;
+						}
+						default -> {
+							frame = new Frame(Pending.EXPRESSION_STATEMENT, -1, loc);
+							goal = Goal.EXPRESSION;
+						}
+					}
+					stack.push(frame);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Hands a construct on the stack its nested statement.
+	 *
+	 * @return What to parse next for the construct, or null if it is complete, in which case it is in
+	 * [Frame#node].
+	 */
+	private Goal resume(Frame frame, Declaration value) {
+		switch (frame.pending) {
+			case RECOVER -> frame.node = value;
+			case RANGE -> frame.node = withRange(value, frame.start);
+			case EXPRESSION -> {
+				Expression expression = context.expressions().parseOnExplicitStack(frame.expression, (Statement) value);
+				if (expression == null) {
+					return Goal.STATEMENT;
+				}
+				frame.node = expression;
+			}
+			case ASSIGNABLE -> {
+				if (isAssignment(context.getCurrentType())) {
+					frame.target = (Expression) value;
+					frame.loc = getCurrentLocation();
+					frame.operator = parseAssignmentOp(frame.loc);
+					frame.pending = Pending.ASSIGNMENT;
+					return Goal.EXPRESSION;
+				}
+				frame.node = value;
+				expect(TokenType.SEMICOLON, "Statements must end with semicolons.");
+			}
+			case EXPRESSION_STATEMENT -> {
+				frame.node = value;
+				expect(TokenType.SEMICOLON, "Statements must end with semicolons.");
+			}
+			case ASSIGNMENT -> {
+				frame.node = assignment(frame.target, frame.operator, (Expression) value, frame.loc);
+				expect(TokenType.SEMICOLON, "Statements must end with semicolons.");
+			}
+			case RETURN -> {
+				frame.node = new Return((Expression) value, frame.loc);
+				expect(TokenType.SEMICOLON, "Statements must end with semicolons.");
+			}
+			case VAR -> frame.node = context.declarations().finishVarDeclaration(frame.variable, (Expression) value,
+					frame.loc);
+			case IF_CONDITION -> {
+				frame.condition = closeIfCondition((Expression) value, frame.conditionLoc);
+				frame.pending = Pending.IF;
+				return Goal.STATEMENT;
+			}
+			case WHILE_CONDITION -> {
+				frame.condition = closeWhileCondition((Expression) value, frame.conditionLoc);
+				frame.pending = Pending.WHILE;
+				return Goal.STATEMENT;
+			}
+			case DO_CONDITION -> frame.node = closeDoWhileCondition((Expression) value, frame.conditionLoc,
+					frame.first, frame.loc);
+			case BLOCK -> {
+				frame.declarations.add(value);
+				if (curTokenIsType(TokenType.EOF)) {
+					context.error(frame.loc, "Unterminated block.");
+					frame.node = withRange(new Block(frame.declarations, frame.loc), frame.start);
+					return null;
+				}
+				return nextDeclaration(frame) ? Goal.DECLARATION : null;
+			}
+			case IF -> {
+				Statement consequent = (Statement) value;
+				warnUnbracedBranch("consequent block", consequent);
+				if (curTokenIsType(TokenType.ELSE)) {
+					advance();
+					frame.first = consequent;
+					frame.pending = Pending.ELSE;
+					return Goal.STATEMENT;
+				}
+				frame.node = new If(frame.condition, consequent, null, frame.loc);
+			}
+			case ELSE -> {
+				Statement alternate = (Statement) value;
+				warnUnbracedBranch("alternate (else) block", alternate);
+				frame.node = new If(frame.condition, frame.first, alternate, frame.loc);
+			}
+			case FOR -> {
+				Statement block = (Statement) value;
+				warnUnbracedBody("For", block);
+				frame.node = new For(frame.initializer, frame.condition, frame.iteration, block, frame.loc);
+			}
+			case FOREACH -> {
+				Statement block = (Statement) value;
+				warnUnbracedBody("Foreach", block);
+				frame.node = new ForEach(frame.name.text(), frame.name.id(), frame.type.text(), frame.type.id(), block,
+						frame.loc);
+			}
+			case WHILE -> {
+				Statement block = (Statement) value;
+				warnUnbracedBody("While", block);
+				frame.node = new While(frame.condition, block, frame.loc);
+			}
+			case DO -> {
+				frame.first = (Statement) value;
+				frame.conditionLoc = openDoWhileCondition();
+				frame.pending = Pending.DO_CONDITION;
+				return Goal.EXPRESSION;
+			}
+			case SWITCH -> {
+				frame.cases.add(new Entry<>(frame.label, (Statement) value));
+				checkCaseEnd(frame.loc);
+				return nextCase(frame) ? Goal.STATEMENT : null;
+			}
+			case TRY -> {
+				frame.first = (Statement) value;
+				frame.name = parseCatchName();
+				frame.type = parseCatchType();
+				frame.pending = Pending.CATCH;
+				return Goal.BLOCK;
+			}
+			case CATCH -> frame.node = new Try(frame.first, frame.name.text(), frame.name.id(), frame.type.text(),
+					frame.type.id(), (Statement) value, frame.loc);
+		}
+		return null;
+	}
+
+	/**
+	 * Checks whether a block on the explicit stack has another declaration, and finishes it if not.
+	 */
+	private boolean nextDeclaration(Frame block) {
+		if (!curTokenIsType(TokenType.RBRACE)) {
+			return true;
+		}
+		expect(TokenType.RBRACE, "Blocks must end with braces.");
+		block.node = withRange(new Block(block.declarations, block.loc), block.start);
+		return false;
+	}
+
+	/**
+	 * Checks whether a switch on the explicit stack has another case, parsing its label if so and finishing the
+	 * switch if not.
+	 */
+	private boolean nextCase(Frame frame) {
+		if (!curTokenIsType(TokenType.RBRACE)) {
+			frame.label = parseCaseLabel(frame.loc);
+			return true;
+		}
+		expect(TokenType.RBRACE, "Switch blocks end with right braces.");
+		frame.node = new Switch(frame.condition, frame.cases, frame.loc);
+		return false;
 	}
 }
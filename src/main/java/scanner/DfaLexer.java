@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import scanner.Token.*;
+
+import java.util.*;
+
+/**
+ * A deterministic automaton that recognizes the first token at an offset. It is compiled from [TokenSpec] when the
+ * class is loaded:
+ * <p>
+ * * Keywords and operators are merged into one trie. Trie nodes spelling an identifier prefix fall back to a shared
+ * identifier state on every other identifier character, so keywords and identifiers share a single pass.
+ * <p>
+ * * The characters that start numbers, strings and character literals lead to accepting states without exits; the
+ * tokenizer hands those to their scanners.
+ * <p>
+ * * ASCII characters that no state tells apart are merged into one character class, which shrinks each state's row
+ * of the transition table from 128 entries to a few dozen.
+ * <p>
+ * Scanning is one class lookup and one table read per character, keeping the last accepting state for the
+ * longest match. Non-ASCII characters end every token. Once a match reaches the identifier state, the rest of the
+ * identifier is skipped with the tokenizer's [ScanKernel].
+ */
+final class DfaLexer {
+	/**
+	 * No token starts at the offset.
+	 */
+	static final int NO_MATCH = 0;
+	/**
+	 * The match is a complete token: a keyword, operator or identifier.
+	 */
+	static final int TOKEN = 1;
+	/**
+	 * A literal starts at the offset. Its type is INTCONST for any number, STRINGLIT or CHARLIT.
+	 */
+	static final int LITERAL = 2;
+
+	private static final int ASCII = 128;
+	private static final int DEAD = 0;
+	private static final int START = 1;
+	private static final int IDENTIFIER = 2;
+	private static final TokenType[] TYPES = TokenType.values();
+
+	static final DfaLexer CFLAT = new DfaLexer();
+
+	private final byte[] classes = new byte[ASCII];
+	private final int classCount;
+	/**
+	 * The next state, at {@code state * classCount + class}.
+	 */
+	private final int[] transitions;
+	/**
+	 * For each state, its action in the low byte and its token type's ordinal above, or NO_MATCH.
+	 */
+	private final int[] accepting;
+
+	private DfaLexer() {
+		List<int[]> rows = new ArrayList<>();
+		List<Integer> accepts = new ArrayList<>();
+		// The dead state has no exits, and the identifier state loops on identifier characters.
+		addState(rows, accepts, NO_MATCH);
+		addState(rows, accepts, NO_MATCH);
+		addState(rows, accepts, entry(TOKEN, TokenType.IDENTIFIER));
+		Set<Integer> literalStates = new HashSet<>();
+		for (char c = 0; c < ASCII; c++) {
+			if (TokenSpec.isIdentifierStart(c)) {
+				rows.get(START)[c] = IDENTIFIER;
+			}
+			if (TokenSpec.isIdentifierPart(c)) {
+				rows.get(IDENTIFIER)[c] = IDENTIFIER;
+			}
+			TokenType literal = TokenSpec.literalStart(c);
+			if (literal != null) {
+				rows.get(START)[c] = addState(rows, accepts, entry(LITERAL, literal));
+				literalStates.add(rows.get(START)[c]);
+			}
+		}
+		addWords(rows, accepts, TokenSpec.KEYWORDS, literalStates);
+		addWords(rows, accepts, TokenSpec.OPERATORS, literalStates);
+
+		// Merge the characters whose columns are equal in every state.
+		int states = rows.size();
+		List<int[]> columns = new ArrayList<>();
+		for (char c = 0; c < ASCII; c++) {
+			int[] column = new int[states];
+			for (int s = 0; s < states; s++) {
+				column[s] = rows.get(s)[c];
+			}
+			int cls = 0;
+			while (cls < columns.size() && !Arrays.equals(columns.get(cls), column)) {
+				cls++;
+			}
+			if (cls == columns.size()) {
+				columns.add(column);
+			}
+			classes[c] = (byte) cls;
+		}
+		classCount = columns.size();
+		transitions = new int[states * classCount];
+		for (int cls = 0; cls < classCount; cls++) {
+			int[] column = columns.get(cls);
+			for (int s = 0; s < states; s++) {
+				transitions[s * classCount + cls] = column[s];
+			}
+		}
+		accepting = new int[states];
+		for (int s = 0; s < states; s++) {
+			accepting[s] = accepts.get(s);
+		}
+	}
+
+	private static int entry(int action, TokenType type) {
+		return action | type.ordinal() << 8;
+	}
+
+	private static int addState(List<int[]> rows, List<Integer> accepts, int accept) {
+		rows.add(new int[ASCII]);
+		accepts.add(accept);
+		return rows.size() - 1;
+	}
+
+	/**
+	 * Adds fixed spellings to the trie. A new node on a path that is still an identifier starts out as a copy of the
+	 * identifier state, so that leaving the trie part way through a word continues the identifier.
+	 */
+	private static void addWords(List<int[]> rows, List<Integer> accepts, Map<String, TokenType> words,
+								 Set<Integer> literalStates) {
+		for (Map.Entry<String, TokenType> word : words.entrySet()) {
+			String text = word.getKey();
+			int state = START;
+			boolean identifier = true;
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				if (c >= ASCII) {
+					throw new IllegalArgumentException("Token spellings must be ASCII: " + text);
+				}
+				identifier &= i == 0 ? TokenSpec.isIdentifierStart(c) : TokenSpec.isIdentifierPart(c);
+				int next = rows.get(state)[c];
+				if (literalStates.contains(next)) {
+					throw new IllegalArgumentException("Token spelling starts like a literal: " + text);
+				}
+				if (next == DEAD || next == IDENTIFIER) {
+					next = addState(rows, accepts, identifier ? entry(TOKEN, TokenType.IDENTIFIER) : NO_MATCH);
+					if (identifier) {
+						System.arraycopy(rows.get(IDENTIFIER), 0, rows.get(next), 0, ASCII);
+					}
+					rows.get(state)[c] = next;
+				}
+				state = next;
+			}
+			if ((accepts.get(state) & 0xFF) == TOKEN && TYPES[accepts.get(state) >>> 8] != TokenType.IDENTIFIER) {
+				throw new IllegalArgumentException("Token spelling is listed twice: " + text);
+			}
+			accepts.set(state, entry(TOKEN, word.getValue()));
+		}
+	}
+
+	/**
+	 * Finds the longest token starting at {@code pos}.
+	 *
+	 * @return The match, to be unpacked with [#action(long)], [#type(long)] and [#end(long)].
+	 */
+	long match(CharSequence in, int pos, int end, ScanKernel kernel) {
+		int state = START;
+		int matched = NO_MATCH;
+		int matchEnd = pos;
+		int i = pos;
+		while (i < end) {
+			char c = in.charAt(i);
+			if (c >= ASCII) {
+				break;
+			}
+			state = transitions[state * classCount + classes[c]];
+			if (state == DEAD) {
+				break;
+			}
+			i++;
+			if (state == IDENTIFIER) {
+				// Only identifier characters lead on from here, and the kernel skips those faster.
+				matched = accepting[IDENTIFIER];
+				matchEnd = kernel.identifierEnd(in, i, end);
+				break;
+			}
+			if (accepting[state] != NO_MATCH) {
+				matched = accepting[state];
+				matchEnd = i;
+			}
+		}
+		return (long) matched << 32 | matchEnd;
+	}
+
+	static int action(long match) {
+		return (int) (match >>> 32) & 0xFF;
+	}
+
+	static TokenType type(long match) {
+		return TYPES[(int) (match >>> 40)];
+	}
+
+	static int end(long match) {
+		return (int) match;
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import java.util.*;
+
+/**
+ * Re-lexes a token buffer after a text edit without tokenizing the whole file again. Lexing restarts at the start of
+ * the last token that ends more than [#LOOKAHEAD] units before the edit, or at the start of the input if there is
+ * none; any kind of token can be the restart point. It stops as soon as a new token starts at the same place in the
+ * unchanged text after the edit as an old token did, because the lexer is stateless between tokens and everything
+ * from there on must match.
+ * <p>
+ * Nothing outside the edit is copied. The edited text shares the unchanged text with the old one, the new
+ * [SourceFile] derives its line index from the old file's, and the new [TokenBuffer] shares the tokens before and
+ * after the re-lexed range with the old buffer, adding the size of the edit to the offsets of those after it when
+ * they are read. Tokens hold no lines or columns, so nothing else needs fixing up. An edit therefore costs the
+ * re-lexed tokens plus work logarithmic in the size of the file, see [Runs], and the old buffer stays valid.
+ */
+public final class IncrementalLexer {
+	/**
+	 * How far past a token's end the tokenizer may look when deciding what that token is: two characters for a
+	 * three-character operator, or for the ".5" that turns an integer into a float.
+	 */
+	private static final int LOOKAHEAD = 2;
+
+	private IncrementalLexer() {
+	}
+
+	/**
+	 * Applies an edit to the source of a previously lexed buffer and re-lexes the affected range.
+	 *
+	 * @param previous The buffer produced for the text before the edit.
+	 * @param edit     The edit, in the same offsets as the buffer (chars, or bytes for [Utf8Source] input).
+	 * @return The buffer for the edited text and the token range that changed.
+	 */
+	public static Result relex(TokenBuffer previous, Edit edit) {
+		CharSequence oldText = previous.source();
+		CharSequence newText = edit.applyTo(oldText);
+		int editEnd = edit.offset() + edit.removedLength();
+		int newEditEnd = newText.length() - (oldText.length() - editEnd);
+		int shift = newEditEnd - editEnd;
+		SourceFile newFile = previous.file().splice(newText, edit.offset(), edit.removedLength(),
+				newEditEnd - edit.offset());
+
+		int restart = restartToken(previous, edit.offset());
+		int restartOffset = restart < 0 ? 0 : previous.start(restart);
+		int firstRelexed = Math.max(restart, 0);
+
+		// Only the re-lexed tokens go into a buffer of their own; the rest are shared with the old buffer.
+		TokenBuffer relexed = new TokenBuffer(newFile, 16, previous.names());
+		Tokenizer tokenizer = new Tokenizer(newText, relexed, restartOffset);
+		int resync = previous.size();
+		int checked = 0;
+		while (tokenizer.step()) {
+			for (; checked < relexed.size(); checked++) {
+				int newStart = relexed.start(checked);
+				if (newStart < newEditEnd) {
+					continue;
+				}
+				int match = tokenStartingAt(previous, newStart - shift);
+				if (match >= 0) {
+					resync = match;
+					break;
+				}
+			}
+			if (resync < previous.size()) {
+				break;
+			}
+		}
+
+		if (resync == previous.size()) {
+			// Lexing reached the end of the input without meeting an old token.
+			checked = relexed.size();
+		}
+		// The token that resynchronized is shared with the old buffer like the ones after it.
+		relexed.truncate(checked);
+		TokenBuffer next = previous.splice(firstRelexed, resync, relexed, shift);
+
+		// Trim tokens that were re-lexed but came out the same, so the delta only covers real changes.
+		int first = firstRelexed;
+		int removed = resync - firstRelexed;
+		int inserted = checked;
+		while (removed > 0 && inserted > 0 && sameToken(previous, first, next, first)) {
+			first++;
+			removed--;
+			inserted--;
+		}
+		return new Result(next, new Delta(first, removed, inserted));
+	}
+
+	/**
+	 * Finds the last token that ends far enough before the edit to be unaffected by it.
+	 *
+	 * @return The token index, or -1 to restart from the beginning of the input.
+	 */
+	private static int restartToken(TokenBuffer tokens, int editOffset) {
+		return tokens.firstEndingFrom(editOffset - LOOKAHEAD) - 1;
+	}
+
+	private static int tokenStartingAt(TokenBuffer tokens, int offset) {
+		int index = tokens.firstStartingFrom(offset);
+		return index < tokens.size() && tokens.start(index) == offset ? index : -1;
+	}
+
+	private static boolean sameToken(TokenBuffer a, int i, TokenBuffer b, int j) {
+		return a.type(i) == b.type(j) && a.start(i) == b.start(j) && a.end(i) == b.end(j) &&
+			   a.text(i).equals(b.text(j));
+	}
+
+	/**
+	 * A text edit: {@code removedLength} units at {@code offset} are replaced by {@code insertedText}.
+	 */
+	public record Edit(int offset, int removedLength, String insertedText) {
+		public Edit {
+			if (offset < 0 || removedLength < 0) {
+				throw new IllegalArgumentException("Invalid edit at " + offset + " removing " + removedLength);
+			}
+			Objects.requireNonNull(insertedText);
+		}
+
+		CharSequence applyTo(CharSequence text) {
+			if (text instanceof Utf8Source bytes) {
+				return bytes.splice(offset, removedLength, insertedText);
+			}
+			return SplicedText.splice(text, offset, removedLength, insertedText);
+		}
+	}
+
+	/**
+	 * The token-level change: {@code removedCount} tokens starting at {@code firstChanged} in the old buffer were
+	 * replaced by {@code insertedCount} tokens starting at the same index in the new one. Tokens after the range are
+	 * the old ones, shifted.
+	 */
+	public record Delta(int firstChanged, int removedCount, int insertedCount) {
+	}
+
+	public record Result(TokenBuffer tokens, Delta delta) {
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import scanner.Token.*;
+
+import java.util.*;
+
+/**
+ * A perfect hash over the keyword table. The hash combines the first and last character and the length of a word;
+ * its two multipliers are searched for once, when the table is built, so that no two keywords share a slot. A
+ * lookup is then one hash, one length check and at most one character comparison loop.
+ */
+final class KeywordTable {
+	private static final int SIZE = 64;
+	private static final int MAX_MULTIPLIER = 256;
+
+	private final String[] words = new String[SIZE];
+	private final TokenType[] types = new TokenType[SIZE];
+	private final int first;
+	private final int last;
+
+	KeywordTable(Map<String, TokenType> keywords) {
+		for (int a = 1; a < MAX_MULTIPLIER; a++) {
+			for (int b = 1; b < MAX_MULTIPLIER; b++) {
+				if (isPerfect(keywords.keySet(), a, b)) {
+					first = a;
+					last = b;
+					for (Map.Entry<String, TokenType> entry : keywords.entrySet()) {
+						int slot = slot(entry.getKey(), 0, entry.getKey().length());
+						words[slot] = entry.getKey();
+						types[slot] = entry.getValue();
+					}
+					return;
+				}
+			}
+		}
+		throw new IllegalStateException("No perfect hash found for the keyword table.");
+	}
+
+	private static int slot(CharSequence text, int start, int end, int a, int b) {
+		return (text.charAt(start) * a + text.charAt(end - 1) * b + (end - start)) & (SIZE - 1);
+	}
+
+	private static boolean isPerfect(Set<String> keywords, int a, int b) {
+		long used = 0;
+		for (String keyword : keywords) {
+			long bit = 1L << slot(keyword, 0, keyword.length(), a, b);
+			if ((used & bit) != 0) {
+				return false;
+			}
+			used |= bit;
+		}
+		return true;
+	}
+
+	private int slot(CharSequence text, int start, int end) {
+		return slot(text, start, end, first, last);
+	}
+
+	/**
+	 * Returns the keyword spelled by {@code text[start, end)}, or IDENTIFIER if it is not one.
+	 */
+	TokenType lookup(CharSequence text, int start, int end) {
+		int slot = slot(text, start, end);
+		String word = words[slot];
+		if (word == null || word.length() != end - start) {
+			return TokenType.IDENTIFIER;
+		}
+		for (int i = 0; i < word.length(); i++) {
+			if (word.charAt(i) != text.charAt(start + i)) {
+				return TokenType.IDENTIFIER;
+			}
+		}
+		return types[slot];
+	}
+}
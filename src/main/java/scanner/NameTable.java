@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import java.util.*;
+
+/**
+ * Interns identifier names. Every distinct name gets a dense int id, starting at 0, and one canonical [String], so
+ * later phases can compare names by id and index per-name tables by array. Names are looked up straight from the
+ * source text; a [String] is only created the first time a name is seen.
+ * <p>
+ * A table is not thread-safe. Each compilation owns one and shares it between the tokenizer and the parser.
+ */
+public final class NameTable {
+	private static final int EMPTY = 0;
+
+	private String[] names;
+	private int[] hashes;
+	private int count;
+	// Open-addressed slots holding id + 1, so that zero marks an empty slot.
+	private int[] slots;
+
+	public NameTable() {
+		names = new String[64];
+		hashes = new int[64];
+		slots = new int[128];
+	}
+
+	private static int hash(CharSequence text, int start, int end) {
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + text.charAt(i);
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean matches(String name, CharSequence text, int start, int end) {
+		if (name.length() != end - start) {
+			return false;
+		}
+		for (int i = start; i < end; i++) {
+			if (name.charAt(i - start) != text.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public int intern(String name) {
+		return intern(name, 0, name.length());
+	}
+
+	/**
+	 * Returns the id of the name spelled by {@code text[start, end)}, adding it to the table if it is new.
+	 */
+	public int intern(CharSequence text, int start, int end) {
+		int hash = hash(text, start, end);
+		int mask = slots.length - 1;
+		int slot = hash & mask;
+		while (slots[slot] != EMPTY) {
+			int id = slots[slot] - 1;
+			if (hashes[id] == hash && matches(names[id], text, start, end)) {
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return add(text.subSequence(start, end).toString(), hash, slot);
+	}
+
+	/**
+	 * Returns the id of a name, or -1 if it has never been interned.
+	 */
+	public int find(String name) {
+		int hash = hash(name, 0, name.length());
+		int mask = slots.length - 1;
+		for (int slot = hash & mask; slots[slot] != EMPTY; slot = (slot + 1) & mask) {
+			int id = slots[slot] - 1;
+			if (hashes[id] == hash && names[id].equals(name)) {
+				return id;
+			}
+		}
+		return -1;
+	}
+
+	private int add(String name, int hash, int slot) {
+		if (count == names.length) {
+			names = Arrays.copyOf(names, count * 2);
+			hashes = Arrays.copyOf(hashes, count * 2);
+		}
+		int id = count++;
+		names[id] = name;
+		hashes[id] = hash;
+		slots[slot] = id + 1;
+		// Keep the load factor at or below one half.
+		if (count * 2 > slots.length) {
+			rehash();
+		}
+		return id;
+	}
+
+	private void rehash() {
+		int[] grown = new int[slots.length * 2];
+		int mask = grown.length - 1;
+		for (int id = 0; id < count; id++) {
+			int slot = hashes[id] & mask;
+			while (grown[slot] != EMPTY) {
+				slot = (slot + 1) & mask;
+			}
+			grown[slot] = id + 1;
+		}
+		slots = grown;
+	}
+
+	/**
+	 * Interns every name of another table, in id order.
+	 *
+	 * @return A map from the other table's ids to ids in this one.
+	 */
+	public int[] importFrom(NameTable other) {
+		int[] ids = new int[other.count];
+		for (int id = 0; id < other.count; id++) {
+			ids[id] = intern(other.names[id]);
+		}
+		return ids;
+	}
+
+	public String name(int id) {
+		return names[Objects.checkIndex(id, count)];
+	}
+
+	public int size() {
+		return count;
+	}
+}
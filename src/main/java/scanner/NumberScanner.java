@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import scanner.Token.*;
+
+/**
+ * Scans and decodes numeric literals in one pass. The grammar is:
+ * <p>
+ * * Integer -> Digits | ("0x" | "0X") HexDigits
+ * <p>
+ * * Float -> Digits ["." Digits] [("e" | "E") ["+" | "-"] Digits], with a fraction or an exponent
+ * <p>
+ * A literal must not run straight into a letter, digit or underscore, so "12ab" is malformed rather than an
+ * integer followed by an identifier. Decimal integers must fit in a signed long; hexadecimal integers may use all
+ * 64 bits. Floats must be finite once rounded to a double; one too small for a double rounds to zero. Floats are
+ * decoded exactly when their significand and power of ten are small enough for one correctly rounded
+ * multiplication or division, which covers nearly every literal written by hand, and by [Double#parseDouble]
+ * otherwise.
+ * <p>
+ * The scanner reports through its fields instead of allocating a result, so one instance serves a whole tokenizer.
+ */
+final class NumberScanner {
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	// Every integer below 2^53 is exactly representable as a double.
+	private static final long EXACT_SIGNIFICAND = 1L << 53;
+
+	/**
+	 * INTCONST, FLOATCONST, or UNIMPLEMENTED for a malformed literal.
+	 */
+	TokenType type;
+	/**
+	 * The integer, or the raw bits of the double.
+	 */
+	long value;
+	/**
+	 * The offset just past the literal. A malformed literal extends over every letter, digit and underscore.
+	 */
+	int end;
+	/**
+	 * Why the literal is malformed, or null.
+	 */
+	String error;
+
+	/**
+	 * Decodes the text of a numeric token built by hand, or returns 0 if the token is not a well-formed number.
+	 */
+	static long decode(TokenType type, String text) {
+		if ((type != TokenType.INTCONST && type != TokenType.FLOATCONST) || text.isEmpty() || !isDigit(text.charAt(0))) {
+			return 0;
+		}
+		NumberScanner scanner = new NumberScanner();
+		scanner.scan(text, 0, text.length());
+		return scanner.type == type && scanner.end == text.length() ? scanner.value : 0;
+	}
+
+	static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isWordPart(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || c == '_';
+	}
+
+	private static int hexValue(char c) {
+		if (isDigit(c)) {
+			return c - '0';
+		} else if (c >= 'a' && c <= 'f') {
+			return c - 'a' + 10;
+		} else if (c >= 'A' && c <= 'F') {
+			return c - 'A' + 10;
+		}
+		return -1;
+	}
+
+	/**
+	 * Scans the literal starting at {@code from}, which must be an ASCII digit.
+	 */
+	void scan(CharSequence in, int from, int to) {
+		error = null;
+		if (in.charAt(from) == '0' && from + 1 < to && (in.charAt(from + 1) == 'x' || in.charAt(from + 1) == 'X')) {
+			scanHex(in, from, to);
+		} else {
+			scanDecimal(in, from, to);
+		}
+		if (error == null && end < to && isWordPart(in.charAt(end))) {
+			malformed(in, end, to, "Malformed numeric literal.");
+		}
+	}
+
+	private void scanHex(CharSequence in, int from, int to) {
+		int i = from + 2;
+		long result = 0;
+		int digits = 0;
+		for (; i < to; i++) {
+			int digit = hexValue(in.charAt(i));
+			if (digit < 0) {
+				break;
+			}
+			if (digits > 0 || digit != 0) {
+				digits++;
+			}
+			result = (result << 4) | digit;
+		}
+		if (i == from + 2) {
+			malformed(in, i, to, "A hexadecimal literal needs at least one digit.");
+		} else if (digits > 16) {
+			malformed(in, i, to, "Hexadecimal literal does not fit in 64 bits.");
+		} else {
+			type = TokenType.INTCONST;
+			value = result;
+			end = i;
+		}
+	}
+
+	private void scanDecimal(CharSequence in, int from, int to) {
+		// The significand is accumulated while it stays exact; later digits only move the decimal exponent.
+		long significand = 0;
+		int droppedDigits = 0;
+		boolean overflow = false;
+		int i = from;
+		for (; i < to && isDigit(in.charAt(i)); i++) {
+			int digit = in.charAt(i) - '0';
+			if (significand <= (Long.MAX_VALUE - digit) / 10) {
+				significand = significand * 10 + digit;
+			} else {
+				overflow = true;
+				droppedDigits++;
+			}
+		}
+		int exponent = droppedDigits;
+		boolean isFloat = false;
+		if (i + 1 < to && in.charAt(i) == '.' && isDigit(in.charAt(i + 1))) {
+			isFloat = true;
+			for (i++; i < to && isDigit(in.charAt(i)); i++) {
+				int digit = in.charAt(i) - '0';
+				if (significand <= (Long.MAX_VALUE - digit) / 10) {
+					significand = significand * 10 + digit;
+					exponent--;
+				}
+			}
+		}
+		if (i < to && (in.charAt(i) == 'e' || in.charAt(i) == 'E')) {
+			int digits = i + 1;
+			if (digits < to && (in.charAt(digits) == '+' || in.charAt(digits) == '-')) {
+				digits++;
+			}
+			if (digits < to && isDigit(in.charAt(digits))) {
+				isFloat = true;
+				boolean negative = in.charAt(i + 1) == '-';
+				int written = 0;
+				for (i = digits; i < to && isDigit(in.charAt(i)); i++) {
+					// Clamp absurd exponents; the result is zero or infinity either way.
+					written = Math.min(written * 10 + (in.charAt(i) - '0'), 100_000);
+				}
+				exponent += negative ? -written : written;
+			}
+		}
+		end = i;
+		if (!isFloat) {
+			if (overflow) {
+				malformed(in, i, to, "Integer literal does not fit in 64 bits.");
+				return;
+			}
+			type = TokenType.INTCONST;
+			value = significand;
+			return;
+		}
+		double result;
+		if (significand < EXACT_SIGNIFICAND && exponent >= -22 && exponent <= 22) {
+			result = exponent >= 0 ? significand * POWERS_OF_TEN[exponent] : significand / POWERS_OF_TEN[-exponent];
+		} else {
+			result = Double.parseDouble(in.subSequence(from, end).toString());
+		}
+		if (Double.isInfinite(result)) {
+			malformed(in, i, to, "Float literal does not fit in a double.");
+			return;
+		}
+		type = TokenType.FLOATCONST;
+		value = Double.doubleToRawLongBits(result);
+	}
+
+	private void malformed(CharSequence in, int from, int to, String message) {
+		int i = from;
+		while (i < to && isWordPart(in.charAt(i))) {
+			i++;
+		}
+		type = TokenType.UNIMPLEMENTED;
+		value = 0;
+		end = i;
+		error = message;
+	}
+}
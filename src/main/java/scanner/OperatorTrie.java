@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import scanner.Token.*;
+
+import java.util.*;
+
+/**
+ * A longest-match recognizer for the fixed operator and punctuation tokens. The trie is generated once from the
+ * operator table in [TokenSpec], so each lookup costs one array read per character of the operator instead of a scan
+ * over every table entry.
+ */
+final class OperatorTrie {
+	private static final int ALPHABET = 128;
+
+	private final int[] transitions;
+	private final TokenType[] accepting;
+	private final String[] texts;
+
+	OperatorTrie(Map<String, TokenType> operators) {
+		int maxNodes = 1;
+		for (String op : operators.keySet()) {
+			maxNodes += op.length();
+		}
+		int[] next = new int[maxNodes * ALPHABET];
+		TokenType[] types = new TokenType[maxNodes];
+		String[] words = new String[maxNodes];
+		int nodes = 1;
+		for (Map.Entry<String, TokenType> entry : operators.entrySet()) {
+			String op = entry.getKey();
+			int node = 0;
+			for (int i = 0; i < op.length(); i++) {
+				char c = op.charAt(i);
+				if (c >= ALPHABET) {
+					throw new IllegalArgumentException("Operators must be ASCII: " + op);
+				}
+				int slot = node * ALPHABET + c;
+				if (next[slot] == 0) {
+					next[slot] = nodes++;
+				}
+				node = next[slot];
+			}
+			types[node] = entry.getValue();
+			words[node] = op;
+		}
+		transitions = Arrays.copyOf(next, nodes * ALPHABET);
+		accepting = Arrays.copyOf(types, nodes);
+		texts = Arrays.copyOf(words, nodes);
+	}
+
+	/**
+	 * Finds the longest operator starting at the given offset.
+	 *
+	 * @return The accepting trie node, or 0 if no operator starts at {@code pos}.
+	 */
+	int match(CharSequence input, int pos, int end) {
+		int node = 0;
+		int matched = 0;
+		for (int i = pos; i < end; i++) {
+			char c = input.charAt(i);
+			if (c >= ALPHABET) {
+				break;
+			}
+			node = transitions[node * ALPHABET + c];
+			if (node == 0) {
+				break;
+			}
+			if (accepting[node] != null) {
+				matched = node;
+			}
+		}
+		return matched;
+	}
+
+	TokenType typeOf(int node) {
+		return accepting[node];
+	}
+
+	String textOf(int node) {
+		return texts[node];
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Tokenizes one large input on several threads. The input is cut just after line feeds that cannot belong to a
+ * token: comments end at a line break, string literals stop at an unescaped one, and every other token ends before
+ * whitespace. A line feed is only part of a token when it follows a quote, as in the character literal
+ * {@code '<LF>'}, or when it is escaped, as in {@code '\<LF>'} or a string continued with {@code \<LF>}. Escapes
+ * pair up backslashes from the left, so a line feed is escaped when an odd run of backslashes comes right before it.
+ * Line feeds after a quote or an odd run of backslashes are not used as cut points.
+ * <p>
+ * Each chunk is then lexed by its own [Tokenizer] into its own [TokenBuffer]. The buffers are stitched together in
+ * order, dropping the EOF token of all but the last chunk. Offsets are already absolute, so only identifier ids
+ * need translating into the merged [NameTable]; merging the chunk tables in order gives every name the id a
+ * sequential scan would have given it.
+ */
+final class ParallelTokenizer {
+	/**
+	 * Inputs shorter than this are not worth splitting.
+	 */
+	static final int MIN_CHUNK = 256 * 1024;
+
+	private ParallelTokenizer() {
+	}
+
+	static TokenBuffer scan(CharSequence input, ForkJoinPool pool) {
+		int[] bounds = chunkBounds(input, pool.getParallelism() * 2);
+		int chunks = bounds.length - 1;
+		if (chunks == 1) {
+			return Tokenizer.scan(input);
+		}
+
+		// The chunks share one line index, so that diagnostics from any of them can be placed.
+		SourceFile file = new SourceFile(input);
+		List<Callable<TokenBuffer>> lexers = new ArrayList<>(chunks);
+		for (int i = 0; i < chunks; i++) {
+			int from = bounds[i];
+			int to = bounds[i + 1];
+			lexers.add(() -> {
+				TokenBuffer tokens = new TokenBuffer(file, Math.max(16, (to - from) / 6), new NameTable());
+				Tokenizer tokenizer = new Tokenizer(input, tokens, from, to);
+				while (tokenizer.step()) {
+					// Lex the whole chunk.
+				}
+				return tokens;
+			});
+		}
+		List<TokenBuffer> parts = new ArrayList<>(chunks);
+		int total = 0;
+		for (Future<TokenBuffer> lexed : pool.invokeAll(lexers)) {
+			TokenBuffer part = join(lexed);
+			parts.add(part);
+			total += part.size();
+		}
+
+		TokenBuffer result = new TokenBuffer(file, total, new NameTable());
+		for (int i = 0; i < chunks; i++) {
+			TokenBuffer part = parts.get(i);
+			result.appendRange(part, 0, i == chunks - 1 ? part.size() : part.size() - 1, 0);
+		}
+		return result;
+	}
+
+	/**
+	 * Picks up to {@code target} chunks of roughly equal size.
+	 *
+	 * @return The chunk boundaries, starting with 0 and ending with the input length.
+	 */
+	static int[] chunkBounds(CharSequence input, int target) {
+		int length = input.length();
+		int chunkSize = Math.max(MIN_CHUNK, length / Math.max(1, target));
+		int[] bounds = new int[length / chunkSize + 2];
+		int count = 1;
+		int next = chunkSize;
+		while (next < length) {
+			int cut = cutAfter(input, next);
+			if (cut >= length) {
+				break;
+			}
+			bounds[count++] = cut;
+			next = cut + chunkSize;
+		}
+		bounds[count++] = length;
+		return Arrays.copyOf(bounds, count);
+	}
+
+	/**
+	 * Finds the first safe cut point at or after the given offset.
+	 *
+	 * @return The offset just past a line feed that ends a token, or the input length if there is none.
+	 */
+	private static int cutAfter(CharSequence input, int from) {
+		int length = input.length();
+		for (int i = from; i < length; i++) {
+			if (input.charAt(i) == '\n' && !mayBeInToken(input, i)) {
+				return i + 1;
+			}
+		}
+		return length;
+	}
+
+	private static boolean mayBeInToken(CharSequence input, int lineFeed) {
+		if (lineFeed >= 1 && input.charAt(lineFeed - 1) == '\'') {
+			return true;
+		}
+		int backslashes = 0;
+		while (backslashes < lineFeed && input.charAt(lineFeed - 1 - backslashes) == '\\') {
+			backslashes++;
+		}
+		return backslashes % 2 == 1;
+	}
+
+	private static <T> T join(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while tokenizing.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new RuntimeException("Tokenizing failed.", e.getCause());
+		}
+	}
+}
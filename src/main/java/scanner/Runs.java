@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * A sequence kept as runs of other sequences, so that an edited copy can share what the edit left alone instead of
+ * copying it. Each run is a range of a backing store whose values are read with a fixed amount added. A store is never
+ * written once a run refers to it, and the runs are kept in a persistent tree, so every version of a sequence stays
+ * valid after it has been edited.
+ * <p>
+ * The tree is a treap ordered by position. Each node holds one run and an amount to add to every value below it, so
+ * that moving everything after an edit only changes the nodes on one path. An edit splits the tree at both ends of the
+ * edited range and joins the outer parts back around a run of new elements, copying O(log n) nodes. Runs shorter
+ * than [#MIN_RUN] that end up next to another short run are copied into one, so no two neighbouring runs are both
+ * short however often the sequence was edited, and an edit copies at most a few short runs besides what it inserted.
+ *
+ * @param <S> The type of the backing stores.
+ */
+final class Runs<S> {
+	static final int MIN_RUN = 256;
+	// How many runs on each side of an edit are looked at for merging.
+	private static final int MERGE_REACH = 2;
+
+	private final Node root;
+	// The run found by the previous lookup. Lookups mostly stay in or move through one run, and a stale run is only
+	// a miss.
+	private Run<S> last;
+
+	private Runs(Node root) {
+		this.root = root;
+	}
+
+	/**
+	 * A sequence of one run: {@code length} elements of a store, starting at {@code from}.
+	 */
+	static <S> Runs<S> of(S store, int from, int length) {
+		return new Runs<>(length == 0 ? null : new Node(null, store, from, length, 0, null));
+	}
+
+	int length() {
+		return Node.length(root);
+	}
+
+	/**
+	 * Returns the run holding an index of the sequence, which must be in range.
+	 */
+	Run<S> find(int index) {
+		Run<S> run = last;
+		if (run != null && run.start <= index && index < run.end) {
+			return run;
+		}
+		run = locate(root, index, 0, 0);
+		last = run;
+		return run;
+	}
+
+	/**
+	 * Returns the first run whose last element passes a test, or null if none does. The elements that pass must be a
+	 * suffix of the sequence, such as those at or after an offset in a sorted sequence of offsets, so that the first
+	 * element that passes is in the returned run.
+	 */
+	@SuppressWarnings("unchecked")
+	Run<S> findFirst(Predicate<Run<S>> endPasses) {
+		Run<S> found = null;
+		Node node = root;
+		int start = 0;
+		int shift = 0;
+		while (node != null) {
+			shift += node.pending;
+			int runStart = start + Node.length(node.left);
+			Run<S> run = new Run<>((S) node.store, runStart, runStart + node.count, node.from, node.shift + shift);
+			if (endPasses.test(run)) {
+				found = run;
+				node = node.left;
+			} else {
+				start = run.end;
+				node = node.right;
+			}
+		}
+		return found;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <S> Run<S> locate(Node node, int index, int start, int shift) {
+		while (true) {
+			shift += node.pending;
+			int leftLength = Node.length(node.left);
+			if (index < start + leftLength) {
+				node = node.left;
+			} else if (index < start + leftLength + node.count) {
+				start += leftLength;
+				return new Run<>((S) node.store, start, start + node.count, node.from, node.shift + shift);
+			} else {
+				start += leftLength + node.count;
+				node = node.right;
+			}
+		}
+	}
+
+	/**
+	 * Returns a sequence in which the elements {@code [from, to)} are replaced by the first {@code length} elements of
+	 * a new store. The elements after the replaced range are read with {@code shift} added. This sequence is not
+	 * changed.
+	 */
+	Runs<S> splice(int from, int to, S inserted, int length, int shift, Storage<S> storage) {
+		Objects.checkFromToIndex(from, to, length());
+		Node[] head = Node.split(root, from);
+		Node before = head[0];
+		Node after = Node.shifted(Node.split(head[1], to - from)[1], shift);
+
+		// The short runs next to the edit may now be next to another short run. They are taken out and put back
+		// merged.
+		List<Run<S>> window = new ArrayList<>(2 * MERGE_REACH + 1);
+		for (int i = 0; i < MERGE_REACH && before != null; i++) {
+			Run<S> run = locate(before, Node.length(before) - 1, 0, 0);
+			if (run.length() >= MIN_RUN) {
+				break;
+			}
+			window.add(0, run);
+			before = Node.split(before, run.start)[0];
+		}
+		if (length > 0) {
+			window.add(new Run<>(inserted, 0, length, 0, 0));
+		}
+		for (int i = 0; i < MERGE_REACH && after != null; i++) {
+			Run<S> run = locate(after, 0, 0, 0);
+			if (run.length() >= MIN_RUN) {
+				break;
+			}
+			window.add(run);
+			after = Node.split(after, run.end)[1];
+		}
+		for (int i = 0; i < window.size(); i++) {
+			int chain = i;
+			while (chain + 1 < window.size() && window.get(chain).length() < MIN_RUN
+				   && window.get(chain + 1).length() < MIN_RUN) {
+				chain++;
+			}
+			if (chain > i) {
+				List<Run<S>> merged = window.subList(i, chain + 1);
+				Run<S> copy = copy(merged, storage);
+				merged.clear();
+				window.add(i, copy);
+			}
+		}
+
+		Node result = before;
+		for (Run<S> run : window) {
+			result = Node.join(result, new Node(null, run.store, run.from, run.length(), run.shift, null));
+		}
+		return new Runs<>(Node.join(result, after));
+	}
+
+	private static <S> Run<S> copy(List<Run<S>> runs, Storage<S> storage) {
+		int total = 0;
+		for (Run<S> run : runs) {
+			total += run.length();
+		}
+		S target = storage.allocate(total);
+		int filled = 0;
+		for (Run<S> run : runs) {
+			storage.copy(run.store, run.from, target, filled, run.length(), run.shift);
+			filled += run.length();
+		}
+		return new Run<>(target, 0, total, 0, 0);
+	}
+
+	/**
+	 * Creates and fills the stores that short runs are copied into.
+	 */
+	interface Storage<S> {
+		S allocate(int capacity);
+
+		/**
+		 * Copies {@code count} elements of a store, starting at {@code from}, to index {@code to} of a store made by
+		 * [#allocate(int)], adding {@code shift} to each value. A store is filled from the front.
+		 */
+		void copy(S source, int from, S target, int to, int count, int shift);
+	}
+
+	/**
+	 * One run of a sequence: the elements {@code [start, end)} of the sequence are those of {@code store} from
+	 * {@code from} on, with {@code shift} added to each value.
+	 */
+	static final class Run<S> {
+		final S store;
+		final int start;
+		final int end;
+		final int from;
+		final int shift;
+
+		Run(S store, int start, int end, int from, int shift) {
+			this.store = store;
+			this.start = start;
+			this.end = end;
+			this.from = from;
+			this.shift = shift;
+		}
+
+		/**
+		 * Returns the index into the store of an index of the sequence that lies in this run.
+		 */
+		int local(int index) {
+			return from + index - start;
+		}
+
+		int length() {
+			return end - start;
+		}
+	}
+
+	private static final class Node {
+		final Node left;
+		final Node right;
+		final int priority;
+		final Object store;
+		final int from;
+		final int count;
+		// Added to the values of this node's run only.
+		final int shift;
+		// Added to every value in this subtree, including this node's run.
+		final int pending;
+		final int length;
+
+		Node(Node left, Object store, int from, int count, int shift, Node right) {
+			this(left, store, from, count, shift, right, 0, ThreadLocalRandom.current().nextInt());
+		}
+
+		private Node(Node left, Object store, int from, int count, int shift, Node right, int pending, int priority) {
+			this.left = left;
+			this.right = right;
+			this.priority = priority;
+			this.store = store;
+			this.from = from;
+			this.count = count;
+			this.shift = shift;
+			this.pending = pending;
+			this.length = length(left) + count + length(right);
+		}
+
+		static int length(Node node) {
+			return node == null ? 0 : node.length;
+		}
+
+		static Node shifted(Node node, int shift) {
+			if (node == null || shift == 0) {
+				return node;
+			}
+			return new Node(node.left, node.store, node.from, node.count, node.shift, node.right, node.pending + shift,
+					node.priority);
+		}
+
+		/**
+		 * Moves this node's pending shift onto its run and its children, so that the node can be rebuilt with other
+		 * children.
+		 */
+		Node settled() {
+			if (pending == 0) {
+				return this;
+			}
+			return new Node(shifted(left, pending), store, from, count, shift + pending, shifted(right, pending), 0,
+					priority);
+		}
+
+		Node with(Node left, Node right) {
+			return new Node(left, store, from, count, shift, right, 0, priority);
+		}
+
+		/**
+		 * Splits a tree into its first {@code index} elements and the rest, cutting a run in two if needed.
+		 */
+		static Node[] split(Node node, int index) {
+			if (node == null) {
+				return new Node[2];
+			}
+			node = node.settled();
+			int leftLength = length(node.left);
+			if (index <= leftLength) {
+				Node[] parts = split(node.left, index);
+				parts[1] = node.with(parts[1], node.right);
+				return parts;
+			}
+			if (index >= leftLength + node.count) {
+				Node[] parts = split(node.right, index - leftLength - node.count);
+				parts[0] = node.with(node.left, parts[0]);
+				return parts;
+			}
+			int cut = index - leftLength;
+			return new Node[]{
+					new Node(node.left, node.store, node.from, cut, node.shift, null, 0, node.priority),
+					new Node(null, node.store, node.from + cut, node.count - cut, node.shift, node.right, 0,
+							node.priority)};
+		}
+
+		/**
+		 * Joins two trees, the elements of the first coming first.
+		 */
+		static Node join(Node first, Node second) {
+			if (first == null) {
+				return second;
+			}
+			if (second == null) {
+				return first;
+			}
+			if (first.priority > second.priority) {
+				first = first.settled();
+				return first.with(first.left, join(first.right, second));
+			}
+			second = second.settled();
+			return second.with(join(first, second.left), second.right);
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+/**
+ * The portable [ScanKernel], one unit at a time.
+ */
+final class ScalarScanKernel implements ScanKernel {
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || (c >= '\t' && c <= '\r') || (c >= '\u001C' && c <= '\u001F');
+	}
+
+	private static boolean isIdentifierPart(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+	}
+
+	private static boolean isStringSpecial(char c) {
+		return c == '"' || c == '\\' || c == '\n' || c == '\r' || c >= 0x80;
+	}
+
+	@Override
+	public int whitespaceEnd(CharSequence in, int from, int to) {
+		int i = from;
+		while (i < to && isWhitespace(in.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	@Override
+	public int identifierEnd(CharSequence in, int from, int to) {
+		int i = from;
+		while (i < to && isIdentifierPart(in.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	@Override
+	public int lineBreak(CharSequence in, int from, int to) {
+		int i = from;
+		while (i < to && in.charAt(i) != '\n' && in.charAt(i) != '\r') {
+			i++;
+		}
+		return i;
+	}
+
+	@Override
+	public int stringRunEnd(CharSequence in, int from, int to) {
+		int i = from;
+		while (i < to && !isStringSpecial(in.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	@Override
+	public int charStarts(CharSequence in, int from, int to) {
+		int count = 0;
+		for (int i = from; i < to; i++) {
+			if (!Utf8Source.isContinuation(in.charAt(i))) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import java.lang.reflect.*;
+
+/**
+ * The tokenizer's inner loops: each method scans forward from {@code from} and returns the offset of the first unit
+ * in {@code [from, to)} that ends the run, or {@code to} if there is none. Only ASCII is classified here; every run
+ * also stops at a unit of 0x80 or above, and the tokenizer decodes those itself.
+ * <p>
+ * The default kernel is a plain loop. Setting the system property {@value #VECTOR_PROPERTY} to true selects a kernel
+ * built on the incubating Vector API, which classifies a whole register of units per step; the JVM must then be
+ * started with {@code --add-modules jdk.incubator.vector}. Kernels may keep scratch buffers, so each tokenizer
+ * creates its own.
+ */
+interface ScanKernel {
+	String VECTOR_PROPERTY = "cflat.vectorScan";
+
+	static ScanKernel create() {
+		if (Boolean.getBoolean(VECTOR_PROPERTY)) {
+			ScanKernel vector = VectorKernelLoader.create();
+			if (vector != null) {
+				return vector;
+			}
+		}
+		return new ScalarScanKernel();
+	}
+
+	/**
+	 * Skips ASCII whitespace, as classified by [Character#isWhitespace(char)].
+	 */
+	int whitespaceEnd(CharSequence in, int from, int to);
+
+	/**
+	 * Skips the letters, digits and underscores that continue an identifier.
+	 */
+	int identifierEnd(CharSequence in, int from, int to);
+
+	/**
+	 * Stops at a line feed or carriage return.
+	 */
+	int lineBreak(CharSequence in, int from, int to);
+
+	/**
+	 * Stops at anything a string literal cannot copy verbatim: a quote, a backslash or a line break.
+	 */
+	int stringRunEnd(CharSequence in, int from, int to);
+
+	/**
+	 * Counts the units in {@code [from, to)} that are not UTF-8 continuation bytes.
+	 */
+	int charStarts(CharSequence in, int from, int to);
+
+	/**
+	 * Instantiates the vector kernel reflectively, so that the tokenizer still loads when the vector module is
+	 * missing. The lookup happens once.
+	 */
+	final class VectorKernelLoader {
+		private static final Constructor<?> CONSTRUCTOR = find();
+
+		private VectorKernelLoader() {
+		}
+
+		private static Constructor<?> find() {
+			try {
+				return Class.forName("scanner.VectorScanKernel").getDeclaredConstructor();
+			} catch (ReflectiveOperationException | LinkageError e) {
+				System.out.println("WARNING: The vector scanning kernel is unavailable (" + e + "). Start the JVM with "
+								   + "--add-modules jdk.incubator.vector to use it. Falling back to scalar scanning.");
+				return null;
+			}
+		}
+
+		static ScanKernel create() {
+			if (CONSTRUCTOR == null) {
+				return null;
+			}
+			try {
+				return (ScanKernel) CONSTRUCTOR.newInstance();
+			} catch (ReflectiveOperationException | LinkageError e) {
+				return null;
+			}
+		}
+	}
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import java.util.*;
+
+/**
+ * Source text with a line index, so that positions can be kept as plain offsets and only turned into a line and
+ * column when something is shown to a user. The index holds the offset at which every line starts. It is built on
+ * the first lookup, and a lookup is then a binary search. Lookups usually move forward through the file, so the
+ * line and column of the previous lookup are remembered and, when they still apply, used as a starting point.
+ * <p>
+ * The file for an edited text is made by [#splice(CharSequence, int, int, int)]. Its index is built straight away,
+ * as [Runs] that share the line starts before and after the edit with the index of the file it was edited from.
+ * <p>
+ * A line break is a line feed, a carriage return, or a CRLF pair. Lines and columns count from 1. Columns count
+ * chars, or code points for [Utf8Source] text.
+ */
+public final class SourceFile {
+	// The scalar kernel keeps no scratch state, so one instance can serve every thread.
+	private static final ScanKernel CODE_POINTS = new ScalarScanKernel();
+	private static final Runs.Storage<int[]> STORAGE = new Runs.Storage<>() {
+		@Override
+		public int[] allocate(int capacity) {
+			return new int[capacity];
+		}
+
+		@Override
+		public void copy(int[] source, int from, int[] target, int to, int count, int shift) {
+			for (int i = 0; i < count; i++) {
+				target[to + i] = source[from + i] + shift;
+			}
+		}
+	};
+
+	private final CharSequence text;
+	private final Utf8Source utf8;
+	private volatile int[] lineStarts;
+	// Set instead of lineStarts for an edited file.
+	private final Runs<int[]> lineRuns;
+	// Lookup hints. Each is validated before use, so racing threads can only cost each other a cache miss.
+	private volatile int lastLine;
+	private volatile long lastColumn = -1;
+
+	public SourceFile(CharSequence text) {
+		this(text, null);
+	}
+
+	private SourceFile(CharSequence text, Runs<int[]> lineRuns) {
+		this.text = text;
+		this.utf8 = text instanceof Utf8Source source ? source : null;
+		this.lineRuns = lineRuns;
+	}
+
+	public CharSequence text() {
+		return text;
+	}
+
+	private int[] lineStarts() {
+		int[] starts = lineStarts;
+		if (starts == null) {
+			starts = buildLineStarts();
+			lineStarts = starts;
+		}
+		return starts;
+	}
+
+	private int[] buildLineStarts() {
+		ScanKernel kernel = ScanKernel.create();
+		int length = text.length();
+		int[] starts = new int[Math.max(16, length / 32)];
+		int count = 1;
+		int i = kernel.lineBreak(text, 0, length);
+		while (i < length) {
+			int next = i + 1;
+			if (text.charAt(i) == '\r' && next < length && text.charAt(next) == '\n') {
+				next++;
+			}
+			if (count == starts.length) {
+				starts = Arrays.copyOf(starts, count * 2);
+			}
+			starts[count++] = next;
+			i = kernel.lineBreak(text, next, length);
+		}
+		return Arrays.copyOf(starts, count);
+	}
+
+	/**
+	 * Returns the file for an edited version of this text, in which {@code removed} units at {@code offset} were
+	 * replaced by {@code inserted} units. This file's index is built if it was not yet, and is not changed.
+	 */
+	SourceFile splice(CharSequence edited, int offset, int removed, int inserted) {
+		Runs<int[]> old = lineRuns;
+		if (old == null) {
+			int[] starts = lineStarts();
+			old = Runs.of(starts, 0, starts.length);
+		}
+		// A line start before the edit, or two past it, has its line break entirely outside the edit, where a CR
+		// cannot gain or lose the LF that follows it. The line starts in between are found again in the edited text.
+		int keptBefore = firstLineFrom(old, offset);
+		int keptAfter = firstLineFrom(old, offset + removed + 2);
+		int last = offset + inserted + 1;
+		int[] found = new int[4];
+		int count = 0;
+		if (offset == 0) {
+			found[count++] = 0;
+		}
+		int length = edited.length();
+		for (int i = Math.max(0, offset - 1); i < Math.min(last, length); ) {
+			char c = edited.charAt(i++);
+			if (c == '\r' && i < length && edited.charAt(i) == '\n') {
+				i++;
+			} else if (c != '\n' && c != '\r') {
+				continue;
+			}
+			if (i > last) {
+				break;
+			}
+			if (count == found.length) {
+				found = Arrays.copyOf(found, count * 2);
+			}
+			found[count++] = i;
+		}
+		return new SourceFile(edited, old.splice(keptBefore, keptAfter, found, count, inserted - removed, STORAGE));
+	}
+
+	/**
+	 * Returns the first line in a line table that starts at or after the given offset.
+	 */
+	private static int firstLineFrom(Runs<int[]> starts, int offset) {
+		Runs.Run<int[]> run = starts.findFirst(r -> r.store[r.local(r.end - 1)] + r.shift >= offset);
+		if (run == null) {
+			return starts.length();
+		}
+		int low = run.from;
+		int high = run.from + run.length() - 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (run.store[mid] + run.shift < offset) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return run.start + low - run.from;
+	}
+
+	private static int lineStart(Runs<int[]> starts, int line) {
+		Runs.Run<int[]> run = starts.find(line);
+		return run.store[run.local(line)] + run.shift;
+	}
+
+	private int lineStart(int line) {
+		return lineRuns != null ? lineStart(lineRuns, line) : lineStarts()[line];
+	}
+
+	/**
+	 * Returns the index into the line table of the line holding the given offset.
+	 */
+	private int lineIndex(int offset) {
+		Objects.checkIndex(offset, text.length() + 1);
+		if (lineRuns != null) {
+			return firstLineFrom(lineRuns, offset + 1) - 1;
+		}
+		int[] starts = lineStarts();
+		int hint = lastLine;
+		if (hint < starts.length && starts[hint] <= offset) {
+			if (hint + 1 == starts.length || offset < starts[hint + 1]) {
+				return hint;
+			}
+			if (hint + 2 == starts.length || offset < starts[hint + 2]) {
+				lastLine = hint + 1;
+				return hint + 1;
+			}
+		}
+		int low = 0;
+		int high = starts.length - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (starts[mid] <= offset) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		lastLine = low;
+		return low;
+	}
+
+	public int line(int offset) {
+		return lineIndex(offset) + 1;
+	}
+
+	public int column(int offset) {
+		int lineStart = lineStart(lineIndex(offset));
+		if (utf8 == null) {
+			return offset - lineStart + 1;
+		}
+		// Counting code points is linear in the distance, so continue from the previous lookup on the same line.
+		long hint = lastColumn;
+		int from = (int) (hint >>> 32);
+		int column;
+		if (from >= lineStart && from <= offset) {
+			column = (int) hint + codePoints(utf8, from, offset);
+		} else {
+			column = 1 + codePoints(utf8, lineStart, offset);
+		}
+		lastColumn = ((long) offset << 32) | column;
+		return column;
+	}
+
+	/**
+	 * The number of lines, counting the one after a trailing line break.
+	 */
+	public int lineCount() {
+		return lineRuns != null ? lineRuns.length() : lineStarts().length;
+	}
+
+	private static int codePoints(Utf8Source text, int from, int to) {
+		return CODE_POINTS.charStarts(text, from, to);
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import java.nio.*;
+import java.util.*;
+
+/**
+ * Char-indexed text after an edit, kept as [Runs] of the text it was edited from and of the inserted strings, so that
+ * the text outside the edit is shared rather than copied. This is what [IncrementalLexer] edits text into that is not
+ * a [Utf8Source]; the text it started from must not change afterwards.
+ */
+final class SplicedText implements CharSequence {
+	private static final Runs.Storage<CharSequence> STORAGE = new Runs.Storage<>() {
+		@Override
+		public CharSequence allocate(int capacity) {
+			return CharBuffer.allocate(capacity);
+		}
+
+		@Override
+		public void copy(CharSequence source, int from, CharSequence target, int to, int count, int shift) {
+			char[] chars = ((CharBuffer) target).array();
+			if (source instanceof String string) {
+				string.getChars(from, from + count, chars, to);
+			} else if (source instanceof CharBuffer buffer && buffer.hasArray()) {
+				System.arraycopy(buffer.array(), buffer.arrayOffset() + from, chars, to, count);
+			} else {
+				for (int i = 0; i < count; i++) {
+					chars[to + i] = source.charAt(from + i);
+				}
+			}
+		}
+	};
+
+	private final Runs<CharSequence> runs;
+
+	private SplicedText(Runs<CharSequence> runs) {
+		this.runs = runs;
+	}
+
+	/**
+	 * Returns the text with {@code removed} chars at {@code offset} replaced by {@code inserted}.
+	 */
+	static SplicedText splice(CharSequence text, int offset, int removed, String inserted) {
+		Objects.checkFromIndexSize(offset, removed, text.length());
+		Runs<CharSequence> base = text instanceof SplicedText spliced ? spliced.runs : Runs.of(text, 0, text.length());
+		return new SplicedText(base.splice(offset, offset + removed, inserted, inserted.length(), 0, STORAGE));
+	}
+
+	@Override
+	public int length() {
+		return runs.length();
+	}
+
+	@Override
+	public char charAt(int index) {
+		Runs.Run<CharSequence> run = runs.find(Objects.checkIndex(index, length()));
+		return run.store.charAt(run.local(index));
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		Objects.checkFromToIndex(start, end, length());
+		if (start == end) {
+			return "";
+		}
+		Runs.Run<CharSequence> run = runs.find(start);
+		if (end <= run.end) {
+			int from = run.local(start);
+			return run.store.subSequence(from, from + end - start);
+		}
+		return appendTo(new StringBuilder(end - start), start, end).toString();
+	}
+
+	@Override
+	public String toString() {
+		return appendTo(new StringBuilder(length()), 0, length()).toString();
+	}
+
+	private StringBuilder appendTo(StringBuilder out, int start, int end) {
+		for (int i = start; i < end; ) {
+			Runs.Run<CharSequence> run = runs.find(i);
+			int count = Math.min(end, run.end) - i;
+			int from = run.local(i);
+			out.append(run.store, from, from + count);
+			i += count;
+		}
+		return out;
+	}
+}
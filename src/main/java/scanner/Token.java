@@ -6,8 +6,6 @@
 
 package scanner;
 
-import java.util.*;
-
 public class Token {
 	public enum TokenType {
 		INTCONST, FLOATCONST, STRINGLIT, CHARLIT, IDENTIFIER,
@@ -31,18 +29,54 @@ public class Token {
 	public final int line;
 	public final int charNum;
 	public final int endNum;
+	/**
+	 * Offsets of the token in the source text, end exclusive. Tokens that were not read from a source, such as
+	 * the parser's implicit semicolons, use -1 for both.
+	 */
+	public final int start;
+	public final int end;
+	/**
+	 * The id of an identifier's name in the [NameTable] it was lexed with, or -1 for other tokens and for
+	 * identifiers that were not interned.
+	 */
+	public final int nameId;
+	/**
+	 * The decoded value of a numeric literal: the integer for INTCONST and the raw bits of the double for
+	 * FLOATCONST, as read by [#doubleValue()]. Zero for other tokens.
+	 */
+	public final long value;
 
 	public Token(TokenType type, String text, int line, int col) {
+		this(type, text, line, col, -1, -1);
+	}
+
+	public Token(TokenType type, String text, int line, int col, int start, int end) {
+		this(type, text, line, col, start, end, -1, NumberScanner.decode(type, text));
+	}
+
+	public Token(TokenType type, String text, int line, int col, int start, int end, int nameId, long value) {
 		this.type = type;
 		this.text = text;
 		this.line = line;
 		this.charNum = col;
 		this.endNum = col + text.length();
+		this.start = start;
+		this.end = end;
+		this.nameId = nameId;
+		this.value = value;
+	}
+
+	public double doubleValue() {
+		return Double.longBitsToDouble(value);
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(type, text, line, charNum, endNum);
+		int hash = type.hashCode();
+		hash = 31 * hash + text.hashCode();
+		hash = 31 * hash + line;
+		hash = 31 * hash + charNum;
+		return 31 * hash + endNum;
 	}
 
 	@Override
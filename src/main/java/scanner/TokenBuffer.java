@@ -0,0 +1,551 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import scanner.Token.*;
+
+import java.util.*;
+
+/**
+ * A compact, append-only token stream. Tokens are stored column-wise in primitive arrays and only turned into
+ * [Token] objects when a caller asks for one. Token text is sliced from the source on demand; only string and
+ * character literals, whose text differs from the source because of escape sequences, keep a decoded copy, and
+ * numeric literals keep their decoded value. Identifiers store their id in the buffer's [NameTable] instead, and
+ * their text is the interned name.
+ * <p>
+ * Positions are stored as offsets only. Lines and columns are looked up in the [SourceFile] when asked for.
+ * <p>
+ * A buffer made by [#splice(int, int, TokenBuffer, int)] for an edited source keeps its tokens as [Runs] of the
+ * buffers it was made from instead, and is read-only.
+ */
+public final class TokenBuffer {
+	private static final TokenType[] TYPES = TokenType.values();
+	private static final int NO_PAYLOAD = -1;
+	private static final int IDENTIFIER = TokenType.IDENTIFIER.ordinal();
+
+	private final SourceFile file;
+	private final NameTable names;
+	private int[] kinds;
+	private int[] starts;
+	private int[] lengths;
+	// Only set for hand-built buffers, whose tokens carry positions of their own instead of offsets into a source.
+	private int[] fixedLines;
+	private int[] fixedCols;
+	// A name id for identifiers, and an index into the literal tables, or NO_PAYLOAD, for everything else.
+	private int[] payloads;
+	// Parallel tables: decoded text for string and character literals, values for numeric ones.
+	private String[] literals;
+	private long[] values;
+	private int literalCount;
+	private int size;
+	// Set instead of the columns for a spliced buffer. Its stores are plain buffers sharing this buffer's names.
+	private final Runs<TokenBuffer> runs;
+
+	public TokenBuffer(CharSequence source) {
+		this(source, Math.max(16, source.length() / 6));
+	}
+
+	public TokenBuffer(CharSequence source, int capacity) {
+		this(source, capacity, new NameTable());
+	}
+
+	/**
+	 * Creates a buffer whose identifiers are interned in an existing table, so that name ids agree with other
+	 * buffers sharing it.
+	 */
+	public TokenBuffer(CharSequence source, int capacity, NameTable names) {
+		this(new SourceFile(source), capacity, names);
+	}
+
+	public TokenBuffer(SourceFile file, int capacity, NameTable names) {
+		this.file = file;
+		this.names = names;
+		kinds = new int[capacity];
+		starts = new int[capacity];
+		lengths = new int[capacity];
+		payloads = new int[capacity];
+		literals = new String[16];
+		values = new long[16];
+		runs = null;
+	}
+
+	private TokenBuffer(SourceFile file, NameTable names, Runs<TokenBuffer> runs) {
+		this.file = file;
+		this.names = names;
+		this.runs = runs;
+		size = runs.length();
+	}
+
+	/**
+	 * Copies a materialized token list into a read-only buffer, for callers that built their tokens by hand. The
+	 * tokens keep the lines and columns they were given.
+	 */
+	public static TokenBuffer copyOf(List<Token> tokens) {
+		TokenBuffer buffer = new TokenBuffer("", Math.max(16, tokens.size()));
+		buffer.fixedLines = new int[tokens.size()];
+		buffer.fixedCols = new int[tokens.size()];
+		for (Token tok : tokens) {
+			buffer.fixedLines[buffer.size] = tok.line;
+			buffer.fixedCols[buffer.size] = tok.charNum;
+			if (tok.type == TokenType.IDENTIFIER) {
+				buffer.addName(buffer.names.intern(tok.text), tok.start, tok.end - tok.start);
+			} else if (isNumber(tok.type.ordinal())) {
+				buffer.addNumber(tok.type, tok.value, tok.start, tok.end - tok.start);
+			} else {
+				buffer.addLiteral(tok.type, tok.text, tok.start, tok.end - tok.start);
+			}
+		}
+		return buffer;
+	}
+
+	void add(TokenType type, int start, int length) {
+		append(type, start, length, NO_PAYLOAD);
+	}
+
+	void addName(int nameId, int start, int length) {
+		append(TokenType.IDENTIFIER, start, length, nameId);
+	}
+
+	void addLiteral(TokenType type, String text, int start, int length) {
+		ensureLiteralCapacity(literalCount + 1);
+		literals[literalCount] = text;
+		values[literalCount] = 0;
+		append(type, start, length, literalCount++);
+	}
+
+	/**
+	 * Appends an INTCONST or FLOATCONST with its decoded value; see [Token#value].
+	 */
+	void addNumber(TokenType type, long value, int start, int length) {
+		ensureLiteralCapacity(literalCount + 1);
+		literals[literalCount] = null;
+		values[literalCount] = value;
+		append(type, start, length, literalCount++);
+	}
+
+	/**
+	 * Appends copies of another buffer's tokens {@code [from, to)}, moving their offsets by {@code offsetShift}. The
+	 * tokens' text must be the same in both sources.
+	 */
+	void appendRange(TokenBuffer other, int from, int to, int offsetShift) {
+		checkWritable();
+		other.checkWritable();
+		Objects.checkFromToIndex(from, to, other.size);
+		int count = to - from;
+		ensureCapacity(size + count);
+		System.arraycopy(other.kinds, from, kinds, size, count);
+		System.arraycopy(other.lengths, from, lengths, size, count);
+		for (int i = 0; i < count; i++) {
+			starts[size + i] = other.starts[from + i] + offsetShift;
+		}
+		int firstLiteral = -1;
+		int lastLiteral = -1;
+		for (int i = from; i < to; i++) {
+			int literal = other.literalIndex(i);
+			if (literal != NO_PAYLOAD) {
+				if (firstLiteral < 0) {
+					firstLiteral = literal;
+				}
+				lastLiteral = literal;
+			}
+		}
+		int[] nameIds = other.names == names ? null : names.importFrom(other.names);
+		int literalShift = 0;
+		if (firstLiteral >= 0) {
+			int literalsCopied = lastLiteral - firstLiteral + 1;
+			ensureLiteralCapacity(literalCount + literalsCopied);
+			System.arraycopy(other.literals, firstLiteral, literals, literalCount, literalsCopied);
+			System.arraycopy(other.values, firstLiteral, values, literalCount, literalsCopied);
+			literalShift = literalCount - firstLiteral;
+			literalCount += literalsCopied;
+		}
+		for (int i = 0; i < count; i++) {
+			int payload = other.payloads[from + i];
+			if (other.kinds[from + i] == IDENTIFIER) {
+				payloads[size + i] = nameIds == null ? payload : nameIds[payload];
+			} else {
+				payloads[size + i] = payload == NO_PAYLOAD ? NO_PAYLOAD : payload + literalShift;
+			}
+		}
+		size += count;
+	}
+
+	/**
+	 * Returns a buffer for an edited source, whose tokens are this buffer's with {@code [from, to)} replaced by all of
+	 * {@code inserted}. The tokens after the replaced range have their offsets moved by {@code offsetShift}. The
+	 * inserted tokens must already have offsets into the edited source, and their buffer must share this one's names.
+	 * <p>
+	 * The result shares the tokens of both buffers rather than copying them, so neither may be added to afterwards.
+	 * This buffer is not changed.
+	 */
+	TokenBuffer splice(int from, int to, TokenBuffer inserted, int offsetShift) {
+		inserted.checkWritable();
+		if (inserted.names != names) {
+			throw new IllegalArgumentException("The inserted tokens must share the buffer's name table.");
+		}
+		SourceFile edited = inserted.file;
+		Runs<TokenBuffer> base = runs != null ? runs : Runs.of(this, 0, size);
+		Runs.Storage<TokenBuffer> storage = new Runs.Storage<>() {
+			@Override
+			public TokenBuffer allocate(int capacity) {
+				return new TokenBuffer(edited, capacity, names);
+			}
+
+			@Override
+			public void copy(TokenBuffer source, int from, TokenBuffer target, int to, int count, int shift) {
+				target.appendRange(source, from, from + count, shift);
+			}
+		};
+		return new TokenBuffer(edited, names, base.splice(from, to, inserted, inserted.size, offsetShift, storage));
+	}
+
+	/**
+	 * Returns the first token that starts at or after an offset, or the size of the buffer if there is none.
+	 */
+	int firstStartingFrom(int offset) {
+		return search(offset, false);
+	}
+
+	/**
+	 * Returns the first token that ends at or after an offset, or the size of the buffer if there is none.
+	 */
+	int firstEndingFrom(int offset) {
+		return search(offset, true);
+	}
+
+	private int search(int offset, boolean byEnd) {
+		if (runs == null) {
+			return search(0, size, offset, byEnd);
+		}
+		Runs.Run<TokenBuffer> run = runs.findFirst(r -> {
+			int last = r.local(r.end - 1);
+			return (byEnd ? r.store.end(last) : r.store.start(last)) + r.shift >= offset;
+		});
+		if (run == null) {
+			return size;
+		}
+		return run.start + run.store.search(run.from, run.from + run.length(), offset - run.shift, byEnd) - run.from;
+	}
+
+	private int search(int from, int to, int offset, boolean byEnd) {
+		int low = from;
+		int high = to;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (starts[mid] + (byEnd ? lengths[mid] : 0) < offset) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private void checkWritable() {
+		if (runs != null) {
+			throw new IllegalStateException("A spliced token buffer is read-only.");
+		}
+	}
+
+	private int literalIndex(int index) {
+		return kinds[index] == IDENTIFIER ? NO_PAYLOAD : payloads[index];
+	}
+
+	private static boolean isNumber(int kind) {
+		return kind == TokenType.INTCONST.ordinal() || kind == TokenType.FLOATCONST.ordinal();
+	}
+
+	private void ensureLiteralCapacity(int capacity) {
+		if (capacity > literals.length) {
+			capacity = Math.max(capacity, literals.length * 2);
+			literals = Arrays.copyOf(literals, capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > kinds.length) {
+			capacity = Math.max(capacity, kinds.length + (kinds.length >> 1) + 16);
+			kinds = Arrays.copyOf(kinds, capacity);
+			starts = Arrays.copyOf(starts, capacity);
+			lengths = Arrays.copyOf(lengths, capacity);
+			payloads = Arrays.copyOf(payloads, capacity);
+		}
+	}
+
+	private void append(TokenType type, int start, int length, int payload) {
+		checkWritable();
+		ensureCapacity(size + 1);
+		kinds[size] = type.ordinal();
+		starts[size] = start;
+		lengths[size] = length;
+		payloads[size] = payload;
+		size++;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public CharSequence source() {
+		return file.text();
+	}
+
+	public SourceFile file() {
+		return file;
+	}
+
+	public NameTable names() {
+		return names;
+	}
+
+	public TokenType type(int index) {
+		if (runs != null) {
+			Runs.Run<TokenBuffer> run = runs.find(checkIndex(index));
+			return run.store.type(run.local(index));
+		}
+		return TYPES[kinds[checkIndex(index)]];
+	}
+
+	public int start(int index) {
+		if (runs != null) {
+			Runs.Run<TokenBuffer> run = runs.find(checkIndex(index));
+			return run.store.start(run.local(index)) + run.shift;
+		}
+		return starts[checkIndex(index)];
+	}
+
+	public int end(int index) {
+		if (runs != null) {
+			Runs.Run<TokenBuffer> run = runs.find(checkIndex(index));
+			return run.store.end(run.local(index)) + run.shift;
+		}
+		return starts[checkIndex(index)] + lengths[index];
+	}
+
+	public int line(int index) {
+		checkIndex(index);
+		return fixedLines != null ? fixedLines[index] : file.line(start(index));
+	}
+
+	public int column(int index) {
+		checkIndex(index);
+		return fixedCols != null ? fixedCols[index] : file.column(start(index));
+	}
+
+	/**
+	 * Returns the name id of an identifier token, or -1 for any other token.
+	 */
+	public int nameId(int index) {
+		if (runs != null) {
+			Runs.Run<TokenBuffer> run = runs.find(checkIndex(index));
+			return run.store.nameId(run.local(index));
+		}
+		return kinds[checkIndex(index)] == IDENTIFIER ? payloads[index] : -1;
+	}
+
+	/**
+	 * Returns the decoded value of a numeric literal, or 0 for any other token; see [Token#value].
+	 */
+	public long value(int index) {
+		if (runs != null) {
+			Runs.Run<TokenBuffer> run = runs.find(checkIndex(index));
+			return run.store.value(run.local(index));
+		}
+		return isNumber(kinds[checkIndex(index)]) ? values[payloads[index]] : 0;
+	}
+
+	/**
+	 * Returns the token's text, slicing it out of the source unless it is a decoded literal.
+	 */
+	public String text(int index) {
+		if (runs != null) {
+			Runs.Run<TokenBuffer> run = runs.find(checkIndex(index));
+			return run.store.text(run.local(index));
+		}
+		checkIndex(index);
+		if (kinds[index] == IDENTIFIER) {
+			return names.name(payloads[index]);
+		}
+		int payload = payloads[index];
+		if (payload != NO_PAYLOAD && literals[payload] != null) {
+			return literals[payload];
+		}
+		if (kinds[index] == TokenType.EOF.ordinal()) {
+			return "EOF";
+		}
+		return file.text().subSequence(starts[index], starts[index] + lengths[index]).toString();
+	}
+
+	public Token get(int index) {
+		return new Token(type(index), text(index), line(index), column(index), start(index), end(index),
+				nameId(index), value(index));
+	}
+
+	/**
+	 * Drops the first {@code count} tokens, shifting the rest to the front. Used by streaming sources to keep only a
+	 * window of tokens alive.
+	 */
+	void discard(int count) {
+		checkWritable();
+		if (count <= 0) {
+			return;
+		}
+		Objects.checkFromToIndex(0, count, size);
+		int remaining = size - count;
+		System.arraycopy(kinds, count, kinds, 0, remaining);
+		System.arraycopy(starts, count, starts, 0, remaining);
+		System.arraycopy(lengths, count, lengths, 0, remaining);
+		System.arraycopy(payloads, count, payloads, 0, remaining);
+		size = remaining;
+		// Literals are appended in token order, so the ones still referenced form a suffix of the table.
+		int firstLiteral = literalCount;
+		for (int i = 0; i < size; i++) {
+			if (literalIndex(i) != NO_PAYLOAD) {
+				firstLiteral = payloads[i];
+				break;
+			}
+		}
+		System.arraycopy(literals, firstLiteral, literals, 0, literalCount - firstLiteral);
+		System.arraycopy(values, firstLiteral, values, 0, literalCount - firstLiteral);
+		Arrays.fill(literals, literalCount - firstLiteral, literalCount, null);
+		literalCount -= firstLiteral;
+		for (int i = 0; i < size; i++) {
+			if (literalIndex(i) != NO_PAYLOAD) {
+				payloads[i] -= firstLiteral;
+			}
+		}
+	}
+
+	/**
+	 * Drops every token from {@code newSize} onwards.
+	 */
+	void truncate(int newSize) {
+		checkWritable();
+		Objects.checkIndex(newSize, size + 1);
+		while (size > newSize) {
+			size--;
+			if (literalIndex(size) != NO_PAYLOAD) {
+				literalCount = payloads[size];
+				literals[literalCount] = null;
+			}
+		}
+	}
+
+	/**
+	 * A cursor over the whole buffer.
+	 */
+	public TokenSource cursor() {
+		return new Cursor(0, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * A cursor over the tokens from {@code from} up to {@code to}, exclusive. Past {@code to} the cursor reads EOF,
+	 * as a cursor over the whole buffer does past its end; positions are still indices into the whole buffer.
+	 */
+	public TokenSource cursor(int from, int to) {
+		Objects.checkFromToIndex(from, to, size);
+		return new Cursor(from, to);
+	}
+
+	/**
+	 * A read-only [List] view of the buffer. Each access materializes a new [Token].
+	 */
+	public List<Token> asList() {
+		return new TokenList();
+	}
+
+	private int checkIndex(int index) {
+		return Objects.checkIndex(index, size);
+	}
+
+	private final class Cursor implements TokenSource {
+		private final int limit;
+		private int position;
+
+		private Cursor(int from, int limit) {
+			this.position = from;
+			this.limit = limit;
+		}
+
+		private int end() {
+			return Math.min(size, limit);
+		}
+
+		@Override
+		public TokenType peekType(int ahead) {
+			int index = position + ahead;
+			if (index >= end()) {
+				return TokenType.EOF;
+			}
+			return runs == null ? TYPES[kinds[index]] : type(index);
+		}
+
+		@Override
+		public Token peek(int ahead) {
+			int index = position + ahead;
+			return index < end() ? get(index) : null;
+		}
+
+		@Override
+		public String peekText(int ahead) {
+			int index = position + ahead;
+			return index < end() ? text(index) : "";
+		}
+
+		@Override
+		public int peekNameId(int ahead) {
+			int index = position + ahead;
+			return index < end() ? nameId(index) : -1;
+		}
+
+		@Override
+		public long peekValue(int ahead) {
+			int index = position + ahead;
+			return index < end() ? value(index) : 0;
+		}
+
+		@Override
+		public int peekLine(int ahead) {
+			int index = position + ahead;
+			return index < end() ? line(index) : -1;
+		}
+
+		@Override
+		public int peekColumn(int ahead) {
+			int index = position + ahead;
+			return index < end() ? column(index) : -1;
+		}
+
+		@Override
+		public void advance(int count) {
+			position += count;
+		}
+
+		@Override
+		public int position() {
+			return position;
+		}
+
+		@Override
+		public NameTable names() {
+			return names;
+		}
+	}
+
+	private final class TokenList extends AbstractList<Token> implements RandomAccess {
+		@Override
+		public Token get(int index) {
+			return TokenBuffer.this.get(index);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import scanner.Token.*;
+
+/**
+ * A forward-only cursor over a token stream. The parser only ever looks at the current token and the one after it,
+ * so a source need not hold more than a small window of tokens.
+ */
+public interface TokenSource {
+	/**
+	 * Returns the type of the token {@code ahead} positions past the current one, or EOF past the end of input.
+	 */
+	TokenType peekType(int ahead);
+
+	/**
+	 * Returns the token {@code ahead} positions past the current one, or null past the end of input.
+	 */
+	Token peek(int ahead);
+
+	/*
+	 * The accessors below read single fields of a token without materializing it, so that the parser's hot paths
+	 * allocate nothing. Past the end of input they describe the EOF token: no text, no name and no position.
+	 */
+
+	/**
+	 * Returns the text of the token {@code ahead} positions past the current one, as [Token#text] would.
+	 */
+	String peekText(int ahead);
+
+	/**
+	 * Returns the name id of the token {@code ahead} positions past the current one, as [Token#nameId] would.
+	 */
+	int peekNameId(int ahead);
+
+	/**
+	 * Returns the decoded value of the token {@code ahead} positions past the current one, as [Token#value] would.
+	 */
+	long peekValue(int ahead);
+
+	/**
+	 * Returns the line of the token {@code ahead} positions past the current one, or -1 past the end of input.
+	 */
+	int peekLine(int ahead);
+
+	/**
+	 * Returns the column of the token {@code ahead} positions past the current one, or -1 past the end of input.
+	 */
+	int peekColumn(int ahead);
+
+	void advance(int count);
+
+	/**
+	 * The index of the current token in the whole stream.
+	 */
+	int position();
+
+	/**
+	 * The table that the names of identifier tokens are interned in.
+	 */
+	NameTable names();
+}
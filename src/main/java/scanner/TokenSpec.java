@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import scanner.Token.*;
+
+import java.util.*;
+
+import static scanner.Token.TokenType.*;
+
+/**
+ * The lexical grammar of C-flat, in one place. Every matcher the tokenizer uses is generated from these tables:
+ * <p>
+ * * Keywords and operators are fixed spellings. Keywords win over identifiers of the same length, and operators
+ * match longest first.
+ * <p>
+ * * Identifiers are an ASCII letter or underscore followed by ASCII letters, digits and underscores.
+ * <p>
+ * * Numbers, strings and character literals are recognized by their first character; their text is decoded by a
+ * dedicated scanner, since their values are needed and not only their extent.
+ * <p>
+ * Whitespace and line comments are skipped before a token is matched, so they are not part of the tables.
+ */
+final class TokenSpec {
+	static final Map<String, TokenType> KEYWORDS;
+	static final Map<String, TokenType> OPERATORS;
+
+	static {
+		LinkedHashMap<String, TokenType> keywords = new LinkedHashMap<>();
+		keywords.put("if", IF);
+		keywords.put("else", ELSE);
+		keywords.put("for", FOR);
+		keywords.put("foreach", FOREACH);
+		keywords.put("while", WHILE);
+		keywords.put("do", DO);
+		keywords.put("switch", SWITCH);
+		keywords.put("try", TRY);
+		keywords.put("continue", CONTINUE);
+		keywords.put("break", BREAK);
+		keywords.put("return", RETURN);
+		keywords.put("goto", GOTO);
+		keywords.put("throw", THROW);
+		keywords.put("fun", FUN);
+		keywords.put("var", VAR);
+		keywords.put("array", ARRAY);
+		keywords.put("enum", ENUM);
+		keywords.put("catch", CATCH);
+		keywords.put("class", CLASS);
+		keywords.put("struct", STRUCT);
+		keywords.put("true", TRUE);
+		keywords.put("false", FALSE);
+		keywords.put("lambda", LAMBDA);
+		keywords.put("default", DEFAULT);
+		keywords.put("case", CASE);
+		KEYWORDS = Collections.unmodifiableMap(keywords);
+
+		LinkedHashMap<String, TokenType> operators = new LinkedHashMap<>();
+		operators.put("<<=", LSHIFTASSIGN);
+		operators.put(">>=", RSHIFTASSIGN);
+		operators.put("**=", POWASSIGN);
+		operators.put("**", POW);
+		operators.put("+=", ADDASSIGN);
+		operators.put("-=", SUBASSIGN);
+		operators.put("*=", MULASSIGN);
+		operators.put("/=", DIVASSIGN);
+		operators.put("%=", MODASSIGN);
+		operators.put("&=", ANDASSIGN);
+		operators.put("|=", ORASSIGN);
+		operators.put("^=", XORASSIGN);
+		operators.put("++", INC);
+		operators.put("--", DEC);
+		operators.put("<<", BITWISE_LSHIFT);
+		operators.put(">>", BITWISE_RSHIFT);
+		operators.put("||", OR);
+		operators.put("&&", AND);
+		operators.put("<=", LESSEQUAL);
+		operators.put(">=", GREATEREQUAL);
+		operators.put("<", LESSTHAN);
+		operators.put(">", GREATERTHAN);
+		operators.put("==", EQUALTO);
+		operators.put("!=", NOTEQUALTO);
+		operators.put("^", BITWISE_XOR);
+		operators.put("~", BITWISE_NOT);
+		operators.put("|", BITWISE_OR);
+		operators.put("&", BITWISE_AND);
+		operators.put("!", NOT);
+		operators.put("+", ADD);
+		operators.put("-", SUB);
+		operators.put("*", MUL);
+		operators.put("?", QMARK);
+		operators.put(":", COLON);
+		operators.put("/", DIV);
+		operators.put("%", MOD);
+		operators.put(".", DOT);
+		operators.put("=", EQUATE);
+		operators.put(",", COMMA);
+		operators.put(";", SEMICOLON);
+		operators.put("{", LBRACE);
+		operators.put("}", RBRACE);
+		operators.put("[", LBRACKET);
+		operators.put("]", RBRACKET);
+		operators.put("(", LPAREN);
+		operators.put(")", RPAREN);
+		OPERATORS = Collections.unmodifiableMap(operators);
+	}
+
+	private TokenSpec() {
+	}
+
+	static boolean isIdentifierStart(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+	}
+
+	static boolean isIdentifierPart(char c) {
+		return isIdentifierStart(c) || (c >= '0' && c <= '9');
+	}
+
+	/**
+	 * Returns the kind of literal that starts with the given character: INTCONST for any number, STRINGLIT or
+	 * CHARLIT, or null if none does.
+	 */
+	static TokenType literalStart(char c) {
+		if (c >= '0' && c <= '9') {
+			return INTCONST;
+		} else if (c == '"') {
+			return STRINGLIT;
+		} else if (c == '\'') {
+			return CHARLIT;
+		}
+		return null;
+	}
+}
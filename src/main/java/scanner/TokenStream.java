@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import scanner.Token.*;
+
+/**
+ * A [TokenSource] that runs the tokenizer on demand. Tokens are lexed into a small window buffer as the parser
+ * looks ahead, and consumed tokens are dropped from the front of the window once enough of them pile up, so memory
+ * use does not grow with the length of the input.
+ */
+final class TokenStream implements TokenSource {
+	static final int WINDOW = 64;
+
+	private final Tokenizer tokenizer;
+	private final TokenBuffer window;
+	private int cursor;
+	private int discarded;
+
+	TokenStream(Tokenizer tokenizer, TokenBuffer window) {
+		this.tokenizer = tokenizer;
+		this.window = window;
+	}
+
+	/**
+	 * Lexes until the window holds the token at the given index, or input runs out.
+	 */
+	private boolean fill(int index) {
+		while (index >= window.size()) {
+			if (!tokenizer.step()) {
+				return index < window.size();
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public TokenType peekType(int ahead) {
+		int index = cursor + ahead;
+		return fill(index) ? window.type(index) : TokenType.EOF;
+	}
+
+	@Override
+	public Token peek(int ahead) {
+		int index = cursor + ahead;
+		return fill(index) ? window.get(index) : null;
+	}
+
+	@Override
+	public String peekText(int ahead) {
+		int index = cursor + ahead;
+		return fill(index) ? window.text(index) : "";
+	}
+
+	@Override
+	public int peekNameId(int ahead) {
+		int index = cursor + ahead;
+		return fill(index) ? window.nameId(index) : -1;
+	}
+
+	@Override
+	public long peekValue(int ahead) {
+		int index = cursor + ahead;
+		return fill(index) ? window.value(index) : 0;
+	}
+
+	@Override
+	public int peekLine(int ahead) {
+		int index = cursor + ahead;
+		return fill(index) ? window.line(index) : -1;
+	}
+
+	@Override
+	public int peekColumn(int ahead) {
+		int index = cursor + ahead;
+		return fill(index) ? window.column(index) : -1;
+	}
+
+	@Override
+	public void advance(int count) {
+		cursor += count;
+		if (cursor >= WINDOW / 2) {
+			int drop = Math.min(cursor, window.size());
+			window.discard(drop);
+			discarded += drop;
+			cursor -= drop;
+		}
+	}
+
+	@Override
+	public int position() {
+		return discarded + cursor;
+	}
+
+	@Override
+	public NameTable names() {
+		return window.names();
+	}
+}
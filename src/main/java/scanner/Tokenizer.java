@@ -8,9 +8,10 @@ package scanner;
 
 import scanner.Token.*;
 
+import java.io.*;
+import java.nio.file.*;
 import java.util.*;
-import java.util.Map.*;
-import java.util.regex.*;
+import java.util.concurrent.*;
 
 import static scanner.Token.TokenType.*;
 
@@ -20,230 +21,343 @@ import static scanner.Token.TokenType.*;
  * I owe a big debt to Martin Pärtel for his tokenizer class.
  */
 public final class Tokenizer {
-	private static final Pattern IS_FLOATING = Pattern.compile("^\\d+\\.\\d+");
-	private static final Pattern GET_INTEGER = Pattern.compile("^\\b(0x[0-9a-fA-F]+|\\d+)\\b");
-	private static final Pattern GET_DECIMAL = Pattern.compile("^\\b(0x[0-9a-fA-F]+|\\d+)\\.(0x[0-9a-fA-F]+|\\d+)\\b");
-	private static final Pattern GET_IDENTIFIER = Pattern.compile("[a-zA-Z_]\\w*");
-	private static final LinkedHashMap<String, TokenType> keywords = new LinkedHashMap<>();
-
-	private static final LinkedHashMap<String, TokenType> primitives = new LinkedHashMap<>();
-
-	static {
-		keywords.put("if", IF);
-		keywords.put("else", ELSE);
-		keywords.put("for", FOR);
-		keywords.put("foreach", FOREACH);
-		keywords.put("while", WHILE);
-		keywords.put("do", DO);
-		keywords.put("switch", SWITCH);
-		keywords.put("try", TRY);
-		keywords.put("continue", CONTINUE);
-		keywords.put("break", BREAK);
-		keywords.put("return", RETURN);
-		keywords.put("goto", GOTO);
-		keywords.put("throw", THROW);
-		keywords.put("fun", FUN);
-		keywords.put("var", VAR);
-		keywords.put("array", ARRAY);
-		keywords.put("enum", ENUM);
-		keywords.put("catch", CATCH);
-		keywords.put("class", CLASS);
-		keywords.put("struct", STRUCT);
-		keywords.put("true", TRUE);
-		keywords.put("false", FALSE);
-		keywords.put("lambda", LAMBDA);
-		keywords.put("default", DEFAULT);
-		keywords.put("case", CASE);
-		primitives.put("<<=", LSHIFTASSIGN);
-		primitives.put(">>=", RSHIFTASSIGN);
-		primitives.put("**=", POWASSIGN);
-		primitives.put("**", POW);
-		primitives.put("+=", ADDASSIGN);
-		primitives.put("-=", SUBASSIGN);
-		primitives.put("*=", MULASSIGN);
-		primitives.put("/=", DIVASSIGN);
-		primitives.put("%=", MODASSIGN);
-		primitives.put("&=", ANDASSIGN);
-		primitives.put("|=", ORASSIGN);
-		primitives.put("^=", XORASSIGN);
-		primitives.put("++", INC);
-		primitives.put("--", DEC);
-		primitives.put(">>", BITWISE_LSHIFT);
-		primitives.put("<<", BITWISE_RSHIFT);
-		primitives.put("||", OR);
-		primitives.put("&&", AND);
-		primitives.put("<=", GREATEREQUAL);
-		primitives.put(">=", LESSEQUAL);
-		primitives.put("<", GREATERTHAN);
-		primitives.put(">", LESSTHAN);
-		primitives.put("==", EQUALTO);
-		primitives.put("!=", NOTEQUALTO);
-		primitives.put("^", BITWISE_XOR);
-		primitives.put("~", BITWISE_NOT);
-		primitives.put("|", BITWISE_OR);
-		primitives.put("&", BITWISE_AND);
-		primitives.put("!", NOT);
-		primitives.put("+", ADD);
-		primitives.put("-", SUB);
-		primitives.put("*", MUL);
-		primitives.put("?", QMARK);
-		primitives.put(":", COLON);
-		primitives.put("/", DIV);
-		primitives.put("%", MOD);
-		primitives.put(".", DOT);
-		primitives.put("=", EQUATE);
-		primitives.put(",", COMMA);
-		primitives.put(";", SEMICOLON);
-		primitives.put("{", LBRACE);
-		primitives.put("}", RBRACE);
-		primitives.put("[", LBRACKET);
-		primitives.put("]", RBRACKET);
-		primitives.put("(", LPAREN);
-		primitives.put(")", RPAREN);
-	}
+	/**
+	 * Setting this system property to true selects the hand-written matchers for operators and keywords instead of
+	 * the [DfaLexer]. Both are generated from [TokenSpec] and produce the same tokens.
+	 */
+	static final String HAND_WRITTEN_PROPERTY = "cflat.handWrittenLexer";
+
+	private static final boolean USE_DFA = !Boolean.getBoolean(HAND_WRITTEN_PROPERTY);
+	private static final OperatorTrie operators = new OperatorTrie(TokenSpec.OPERATORS);
+	private static final KeywordTable keywordTable = new KeywordTable(TokenSpec.KEYWORDS);
 
-	private final ArrayList<Token> result;
+	private final TokenBuffer result;
+	private final NameTable names;
+	private final ScanKernel kernel;
 	private final Map<String, String> escapeSequences = Map.ofEntries(Map.entry("n", "\n"), Map.entry("r", "\r"),
 			Map.entry("t", "\t"), Map.entry("b", "\b"), Map.entry("\\", "\\"), Map.entry("\"", "\""));
-	private String input;
-	private int line;
-	private int col;
+	private final CharSequence input;
+	private final Utf8Source utf8;
+	private final int end;
+	private final boolean useDfa;
+	private final NumberScanner numbers = new NumberScanner();
+	private int pos;
+	private boolean finished;
+
+	private Tokenizer(CharSequence in, TokenBuffer out) {
+		this(in, out, 0);
+	}
+
+	/**
+	 * Creates a tokenizer that resumes lexing at the given offset, which must be the start of a token.
+	 */
+	Tokenizer(CharSequence in, TokenBuffer out, int pos) {
+		this(in, out, pos, in.length());
+	}
 
-	private Tokenizer(String in) {
-		result = new ArrayList<>();
+	/**
+	 * Creates a tokenizer for the range {@code [pos, end)} of the input, which emits its EOF token at {@code end}.
+	 * The range must end between two tokens.
+	 */
+	Tokenizer(CharSequence in, TokenBuffer out, int pos, int end) {
+		this(in, out, pos, end, USE_DFA);
+	}
+
+	private Tokenizer(CharSequence in, TokenBuffer out, int pos, int end, boolean useDfa) {
+		result = out;
+		names = out.names();
+		kernel = ScanKernel.create();
 		input = in;
-		line = 1;
-		col = 1;
+		utf8 = in instanceof Utf8Source source ? source : null;
+		this.end = end;
+		this.useDfa = useDfa;
+		this.pos = pos;
+	}
+
+	/**
+	 * Tokenizes the input into a list of tokens. The list is a view over a [TokenBuffer]; callers that walk the
+	 * tokens more than once, such as the parser, should use [#scan(CharSequence)] instead.
+	 */
+	public static List<Token> tokenize(CharSequence input) {
+		return scan(input).asList();
+	}
+
+	public static TokenBuffer scan(CharSequence input) {
+		Tokenizer tokenizer = new Tokenizer(input, new TokenBuffer(input));
+		tokenizer.tokenize();
+		return tokenizer.result;
 	}
 
-	public static List<Token> tokenize(String input) {
-		Tokenizer tokenizer = new Tokenizer(input);
+	/**
+	 * Tokenizes the input with the [DfaLexer] or with the hand-written matchers, whatever
+	 * {@value #HAND_WRITTEN_PROPERTY} says. For comparing the two.
+	 */
+	static TokenBuffer scan(CharSequence input, boolean useDfa) {
+		Tokenizer tokenizer = new Tokenizer(input, new TokenBuffer(input), 0, input.length(), useDfa);
 		tokenizer.tokenize();
 		return tokenizer.result;
 	}
 
+	/**
+	 * Tokenizes the input on the common fork-join pool. Large inputs are cut into chunks at line breaks that cannot
+	 * be inside a literal or comment, and the chunks are lexed concurrently. The result is the same as [#scan]'s.
+	 */
+	public static TokenBuffer scanParallel(CharSequence input) {
+		return ParallelTokenizer.scan(input, ForkJoinPool.commonPool());
+	}
+
+	public static TokenBuffer scanFileParallel(Path path) throws IOException {
+		return scanParallel(Utf8Source.map(path));
+	}
+
+	/**
+	 * Returns a source that tokenizes the input lazily, as the parser asks for tokens. Only a small window of tokens
+	 * is kept in memory.
+	 */
+	public static TokenSource stream(CharSequence input) {
+		TokenBuffer window = new TokenBuffer(input, TokenStream.WINDOW);
+		return new TokenStream(new Tokenizer(input, window), window);
+	}
+
+	/**
+	 * Returns a lazy source as [#stream(CharSequence)] does, lexing with the [DfaLexer] or with the hand-written
+	 * matchers. For comparing the two.
+	 */
+	static TokenSource stream(CharSequence input, boolean useDfa) {
+		TokenBuffer window = new TokenBuffer(input, TokenStream.WINDOW);
+		return new TokenStream(new Tokenizer(input, window, 0, input.length(), useDfa), window);
+	}
+
+	/**
+	 * Tokenizes a UTF-8 file by mapping it into memory and scanning its bytes in place. Only string and character
+	 * literals and non-ASCII characters are decoded. Token offsets are byte offsets into the file.
+	 */
+	public static TokenBuffer scanFile(Path path) throws IOException {
+		return scan(Utf8Source.map(path));
+	}
+
+	public static TokenSource streamFile(Path path) throws IOException {
+		return stream(Utf8Source.map(path));
+	}
+
 	private void tokenize() {
+		while (step()) {
+			// Keep lexing until the EOF token has been emitted.
+		}
+	}
+
+	/**
+	 * Skips any whitespace and comments, then lexes the next token into the buffer.
+	 *
+	 * @return False once the EOF token has been emitted.
+	 */
+	boolean step() {
+		if (finished) {
+			return false;
+		}
 		skipWhitespace();
 		skipComments();
-		while (!input.isEmpty()) {
-			if (!isPrimitive()) {
-				if (isDigit()) {
-					if (isFloating()) {
-						tryRegex(GET_DECIMAL, FLOATCONST);
-					} else {
-						tryRegex(GET_INTEGER, INTCONST);
-					}
-				} else if (isIdent()) {
-					Matcher idt = GET_IDENTIFIER.matcher(input);
-					if (!idt.find()) {
-						error("Invalid identifier.");
-					}
-					String out = idt.group(0);
-					TokenType type = keywords.getOrDefault(out, IDENTIFIER);
-					consumeInput(out.length());
-					result.add(new Token(type, out, line, col));
-				} else if (isCharLiteral()) {
-					result.add(new Token(CHARLIT, parseCharacterLiteral(), line, col));
-				} else if (isString()) {
-					int strbegin = line;
-					int strbeginc = col;
-					String newstr = parseString();
-					result.add(new Token(STRINGLIT, newstr, strbegin, strbeginc));
+		if (pos >= end) {
+			result.add(EOF, pos, 0);
+			finished = true;
+			return false;
+		}
+		if (useDfa) {
+			lexWithDfa();
+		} else {
+			lexByHand();
+		}
+		return true;
+	}
+
+	private void lexWithDfa() {
+		long match = DfaLexer.CFLAT.match(input, pos, end, kernel);
+		int stop = DfaLexer.end(match);
+		switch (DfaLexer.action(match)) {
+			case DfaLexer.TOKEN -> {
+				TokenType type = DfaLexer.type(match);
+				if (type == IDENTIFIER) {
+					result.addName(names.intern(input, pos, stop), pos, stop - pos);
 				} else {
-					error("Unable to recognize " + input.charAt(0));
-					result.add(new Token(UNIMPLEMENTED, input.substring(0, 1), line, col));
-					consumeInput(1);
+					result.add(type, pos, stop - pos);
 				}
+				consumeInput(stop - pos);
 			}
-			skipWhitespace();
-			skipComments();
+			case DfaLexer.LITERAL -> scanLiteral(DfaLexer.type(match));
+			default -> scanUnrecognized();
 		}
-		result.add(new Token(EOF, "EOF", line, col));
 	}
 
-	private void skipWhitespace() {
-		int i = 0;
-		while (i < input.length() && Character.isWhitespace(input.charAt(i))) {
-			i++;
+	private void lexByHand() {
+		if (isPrimitive()) {
+			return;
+		}
+		char c = input.charAt(pos);
+		TokenType literal = TokenSpec.literalStart(c);
+		if (literal != null) {
+			scanLiteral(literal);
+		} else if (TokenSpec.isIdentifierStart(c)) {
+			int start = pos;
+			int stop = kernel.identifierEnd(input, start + 1, end);
+			TokenType type = keywordTable.lookup(input, start, stop);
+			consumeInput(stop - start);
+			if (type == IDENTIFIER) {
+				result.addName(names.intern(input, start, stop), start, stop - start);
+			} else {
+				result.add(type, start, stop - start);
+			}
+		} else {
+			scanUnrecognized();
 		}
-		consumeInput(i);
 	}
 
-	private void skipComments() {
-		if (input.startsWith("//")) {
-			consumeInput(2);
-			while (input.charAt(0) != '\n' && input.charAt(0) != '\r') {
-				consumeInput(1);
+	private void scanLiteral(TokenType kind) {
+		int start = pos;
+		switch (kind) {
+			case STRINGLIT -> {
+				String newstr = parseString();
+				result.addLiteral(STRINGLIT, newstr, start, pos - start);
 			}
-			consumeInput(1);
+			case CHARLIT -> {
+				String charLit = parseCharacterLiteral();
+				result.addLiteral(CHARLIT, charLit, start, pos - start);
+			}
+			default -> scanNumber();
 		}
-		skipWhitespace();
 	}
 
-	private boolean isPrimitive() {
-		for (Entry<String, TokenType> entry : primitives.entrySet()) {
-			String key = entry.getKey();
-			if (tryToken(key, primitives.get(key))) {
-				return true;
-			}
+	/**
+	 * Reports and skips a character that starts no token, such as a non-ASCII letter.
+	 */
+	private void scanUnrecognized() {
+		if (isIdent()) {
+			error("Invalid identifier.");
+		} else {
+			error("Unable to recognize " + charText(pos));
 		}
+		int length = charLength(pos);
+		result.add(UNIMPLEMENTED, pos, length);
+		consumeInput(length);
+	}
 
-		return false;
+	private void skipWhitespace() {
+		int i = pos;
+		while (true) {
+			i = kernel.whitespaceEnd(input, i, end);
+			// The kernel stops at anything that is not ASCII whitespace; only non-ASCII can still be whitespace.
+			if (i >= end || input.charAt(i) < 0x80) {
+				break;
+			}
+			if (utf8 == null) {
+				if (!Character.isWhitespace(input.charAt(i))) {
+					break;
+				}
+				i++;
+			} else {
+				if (!Character.isWhitespace(utf8.codePointAt(i))) {
+					break;
+				}
+				i += utf8.sequenceLength(i);
+			}
+		}
+		consumeInput(i - pos);
 	}
 
-	private boolean isDigit() {
-		return Character.isDigit(input.charAt(0));
+	private void skipComments() {
+		while (startsWith("//")) {
+			int i = kernel.lineBreak(input, pos + 2, end);
+			// The comment includes its terminating newline, if there is one.
+			consumeInput(Math.min(i + 1, end) - pos);
+			skipWhitespace();
+		}
 	}
 
-	private boolean isFloating() {
-		return IS_FLOATING.matcher(input).find();
+	private boolean isPrimitive() {
+		int match = operators.match(input, pos, end);
+		if (match == 0) {
+			return false;
+		}
+		int length = operators.textOf(match).length();
+		result.add(operators.typeOf(match), pos, length);
+		consumeInput(length);
+		return true;
 	}
 
-	private void tryRegex(Pattern p, TokenType ty) {
-		Matcher m = p.matcher(input);
-		if (m.lookingAt()) {
-			result.add(new Token(ty, m.group(), line, col));
-			consumeInput(m.end());
+	private void scanNumber() {
+		numbers.scan(input, pos, end);
+		int length = numbers.end - pos;
+		if (numbers.error != null) {
+			error(numbers.error);
+			result.add(UNIMPLEMENTED, pos, length);
+		} else {
+			result.addNumber(numbers.type, numbers.value, pos, length);
 		}
+		consumeInput(length);
 	}
 
 	private boolean isIdent() {
-		return Character.isAlphabetic(input.charAt(0)) || input.charAt(0) == '_';
+		char c = input.charAt(pos);
+		if (c >= 0x80 && utf8 != null) {
+			return Character.isAlphabetic(utf8.codePointAt(pos));
+		}
+		return Character.isAlphabetic(c) || c == '_';
+	}
+
+	/**
+	 * The length of the character at the given offset in input units: always 1 for character input, and the length
+	 * of the UTF-8 sequence for byte input.
+	 */
+	private int charLength(int at) {
+		return utf8 == null ? 1 : utf8.sequenceLength(at);
+	}
+
+	private String charText(int at) {
+		char c = input.charAt(at);
+		if (c >= 0x80 && utf8 != null) {
+			return Character.toString(utf8.codePointAt(at));
+		}
+		return String.valueOf(c);
 	}
 
 	private void error(String message) {
-		System.out.println("ERROR - Tokenizer: At line: " + line + ", character: " + col + ", " + message);
+		SourceFile file = result.file();
+		System.out.println("ERROR - Tokenizer: At line: " + file.line(pos) + ", character: " + file.column(pos) + ", "
+						   + message);
 	}
 
 	private void consumeInput(int amount) {
-		for (int i = 0; i < amount; ++i) {
-			char c = input.charAt(i);
-			if (c == '\n' || c == '\r') {
-				line++;
-				col = 1;
-			} else {
-				col++;
-			}
-		}
-		input = input.substring(amount);
+		pos += amount;
 	}
 
-	private boolean isCharLiteral() {
-		return input.charAt(0) == '\'';
+	private boolean startsWith(String expected) {
+		int length = expected.length();
+		if (end - pos < length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (input.charAt(pos + i) != expected.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	private String parseCharacterLiteral() {
 		consumeInput(1);
+		if (pos >= end) {
+			error("Unterminated character literal.");
+			return "";
+		}
 		String charLit;
-		if (input.charAt(0) == '\\') {
+		if (input.charAt(pos) == '\\' && pos + 1 < end) {
 			consumeInput(1);
-			String key = input.substring(0, 1);
+			String key = charText(pos);
 			charLit = escapeSequences.getOrDefault(key, key);
 		} else {
-			charLit = input.substring(0, 1);
+			charLit = charText(pos);
 		}
-		consumeInput(1);
-		if (input.charAt(0) == '\'') {
+		consumeInput(charLength(pos));
+		if (pos < end && input.charAt(pos) == '\'') {
 			consumeInput(1);
 		} else {
 			error("Unterminated string literal.");
@@ -251,45 +365,38 @@ public final class Tokenizer {
 		return charLit;
 	}
 
-	private boolean isString() {
-		return input.charAt(0) == '"';
-	}
-
 	private String parseString() {
 		StringBuilder stringLiteral = new StringBuilder(64);
 		consumeInput(1);
 		while (true) {
-			char c = input.charAt(0);
-			if (c == '\\') {
+			int run = kernel.stringRunEnd(input, pos, end);
+			if (run > pos) {
+				stringLiteral.append(input, pos, run);
+				consumeInput(run - pos);
+			}
+			if (pos >= end) {
+				error("Unterminated String Literal.");
+				break;
+			}
+			char c = input.charAt(pos);
+			if (c == '\\' && pos + 1 < end) {
 				consumeInput(1);
-				String key = input.substring(0, 1);
-				stringLiteral.append(escapeSequences.getOrDefault(key, key).charAt(0));
+				String key = charText(pos);
+				stringLiteral.append(escapeSequences.getOrDefault(key, key));
 			} else if (c == '\n' || c == '\r') {
 				error("Unterminated String Literal.");
 				break;
 			} else if (c == '"') {
 				consumeInput(1);
 				break;
+			} else if (c >= 0x80 && utf8 != null) {
+				stringLiteral.appendCodePoint(utf8.codePointAt(pos));
 			} else {
 				stringLiteral.append(c);
 			}
-			consumeInput(1);
-
-			if (input.isEmpty()) {
-				error("Unterminated String Literal.");
-				break;
-			}
+			consumeInput(charLength(pos));
 		}
 		return stringLiteral.toString();
 	}
 
-	private boolean tryToken(String expected, TokenType tokenType) {
-		if (input.startsWith(expected)) {
-			result.add(new Token(tokenType, expected, line, col));
-			consumeInput(expected.length());
-			return true;
-		}
-		return false;
-	}
-
 }
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * UTF-8 encoded source text viewed as a [CharSequence] of bytes. Indices are byte offsets and [#charAt(int)]
+ * returns the raw byte, which is the character itself for ASCII. The tokenizer only decodes multi-byte sequences
+ * where it needs the actual code point, through [#codePointAt(int)] and [#sequenceLength(int)]. Text is decoded
+ * when a slice is turned into a string.
+ * <p>
+ * A source made by [#splice(int, int, String)] is kept as [Runs] of byte buffers that it shares with the source it
+ * was edited from.
+ */
+public final class Utf8Source implements CharSequence {
+	private static final Runs.Storage<ByteBuffer> STORAGE = new Runs.Storage<>() {
+		@Override
+		public ByteBuffer allocate(int capacity) {
+			return ByteBuffer.allocate(capacity);
+		}
+
+		@Override
+		public void copy(ByteBuffer source, int from, ByteBuffer target, int to, int count, int shift) {
+			target.put(to, source, from, count);
+		}
+	};
+
+	private final ByteBuffer bytes;
+	private final int offset;
+	private final int length;
+	// Set instead of bytes for an edited source.
+	private final Runs<ByteBuffer> runs;
+
+	public Utf8Source(ByteBuffer bytes) {
+		this(bytes, bytes.position(), bytes.remaining());
+	}
+
+	private Utf8Source(ByteBuffer bytes, int offset, int length) {
+		this.bytes = bytes;
+		this.offset = offset;
+		this.length = length;
+		this.runs = null;
+	}
+
+	private Utf8Source(Runs<ByteBuffer> runs) {
+		this.bytes = null;
+		this.offset = 0;
+		this.length = runs.length();
+		this.runs = runs;
+	}
+
+	/**
+	 * Maps a file into memory without copying it onto the heap.
+	 */
+	public static Utf8Source map(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("The file " + path + " is too large to tokenize (" + size + " bytes).");
+			}
+			return new Utf8Source(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+		}
+	}
+
+	static boolean isContinuation(char b) {
+		return (b & 0xC0) == 0x80;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (runs == null) {
+			return (char) (bytes.get(offset + index) & 0xFF);
+		}
+		Runs.Run<ByteBuffer> run = runs.find(Objects.checkIndex(index, length));
+		return (char) (run.store.get(run.local(index)) & 0xFF);
+	}
+
+	/**
+	 * The number of bytes in the UTF-8 sequence that starts at the given index. Malformed sequences count as one
+	 * byte so that scanning always makes progress.
+	 */
+	public int sequenceLength(int index) {
+		int lead = charAt(index);
+		int expected;
+		if (lead < 0x80) {
+			return 1;
+		} else if (lead >= 0xF0 && lead < 0xF8) {
+			expected = 4;
+		} else if (lead >= 0xE0) {
+			expected = lead < 0xF0 ? 3 : 1;
+		} else if (lead >= 0xC0) {
+			expected = 2;
+		} else {
+			return 1;
+		}
+		if (index + expected > length) {
+			return 1;
+		}
+		for (int i = 1; i < expected; i++) {
+			if (!isContinuation(charAt(index + i))) {
+				return 1;
+			}
+		}
+		return expected;
+	}
+
+	/**
+	 * Decodes the code point that starts at the given index, or U+FFFD if the sequence there is malformed.
+	 */
+	public int codePointAt(int index) {
+		int lead = charAt(index);
+		int count = sequenceLength(index);
+		if (count == 1) {
+			return lead < 0x80 ? lead : 0xFFFD;
+		}
+		int codePoint = lead & (0xFF >> (count + 1));
+		for (int i = 1; i < count; i++) {
+			codePoint = (codePoint << 6) | (charAt(index + i) & 0x3F);
+		}
+		return codePoint;
+	}
+
+	/**
+	 * Copies {@code length} bytes starting at the given index into the front of an array.
+	 */
+	void copyTo(int index, byte[] destination, int length) {
+		Objects.checkFromIndexSize(index, length, this.length);
+		if (runs == null) {
+			bytes.get(offset + index, destination, 0, length);
+			return;
+		}
+		int copied = 0;
+		while (copied < length) {
+			Runs.Run<ByteBuffer> run = runs.find(index + copied);
+			int count = Math.min(length - copied, run.end - index - copied);
+			run.store.get(run.local(index + copied), destination, copied, count);
+			copied += count;
+		}
+	}
+
+	/**
+	 * Returns the bytes {@code [start, end)}. A slice of an edited source that spans more than one run is copied.
+	 */
+	@Override
+	public Utf8Source subSequence(int start, int end) {
+		if (start < 0 || end > length || start > end) {
+			throw new IndexOutOfBoundsException("Slice [" + start + ", " + end + ") of length " + length);
+		}
+		if (runs == null) {
+			return new Utf8Source(bytes, offset + start, end - start);
+		}
+		Runs.Run<ByteBuffer> run = start == end ? null : runs.find(start);
+		if (run != null && end <= run.end) {
+			return new Utf8Source(run.store, run.local(start), end - start);
+		}
+		byte[] slice = new byte[end - start];
+		copyTo(start, slice, slice.length);
+		return new Utf8Source(ByteBuffer.wrap(slice));
+	}
+
+	/**
+	 * Returns this source with {@code removed} bytes at {@code offset} replaced by the UTF-8 encoding of
+	 * {@code inserted}. The bytes outside the edit are shared with this source rather than copied, and this source
+	 * stays unchanged.
+	 */
+	public Utf8Source splice(int offset, int removed, String inserted) {
+		Objects.checkFromIndexSize(offset, removed, length);
+		byte[] encoded = inserted.getBytes(StandardCharsets.UTF_8);
+		Runs<ByteBuffer> base = runs != null ? runs : Runs.of(bytes, this.offset, length);
+		return new Utf8Source(
+				base.splice(offset, offset + removed, ByteBuffer.wrap(encoded), encoded.length, 0, STORAGE));
+	}
+
+	@Override
+	public String toString() {
+		byte[] raw = new byte[length];
+		copyTo(0, raw, length);
+		return new String(raw, StandardCharsets.UTF_8);
+	}
+}
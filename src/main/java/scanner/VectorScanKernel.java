@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import jdk.incubator.vector.*;
+
+import static jdk.incubator.vector.VectorOperators.*;
+
+/**
+ * A [ScanKernel] on the Vector API. Input is copied a block at a time into a scratch array, then classified one
+ * register at a time: 32 or 64 bytes of a [Utf8Source], or half as many chars of a [String]. Other inputs, and the
+ * first few units of every run, go through the scalar kernel, since most identifiers and gaps between tokens are
+ * shorter than a register.
+ * <p>
+ * Only loaded through [ScanKernel#create()], which falls back to scalar scanning if the vector module is missing.
+ */
+final class VectorScanKernel implements ScanKernel {
+	private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Short> CHARS = ShortVector.SPECIES_PREFERRED;
+	// Lane counts are powers of two, so both blocks hold a whole number of registers.
+	private static final int BYTE_BLOCK = BYTES.length() * 2;
+	private static final int CHAR_BLOCK = CHARS.length() * 2;
+	private static final int SCALAR_PREFIX = 8;
+
+	private static final int NOT_WHITESPACE = 0;
+	private static final int NOT_IDENTIFIER = 1;
+	private static final int LINE_BREAK = 2;
+	private static final int STRING_SPECIAL = 3;
+
+	private final ScalarScanKernel scalar = new ScalarScanKernel();
+	private final byte[] byteBlock = new byte[BYTE_BLOCK];
+	private final char[] charBlock = new char[CHAR_BLOCK];
+
+	private static boolean isVectorizable(CharSequence in) {
+		return in instanceof Utf8Source || in instanceof String;
+	}
+
+	private static VectorMask<Byte> stops(int kind, ByteVector v) {
+		return switch (kind) {
+			case NOT_WHITESPACE -> v.compare(EQ, (byte) ' ')
+					.or(v.sub((byte) '\t').compare(UNSIGNED_LE, (byte) ('\r' - '\t')))
+					.or(v.sub((byte) 0x1C).compare(UNSIGNED_LE, (byte) 3))
+					.not();
+			case NOT_IDENTIFIER -> v.or((byte) 0x20).sub((byte) 'a').compare(UNSIGNED_LE, (byte) ('z' - 'a'))
+					.or(v.sub((byte) '0').compare(UNSIGNED_LE, (byte) 9))
+					.or(v.compare(EQ, (byte) '_'))
+					.not();
+			case LINE_BREAK -> v.compare(EQ, (byte) '\n').or(v.compare(EQ, (byte) '\r'));
+			default -> v.compare(EQ, (byte) '"')
+					.or(v.compare(EQ, (byte) '\\'))
+					.or(v.compare(EQ, (byte) '\n'))
+					.or(v.compare(EQ, (byte) '\r'))
+					.or(v.compare(LT, (byte) 0));
+		};
+	}
+
+	private static VectorMask<Short> stops(int kind, ShortVector v) {
+		return switch (kind) {
+			case NOT_WHITESPACE -> v.compare(EQ, (short) ' ')
+					.or(v.sub((short) '\t').compare(UNSIGNED_LE, (short) ('\r' - '\t')))
+					.or(v.sub((short) 0x1C).compare(UNSIGNED_LE, (short) 3))
+					.not();
+			case NOT_IDENTIFIER -> v.or((short) 0x20).sub((short) 'a').compare(UNSIGNED_LE, (short) ('z' - 'a'))
+					.or(v.sub((short) '0').compare(UNSIGNED_LE, (short) 9))
+					.or(v.compare(EQ, (short) '_'))
+					.not();
+			case LINE_BREAK -> v.compare(EQ, (short) '\n').or(v.compare(EQ, (short) '\r'));
+			default -> v.compare(EQ, (short) '"')
+					.or(v.compare(EQ, (short) '\\'))
+					.or(v.compare(EQ, (short) '\n'))
+					.or(v.compare(EQ, (short) '\r'))
+					.or(v.compare(UNSIGNED_GE, (short) 0x80));
+		};
+	}
+
+	/**
+	 * Returns the first offset in {@code [from, to)} whose unit is one of the given kind of stops, or {@code to}.
+	 */
+	private int find(int kind, CharSequence in, int from, int to) {
+		if (in instanceof Utf8Source source) {
+			for (int block = from; block < to; block += BYTE_BLOCK) {
+				int length = Math.min(BYTE_BLOCK, to - block);
+				source.copyTo(block, byteBlock, length);
+				for (int i = 0; i < length; i += BYTES.length()) {
+					// firstTrue() is the lane count when no lane stops. Lanes past the copied length hold stale bytes; a
+					// stop there is ignored.
+					int lane = stops(kind, ByteVector.fromArray(BYTES, byteBlock, i)).firstTrue();
+					if (lane < BYTES.length() && i + lane < length) {
+						return block + i + lane;
+					}
+				}
+			}
+		} else {
+			String text = (String) in;
+			for (int block = from; block < to; block += CHAR_BLOCK) {
+				int length = Math.min(CHAR_BLOCK, to - block);
+				text.getChars(block, block + length, charBlock, 0);
+				for (int i = 0; i < length; i += CHARS.length()) {
+					int lane = stops(kind, ShortVector.fromCharArray(CHARS, charBlock, i)).firstTrue();
+					if (lane < CHARS.length() && i + lane < length) {
+						return block + i + lane;
+					}
+				}
+			}
+		}
+		return to;
+	}
+
+	@Override
+	public int whitespaceEnd(CharSequence in, int from, int to) {
+		int prefix = Math.min(to, from + SCALAR_PREFIX);
+		int i = scalar.whitespaceEnd(in, from, prefix);
+		if (i < prefix || i == to) {
+			return i;
+		}
+		return isVectorizable(in) ? find(NOT_WHITESPACE, in, i, to) : scalar.whitespaceEnd(in, i, to);
+	}
+
+	@Override
+	public int identifierEnd(CharSequence in, int from, int to) {
+		int prefix = Math.min(to, from + SCALAR_PREFIX);
+		int i = scalar.identifierEnd(in, from, prefix);
+		if (i < prefix || i == to) {
+			return i;
+		}
+		return isVectorizable(in) ? find(NOT_IDENTIFIER, in, i, to) : scalar.identifierEnd(in, i, to);
+	}
+
+	@Override
+	public int lineBreak(CharSequence in, int from, int to) {
+		int prefix = Math.min(to, from + SCALAR_PREFIX);
+		int i = scalar.lineBreak(in, from, prefix);
+		if (i < prefix || i == to) {
+			return i;
+		}
+		return isVectorizable(in) ? find(LINE_BREAK, in, i, to) : scalar.lineBreak(in, i, to);
+	}
+
+	@Override
+	public int stringRunEnd(CharSequence in, int from, int to) {
+		int prefix = Math.min(to, from + SCALAR_PREFIX);
+		int i = scalar.stringRunEnd(in, from, prefix);
+		if (i < prefix || i == to) {
+			return i;
+		}
+		return isVectorizable(in) ? find(STRING_SPECIAL, in, i, to) : scalar.stringRunEnd(in, i, to);
+	}
+
+	@Override
+	public int charStarts(CharSequence in, int from, int to) {
+		if (!(in instanceof Utf8Source source) || to - from < SCALAR_PREFIX) {
+			return scalar.charStarts(in, from, to);
+		}
+		int count = 0;
+		for (int block = from; block < to; block += BYTE_BLOCK) {
+			int length = Math.min(BYTE_BLOCK, to - block);
+			source.copyTo(block, byteBlock, length);
+			for (int i = 0; i < length; i += BYTES.length()) {
+				count += ByteVector.fromArray(BYTES, byteBlock, i)
+						.and((byte) 0xC0)
+						.compare(NE, (byte) 0x80, BYTES.indexInRange(i, length))
+						.trueCount();
+			}
+		}
+		return count;
+	}
+}
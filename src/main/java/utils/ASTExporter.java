@@ -0,0 +1,790 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package utils;
+
+import AST.ASTRoot.*;
+import AST.*;
+import AST.Declarations.*;
+import AST.Declarations.EnumDeclaration.*;
+import AST.Expressions.*;
+import AST.Statements.*;
+import TypeAndSymbolAnnotator.*;
+import visitor.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+/**
+ * Writes a tree as JSON or as S-expressions for tools outside the compiler, straight to a channel as UTF-8. Every node
+ * is an object whose first field is its kind, the simple name of its class, followed by its line, character and
+ * associated type, then its own fields:
+ * <pre>
+ * {"kind":"BinaryOp","line":1,"character":5,"type":null,"op":"Add","left":{...},"right":{...}}
+ * (BinaryOp :line 1 :character 5 :type nil :op "Add" :left (...) :right (...))
+ * </pre>
+ * A field's value is a node, a list of them, a string, a number, a boolean or null (nil). Parameters and enum members
+ * are objects with no kind, and the cases of a switch are objects of kind {@code Case} with no position. A node's
+ * fields that are not nodes come before those that are. The value of a {@code Floating} is null if it is not finite,
+ * which only a tree built by hand can hold, as the scanner rejects such literals.
+ * <p>
+ * The tree is exported in one pass, as [ASTPrinter] prints it: visiting a node writes its header and plain fields
+ * and queues the rest on an explicit stack, so nothing is built for a node and the depth of the tree does not matter.
+ */
+public final class ASTExporter implements Visitor<Void> {
+	public enum Format {
+		JSON, SEXPR;
+
+		/**
+		 * The format named by a value of the {@code --emit} option.
+		 *
+		 * @return The format, or null if there is none by that name.
+		 */
+		public static Format of(String name) {
+			return switch (name) {
+				case "ast-json" -> JSON;
+				case "ast-sexpr" -> SEXPR;
+				default -> null;
+			};
+		}
+	}
+
+	private static final byte VISIT = 0;
+	private static final byte FIELD = 1;
+	/**
+	 * Opens a node that has no position of its own.
+	 */
+	private static final byte BEGIN = 2;
+	private static final byte CLOSE = 3;
+	private static final byte OPEN_LIST = 4;
+	private static final byte SEPARATOR = 5;
+	private static final byte CLOSE_LIST = 6;
+	private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+	private final WritableByteChannel out;
+	private final boolean json;
+	private final byte[] buffer = new byte[1 << 16];
+	private final ByteBuffer wrapper = ByteBuffer.wrap(buffer);
+	private int length;
+
+	private byte[] actions = new byte[64];
+	private Object[] items = new Object[64];
+	private int top;
+
+	/**
+	 * The queued parts of the node being visited, in order, until they are pushed.
+	 */
+	private byte[] partActions = new byte[16];
+	private Object[] partItems = new Object[16];
+	private int parts;
+
+	public ASTExporter(WritableByteChannel out, Format format) {
+		this.out = out;
+		this.json = format == Format.JSON;
+	}
+
+	/**
+	 * Exports a program, then flushes the buffered output to the channel: as JSON, an array of the declarations one to
+	 * a line; as S-expressions, each declaration on a line of its own.
+	 *
+	 * @throws UncheckedIOException If the channel fails.
+	 */
+	public void export(List<? extends Declaration> program) {
+		if (json) {
+			write('[');
+		}
+		for (int i = 0; i < program.size(); i++) {
+			if (json) {
+				if (i > 0) {
+					write(',');
+				}
+				write('\n');
+			}
+			export(program.get(i));
+			if (!json) {
+				write('\n');
+			}
+		}
+		if (json) {
+			write('\n');
+			write(']');
+			write('\n');
+		}
+		flush();
+	}
+
+	/**
+	 * Exports a node. The output may stay buffered until [#flush()].
+	 *
+	 * @throws UncheckedIOException If the channel fails.
+	 */
+	public void export(ASTRoot node) {
+		push(VISIT, node);
+		while (top > 0) {
+			top--;
+			byte action = actions[top];
+			Object item = items[top];
+			items[top] = null;
+			switch (action) {
+				case VISIT -> {
+					if (item != null) {
+						((ASTRoot) item).accept(this);
+						pushParts();
+					} else {
+						writeNull();
+					}
+				}
+				case FIELD -> key((String) item);
+				case BEGIN -> begin((String) item);
+				case CLOSE, CLOSE_LIST -> write(json ? (action == CLOSE ? '}' : ']') : ')');
+				case OPEN_LIST -> write(json ? '[' : '(');
+				default -> write(json ? ',' : ' ');
+			}
+		}
+	}
+
+	/**
+	 * Writes out what is buffered.
+	 *
+	 * @throws UncheckedIOException If the channel fails.
+	 */
+	public void flush() {
+		wrapper.clear().limit(length);
+		try {
+			while (wrapper.hasRemaining()) {
+				out.write(wrapper);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		length = 0;
+	}
+
+	private void push(byte action, Object item) {
+		if (top == actions.length) {
+			actions = Arrays.copyOf(actions, top * 2);
+			items = Arrays.copyOf(items, top * 2);
+		}
+		actions[top] = action;
+		items[top] = item;
+		top++;
+	}
+
+	/**
+	 * Pushes the parts of the node just visited so that the first is written next.
+	 */
+	private void pushParts() {
+		for (int i = parts - 1; i >= 0; i--) {
+			push(partActions[i], partItems[i]);
+			partItems[i] = null;
+		}
+		parts = 0;
+	}
+
+	private void part(byte action, Object item) {
+		if (parts == partActions.length) {
+			partActions = Arrays.copyOf(partActions, parts * 2);
+			partItems = Arrays.copyOf(partItems, parts * 2);
+		}
+		partActions[parts] = action;
+		partItems[parts] = item;
+		parts++;
+	}
+
+	/**
+	 * Writes the start of a node: its kind, position and type.
+	 */
+	private void header(String kind, ASTRoot node) {
+		begin(kind);
+		key("line");
+		number(node.getLine());
+		key("character");
+		number(node.getCharacter());
+		key("type");
+		Type type = node.getAssociatedType();
+		string(type != null ? type.toString() : null);
+	}
+
+	private void begin(String kind) {
+		if (json) {
+			ascii("{\"kind\":");
+			string(kind);
+		} else {
+			write('(');
+			ascii(kind);
+		}
+	}
+
+	/**
+	 * Writes the name of a field that is not the first of its object.
+	 */
+	private void key(String name) {
+		if (json) {
+			write(',');
+			write('"');
+			ascii(name);
+			write('"');
+			write(':');
+		} else {
+			write(' ');
+			write(':');
+			ascii(name);
+			write(' ');
+		}
+	}
+
+	/**
+	 * Opens an object with no kind, writing the name of its first field.
+	 */
+	private void object(String firstKey) {
+		if (json) {
+			write('{');
+			write('"');
+			ascii(firstKey);
+			write('"');
+			write(':');
+		} else {
+			write('(');
+			write(':');
+			ascii(firstKey);
+			write(' ');
+		}
+	}
+
+	/**
+	 * Closes a node or an object written with [#object(String)].
+	 */
+	private void close() {
+		write(json ? '}' : ')');
+	}
+
+	private void field(String name, String value) {
+		key(name);
+		string(value);
+	}
+
+	private void field(String name, long value) {
+		key(name);
+		number(value);
+	}
+
+	private void field(String name, boolean value) {
+		key(name);
+		ascii(value ? "true" : "false");
+	}
+
+	/**
+	 * Queues a field holding a node.
+	 */
+	private void child(String name, ASTRoot node) {
+		part(FIELD, name);
+		part(VISIT, node);
+	}
+
+	/**
+	 * Queues a field holding a list of nodes, which may be absent.
+	 */
+	private void children(String name, List<? extends ASTRoot> nodes) {
+		part(FIELD, name);
+		if (nodes == null) {
+			part(VISIT, null);
+			return;
+		}
+		part(OPEN_LIST, null);
+		for (int i = 0; i < nodes.size(); i++) {
+			if (i > 0) {
+				part(SEPARATOR, null);
+			}
+			part(VISIT, nodes.get(i));
+		}
+		part(CLOSE_LIST, null);
+	}
+
+	private void end() {
+		part(CLOSE, null);
+	}
+
+	private void parameters(List<TypedVar> parameters) {
+		key("parameters");
+		write(json ? '[' : '(');
+		for (int i = 0; i < parameters.size(); i++) {
+			if (i > 0) {
+				write(json ? ',' : ' ');
+			}
+			TypedVar parameter = parameters.get(i);
+			object("name");
+			string(parameter.name());
+			field("type", parameter.type());
+			close();
+		}
+		write(json ? ']' : ')');
+	}
+
+	private void writeNull() {
+		ascii(json ? "null" : "nil");
+	}
+
+	/**
+	 * Writes a string literal, or null. Quotes, backslashes and control characters are escaped,
+	 * so that a top-level declaration stays on one line.
+	 */
+	private void string(String text) {
+		if (text == null) {
+			writeNull();
+			return;
+		}
+		write('"');
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '"' || c == '\\') {
+				write('\\');
+				write((byte) c);
+			} else if (c < 0x20) {
+				escape(c);
+			} else if (c < 0x80) {
+				write((byte) c);
+			} else if (c < 0x800) {
+				write((byte) (0xC0 | c >> 6));
+				write((byte) (0x80 | c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+					   && Character.isLowSurrogate(text.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, text.charAt(++i));
+				write((byte) (0xF0 | codePoint >> 18));
+				write((byte) (0x80 | codePoint >> 12 & 0x3F));
+				write((byte) (0x80 | codePoint >> 6 & 0x3F));
+				write((byte) (0x80 | codePoint & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				// An unpaired surrogate has no UTF-8 encoding.
+				write((byte) '?');
+			} else {
+				write((byte) (0xE0 | c >> 12));
+				write((byte) (0x80 | c >> 6 & 0x3F));
+				write((byte) (0x80 | c & 0x3F));
+			}
+		}
+		write('"');
+	}
+
+	private void escape(char c) {
+		write('\\');
+		switch (c) {
+			case '\n' -> write('n');
+			case '\r' -> write('r');
+			case '\t' -> write('t');
+			default -> {
+				ascii("u00");
+				write(HEX[c >> 4]);
+				write(HEX[c & 0xF]);
+			}
+		}
+	}
+
+	/**
+	 * Writes text known to be ASCII.
+	 */
+	private void ascii(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			write((byte) text.charAt(i));
+		}
+	}
+
+	private void number(long value) {
+		if (value < 0) {
+			write('-');
+			if (value == Long.MIN_VALUE) {
+				ascii("9223372036854775808");
+				return;
+			}
+			value = -value;
+		}
+		if (value >= 10) {
+			number(value / 10);
+		}
+		write((byte) ('0' + value % 10));
+	}
+
+	private void write(char c) {
+		write((byte) c);
+	}
+
+	private void write(byte b) {
+		if (length == buffer.length) {
+			flush();
+		}
+		buffer[length++] = b;
+	}
+
+	@Override
+	public Void visit(Lambda node) {
+		header("Lambda", node);
+		parameters(node.params);
+		field("returnType", node.returnType);
+		child("body", node.block);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(BinaryOp node) {
+		header("BinaryOp", node);
+		field("op", node.op.toString());
+		child("left", node.left);
+		child("right", node.right);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(UnaryOp node) {
+		header("UnaryOp", node);
+		field("op", node.op.toString());
+		child("operand", node.inner);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(Ternary node) {
+		header("Ternary", node);
+		child("condition", node.condition);
+		child("consequent", node.consequent);
+		child("alternate", node.alternate);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(ListAccess node) {
+		header("ListAccess", node);
+		field("ident", node.ident);
+		child("index", node.index);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(VariableAccess node) {
+		header("VariableAccess", node);
+		field("ident", node.ident);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(Modify node) {
+		header("Modify", node);
+		field("returnPrevious", node.returnPrevious);
+		child("target", node.ident);
+		child("by", node.modifyBy);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(ScopeOf node) {
+		header("ScopeOf", node);
+		field("scope", node.inScope);
+		child("expression", node.perform);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(Call node) {
+		header("Call", node);
+		field("function", node.func);
+		children("arguments", node.params);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(IntegerNode node) {
+		header("IntegerNode", node);
+		field("value", node.value);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(Floating node) {
+		header("Floating", node);
+		key("value");
+		if (Double.isFinite(node.value)) {
+			ascii(Double.toString(node.value));
+		} else {
+			writeNull();
+		}
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(Bool node) {
+		header("Bool", node);
+		field("value", node.value);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(StringLit node) {
+		header("StringLit", node);
+		field("value", node.value);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(CharNode node) {
+		header("CharNode", node);
+		field("value", String.valueOf(node.value));
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(ErrorNode node) {
+		header("ErrorNode", node);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(If node) {
+		header("If", node);
+		child("condition", node.conditional);
+		child("consequent", node.consequent);
+		child("alternate", node.alternate);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(For node) {
+		header("For", node);
+		child("initializer", node.initializer);
+		child("condition", node.conditional);
+		child("iteration", node.iteration);
+		child("body", node.body);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(ForEach node) {
+		header("ForEach", node);
+		field("variable", node.iterval);
+		field("collection", node.collectionvar);
+		child("body", node.body);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(While node) {
+		header("While", node);
+		child("condition", node.conditional);
+		child("body", node.body);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(DoWhile node) {
+		header("DoWhile", node);
+		child("condition", node.conditional);
+		child("body", node.body);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(Continue node) {
+		header("Continue", node);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(Break node) {
+		header("Break", node);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(Label node) {
+		header("Label", node);
+		field("ident", node.ident);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(Switch node) {
+		header("Switch", node);
+		child("expression", node.switchon);
+		part(FIELD, "cases");
+		part(OPEN_LIST, null);
+		for (int i = 0; i < node.cases.size(); i++) {
+			Entry<Expression, Statement> entry = node.cases.get(i);
+			if (i > 0) {
+				part(SEPARATOR, null);
+			}
+			part(BEGIN, "Case");
+			child("condition", entry.key());
+			child("body", entry.value());
+			end();
+		}
+		part(CLOSE_LIST, null);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(Assignment node) {
+		header("Assignment", node);
+		child("target", node.ident);
+		child("value", node.expr);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(Return node) {
+		header("Return", node);
+		child("value", node.nullRet ? null : node.expr);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(Goto node) {
+		header("Goto", node);
+		field("label", node.gotoident);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(Try node) {
+		header("Try", node);
+		field("catches", node.catches);
+		field("catchesAs", node.catchesAs);
+		child("block", node.block);
+		child("catch", node.catch_);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(Throw node) {
+		header("Throw", node);
+		field("ident", node.ident);
+		children("arguments", node.params);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(Block node) {
+		header("Block", node);
+		children("statements", node.statements);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(SimpleVarDeclaration node) {
+		header("SimpleVarDeclaration", node);
+		field("name", node.typedVar.name());
+		field("varType", node.typedVar.type());
+		child("value", node.definition);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(ArrayDeclaration node) {
+		header("ArrayDeclaration", node);
+		field("name", node.typedVar.name());
+		field("varType", node.typedVar.type());
+		field("size", node.size);
+		children("values", node.definition);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(EnumDeclaration node) {
+		header("EnumDeclaration", node);
+		field("name", node.name);
+		key("members");
+		if (node.members == null) {
+			writeNull();
+		} else {
+			write(json ? '[' : '(');
+			for (int i = 0; i < node.members.size(); i++) {
+				if (i > 0) {
+					write(json ? ',' : ' ');
+				}
+				EnumMember member = node.members.get(i);
+				object("name");
+				string(member.name());
+				field("value", member.id());
+				close();
+			}
+			write(json ? ']' : ')');
+		}
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(ClassDeclaration node) {
+		header("ClassDeclaration", node);
+		field("name", node.name);
+		key("inheritsFrom");
+		if (node.inheritsFrom == null) {
+			writeNull();
+		} else {
+			write(json ? '[' : '(');
+			for (int i = 0; i < node.inheritsFrom.size(); i++) {
+				if (i > 0) {
+					write(json ? ',' : ' ');
+				}
+				string(node.inheritsFrom.get(i));
+			}
+			write(json ? ']' : ')');
+		}
+		children("members", node.members);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(StructDeclaration node) {
+		header("StructDeclaration", node);
+		field("name", node.name);
+		children("members", node.members);
+		end();
+		return null;
+	}
+
+	@Override
+	public Void visit(FunctionDeclaration node) {
+		header("FunctionDeclaration", node);
+		field("name", node.name);
+		parameters(node.parameters);
+		field("returnType", node.returnType);
+		child("body", node.body);
+		end();
+		return null;
+	}
+}
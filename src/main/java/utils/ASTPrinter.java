@@ -0,0 +1,749 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package utils;
+
+import AST.ASTRoot.*;
+import AST.*;
+import AST.Declarations.*;
+import AST.Declarations.EnumDeclaration.*;
+import AST.Expressions.*;
+import AST.Statements.*;
+import visitor.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Writes a tree as indented text, one field per line, straight to a [Writer]. Each node is printed as its name, its
+ * fields in braces, and its position:
+ * <pre>
+ * BinaryOp{
+ * 	op=Add,
+ * 	left=VariableAccess{
+ * 		ident=x
+ * 	}@(1, 5),
+ * 	...
+ * }@(1, 5)
+ * </pre>
+ * Names, types and values have their whitespace removed and break the line after each comma, as the formatted
+ * output of [ASTRoot#toString()] always has.
+ * <p>
+ * The tree is printed in one pass without building any strings for it. Visiting a node queues its parts: text, the
+ * braces and commas around its fields, and its children. The parts are kept on an explicit stack and written in order,
+ * a child being visited when its turn comes, so the output of every node is written once and the depth of the tree
+ * does not matter.
+ */
+public final class ASTPrinter implements Visitor<Void> {
+	private static final char INDENTATION = '\t';
+	private static final byte VISIT = 0;
+	private static final byte TEXT = 1;
+	private static final byte OPEN = 2;
+	/**
+	 * Closes a brace and writes the position of the node with it, if there is one.
+	 */
+	private static final byte CLOSE = 3;
+	private static final byte COMMA = 4;
+
+	private final Writer out;
+	private final char[] buffer = new char[8192];
+	private int length;
+	private int indentLevel;
+
+	private byte[] actions = new byte[64];
+	private Object[] items = new Object[64];
+	private int top;
+
+	/**
+	 * The parts of the node being visited, in order, until they are pushed.
+	 */
+	private byte[] partActions = new byte[16];
+	private Object[] partItems = new Object[16];
+	private int parts;
+	/**
+	 * Whether the next field is the first in its braces, so needs no comma before it.
+	 */
+	private boolean first;
+
+	public ASTPrinter(Writer out) {
+		this.out = out;
+	}
+
+	/**
+	 * Prints each declaration followed by a newline, then flushes the writer.
+	 *
+	 * @throws UncheckedIOException If the writer fails.
+	 */
+	public void print(List<? extends Declaration> program) {
+		for (Declaration declaration : program) {
+			print(declaration);
+			write('\n');
+		}
+		flush();
+	}
+
+	/**
+	 * Prints a node. The output may stay buffered until [#flush()].
+	 *
+	 * @throws UncheckedIOException If the writer fails.
+	 */
+	public void print(ASTRoot node) {
+		indentLevel = 0;
+		push(VISIT, node);
+		while (top > 0) {
+			top--;
+			byte action = actions[top];
+			Object item = items[top];
+			items[top] = null;
+			switch (action) {
+				case VISIT -> {
+					((ASTRoot) item).accept(this);
+					pushParts();
+				}
+				case TEXT -> text((String) item);
+				case OPEN -> {
+					write('{');
+					indentLevel++;
+					newLine();
+				}
+				case CLOSE -> {
+					indentLevel--;
+					newLine();
+					write('}');
+					if (item != null) {
+						position((ASTRoot) item);
+					}
+				}
+				default -> {
+					write(',');
+					newLine();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes out what is buffered and flushes the writer.
+	 *
+	 * @throws UncheckedIOException If the writer fails.
+	 */
+	public void flush() {
+		try {
+			out.write(buffer, 0, length);
+			length = 0;
+			out.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void push(byte action, Object item) {
+		if (top == actions.length) {
+			actions = Arrays.copyOf(actions, top * 2);
+			items = Arrays.copyOf(items, top * 2);
+		}
+		actions[top] = action;
+		items[top] = item;
+		top++;
+	}
+
+	/**
+	 * Pushes the parts of the node just visited so that the first is written next.
+	 */
+	private void pushParts() {
+		for (int i = parts - 1; i >= 0; i--) {
+			push(partActions[i], partItems[i]);
+			partItems[i] = null;
+		}
+		parts = 0;
+	}
+
+	private void part(byte action, Object item) {
+		if (parts == partActions.length) {
+			partActions = Arrays.copyOf(partActions, parts * 2);
+			partItems = Arrays.copyOf(partItems, parts * 2);
+		}
+		partActions[parts] = action;
+		partItems[parts] = item;
+		parts++;
+	}
+
+	private void begin(String name) {
+		part(TEXT, name);
+		open();
+	}
+
+	private void open() {
+		part(OPEN, null);
+		first = true;
+	}
+
+	/**
+	 * Closes the braces opened last, with the position of a node or with none.
+	 */
+	private void end(ASTRoot node) {
+		part(CLOSE, node);
+		first = false;
+	}
+
+	private void separate() {
+		if (!first) {
+			part(COMMA, null);
+		}
+		first = false;
+	}
+
+	/**
+	 * Starts a field.
+	 *
+	 * @param label The field's name and equals sign.
+	 */
+	private void field(String label) {
+		separate();
+		part(TEXT, label);
+	}
+
+	/**
+	 * Adds text to the current field, or starts an unnamed one.
+	 */
+	private void value(String text) {
+		first = false;
+		part(TEXT, text);
+	}
+
+	private void child(ASTRoot node) {
+		part(node != null ? VISIT : TEXT, node != null ? node : "null");
+	}
+
+	/**
+	 * Adds a child in braces of its own, closed with the position of its parent.
+	 */
+	private void braced(ASTRoot child, ASTRoot parent) {
+		open();
+		child(child);
+		end(parent);
+	}
+
+	/**
+	 * Adds nodes as unnamed fields.
+	 */
+	private void children(List<? extends ASTRoot> nodes) {
+		if (nodes != null) {
+			for (ASTRoot node : nodes) {
+				separate();
+				child(node);
+			}
+		}
+	}
+
+	/**
+	 * Adds nodes in braces, closed with the position of their parent.
+	 */
+	private void list(List<? extends ASTRoot> nodes, ASTRoot parent) {
+		open();
+		children(nodes);
+		end(parent);
+	}
+
+	/**
+	 * Adds a comma-separated list of expressions in parentheses.
+	 */
+	private void arguments(List<? extends ASTRoot> arguments) {
+		value("(");
+		for (int i = 0; i < arguments.size(); i++) {
+			if (i > 0) {
+				value(",");
+			}
+			child(arguments.get(i));
+		}
+		value(")");
+	}
+
+	private void signature(List<TypedVar> parameters, String returnType) {
+		value("(");
+		for (int i = 0; i < parameters.size(); i++) {
+			TypedVar parameter = parameters.get(i);
+			if (i > 0) {
+				value(",");
+			}
+			value(parameter.name());
+			value(":");
+			value(parameter.type());
+		}
+		value(")->");
+		value(returnType);
+	}
+
+	private void text(String text) {
+		if (text == null) {
+			text = "null";
+		}
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == ',') {
+				write(',');
+				newLine();
+			} else if (!Character.isWhitespace(c)) {
+				write(c);
+			}
+		}
+	}
+
+	private void position(ASTRoot node) {
+		write('@');
+		write('(');
+		number(node.getLine());
+		write(',');
+		write(' ');
+		number(node.getCharacter());
+		write(')');
+	}
+
+	private void number(int value) {
+		if (value < 0) {
+			write('-');
+			value = -value;
+		}
+		if (value >= 10) {
+			number(value / 10);
+		}
+		write((char) ('0' + value % 10));
+	}
+
+	private void newLine() {
+		write('\n');
+		for (int i = 0; i < indentLevel; i++) {
+			write(INDENTATION);
+		}
+	}
+
+	private void write(char c) {
+		if (length == buffer.length) {
+			try {
+				out.write(buffer, 0, length);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			length = 0;
+		}
+		buffer[length++] = c;
+	}
+
+	@Override
+	public Void visit(Lambda node) {
+		begin("Lambda");
+		field("parameters=");
+		signature(node.params, node.returnType);
+		field("body=");
+		braced(node.block, node);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(BinaryOp node) {
+		begin("BinaryOp");
+		field("op=");
+		value(node.op.toString());
+		field("left=");
+		child(node.left);
+		field("right=");
+		child(node.right);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(UnaryOp node) {
+		begin("UnaryOp");
+		field("op=");
+		value(node.op.toString());
+		field("inner=");
+		child(node.inner);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(Ternary node) {
+		begin("Ternary");
+		field("condition=");
+		child(node.condition);
+		field("consequent=");
+		child(node.consequent);
+		field("alternate=");
+		child(node.alternate);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(ListAccess node) {
+		begin("ListAccess");
+		field("ident=");
+		value(node.ident);
+		field("index=");
+		child(node.index);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(VariableAccess node) {
+		begin("VariableAccess");
+		field("ident=");
+		value(node.ident);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(Modify node) {
+		begin("Modify");
+		field("ident=");
+		child(node.ident);
+		field("by=");
+		child(node.modifyBy);
+		field("returnPrevious=");
+		value(node.returnPrevious ? "true" : "false");
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(ScopeOf node) {
+		begin("ScopeOf");
+		field("inScope=");
+		value(node.inScope);
+		field("do=");
+		child(node.perform);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(Call node) {
+		begin("Call");
+		field("name=");
+		value(node.func);
+		field("params=");
+		arguments(node.params);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(IntegerNode node) {
+		begin("Integer");
+		value(Long.toString(node.value));
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(Floating node) {
+		begin("Floating");
+		value(Double.toString(node.value));
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(Bool node) {
+		begin("BoolNode");
+		value(node.value ? "true" : "false");
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(StringLit node) {
+		begin("StringLit");
+		value(node.value);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(CharNode node) {
+		begin("Char");
+		value(String.valueOf(node.value));
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(ErrorNode node) {
+		begin("ErrorNode");
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(If node) {
+		begin("If");
+		field("conditional=");
+		child(node.conditional);
+		field("consequent=");
+		braced(node.consequent, node);
+		field("alternate=");
+		if (node.alternate != null) {
+			braced(node.alternate, node);
+		} else {
+			value("null");
+		}
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(For node) {
+		begin("For");
+		if (node.initializer != null) {
+			field("initialization=");
+			child(node.initializer);
+		}
+		if (node.conditional != null) {
+			field("conditional=");
+			child(node.conditional);
+		}
+		if (node.iteration != null) {
+			field("iteration=");
+			child(node.iteration);
+		}
+		field("body=");
+		braced(node.body, node);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(ForEach node) {
+		begin("ForEach");
+		field("iterationVariable=");
+		value(node.iterval);
+		field("collectionVariable=");
+		value(node.collectionvar);
+		field("body=");
+		braced(node.body, node);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(While node) {
+		begin("While");
+		field("conditional=");
+		child(node.conditional);
+		field("body=");
+		child(node.body);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(DoWhile node) {
+		begin("DoWhile");
+		field("conditional=");
+		child(node.conditional);
+		field("body=");
+		braced(node.body, node);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(Continue node) {
+		begin("Continue");
+		value("null");
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(Break node) {
+		begin("Break");
+		value("null");
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(Label node) {
+		begin("Label");
+		value(node.ident);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(Switch node) {
+		begin("Switch");
+		field("expr=");
+		child(node.switchon);
+		for (Entry<Expression, Statement> entry : node.cases) {
+			separate();
+			begin("Case");
+			field("condition=");
+			child(entry.key());
+			field("block=");
+			child(entry.value());
+			end(null);
+		}
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(Assignment node) {
+		begin("Assignment");
+		field("ident=");
+		child(node.ident);
+		field("value=");
+		child(node.expr);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(Return node) {
+		begin("Return");
+		field("expr=");
+		child(node.nullRet ? null : node.expr);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(Goto node) {
+		begin("Goto");
+		value(node.gotoident);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(Try node) {
+		begin("Try");
+		field("block=");
+		child(node.block);
+		field("catches=");
+		value(node.catches);
+		field("catchesAs=");
+		value(node.catchesAs);
+		field("catch=");
+		child(node.catch_);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(Throw node) {
+		begin("Throw");
+		field("ident=");
+		value(node.ident);
+		field("params=");
+		arguments(node.params);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(Block node) {
+		begin("Block");
+		children(node.statements);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(SimpleVarDeclaration node) {
+		begin("VarDeclaration");
+		field("name=");
+		value(node.typedVar.name());
+		field("type=");
+		value(node.typedVar.type());
+		field("assignTo=");
+		child(node.definition);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(ArrayDeclaration node) {
+		begin("ArrayDeclaration");
+		field("typedVar=");
+		value(node.typedVar.toString());
+		field("size=");
+		value(Long.toString(node.size));
+		field("definition=");
+		list(node.definition, node);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(EnumDeclaration node) {
+		begin("EnumDeclaration");
+		field("name=");
+		value(node.name);
+		field("members=");
+		open();
+		if (node.members != null) {
+			for (EnumMember member : node.members) {
+				separate();
+				value("[" + member.name() + ":" + member.id() + "]");
+			}
+		}
+		end(node);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(ClassDeclaration node) {
+		begin("ClassDeclaration");
+		field("name=");
+		value(node.name);
+		field("members=");
+		list(node.members, node);
+		field("inheritsFrom=");
+		open();
+		if (node.inheritsFrom != null) {
+			for (String parent : node.inheritsFrom) {
+				separate();
+				value(parent);
+			}
+		}
+		end(node);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(StructDeclaration node) {
+		begin("StructDeclaration");
+		field("name=");
+		value(node.name);
+		field("members=");
+		list(node.members, node);
+		end(node);
+		return null;
+	}
+
+	@Override
+	public Void visit(FunctionDeclaration node) {
+		begin("FuncDeclaration");
+		field("name=");
+		value(node.name);
+		field("parameters=");
+		signature(node.parameters, node.returnType);
+		field("body=");
+		braced(node.body, node);
+		end(node);
+		return null;
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package utils;
+
+/**
+ * A source position packed into a long: the line in the upper 32 bits and the column in the lower 32. Positions are
+ * taken for every node the parser builds, so they are passed around as primitives instead of objects.
+ */
+public final class Position {
+	/**
+	 * The position of tokens that were not read from a source, such as the end-of-input sentinel.
+	 */
+	public static final long NONE = of(-1, -1);
+
+	private Position() {
+	}
+
+	public static long of(int line, int column) {
+		return (long) line << 32 | (column & 0xFFFFFFFFL);
+	}
+
+	public static int line(long position) {
+		return (int) (position >> 32);
+	}
+
+	public static int column(long position) {
+		return (int) position;
+	}
+}
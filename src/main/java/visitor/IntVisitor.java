@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package visitor;
+
+import AST.Declarations.*;
+import AST.Expressions.*;
+import AST.Statements.*;
+
+/**
+ * A [Visitor] that computes an int, such as a folded constant or the size of a subtree, without boxing it. Called
+ * through [Visitable#accept(IntVisitor)].
+ */
+public interface IntVisitor {
+	int visit(Lambda node);
+
+	int visit(BinaryOp node);
+
+	int visit(UnaryOp node);
+
+	int visit(Ternary node);
+
+	int visit(ListAccess node);
+
+	int visit(VariableAccess node);
+
+	int visit(Modify node);
+
+	int visit(ScopeOf node);
+
+	int visit(Call node);
+
+	int visit(IntegerNode node);
+
+	int visit(Floating node);
+
+	int visit(Bool node);
+
+	int visit(StringLit node);
+
+	int visit(CharNode node);
+
+	int visit(ErrorNode node);
+
+	int visit(If node);
+
+	int visit(For node);
+
+	int visit(ForEach node);
+
+	int visit(While node);
+
+	int visit(DoWhile node);
+
+	int visit(Continue node);
+
+	int visit(Break node);
+
+	int visit(Label node);
+
+	int visit(Switch node);
+
+	int visit(Assignment node);
+
+	int visit(Return node);
+
+	int visit(Goto node);
+
+	int visit(Try node);
+
+	int visit(Throw node);
+
+	int visit(Block node);
+
+	int visit(SimpleVarDeclaration node);
+
+	int visit(ArrayDeclaration node);
+
+	int visit(EnumDeclaration node);
+
+	int visit(ClassDeclaration node);
+
+	int visit(StructDeclaration node);
+
+	int visit(FunctionDeclaration node);
+}
\ No newline at end of file
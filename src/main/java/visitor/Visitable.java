@@ -7,5 +7,7 @@
 package visitor;
 
 public interface Visitable {
-	Object accept(Visitor visitor);
+	<R> R accept(Visitor<R> visitor);
+
+	int accept(IntVisitor visitor);
 }
@@ -10,74 +10,83 @@ import AST.Declarations.*;
 import AST.Expressions.*;
 import AST.Statements.*;
 
-public interface Visitor {
-	Object visit(Lambda node);
+/**
+ * An operation on each kind of node, called through [Visitable#accept(Visitor)]. A visitor has a method for every
+ * class of node, so adding a class breaks every visitor until it handles the new node.
+ *
+ * @param <R> The result of visiting a node. A visitor that returns nothing uses [Void]; one that computes an int uses
+ *            [IntVisitor] instead, so that its results are not boxed.
+ */
+public interface Visitor<R> {
+	R visit(Lambda node);
+
+	R visit(BinaryOp node);
 
-	Object visit(BinaryOp node);
+	R visit(UnaryOp node);
 
-	Object visit(UnaryOp node);
+	R visit(Ternary node);
 
-	Object visit(Ternary node);
+	R visit(ListAccess node);
 
-	Object visit(ListAccess node);
+	R visit(VariableAccess node);
 
-	Object visit(VariableAccess node);
+	R visit(Modify node);
 
-	Object visit(Modify node);
+	R visit(ScopeOf node);
 
-	Object visit(ScopeOf node);
+	R visit(Call node);
 
-	Object visit(Call node);
+	R visit(IntegerNode node);
 
-	Object visit(IntegerNode node);
+	R visit(Floating node);
 
-	Object visit(Floating node);
+	R visit(Bool node);
 
-	Object visit(Bool node);
+	R visit(StringLit node);
 
-	Object visit(StringLit node);
+	R visit(CharNode node);
 
-	Object visit(CharNode node);
+	R visit(ErrorNode node);
 
-	Object visit(If node);
+	R visit(If node);
 
-	Object visit(For node);
+	R visit(For node);
 
-	Object visit(ForEach node);
+	R visit(ForEach node);
 
-	Object visit(While node);
+	R visit(While node);
 
-	Object visit(DoWhile node);
+	R visit(DoWhile node);
 
-	Object visit(Continue node);
+	R visit(Continue node);
 
-	Object visit(Break node);
+	R visit(Break node);
 
-	Object visit(Label node);
+	R visit(Label node);
 
-	Object visit(Switch node);
+	R visit(Switch node);
 
-	Object visit(Assignment node);
+	R visit(Assignment node);
 
-	Object visit(Return node);
+	R visit(Return node);
 
-	Object visit(Goto node);
+	R visit(Goto node);
 
-	Object visit(Try node);
+	R visit(Try node);
 
-	Object visit(Throw node);
+	R visit(Throw node);
 
-	Object visit(Block node);
+	R visit(Block node);
 
-	Object visit(SimpleVarDeclaration node);
+	R visit(SimpleVarDeclaration node);
 
-	Object visit(ArrayDeclaration node);
+	R visit(ArrayDeclaration node);
 
-	Object visit(EnumDeclaration node);
+	R visit(EnumDeclaration node);
 
-	Object visit(ClassDeclaration node);
+	R visit(ClassDeclaration node);
 
-	Object visit(StructDeclaration node);
+	R visit(StructDeclaration node);
 
-	Object visit(FunctionDeclaration node);
+	R visit(FunctionDeclaration node);
 }
\ No newline at end of file
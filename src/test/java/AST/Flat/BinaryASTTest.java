@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package AST.Flat;
+
+import AST.*;
+import AST.Declarations.*;
+import AST.Statements.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import parser.*;
+import scanner.*;
+import utils.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that a program written as a [FlatAST] to a [BinaryAST] reads back as the same tree, that other files are
+ * rejected, and that [LazyDeclarations] decode a body when it is first used.
+ */
+class BinaryASTTest {
+	private static final String FUNCTION = "fun f(a: int): int {\n\treturn a + 41;\n}\n";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void roundTripsSamples() throws IOException {
+		for (String sample : List.of("test.cd", "testExpr.cd", "testFloats.cd")) {
+			TokenBuffer tokens = Tokenizer.scan(Files.readString(Path.of(sample)));
+			List<Declaration> program = DeclarationParser.parseProgram(new ParsingContext(tokens));
+			FlatAST tree = FlatAST.from(program, tokens.names());
+			byte[] bytes = write(tree);
+
+			List<Declaration> lazy = BinaryAST.read(ByteBuffer.wrap(bytes));
+			List<Declaration> eager = BinaryAST.readFully(ByteBuffer.wrap(bytes));
+			for (List<Declaration> decoded : List.of(lazy, eager)) {
+				assertEquals(program.toString(), decoded.toString(), sample);
+				// The export holds every node's kind, fields and position.
+				assertEquals(export(program), export(decoded), sample);
+				assertSameColumns(tree, FlatAST.from(decoded, new NameTable()));
+			}
+		}
+	}
+
+	@Test
+	void readsFromFile() throws IOException {
+		TokenBuffer tokens = Tokenizer.scan(FUNCTION);
+		List<Declaration> program = DeclarationParser.parseProgram(new ParsingContext(tokens));
+		Path file = directory.resolve("f.ast");
+		BinaryAST.write(FlatAST.from(program, tokens.names()), file);
+		assertEquals(program.toString(), BinaryAST.read(file).toString());
+	}
+
+	@Test
+	void rejectsOtherFiles() throws IOException {
+		byte[] bytes = write(flatten(FUNCTION));
+		byte[] magic = bytes.clone();
+		magic[0] = 'X';
+		assertRejected(magic, "Not a binary AST.");
+		byte[] version = bytes.clone();
+		ByteBuffer.wrap(version).putInt(4, BinaryAST.VERSION + 1);
+		assertRejected(version, "Binary AST version " + (BinaryAST.VERSION + 1) + " is not supported; expected "
+								+ BinaryAST.VERSION + ".");
+		assertRejected(Arrays.copyOf(bytes, BinaryAST.HEADER_SIZE - 1), "Not a binary AST.");
+		assertRejected(Arrays.copyOf(bytes, bytes.length - 1), "The binary AST is truncated or its header is corrupt.");
+		assertRejected(new byte[0], "Not a binary AST.");
+	}
+
+	@Test
+	void decodesBodiesOnFirstUse() throws IOException {
+		byte[] bytes = write(flatten(FUNCTION));
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		List<Declaration> program = BinaryAST.read(buffer);
+		List<Declaration> statements = ((Block) ((FunctionDeclaration) program.get(0)).body).statements;
+		assertInstanceOf(LazyDeclarations.class, statements);
+
+		// The only constant is the one in the body, so changing it before the body is used shows in the tree.
+		int constants = buffer.getInt(28);
+		assertEquals(41, buffer.getLong(constants));
+		buffer.putLong(constants, 42);
+		assertTrue(statements.toString().contains("42"), statements::toString);
+		// Once decoded, the list no longer reads the buffer, and behaves as an ordinary list.
+		buffer.putLong(constants, 43);
+		assertTrue(statements.toString().contains("42"), statements::toString);
+		statements.add(statements.get(0));
+		assertEquals(2, statements.size());
+		statements.remove(1);
+		assertEquals(1, statements.size());
+
+		buffer.putLong(constants, 41);
+		List<Declaration> eager = BinaryAST.readFully(buffer);
+		buffer.putLong(constants, 42);
+		assertFalse(eager.toString().contains("42"), eager::toString);
+	}
+
+	private static FlatAST flatten(String text) {
+		TokenBuffer tokens = Tokenizer.scan(text);
+		return FlatAST.from(DeclarationParser.parseProgram(new ParsingContext(tokens)), tokens.names());
+	}
+
+	private static byte[] write(FlatAST tree) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryAST.write(tree, out);
+		return out.toByteArray();
+	}
+
+	private static String export(List<Declaration> program) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ASTExporter(Channels.newChannel(out), ASTExporter.Format.JSON).export(program);
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	private static void assertSameColumns(FlatAST expected, FlatAST actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int node = 0; node < expected.size(); node++) {
+			String at = "Node " + node;
+			assertEquals(expected.kind(node), actual.kind(node), at);
+			assertEquals(expected.firstChild(node), actual.firstChild(node), at);
+			assertEquals(expected.nextSibling(node), actual.nextSibling(node), at);
+			assertEquals(expected.position(node), actual.position(node), at);
+		}
+	}
+
+	private static void assertRejected(byte[] bytes, String message) {
+		for (boolean eager : new boolean[]{false, true}) {
+			IOException e = assertThrows(IOException.class, () -> {
+				if (eager) {
+					BinaryAST.readFully(ByteBuffer.wrap(bytes));
+				} else {
+					BinaryAST.read(ByteBuffer.wrap(bytes));
+				}
+			});
+			assertEquals(message, e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package AST.Flat;
+
+import AST.*;
+import org.junit.jupiter.api.*;
+import parser.*;
+import scanner.*;
+import scanner.Token.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that [FlatAST#from(List, NameTable)] lays a program out in pre-order under a [Kind#PROGRAM] root, and that
+ * [FlatAST#walk(FlatVisitor)] and [FlatCursor] visit it in that order.
+ */
+class FlatASTTest {
+	private static final int DEPTH = 100_000;
+
+	@Test
+	void layoutOfSamples() throws IOException {
+		for (String sample : List.of("test.cd", "testExpr.cd", "testFloats.cd")) {
+			TokenBuffer tokens = Tokenizer.scan(Files.readString(Path.of(sample)));
+			List<Declaration> program = DeclarationParser.parseProgram(new ParsingContext(tokens));
+			FlatAST tree = FlatAST.from(program, tokens.names());
+			assertPreOrder(tree);
+
+			assertEquals(Kind.PROGRAM, tree.kind(tree.root()));
+			assertEquals(program.size(), tree.childCount(tree.root()));
+			for (int i = 0; i < program.size(); i++) {
+				int node = tree.child(tree.root(), i);
+				assertEquals(program.get(i).getLine(), tree.line(node), sample);
+				assertEquals(program.get(i).getCharacter(), tree.column(node), sample);
+			}
+			assertEquals(FlatAST.NO_NODE, tree.child(tree.root(), program.size()));
+
+			// Every float literal in the source is a node, whatever order the tree puts them in.
+			List<Double> literals = new ArrayList<>();
+			for (int i = 0; i < tokens.size(); i++) {
+				if (tokens.type(i) == TokenType.FLOATCONST) {
+					literals.add(Double.longBitsToDouble(tokens.value(i)));
+				}
+			}
+			List<Double> nodes = new ArrayList<>();
+			for (int node = 0; node < tree.size(); node++) {
+				if (tree.kind(node) == Kind.FLOATING) {
+					nodes.add(tree.doubleValue(node));
+				}
+			}
+			Collections.sort(literals);
+			Collections.sort(nodes);
+			assertEquals(literals, nodes, sample);
+		}
+	}
+
+	@Test
+	void walksDeepTrees() {
+		String text = "fun f(a: int): int {\n" + "{".repeat(DEPTH) + "a = 1;" + "}".repeat(DEPTH) + "\n}\n";
+		TokenBuffer tokens = Tokenizer.scan(text);
+		FlatAST tree = FlatAST.from(DeclarationParser.parseProgram(new ParsingContext(tokens)), tokens.names());
+		assertTrue(tree.size() > DEPTH);
+		assertPreOrder(tree);
+	}
+
+	/**
+	 * Checks that each node's first child follows it, that each subtree is contiguous, and that a walk and a cursor
+	 * both go through the nodes in index order with their parents on the path.
+	 */
+	private static void assertPreOrder(FlatAST tree) {
+		assertEquals(0, tree.root());
+		int[] next = {0};
+		Deque<Integer> path = new ArrayDeque<>();
+		tree.walk(new FlatVisitor() {
+			@Override
+			public boolean enter(FlatAST tree, int node) {
+				assertEquals(next[0]++, node);
+				int child = tree.firstChild(node);
+				assertTrue(child == FlatAST.NO_NODE || child == node + 1, "Node " + node);
+				path.push(node);
+				return true;
+			}
+
+			@Override
+			public void exit(FlatAST tree, int node) {
+				assertEquals(node, path.pop());
+				// The node's subtree is everything entered since it was.
+				int sibling = tree.nextSibling(node);
+				assertTrue(sibling == FlatAST.NO_NODE || sibling == next[0], "Node " + node);
+			}
+		});
+		assertEquals(tree.size(), next[0]);
+		assertTrue(path.isEmpty());
+
+		FlatCursor cursor = tree.cursor();
+		for (int node = 0; node < tree.size(); node++) {
+			assertEquals(node, cursor.node());
+			assertEquals(tree.kind(node), cursor.kind());
+			if (!cursor.gotoFirstChild()) {
+				while (!cursor.gotoNextSibling()) {
+					if (!cursor.gotoParent()) {
+						assertEquals(tree.size() - 1, node);
+						break;
+					}
+				}
+			}
+		}
+		assertEquals(0, cursor.depth());
+	}
+}
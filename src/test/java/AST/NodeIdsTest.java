@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package AST;
+
+import AST.Flat.*;
+import org.junit.jupiter.api.*;
+import parser.*;
+import scanner.*;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that every way of getting a tree numbers its nodes as [NodeIds] documents: densely from 0 with one id each,
+ * except for a tree read lazily from a binary file, whose ids are unique but leave gaps.
+ */
+class NodeIdsTest {
+	private static final String FUNCTIONS = """
+			fun f(a: int): int {
+				var x: int = a * 2;
+				x += a;
+				return x > 1 ? g(x, a) : -x;
+			}
+			fun g(a: int, b: int): int {
+				while (a < b) { a++; }
+				return a;
+			}
+			""";
+
+	@Test
+	void parserNumbersSamples() throws IOException {
+		for (String sample : List.of("test.cd", "testExpr.cd", "testFloats.cd")) {
+			List<Declaration> program = DeclarationParser.parseProgram(new ParsingContext(Tokenizer.scan(
+					Files.readString(Path.of(sample)))));
+			int count = assertDense(program);
+			assertEquals(count, NodeIds.assign(program));
+			assertEquals(count, assertDense(program));
+		}
+	}
+
+	@Test
+	void parallelParserNumbersMergedSlices() {
+		String text = FUNCTIONS.replace("fun f", "fun f%1$d").replace("fun g", "fun g%1$d");
+		StringBuilder program = new StringBuilder();
+		for (int i = 0; i < 2000; i++) {
+			program.append(text.formatted(i));
+		}
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			TokenBuffer tokens = Tokenizer.scan(program);
+			ParsingContext context = new ParsingContext(tokens);
+			List<Declaration> parsed = ParallelParser.parseProgram(context, pool);
+			assertEquals(4000, parsed.size());
+			assertEquals(NodeIds.assign(parsed), assertDense(parsed));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void incrementalParserNumbersSplicedTrees() {
+		IncrementalParser.Tree tree = IncrementalParser.parse(Tokenizer.scan(FUNCTIONS));
+		int before = assertDense(tree.declarations());
+		int offset = FUNCTIONS.indexOf("a * 2") + 4;
+		IncrementalParser.Tree edited = IncrementalParser.reparse(tree,
+				new IncrementalLexer.Edit(offset, 1, "(2 + a * 3)"));
+		// The function after the edit is kept, so the tree was spliced rather than parsed again.
+		assertSame(tree.declarations().get(1), edited.declarations().get(1));
+		assertEquals(before + 4, assertDense(edited.declarations()));
+	}
+
+	@Test
+	void binaryFilesKeepIdsUnique() throws IOException {
+		TokenBuffer tokens = Tokenizer.scan(FUNCTIONS);
+		List<Declaration> program = DeclarationParser.parseProgram(new ParsingContext(tokens));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		FlatAST tree = FlatAST.from(program, tokens.names());
+		BinaryAST.write(tree, out);
+
+		// The decoded compound assignment does not share its target with its operation, so it has one more node.
+		assertEquals(assertDense(program) + 1, assertDense(BinaryAST.readFully(ByteBuffer.wrap(out.toByteArray()))));
+		// Walking the lazily read tree decodes the function bodies, which numbers their nodes.
+		List<Integer> ids = idsOf(BinaryAST.read(ByteBuffer.wrap(out.toByteArray())));
+		assertEquals(ids.size(), new HashSet<>(ids).size(), "Two nodes with the same id");
+		assertTrue(Collections.min(ids) >= 0);
+		assertTrue(Collections.max(ids) < tree.size());
+		assertTrue(Collections.max(ids) >= ids.size(), "The ids have no gaps");
+	}
+
+	/**
+	 * Checks that the nodes of a tree have the ids 0 to one less than their number, one each.
+	 *
+	 * @return The number of nodes.
+	 */
+	private static int assertDense(List<Declaration> program) {
+		List<Integer> ids = idsOf(program);
+		BitSet seen = new BitSet();
+		for (int id : ids) {
+			assertTrue(id >= 0 && id < ids.size(), "Id " + id + " of " + ids.size() + " nodes");
+			assertFalse(seen.get(id), "Two nodes with id " + id);
+			seen.set(id);
+		}
+		return ids.size();
+	}
+
+	/**
+	 * Finds every node of a tree through the fields of the nodes, rather than through [NodeIds], and returns the id of
+	 * each. A node reached twice, such as the target of a compound assignment, counts once.
+	 */
+	private static List<Integer> idsOf(List<Declaration> program) {
+		Map<ASTRoot, Integer> nodes = new IdentityHashMap<>();
+		Deque<Object> stack = new ArrayDeque<>(program);
+		while (!stack.isEmpty()) {
+			Object value = stack.pop();
+			if (value instanceof Collection<?> collection) {
+				stack.addAll(collection);
+			} else if (value instanceof Record record) {
+				for (RecordComponent component : record.getClass().getRecordComponents()) {
+					push(stack, read(component.getAccessor(), record));
+				}
+			} else if (value instanceof ASTRoot node && !nodes.containsKey(node)) {
+				nodes.put(node, node.getId());
+				for (Class<?> type = node.getClass(); type != ASTRoot.class; type = type.getSuperclass()) {
+					for (Field field : type.getDeclaredFields()) {
+						if (!Modifier.isStatic(field.getModifiers())) {
+							field.setAccessible(true);
+							push(stack, read(field, node));
+						}
+					}
+				}
+			}
+		}
+		return new ArrayList<>(nodes.values());
+	}
+
+	private static void push(Deque<Object> stack, Object value) {
+		if (value instanceof ASTRoot || value instanceof Collection<?> || value instanceof Record) {
+			stack.push(value);
+		}
+	}
+
+	private static Object read(Object member, Object from) {
+		try {
+			return member instanceof Field field ? field.get(from) : ((Method) member).invoke(from);
+		} catch (ReflectiveOperationException e) {
+			throw new AssertionError(e);
+		}
+	}
+}
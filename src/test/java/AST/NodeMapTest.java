@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package AST;
+
+import AST.Expressions.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.function.*;
+import utils.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks [NodeMap], [IntNodeMap] and [BitNodeSet] against a map keyed by node, including past their capacity, and
+ * that they refuse nodes without an id.
+ */
+class NodeMapTest {
+	private static final int NODES = 1000;
+	private static final String NO_ID = "A VariableAccess at line 3 has no id. Its tree must be numbered with "
+										+ "NodeIds.assign.";
+
+	@Test
+	void matchesMapOnRandomChanges() {
+		List<ASTRoot> nodes = new ArrayList<>();
+		for (int i = 0; i < NODES; i++) {
+			ASTRoot node = new VariableAccess("v" + i, -1, Position.of(1, 1));
+			node.setId(i);
+			nodes.add(node);
+		}
+		// Capacities below the number of nodes make the tables grow.
+		NodeMap<String> objects = new NodeMap<>(NODES / 10);
+		IntNodeMap ints = new IntNodeMap(NODES / 10, -1);
+		BitNodeSet bits = new BitNodeSet(NODES / 10);
+		Map<ASTRoot, Integer> expected = new IdentityHashMap<>();
+		Random random = new Random(25);
+		for (int step = 0; step < 20_000; step++) {
+			ASTRoot node = nodes.get(random.nextInt(NODES));
+			int value = random.nextInt(100);
+			switch (random.nextInt(8)) {
+				case 0 -> {
+					Integer previous = expected.remove(node);
+					assertEquals(previous == null ? null : previous.toString(), objects.remove(node));
+					ints.remove(node);
+					assertEquals(previous != null, bits.remove(node));
+				}
+				case 1 -> {
+					// Null is not a value.
+					expected.remove(node);
+					objects.put(node, null);
+					ints.remove(node);
+					bits.remove(node);
+				}
+				case 2 -> {
+					if (random.nextInt(50) == 0) {
+						expected.clear();
+						objects.clear();
+						ints.clear();
+						bits.clear();
+					}
+				}
+				default -> {
+					Integer previous = expected.put(node, value);
+					assertEquals(previous == null ? null : previous.toString(), objects.put(node, "" + value));
+					ints.put(node, value);
+					assertEquals(previous == null, bits.add(node));
+				}
+			}
+			assertEquals(expected.size(), objects.size());
+			assertEquals(expected.size(), ints.size());
+			assertEquals(expected.size(), bits.size());
+			assertEquals(expected.isEmpty(), objects.isEmpty() && ints.isEmpty() && bits.isEmpty());
+		}
+		for (ASTRoot node : nodes) {
+			Integer value = expected.get(node);
+			assertEquals(value == null ? null : value.toString(), objects.get(node));
+			assertEquals(value != null, objects.containsKey(node));
+			assertEquals(value == null ? -1 : value, ints.get(node));
+			assertEquals(value != null, ints.containsKey(node));
+			assertEquals(value != null, bits.contains(node));
+		}
+	}
+
+	@Test
+	void readsNodesPastCapacityAsMissing() {
+		ASTRoot node = new VariableAccess("a", -1, Position.of(1, 1));
+		node.setId(100);
+		assertNull(new NodeMap<String>(4).get(node));
+		assertNull(new NodeMap<String>(4).put(node, null));
+		assertEquals(7, new IntNodeMap(4, 7).get(node));
+		assertFalse(new IntNodeMap(4, 7).containsKey(node));
+		assertFalse(new BitNodeSet(4).contains(node));
+		assertFalse(new BitNodeSet(4).remove(node));
+	}
+
+	@Test
+	void refusesNodesWithoutIds() {
+		ASTRoot node = new VariableAccess("a", -1, Position.of(3, 5));
+		assertEquals(-1, node.getId());
+		assertNoId(() -> new NodeMap<String>().get(node));
+		assertNoId(() -> new NodeMap<String>().put(node, "a"));
+		assertNoId(() -> new NodeMap<String>().containsKey(node));
+		assertNoId(() -> new IntNodeMap(16, 0).get(node));
+		assertNoId(() -> new IntNodeMap(16, 0).put(node, 1));
+		assertNoId(() -> new BitNodeSet().contains(node));
+		assertNoId(() -> new BitNodeSet().add(node));
+	}
+
+	private static void assertNoId(Executable use) {
+		assertEquals(NO_ID, assertThrows(IllegalArgumentException.class, use).getMessage());
+	}
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package parser;
+
+import AST.*;
+import org.junit.jupiter.api.*;
+import scanner.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that statements and expressions nested a hundred thousand levels deep parse on a 1 MB thread stack, and that
+ * parsing on explicit stacks gives the trees, token extents, diagnostics and warnings of the recursive parsers.
+ */
+class DeepNestingTest {
+	private static final int DEPTH = 100_000;
+	private static final int STACK_SIZE = 1 << 20;
+	/**
+	 * Limits on the levels parsed on the thread stack, compared with parsing everything recursively.
+	 */
+	private static final int[] LIMITS = {0, 1, 2, ParsingContext.MAX_RECURSION};
+	/**
+	 * Text to insert into the sample programs, chosen to open and close nesting and to break statements.
+	 */
+	private static final String[] INSERTS = {"{", "}", "(", ")", ";", "if (x > 1) ", "else ", "while (x) ",
+			"lambda (q: int): int { return q; }", "return ", "x = ", "+", "-", "!", "do ", "try { } catch (e: E) { }"};
+
+	@Test
+	void parentheses() {
+		assertParsesOnSmallStack("var x: int = " + "(a + ".repeat(DEPTH) + "a" + ")".repeat(DEPTH) + ";");
+	}
+
+	@Test
+	void prefixOperators() {
+		assertParsesOnSmallStack("var x: int = " + "-~".repeat(DEPTH / 2) + "!".repeat(DEPTH / 2) + "a;");
+	}
+
+	@Test
+	void blocks() {
+		assertParsesOnSmallStack("{".repeat(DEPTH) + "a = 1;" + "}".repeat(DEPTH));
+	}
+
+	@Test
+	void elseIfChains() {
+		assertParsesOnSmallStack("if (a > 0) { a = 1; }" + " else if (a > 1) { a = 2; }".repeat(DEPTH));
+	}
+
+	@Test
+	void loops() {
+		assertParsesOnSmallStack("while (a > 0) for (var i: int = 0; i < a; i++) foreach (x: xs) do ".repeat(DEPTH / 4)
+								 + "a = 1;" + " while (a < 2);".repeat(DEPTH / 4));
+	}
+
+	@Test
+	void tryStatements() {
+		assertParsesOnSmallStack("try { ".repeat(DEPTH) + "a = 1;" + " } catch (e: Exception) { }".repeat(DEPTH));
+	}
+
+	@Test
+	void lambdas() {
+		assertParsesOnSmallStack("return " + "lambda (x: int): int { return ".repeat(DEPTH) + "x;" + " }".repeat(DEPTH));
+		assertParsesOnSmallStack("var f: fn = " + "lambda (x: int): fn { var g: fn = ".repeat(DEPTH) + "x;"
+								 + " return g; }".repeat(DEPTH) + " return f;");
+		assertParsesOnSmallStack("return g(" + "lambda (x: int): int { return g(".repeat(DEPTH) + "x); }"
+								 + ") }".repeat(DEPTH - 1) + ")");
+	}
+
+	@Test
+	void explicitStacksMatchRecursiveParseOfGeneratedPrograms() {
+		Random random = new Random(18);
+		for (int i = 0; i < 200; i++) {
+			StringBuilder text = new StringBuilder("fun f(a: int): int {\n");
+			for (int j = 0; j < 5; j++) {
+				statement(text, random, 0);
+			}
+			assertSameAtEveryLimit(text.append("}\n").toString());
+		}
+	}
+
+	@Test
+	void explicitStacksMatchRecursiveParseOfMutatedSamples() throws IOException {
+		Random random = new Random(18);
+		for (String sample : List.of("test.cd", "testExpr.cd", "testFloats.cd")) {
+			String original = Files.readString(Path.of(sample));
+			assertSameAtEveryLimit(original);
+			for (int i = 0; i < 100; i++) {
+				StringBuilder text = new StringBuilder(original);
+				for (int edit = 0; edit < 3; edit++) {
+					int offset = random.nextInt(text.length() + 1);
+					if (random.nextBoolean()) {
+						text.delete(offset, Math.min(text.length(), offset + random.nextInt(8)));
+					} else {
+						text.insert(offset, INSERTS[random.nextInt(INSERTS.length)]);
+					}
+				}
+				assertSameAtEveryLimit(text.toString());
+			}
+		}
+	}
+
+	/**
+	 * Parses the statements in a function with the default limit, on a thread whose stack is too small to parse them
+	 * recursively.
+	 */
+	private static void assertParsesOnSmallStack(String statements) {
+		String text = "fun f(a: int): int {\n" + statements + "\n}\n";
+		ParsingContext context = new ParsingContext(Tokenizer.scan(text));
+		context.holdWarnings();
+		int[] nodes = new int[1];
+		runOnSmallStack(() -> {
+			List<Declaration> program = DeclarationParser.parseProgram(context);
+			assertEquals(1, program.size());
+			nodes[0] = NodeIds.assign(program);
+		});
+		assertTrue(context.diagnostics().isEmpty(), () -> context.diagnostics().get(0).toString());
+		assertTrue(nodes[0] > DEPTH / 2, "Only " + nodes[0] + " nodes");
+	}
+
+	private static void runOnSmallStack(Runnable parse) {
+		Throwable[] failure = new Throwable[1];
+		Thread thread = new Thread(null, () -> {
+			try {
+				parse.run();
+			} catch (Throwable e) {
+				failure[0] = e;
+			}
+		}, "deep", STACK_SIZE);
+		thread.start();
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			throw new AssertionError(e);
+		}
+		if (failure[0] instanceof Error error) {
+			throw error;
+		}
+		if (failure[0] != null) {
+			throw new AssertionError(failure[0]);
+		}
+	}
+
+	private static void assertSameAtEveryLimit(String text) {
+		TokenBuffer tokens = Tokenizer.scan(text);
+		Function<Integer, List<String>> parse = limit -> {
+			ParsingContext context = new ParsingContext(tokens);
+			context.setMaxRecursion(limit);
+			context.holdWarnings();
+			List<Declaration> program = DeclarationParser.parseProgram(context);
+			List<String> result = new ArrayList<>(List.of(program.toString(), IncrementalParserTest.extents(program)));
+			result.addAll(IncrementalParserTest.diagnostics(context.diagnostics()));
+			result.addAll(context.heldWarnings());
+			return result;
+		};
+		List<String> expected = parse.apply(Integer.MAX_VALUE);
+		for (int limit : LIMITS) {
+			assertEquals(expected, parse.apply(limit), () -> "Limit " + limit + " on:\n" + text);
+		}
+	}
+
+	/**
+	 * Appends a random statement whose expressions and nested statements are at most a few levels deep.
+	 */
+	private static void statement(StringBuilder text, Random random, int depth) {
+		int kind = depth > 4 ? random.nextInt(4) : random.nextInt(12);
+		switch (kind) {
+			case 0 -> text.append("a = ").append(expression(random, depth)).append(";\n");
+			case 1 -> text.append("return ").append(expression(random, depth)).append(";\n");
+			case 2 -> text.append("var v: int = ").append(expression(random, depth)).append(";\n");
+			case 3 -> text.append(expression(random, depth)).append(random.nextInt(8) == 0 ? " + ;\n" : ";\n");
+			case 4 -> {
+				text.append("if (").append(expression(random, depth)).append(") ");
+				statement(text, random, depth + 1);
+				if (random.nextBoolean()) {
+					text.append("else ");
+					statement(text, random, depth + 1);
+				}
+			}
+			case 5 -> {
+				text.append("while (").append(expression(random, depth)).append(") ");
+				statement(text, random, depth + 1);
+			}
+			case 6 -> {
+				text.append("do ");
+				statement(text, random, depth + 1);
+				text.append("while (").append(expression(random, depth)).append(");\n");
+			}
+			case 7 -> {
+				text.append("for (var i: int = 0; i < a; i++) ");
+				statement(text, random, depth + 1);
+			}
+			case 8 -> {
+				text.append("try { ");
+				statement(text, random, depth + 1);
+				text.append("} catch (e: Exception) { ");
+				statement(text, random, depth + 1);
+				text.append("}\n");
+			}
+			case 9 -> {
+				text.append("switch (a) { case 1: ");
+				statement(text, random, depth + 1);
+				text.append("default: { a = 2; } }\n");
+			}
+			default -> {
+				text.append("{\n");
+				for (int i = random.nextInt(3); i >= 0; i--) {
+					statement(text, random, depth + 1);
+				}
+				text.append("}\n");
+			}
+		}
+	}
+
+	private static String expression(Random random, int depth) {
+		if (depth > 6) {
+			return "a";
+		}
+		return switch (random.nextInt(depth > 3 ? 3 : 9)) {
+			case 0 -> "a";
+			case 1 -> String.valueOf(random.nextInt(10));
+			case 2 -> expression(random, depth + 1) + (random.nextBoolean() ? " < " : " * ")
+					  + expression(random, depth + 1);
+			case 3 -> "(" + expression(random, depth + 1) + ")";
+			case 4 -> "-" + expression(random, depth + 1);
+			case 5 -> "g(" + expression(random, depth + 1) + ", " + expression(random, depth + 1) + ")";
+			case 6 -> expression(random, depth + 1) + " ? " + expression(random, depth + 1) + " : "
+					  + expression(random, depth + 1);
+			default -> {
+				StringBuilder lambda = new StringBuilder("lambda (x: int): int {\n");
+				statement(lambda, random, depth + 1);
+				yield lambda.append("}").toString();
+			}
+		};
+	}
+}
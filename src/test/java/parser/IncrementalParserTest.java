@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package parser;
+
+import AST.*;
+import AST.Declarations.*;
+import AST.Statements.*;
+import org.junit.jupiter.api.*;
+import scanner.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Applies random edits to test.cd and checks that each [IncrementalParser#reparse] gives the tree, token extents and
+ * diagnostics of parsing the edited text from scratch.
+ */
+class IncrementalParserTest {
+	private static final int STEPS = 200;
+	/**
+	 * Text to insert, chosen to open and close blocks, split and join lines and tokens, and break statements.
+	 */
+	private static final String[] INSERTS = {"x", " ", "\n", "1", "+", ";", "{", "}", "var q = 2;", "\n\n", "(", ")",
+			"y = 3;", "fun", "if (x > 1) { z = 1; }", "if (x + 1) { z = 1; }", "// c\n", "\"s\"", "\r\n", "é"};
+
+	private static PrintStream console;
+
+	@BeforeAll
+	static void silenceWarnings() {
+		console = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+	}
+
+	@AfterAll
+	static void restoreOutput() {
+		System.setOut(console);
+	}
+
+	@Test
+	void reparseMatchesFullParse() throws IOException {
+		String original = Files.readString(Path.of("test.cd"));
+		for (long seed = 1; seed <= 3; seed++) {
+			Random random = new Random(seed);
+			String text = original;
+			IncrementalParser.Tree tree = IncrementalParser.parse(Tokenizer.scan(text));
+			for (int step = 0; step < STEPS; step++) {
+				int offset = random.nextInt(text.length() + 1);
+				int removed = random.nextInt(3) == 0 ? Math.min(random.nextInt(6), text.length() - offset) : 0;
+				String inserted = random.nextInt(4) == 0 ? "" : INSERTS[random.nextInt(INSERTS.length)];
+				if (removed == 0 && inserted.isEmpty()) {
+					inserted = "z";
+				}
+				text = text.substring(0, offset) + inserted + text.substring(offset + removed);
+
+				tree = IncrementalParser.reparse(tree, new IncrementalLexer.Edit(offset, removed, inserted));
+				IncrementalParser.Tree full = IncrementalParser.parse(Tokenizer.scan(text));
+				String edit = "Seed " + seed + ", step " + step + ": " + removed + " removed and "
+							  + inserted.replace("\n", "\\n") + " inserted at " + offset;
+				assertEquals(full.declarations().toString(), tree.declarations().toString(), edit);
+				assertEquals(extents(full.declarations()), extents(tree.declarations()), edit);
+				assertEquals(diagnostics(full.diagnostics()), diagnostics(tree.diagnostics()), edit);
+			}
+		}
+	}
+
+	/**
+	 * The token ranges of the nodes a reparse can replace or move.
+	 */
+	static String extents(List<? extends Declaration> declarations) {
+		StringBuilder out = new StringBuilder();
+		for (Declaration declaration : declarations) {
+			out.append(declaration.getFirstToken()).append('-').append(declaration.getTokenEnd()).append(' ');
+			if (declaration instanceof FunctionDeclaration function && function.body instanceof Block block) {
+				out.append('[').append(extents(List.of(block))).append(']');
+			} else if (declaration instanceof Block block) {
+				out.append('{').append(extents(block.statements)).append('}');
+			} else if (declaration instanceof ClassDeclaration cls) {
+				out.append('<').append(extents(cls.members)).append('>');
+			}
+		}
+		return out.toString();
+	}
+
+	static List<String> diagnostics(Diagnostics diagnostics) {
+		List<String> out = new ArrayList<>();
+		for (Diagnostics.Diagnostic diagnostic : diagnostics) {
+			out.add(diagnostic + " at token " + diagnostic.token());
+		}
+		return out;
+	}
+}
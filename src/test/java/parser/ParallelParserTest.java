@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package parser;
+
+import AST.*;
+import org.junit.jupiter.api.*;
+import scanner.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that [ParallelParser] gives the tree, diagnostics and warnings of a sequential parse.
+ */
+class ParallelParserTest {
+	private static final int FUNCTIONS = 3000;
+
+	private static ForkJoinPool pool;
+
+	@BeforeAll
+	static void startPool() {
+		pool = new ForkJoinPool(4);
+	}
+
+	@AfterAll
+	static void stopPool() {
+		pool.shutdown();
+	}
+
+	@Test
+	void matchesSequentialParse() {
+		assertSameParse(program(-1));
+	}
+
+	@Test
+	void fallbackDoesNotRepeatWarnings() {
+		// An error in the last slice makes the whole program be parsed again.
+		assertSameParse(program(FUNCTIONS - 1));
+	}
+
+	private static void assertSameParse(String text) {
+		TokenBuffer tokens = Tokenizer.scan(text);
+		assertTrue(ParallelParser.sliceBounds(tokens, pool.getParallelism() * 4).length > 2, "The tokens are not split.");
+
+		ParsingContext sequential = new ParsingContext(tokens);
+		sequential.holdWarnings();
+		List<Declaration> expected = DeclarationParser.parseProgram(sequential);
+		ParsingContext parallel = new ParsingContext(tokens);
+		parallel.holdWarnings();
+		// Nothing may bypass the context, such as a slice printing its warnings itself.
+		PrintStream console = System.out;
+		ByteArrayOutputStream printed = new ByteArrayOutputStream();
+		List<Declaration> actual;
+		System.setOut(new PrintStream(printed, true));
+		try {
+			actual = ParallelParser.parseProgram(parallel, pool);
+		} finally {
+			System.setOut(console);
+		}
+		assertEquals("", printed.toString());
+
+		assertEquals(expected.toString(), actual.toString());
+		assertEquals(sequential.diagnostics().size(), parallel.diagnostics().size());
+		assertFalse(sequential.heldWarnings().isEmpty());
+		assertEquals(sequential.heldWarnings(), parallel.heldWarnings());
+	}
+
+	/**
+	 * Functions whose return types are left out, which is a warning, with a syntax error in one of them unless
+	 * {@code error} is negative.
+	 */
+	private static String program(int error) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < FUNCTIONS; i++) {
+			text.append("fun f").append(i).append("(a: int) {\n");
+			text.append("\tvar x: int = a * ").append(i).append(i == error ? " + ;\n" : ";\n");
+			text.append("\treturn x;\n}\n");
+		}
+		return text.toString();
+	}
+}
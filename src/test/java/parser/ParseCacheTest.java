@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package parser;
+
+import AST.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import scanner.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that [ParseCache] returns what was stored, and treats a damaged entry as missing.
+ */
+class ParseCacheTest {
+	private static final byte[] SOURCE = "fun f(a: int): int {\n\treturn a + 1;\n}\n".getBytes(StandardCharsets.UTF_8);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void returnsStoredProgram() throws IOException {
+		ParseCache cache = new ParseCache(directory, ParseCache.DEFAULT_MAX_SIZE);
+		List<Declaration> program = store(cache);
+		ParseCache.Entry entry = cache.get(SOURCE);
+		assertNotNull(entry);
+		assertEquals(program.toString(), entry.program().toString());
+	}
+
+	@Test
+	void damagedFunctionBodyIsMissing() throws IOException {
+		ParseCache cache = new ParseCache(directory, ParseCache.DEFAULT_MAX_SIZE);
+		store(cache);
+		Path entry = directory.resolve(ParseCache.key(SOURCE) + ".ast");
+		byte[] bytes = Files.readAllBytes(entry);
+		// The last node in the tree is in the function body, which is otherwise only decoded when first used.
+		ByteBuffer tree = ByteBuffer.wrap(bytes);
+		int start = indexOf(bytes, new byte[]{'C', 'F', 'L', 'A'});
+		int nodeCount = tree.getInt(start + 8);
+		int nodes = tree.getInt(start + 20);
+		bytes[start + nodes + (nodeCount - 1) * 9] = Byte.MAX_VALUE;
+		Files.write(entry, bytes);
+
+		assertNull(cache.get(SOURCE));
+	}
+
+	private static List<Declaration> store(ParseCache cache) throws IOException {
+		ParsingContext context = new ParsingContext(Tokenizer.scan(new String(SOURCE, StandardCharsets.UTF_8)));
+		List<Declaration> program = DeclarationParser.parseProgram(context);
+		cache.put(SOURCE, new ParseCache.Entry(program, context.diagnostics(), new byte[0]));
+		return program;
+	}
+
+	private static int indexOf(byte[] bytes, byte[] part) {
+		search:
+		for (int i = 0; i + part.length <= bytes.length; i++) {
+			for (int j = 0; j < part.length; j++) {
+				if (bytes[i + j] != part[j]) {
+					continue search;
+				}
+			}
+			return i;
+		}
+		throw new AssertionError("No binary AST in the entry.");
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package parser;
+
+import AST.*;
+import org.junit.jupiter.api.*;
+import scanner.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that parsing binary operators by binding power, as [ExpressionParser#PRATT_PROPERTY] selects, builds the
+ * trees, token extents, diagnostics and warnings of parsing them one precedence level at a time.
+ */
+class PrattParserTest {
+	private static final String[] BINARY = {"||", "&&", "|", "^", "&", "==", "!=", "<", "<=", ">", ">=", "<<", ">>", "+",
+			"-", "*", "/", "%", "**"};
+	private static final String[] OPERANDS = {"a", "1", "2.5", "-a", "~b", "!c", "f(a, b)", "(a + b)", "xs[1]", "s.f"};
+	/**
+	 * Text to insert into the sample programs: operators, operands and tokens that end an expression early.
+	 */
+	private static final String[] INSERTS = {"+", "*", "**", "<", "==", "&&", "||", "-", "!", "(", ")", "a", "1", ";",
+			",", "?", ":", "="};
+
+	@Test
+	void matchesPrecedenceClimbingOnSamples() throws IOException {
+		for (String sample : List.of("test.cd", "testExpr.cd", "testFloats.cd")) {
+			assertSameTrees(Files.readString(Path.of(sample)));
+		}
+	}
+
+	@Test
+	void matchesPrecedenceClimbingOnMutatedSamples() throws IOException {
+		Random random = new Random(13);
+		for (String sample : List.of("test.cd", "testExpr.cd", "testFloats.cd")) {
+			String original = Files.readString(Path.of(sample));
+			for (int i = 0; i < 100; i++) {
+				StringBuilder text = new StringBuilder(original);
+				for (int edit = 0; edit < 3; edit++) {
+					int offset = random.nextInt(text.length() + 1);
+					if (random.nextBoolean()) {
+						text.delete(offset, Math.min(text.length(), offset + random.nextInt(8)));
+					} else {
+						text.insert(offset, INSERTS[random.nextInt(INSERTS.length)]);
+					}
+				}
+				assertSameTrees(text.toString());
+			}
+		}
+	}
+
+	@Test
+	void matchesPrecedenceClimbingOnOperatorChains() {
+		Random random = new Random(13);
+		for (int i = 0; i < 500; i++) {
+			StringBuilder text = new StringBuilder("fun f(a: int): int {\n");
+			for (int j = 0; j < 4; j++) {
+				text.append("\treturn ").append(OPERANDS[random.nextInt(OPERANDS.length)]);
+				for (int k = random.nextInt(8); k >= 0; k--) {
+					text.append(' ').append(BINARY[random.nextInt(BINARY.length)]).append(' ')
+							.append(OPERANDS[random.nextInt(OPERANDS.length)]);
+				}
+				text.append(random.nextInt(4) == 0 ? " ? a : b;\n" : ";\n");
+			}
+			assertSameTrees(text.append("}\n").toString());
+		}
+	}
+
+	private static void assertSameTrees(String text) {
+		TokenBuffer tokens = Tokenizer.scan(text);
+		assertEquals(parse(tokens, false), parse(tokens, true), () -> "On:\n" + text);
+	}
+
+	private static List<String> parse(TokenBuffer tokens, boolean pratt) {
+		ParsingContext context = new ParsingContext(tokens);
+		context.expressions().setPratt(pratt);
+		context.holdWarnings();
+		List<Declaration> program = DeclarationParser.parseProgram(context);
+		List<String> result = new ArrayList<>(List.of(program.toString(), IncrementalParserTest.extents(program)));
+		result.addAll(IncrementalParserTest.diagnostics(context.diagnostics()));
+		result.addAll(context.heldWarnings());
+		return result;
+	}
+}
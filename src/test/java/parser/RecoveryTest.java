@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package parser;
+
+import AST.*;
+import AST.Declarations.*;
+import AST.Expressions.*;
+import AST.Statements.*;
+import org.junit.jupiter.api.*;
+import scanner.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that syntax errors are reported as diagnostics and the parse goes on past them.
+ */
+class RecoveryTest {
+	private static final int FUNCTIONS = 2000;
+	/**
+	 * Statements with one syntax error each, put in place of the loop body of every fourth function.
+	 */
+	private static final String[] ERRORS = {"while (x < 10) { x = x + ; }", "if (x + 3) { x = x - 1; }",
+			"while (x) { x = x + 2; }", "do { x = x + 2; } while (-x);", "for (var i: int = 0; i; i++) { x = x + i; }"};
+
+	@Test
+	void reportsEveryErrorInOnePass() {
+		IncrementalParser.Tree tree = IncrementalParser.parse(Tokenizer.scan(program(true)));
+		assertEquals(FUNCTIONS / 4, tree.diagnostics().size());
+		assertEquals(FUNCTIONS, tree.declarations().size());
+	}
+
+	@Test
+	void cleanProgramHasNoErrors() {
+		IncrementalParser.Tree tree = IncrementalParser.parse(Tokenizer.scan(program(false)));
+		assertTrue(tree.diagnostics().isEmpty(), () -> tree.diagnostics().get(0).toString());
+	}
+
+	@Test
+	void badConditionalIsADiagnostic() {
+		String text = "fun f(a: int): int {\n\tif (a + 1) { a = 2; }\n\treturn a;\n}\n";
+		IncrementalParser.Tree tree = IncrementalParser.parse(Tokenizer.scan(text));
+		assertEquals(1, tree.diagnostics().size());
+		Diagnostics.Diagnostic diagnostic = tree.diagnostics().get(0);
+		assertEquals(2, diagnostic.line());
+		assertTrue(diagnostic.message().startsWith("Bad conditional."), diagnostic.message());
+		// Only the conditional is replaced by an error.
+		List<Declaration> body = ((Block) ((FunctionDeclaration) tree.declarations().get(0)).body).statements;
+		assertInstanceOf(ErrorNode.class, assertInstanceOf(If.class, body.get(0)).conditional);
+		assertInstanceOf(Return.class, body.get(1));
+	}
+
+	@Test
+	void reparseReportsBadConditional() {
+		String text = "fun f(a: int): int {\n\tif (a > 1) { a = 2; }\n\treturn a;\n}\n";
+		IncrementalParser.Tree tree = IncrementalParser.parse(Tokenizer.scan(text));
+		int offset = text.indexOf('>');
+		IncrementalParser.Tree edited = IncrementalParser.reparse(tree, new IncrementalLexer.Edit(offset, 1, "+"));
+		assertEquals(1, edited.diagnostics().size());
+	}
+
+	private static String program(boolean withErrors) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < FUNCTIONS; i++) {
+			text.append("fun f").append(i).append("(a: int, b: int): int {\n");
+			text.append("\tvar x: int = a * ").append(i).append(" + b;\n");
+			text.append("\tif (x > 3) { x = x - 1; }\n");
+			if (withErrors && i % 4 == 0) {
+				text.append('\t').append(ERRORS[i / 4 % ERRORS.length]).append('\n');
+			} else {
+				text.append("\twhile (x < 10) { x = x + 2; }\n");
+			}
+			text.append("\treturn x;\n}\n");
+		}
+		return text.toString();
+	}
+}
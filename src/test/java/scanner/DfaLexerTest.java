@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import org.junit.jupiter.api.*;
+import scanner.Token.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the [DfaLexer] built from [TokenSpec] gives the tokens of the hand-written [OperatorTrie] and
+ * [KeywordTable], on character and UTF-8 input, and whether the tokens are buffered or streamed.
+ */
+class DfaLexerTest {
+	private static final int INPUTS = 2_000;
+	/**
+	 * Pieces that random inputs are made of, besides the operators and keywords: near-keywords, identifiers,
+	 * literals, comments, whitespace, and characters that start no token.
+	 */
+	private static final String[] PIECES = {"whil", "whilex", "if_", "doo", "_", "x9", "catch2", "Return", "0", "42",
+			"0x1F", "1.5e3", "1e", "12ab", "\"s\\\"t\\\\\"", "\"ü\"", "\"open", "'c'", "'\\n'", "'", "// note\n", "//",
+			"/", "/ /", " ", "\t", "\n", "\r\n", " ", "é", "名", "@", "#", "$", "`", "\\"};
+
+	@Test
+	void everyOperatorAndKeywordIsOneToken() {
+		Map<String, TokenType> spec = new LinkedHashMap<>(TokenSpec.OPERATORS);
+		spec.putAll(TokenSpec.KEYWORDS);
+		for (Map.Entry<String, TokenType> entry : spec.entrySet()) {
+			for (boolean useDfa : new boolean[]{true, false}) {
+				TokenBuffer tokens = Tokenizer.scan(entry.getKey(), useDfa);
+				assertEquals(2, tokens.size(), entry.getKey());
+				assertEquals(entry.getValue(), tokens.type(0), entry.getKey());
+				assertEquals(entry.getKey().length(), tokens.end(0), entry.getKey());
+			}
+		}
+	}
+
+	@Test
+	void matchesHandWrittenLexerOnTestFile() throws IOException {
+		assertSameTokens(Files.readString(Path.of("test.cd")));
+	}
+
+	@Test
+	void matchesHandWrittenLexerOnRandomInput() {
+		List<String> pieces = new ArrayList<>(List.of(PIECES));
+		pieces.addAll(TokenSpec.OPERATORS.keySet());
+		pieces.addAll(TokenSpec.KEYWORDS.keySet());
+		Random random = new Random(12);
+		for (int i = 0; i < INPUTS; i++) {
+			StringBuilder text = new StringBuilder();
+			for (int j = random.nextInt(40); j >= 0; j--) {
+				if (random.nextInt(8) == 0) {
+					// Printable ASCII, so that operators run into each other in ways the pieces do not cover.
+					text.append((char) (' ' + random.nextInt(95)));
+				} else {
+					text.append(pieces.get(random.nextInt(pieces.size())));
+				}
+				if (random.nextBoolean()) {
+					text.append(' ');
+				}
+			}
+			assertSameTokens(text.toString());
+		}
+	}
+
+	/**
+	 * Lexes the text with both lexers, as a [String] and as a [Utf8Source], into a [TokenBuffer] and through a
+	 * [TokenStream].
+	 */
+	private static void assertSameTokens(String text) {
+		Utf8Source bytes = new Utf8Source(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+		for (CharSequence input : List.of(text, bytes)) {
+			TokenBuffer dfa = Tokenizer.scan(input, true);
+			TokenBuffer hand = Tokenizer.scan(input, false);
+			assertEquals(hand.size(), dfa.size(), () -> "Token count of " + text);
+			for (int i = 0; i < hand.size(); i++) {
+				assertEquals(hand.get(i), dfa.get(i), text);
+				assertEquals(hand.start(i), dfa.start(i), text);
+				assertEquals(hand.end(i), dfa.end(i), text);
+				assertEquals(hand.nameId(i), dfa.nameId(i), text);
+				assertEquals(hand.value(i), dfa.value(i), text);
+			}
+			assertSameTokens(hand, Tokenizer.stream(input, true), text);
+			assertSameTokens(hand, Tokenizer.stream(input, false), text);
+		}
+		// Offsets differ between the two inputs, as UTF-8 offsets count bytes, but the tokens do not.
+		Function<TokenBuffer, List<String>> tokens = buffer -> {
+			List<String> result = new ArrayList<>();
+			for (int i = 0; i < buffer.size(); i++) {
+				result.add(buffer.type(i) + " " + buffer.text(i) + " " + buffer.nameId(i) + " " + buffer.value(i));
+			}
+			return result;
+		};
+		assertEquals(tokens.apply(Tokenizer.scan(text, false)), tokens.apply(Tokenizer.scan(bytes, true)), text);
+	}
+
+	private static void assertSameTokens(TokenBuffer expected, TokenSource actual, String text) {
+		for (int i = 0; i < expected.size(); i++) {
+			String token = "Token " + i + " of " + text;
+			assertEquals(i, actual.position(), token);
+			assertEquals(expected.type(i), actual.peekType(0), token);
+			assertEquals(expected.text(i), actual.peekText(0), token);
+			assertEquals(expected.nameId(i), actual.peekNameId(0), token);
+			assertEquals(expected.value(i), actual.peekValue(0), token);
+			assertEquals(expected.line(i), actual.peekLine(0), token);
+			assertEquals(expected.column(i), actual.peekColumn(0), token);
+			Token peeked = actual.peek(0);
+			assertEquals(expected.get(i), peeked, token);
+			assertEquals(expected.start(i), peeked.start, token);
+			assertEquals(expected.end(i), peeked.end, token);
+			actual.advance(1);
+		}
+		assertEquals(TokenType.EOF, actual.peekType(0), text);
+		assertNull(actual.peek(0), text);
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import org.junit.jupiter.api.*;
+import scanner.Token.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks [NumberScanner] on malformed and out-of-range literals, and against [Long#parseLong] and
+ * [Double#parseDouble] on random ones.
+ */
+class NumberScannerTest {
+	private static final int LITERALS = 200_000;
+
+	@Test
+	void rejectsMalformedLiterals() {
+		assertMalformed("0x", "A hexadecimal literal needs at least one digit.");
+		assertMalformed("0xg1", "A hexadecimal literal needs at least one digit.");
+		assertMalformed("1e", "Malformed numeric literal.");
+		assertMalformed("12ab", "Malformed numeric literal.");
+		assertMalformed("1.5f", "Malformed numeric literal.");
+		assertMalformed("0x1_0", "Malformed numeric literal.");
+	}
+
+	@Test
+	void rejectsLiteralsOutOfRange() {
+		assertMalformed("9223372036854775808", "Integer literal does not fit in 64 bits.");
+		assertMalformed("0x1FFFFFFFFFFFFFFFF", "Hexadecimal literal does not fit in 64 bits.");
+		assertMalformed("1e999", "Float literal does not fit in a double.");
+		assertMalformed("1.8e308", "Float literal does not fit in a double.");
+		assertMalformed(("9".repeat(400)) + ".0", "Float literal does not fit in a double.");
+	}
+
+	@Test
+	void decodesLiteralsAtTheLimits() {
+		assertInteger("9223372036854775807", Long.MAX_VALUE);
+		assertInteger("0xFFFFFFFFFFFFFFFF", -1);
+		assertInteger("0x00000000000000000001", 1);
+		assertFloat("1.7976931348623157e308");
+		assertFloat("1e-999");
+		assertFloat("4.9e-324");
+		// Just past the fast path: the significand is not exact in a double.
+		assertFloat("9007199254740993e0");
+		assertFloat("9007199254740993.0");
+		assertFloat("9007199254740991e22");
+		assertFloat("9007199254740991e23");
+		assertFloat("1e-22");
+		assertFloat("1e-23");
+		assertFloat("0." + "0".repeat(400) + "1");
+		assertFloat("1" + "0".repeat(400) + ".5e-400");
+	}
+
+	@Test
+	void stopsBeforeOperators() {
+		NumberScanner scanner = scan("12.e3");
+		assertEquals(TokenType.INTCONST, scanner.type);
+		assertEquals(2, scanner.end);
+		scanner = scan("3-1");
+		assertEquals(TokenType.INTCONST, scanner.type);
+		assertEquals(1, scanner.end);
+		scanner = scan("2e-1+1");
+		assertEquals(TokenType.FLOATCONST, scanner.type);
+		assertEquals(4, scanner.end);
+	}
+
+	@Test
+	void matchesLibraryOnRandomLiterals() {
+		Random random = new Random(10);
+		for (int i = 0; i < LITERALS; i++) {
+			StringBuilder text = new StringBuilder(digits(random, 1 + random.nextInt(random.nextBoolean() ? 8 : 22)));
+			if (random.nextInt(4) == 0 && text.length() < 19) {
+				assertInteger(text.toString(), Long.parseLong(text.toString()));
+				continue;
+			}
+			if (random.nextBoolean()) {
+				text.append('.').append(digits(random, 1 + random.nextInt(20)));
+			}
+			if (random.nextBoolean() || text.indexOf(".") < 0) {
+				text.append(random.nextBoolean() ? 'e' : 'E').append(random.nextBoolean() ? "-" : "");
+				text.append(random.nextInt(random.nextBoolean() ? 30 : 330));
+			}
+			String literal = text.toString();
+			if (Double.isInfinite(Double.parseDouble(literal))) {
+				assertMalformed(literal, "Float literal does not fit in a double.");
+			} else {
+				assertFloat(literal);
+			}
+		}
+	}
+
+	private static String digits(Random random, int count) {
+		StringBuilder digits = new StringBuilder(count);
+		for (int i = 0; i < count; i++) {
+			digits.append((char) ('0' + random.nextInt(10)));
+		}
+		return digits.toString();
+	}
+
+	private static NumberScanner scan(String text) {
+		NumberScanner scanner = new NumberScanner();
+		scanner.scan(text, 0, text.length());
+		return scanner;
+	}
+
+	private static void assertMalformed(String text, String error) {
+		NumberScanner scanner = scan(text + " ");
+		assertEquals(TokenType.UNIMPLEMENTED, scanner.type, text);
+		assertEquals(error, scanner.error, text);
+		assertEquals(text.length(), scanner.end, text);
+	}
+
+	private static void assertInteger(String text, long value) {
+		NumberScanner scanner = scan(text + ";");
+		assertNull(scanner.error, text);
+		assertEquals(TokenType.INTCONST, scanner.type, text);
+		assertEquals(value, scanner.value, text);
+		assertEquals(text.length(), scanner.end, text);
+	}
+
+	private static void assertFloat(String text) {
+		NumberScanner scanner = scan(text + ";");
+		assertNull(scanner.error, text);
+		assertEquals(TokenType.FLOATCONST, scanner.type, text);
+		assertEquals(Double.doubleToRawLongBits(Double.parseDouble(text)), scanner.value, text);
+		assertEquals(text.length(), scanner.end, text);
+	}
+}
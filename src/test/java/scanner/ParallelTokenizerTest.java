@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package scanner;
+
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that [ParallelTokenizer] gives the same tokens as a sequential scan, in particular when a chunk would end at
+ * a line feed inside a string or character literal.
+ */
+class ParallelTokenizerTest {
+	/**
+	 * Lines with a token that goes on past a line feed.
+	 */
+	private static final String[] SPANNING = {"s = \"a\\\nb\";", "s = \"a\\\\\\\nb\";", "c = '\\\n';", "c = '\n';"};
+	/**
+	 * Lines whose tokens all end before the line feed after them.
+	 */
+	private static final String[] PLAIN = {"s = \"a\\\\\";", "c = '\\\\';", "c = '\\n';", "var x: int = 1; // \"",
+			"fun f(a: int): int { return a * 2; }"};
+
+	private static ForkJoinPool pool;
+
+	@BeforeAll
+	static void startPool() {
+		pool = new ForkJoinPool(4);
+	}
+
+	@AfterAll
+	static void stopPool() {
+		pool.shutdown();
+	}
+
+	@Test
+	void matchesSequentialScanOfTestFile() throws IOException {
+		String source = Files.readString(Path.of("test.cd"));
+		StringBuilder text = new StringBuilder();
+		while (text.length() < 3 * ParallelTokenizer.MIN_CHUNK) {
+			text.append(source).append('\n');
+		}
+		assertSameTokens(text.toString());
+	}
+
+	@Test
+	void doesNotCutInsideLiteralsAtChunkEdges() {
+		for (String spanning : SPANNING) {
+			StringBuilder text = new StringBuilder();
+			fill(text, ParallelTokenizer.MIN_CHUNK - 64);
+			// The first line feed at or after the end of the first chunk is the one inside the literal.
+			text.append(" ".repeat(ParallelTokenizer.MIN_CHUNK - text.length()));
+			text.append(spanning).append('\n');
+			fill(text, 3 * ParallelTokenizer.MIN_CHUNK);
+			assertSameTokens(text.toString());
+		}
+	}
+
+	@Test
+	void matchesSequentialScanOfGeneratedText() {
+		Random random = new Random(8);
+		for (int round = 0; round < 4; round++) {
+			StringBuilder text = new StringBuilder();
+			while (text.length() < 3 * ParallelTokenizer.MIN_CHUNK) {
+				String[] lines = random.nextBoolean() ? SPANNING : PLAIN;
+				text.append(lines[random.nextInt(lines.length)]).append('\n');
+			}
+			assertSameTokens(text.toString());
+		}
+	}
+
+	private static void fill(StringBuilder text, int length) {
+		for (int i = 0; text.length() < length; i++) {
+			text.append(PLAIN[i % PLAIN.length]).append('\n');
+		}
+	}
+
+	private static void assertSameTokens(String text) {
+		assertTrue(ParallelTokenizer.chunkBounds(text, pool.getParallelism() * 2).length > 2,
+				"The text is not split.");
+		assertSameTokens(Tokenizer.scan(text), ParallelTokenizer.scan(text, pool));
+		Utf8Source bytes = new Utf8Source(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+		assertSameTokens(Tokenizer.scan(bytes), ParallelTokenizer.scan(bytes, pool));
+	}
+
+	private static void assertSameTokens(TokenBuffer expected, TokenBuffer actual) {
+		assertEquals(expected.size(), actual.size(), "Token count");
+		for (int i = 0; i < expected.size(); i++) {
+			String token = "Token " + i;
+			assertEquals(expected.type(i), actual.type(i), token);
+			assertEquals(expected.start(i), actual.start(i), token);
+			assertEquals(expected.end(i), actual.end(i), token);
+			assertEquals(expected.text(i), actual.text(i), token);
+			assertEquals(expected.nameId(i), actual.nameId(i), token);
+			assertEquals(expected.value(i), actual.value(i), token);
+		}
+	}
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright (c) 2023.
+ * This file is part of the c-flat-compiler-java, which is released under the GPL-3.
+ * See LICENSE or go to https://www.gnu.org/licenses/gpl-3.0.en.html for full license details.
+ */
+
+package utils;
+
+import AST.ASTRoot.*;
+import AST.*;
+import AST.Declarations.*;
+import AST.Expressions.*;
+import AST.Statements.*;
+import org.junit.jupiter.api.*;
+import parser.*;
+import scanner.*;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads what [ASTExporter] writes back with a strict JSON parser and an S-expression reader, and checks that both
+ * formats hold the same tree, with strings intact.
+ */
+class ASTExporterTest {
+	/**
+	 * Strings with quotes, backslashes, control characters and characters outside ASCII and the BMP.
+	 */
+	private static final String[] STRINGS = {"a\"b\\c\td", "ü 𝄞 (x) ;", "\u0001\r\n\u001f", "名前", ""};
+
+	@Test
+	void formatsHoldTheSameTreeOfTestFile() throws IOException {
+		List<Declaration> program = parse(Files.readString(Path.of("test.cd")));
+		assertSameTree(program);
+	}
+
+	@Test
+	void keepsEscapedAndNonAsciiStrings() {
+		StringBuilder text = new StringBuilder("fun f(e: int): int {\n");
+		for (String string : STRINGS) {
+			if (string.indexOf('\r') < 0 && string.indexOf('\u0001') < 0) {
+				text.append("\tvar s: string = \"").append(string.replace("\\", "\\\\").replace("\"", "\\\""))
+						.append("\";\n");
+			}
+		}
+		List<Declaration> program = parse(text.append("\treturn e;\n}\n").toString());
+		List<Object> strings = new ArrayList<>();
+		collect(new JsonReader(export(program, ASTExporter.Format.JSON)).read(), "StringLit", strings);
+		assertEquals(List.of(STRINGS[0], STRINGS[1], STRINGS[3], STRINGS[4]), strings);
+		assertSameTree(program);
+	}
+
+	@Test
+	void keepsNonAsciiNamesOfBuiltTrees() {
+		long at = Position.of(1, 1);
+		List<Declaration> body = new ArrayList<>();
+		for (String string : STRINGS) {
+			body.add(new SimpleVarDeclaration(new TypedVar(string, "string", -1, -1), new StringLit(string, at), at));
+		}
+		body.add(new Return(new VariableAccess("é", -1, at), at));
+		List<Declaration> program = List.of(new FunctionDeclaration("名前", -1, List.of(new TypedVar("é", "int", -1, -1)),
+				"int", -1, new Block(body, at), at));
+
+		Object json = new JsonReader(export(program, ASTExporter.Format.JSON)).read();
+		Map<?, ?> function = (Map<?, ?>) ((List<?>) json).get(0);
+		assertEquals("名前", function.get("name"));
+		assertEquals("é", ((Map<?, ?>) ((List<?>) function.get("parameters")).get(0)).get("name"));
+		List<Object> strings = new ArrayList<>();
+		collect(json, "StringLit", strings);
+		assertEquals(List.of(STRINGS), strings);
+		assertSameTree(program);
+	}
+
+	@Test
+	void writesNonFiniteFloatsAsNull() {
+		long at = Position.of(1, 1);
+		List<Declaration> program = List.of(new Return(new Floating(Double.POSITIVE_INFINITY, at), at),
+				new Return(new Floating(Double.NaN, at), at), new Return(new Floating(-0.5, at), at));
+		List<Object> values = new ArrayList<>();
+		collect(new JsonReader(export(program, ASTExporter.Format.JSON)).read(), "Floating", values);
+		assertEquals(Arrays.asList(null, null, -0.5), values);
+		assertSameTree(program);
+	}
+
+	private static List<Declaration> parse(String text) {
+		ParsingContext context = new ParsingContext(Tokenizer.scan(text));
+		List<Declaration> program = DeclarationParser.parseProgram(context);
+		assertTrue(context.diagnostics().isEmpty(), () -> context.diagnostics().get(0).toString());
+		return program;
+	}
+
+	private static String export(List<Declaration> program, ASTExporter.Format format) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ASTExporter(Channels.newChannel(out), format).export(program);
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Checks that the JSON parses, that the S-expressions are balanced with one declaration to a line, and that
+	 * writing the parsed JSON as S-expressions gives back what the exporter wrote.
+	 */
+	private static void assertSameTree(List<Declaration> program) {
+		Object json = new JsonReader(export(program, ASTExporter.Format.JSON)).read();
+		assertEquals(program.size(), ((List<?>) json).size());
+		String sexpr = export(program, ASTExporter.Format.SEXPR);
+		String[] lines = sexpr.split("\n", -1);
+		assertEquals(program.size() + 1, lines.length);
+		assertEquals("", lines[program.size()]);
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < program.size(); i++) {
+			assertBalanced(lines[i]);
+			toSexpr(((List<?>) json).get(i), expected);
+			expected.append('\n');
+		}
+		assertEquals(expected.toString(), sexpr);
+	}
+
+	/**
+	 * Checks that a line is one S-expression whose parentheses outside strings balance.
+	 */
+	private static void assertBalanced(String line) {
+		int depth = 0;
+		boolean inString = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (inString) {
+				if (c == '\\') {
+					i++;
+				} else if (c == '"') {
+					inString = false;
+				}
+			} else if (c == '"') {
+				inString = true;
+			} else if (c == '(') {
+				depth++;
+			} else if (c == ')') {
+				depth--;
+				assertTrue(depth > 0 || depth == 0 && i == line.length() - 1, line);
+			}
+		}
+		assertFalse(inString, line);
+		assertEquals(0, depth, line);
+		assertTrue(line.startsWith("("), line);
+	}
+
+	private static void toSexpr(Object value, StringBuilder out) {
+		if (value == null) {
+			out.append("nil");
+		} else if (value instanceof String string) {
+			out.append('"');
+			for (int i = 0; i < string.length(); i++) {
+				char c = string.charAt(i);
+				switch (c) {
+					case '"', '\\' -> out.append('\\').append(c);
+					case '\n' -> out.append("\\n");
+					case '\r' -> out.append("\\r");
+					case '\t' -> out.append("\\t");
+					default -> out.append(c < 0x20 ? String.format("\\u%04x", (int) c) : c);
+				}
+			}
+			out.append('"');
+		} else if (value instanceof List<?> list) {
+			out.append('(');
+			for (int i = 0; i < list.size(); i++) {
+				if (i > 0) {
+					out.append(' ');
+				}
+				toSexpr(list.get(i), out);
+			}
+			out.append(')');
+		} else if (value instanceof Map<?, ?> map) {
+			out.append('(');
+			boolean first = true;
+			for (Map.Entry<?, ?> field : map.entrySet()) {
+				if (field.getKey().equals("kind")) {
+					out.append(field.getValue());
+				} else {
+					out.append(first ? ":" : " :").append(field.getKey()).append(' ');
+					toSexpr(field.getValue(), out);
+				}
+				first = false;
+			}
+			out.append(')');
+		} else if (value instanceof Number number) {
+			out.append(number instanceof Double ? Double.toString((Double) number) : number.toString());
+		} else {
+			out.append(value);
+		}
+	}
+
+	/**
+	 * Adds the values of the nodes of one kind, in the order they were written.
+	 */
+	private static void collect(Object value, String kind, List<Object> values) {
+		if (value instanceof List<?> list) {
+			for (Object item : list) {
+				collect(item, kind, values);
+			}
+		} else if (value instanceof Map<?, ?> map) {
+			if (kind.equals(map.get("kind"))) {
+				values.add(map.get("value"));
+			}
+			for (Object field : map.values()) {
+				collect(field, kind, values);
+			}
+		}
+	}
+
+	/**
+	 * A parser for RFC 8259 JSON that fails on anything else. Objects keep their fields in order, and numbers are
+	 * longs unless they have a fraction or an exponent.
+	 */
+	private static final class JsonReader {
+		private final String text;
+		private int pos;
+
+		JsonReader(String text) {
+			this.text = text;
+		}
+
+		Object read() {
+			Object value = value();
+			skipSpace();
+			assertEquals(text.length(), pos, "Text after the JSON value");
+			return value;
+		}
+
+		private Object value() {
+			skipSpace();
+			assertTrue(pos < text.length(), "Unexpected end of JSON");
+			char c = text.charAt(pos);
+			switch (c) {
+				case '{' -> {
+					pos++;
+					Map<String, Object> object = new LinkedHashMap<>();
+					skipSpace();
+					if (text.charAt(pos) == '}') {
+						pos++;
+						return object;
+					}
+					do {
+						skipSpace();
+						String key = string();
+						skipSpace();
+						expect(':');
+						assertNull(object.put(key, value()), "Duplicate key " + key);
+						skipSpace();
+					} while (accept(','));
+					expect('}');
+					return object;
+				}
+				case '[' -> {
+					pos++;
+					List<Object> array = new ArrayList<>();
+					skipSpace();
+					if (text.charAt(pos) == ']') {
+						pos++;
+						return array;
+					}
+					do {
+						array.add(value());
+						skipSpace();
+					} while (accept(','));
+					expect(']');
+					return array;
+				}
+				case '"' -> {
+					return string();
+				}
+				default -> {
+					if (text.startsWith("null", pos)) {
+						pos += 4;
+						return null;
+					} else if (text.startsWith("true", pos)) {
+						pos += 4;
+						return true;
+					} else if (text.startsWith("false", pos)) {
+						pos += 5;
+						return false;
+					}
+					return number();
+				}
+			}
+		}
+
+		private String string() {
+			expect('"');
+			StringBuilder out = new StringBuilder();
+			while (true) {
+				char c = text.charAt(pos++);
+				if (c == '"') {
+					return out.toString();
+				}
+				assertTrue(c >= 0x20, "Unescaped control character in a string");
+				if (c != '\\') {
+					out.append(c);
+					continue;
+				}
+				char escaped = text.charAt(pos++);
+				switch (escaped) {
+					case '"', '\\', '/' -> out.append(escaped);
+					case 'b' -> out.append('\b');
+					case 'f' -> out.append('\f');
+					case 'n' -> out.append('\n');
+					case 'r' -> out.append('\r');
+					case 't' -> out.append('\t');
+					case 'u' -> {
+						out.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+						pos += 4;
+					}
+					default -> fail("Bad escape \\" + escaped);
+				}
+			}
+		}
+
+		private Number number() {
+			int start = pos;
+			accept('-');
+			if (!accept('0')) {
+				digits();
+			}
+			boolean integer = true;
+			if (accept('.')) {
+				integer = false;
+				digits();
+			}
+			if (accept('e') || accept('E')) {
+				integer = false;
+				if (!accept('+')) {
+					accept('-');
+				}
+				digits();
+			}
+			String number = text.substring(start, pos);
+			return integer ? (Number) Long.parseLong(number) : (Number) Double.parseDouble(number);
+		}
+
+		private void digits() {
+			int start = pos;
+			while (pos < text.length() && text.charAt(pos) >= '0' && text.charAt(pos) <= '9') {
+				pos++;
+			}
+			assertTrue(pos > start, "Expected a digit at " + start);
+		}
+
+		private void skipSpace() {
+			while (pos < text.length() && " \t\n\r".indexOf(text.charAt(pos)) >= 0) {
+				pos++;
+			}
+		}
+
+		private boolean accept(char c) {
+			if (pos < text.length() && text.charAt(pos) == c) {
+				pos++;
+				return true;
+			}
+			return false;
+		}
+
+		private void expect(char c) {
+			assertTrue(accept(c), "Expected " + c + " at " + pos);
+		}
+	}
+}